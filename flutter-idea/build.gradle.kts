@@ -130,6 +130,14 @@ sourceSets {
       "testSrc/unit"
     ))
   }
+  // Benchmarks are kept out of the unit tests; run them with `./gradlew benchmark`.
+  create("benchmark") {
+    java.srcDirs(listOf(
+      "testSrc/benchmark"
+    ))
+    compileClasspath += sourceSets["test"].output + sourceSets["test"].compileClasspath
+    runtimeClasspath += sourceSets["test"].output + sourceSets["test"].runtimeClasspath
+  }
 }
 
 tasks {
@@ -156,5 +164,18 @@ tasks {
       events("skipped", "failed")
     }
   }
+
+  register<Test>("benchmark") {
+    description = "Runs the benchmarks in testSrc/benchmark."
+    group = "verification"
+    testClassesDirs = sourceSets["benchmark"].output.classesDirs
+    classpath = sourceSets["benchmark"].runtimeClasspath
+    useJUnit()
+    testLogging {
+      showStandardStreams = true
+      exceptionFormat = TestExceptionFormat.FULL
+      events("skipped", "failed")
+    }
+  }
 }
 
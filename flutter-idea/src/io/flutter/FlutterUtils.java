@@ -17,6 +17,7 @@ import com.intellij.ide.util.PropertiesComponent;
 import com.intellij.openapi.application.ApplicationInfo;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.extensions.PluginId;
 import com.intellij.openapi.module.Module;
@@ -34,12 +35,15 @@ import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.testFramework.LightVirtualFile;
 import com.intellij.util.PlatformUtils;
+import com.intellij.util.containers.ContainerUtil;
 import com.jetbrains.lang.dart.DartFileType;
 import com.jetbrains.lang.dart.psi.DartFile;
 import io.flutter.jxbrowser.EmbeddedJxBrowser;
 import io.flutter.jxbrowser.JxBrowserStatus;
 import io.flutter.pub.PubRoot;
 import io.flutter.pub.PubRootCache;
+import io.flutter.pub.PubRoots;
+import io.flutter.pub.PubspecScanner;
 import io.flutter.settings.FlutterSettings;
 import io.flutter.utils.AndroidUtils;
 import io.flutter.utils.FlutterModuleUtils;
@@ -59,6 +63,7 @@ import org.yaml.snakeyaml.resolver.Resolver;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
@@ -68,11 +73,13 @@ public class FlutterUtils {
   public static class FlutterPubspecInfo {
     private final long modificationStamp;
 
-    private boolean flutter = false;
-    private boolean plugin = false;
+    private final boolean flutter;
+    private final boolean plugin;
 
-    FlutterPubspecInfo(long modificationStamp) {
+    FlutterPubspecInfo(long modificationStamp, boolean flutter, boolean plugin) {
       this.modificationStamp = modificationStamp;
+      this.flutter = flutter;
+      this.plugin = plugin;
     }
 
     public boolean declaresFlutter() {
@@ -92,6 +99,11 @@ public class FlutterUtils {
   // Note the possessive quantifiers -- greedy quantifiers are too slow on long expressions (#1421).
   private static final Pattern VALID_PACKAGE = Pattern.compile("^([a-z]++([_]?[a-z0-9]+)*)++$");
 
+  /**
+   * Parsed pubspec info, shared by all callers and revalidated against the pubspec's modification stamp.
+   */
+  private static final Map<VirtualFile, FlutterPubspecInfo> pubspecInfoCache = ContainerUtil.createConcurrentWeakMap();
+
   private FlutterUtils() {
   }
 
@@ -395,41 +407,81 @@ public class FlutterUtils {
   /**
    * Returns a structured object with information about the Flutter properties of the given
    * pubspec file.
+   * <p>
+   * The result is cached until the pubspec's modification stamp changes.
    */
   public static FlutterPubspecInfo getFlutterPubspecInfo(@NotNull final VirtualFile pubspec) {
-    // It uses Flutter if it contains 'dependencies: flutter'.
-    // It's a plugin if it contains 'flutter: plugin'.
-
-    final FlutterPubspecInfo info = new FlutterPubspecInfo(pubspec.getModificationStamp());
-
-    try {
-      final Map<String, Object> yamlMap = readPubspecFileToMap(pubspec);
-      if (yamlMap != null) {
-        // Special case the 'flutter' package itself - this allows us to run their unit tests from IntelliJ.
-        final Object packageName = yamlMap.get("name");
-        if ("flutter".equals(packageName)) {
-          info.flutter = true;
-        }
+    final long modificationStamp = pubspec.getModificationStamp();
+    final FlutterPubspecInfo cached = pubspecInfoCache.get(pubspec);
+    if (cached != null && cached.getModificationStamp() == modificationStamp) {
+      return cached;
+    }
 
-        // Check the dependencies.
-        final Object dependencies = yamlMap.get("dependencies");
-        if (dependencies instanceof Map) {
-          // We use `|=` for assigning to 'flutter' below as it might have been assigned to true above.
-          info.flutter |= ((Map<?, ?>)dependencies).containsKey("flutter");
-        }
+    final FlutterPubspecInfo info = readFlutterPubspecInfo(pubspec, modificationStamp);
+    pubspecInfoCache.put(pubspec, info);
+    return info;
+  }
 
-        // Check for a Flutter plugin.
-        final Object flutterEntry = yamlMap.get("flutter");
-        if (flutterEntry instanceof Map) {
-          info.plugin = ((Map<?, ?>)flutterEntry).containsKey("plugin");
+  /**
+   * Parse the pubspec info of all the pub roots in the project on a background thread, so that later calls to
+   * {@link #getFlutterPubspecInfo} are answered from the cache.
+   */
+  public static void preloadPubspecInfo(@NotNull Project project) {
+    ApplicationManager.getApplication().executeOnPooledThread(() -> {
+      final List<PubRoot> roots = ReadAction.compute(() -> PubRoots.forProject(project));
+      for (PubRoot root : roots) {
+        if (project.isDisposed()) {
+          return;
         }
+        getFlutterPubspecInfo(root.getPubspec());
       }
+    });
+  }
+
+  @NotNull
+  private static FlutterPubspecInfo readFlutterPubspecInfo(@NotNull final VirtualFile pubspec, long modificationStamp) {
+    // It uses Flutter if it contains 'dependencies: flutter'.
+    // It's a plugin if it contains 'flutter: plugin'.
+    final String contents;
+    try {
+      contents = new String(pubspec.contentsToByteArray(true /* cache contents */), Charsets.UTF_8);
     }
     catch (IOException e) {
-      // ignore
+      return new FlutterPubspecInfo(modificationStamp, false, false);
     }
 
-    return info;
+    // Most pubspecs can be classified without building the full YAML object graph.
+    final PubspecScanner scanner = PubspecScanner.scan(contents);
+    if (scanner != null) {
+      // Special case the 'flutter' package itself - this allows us to run their unit tests from IntelliJ.
+      final boolean flutter = "flutter".equals(scanner.getName()) || scanner.dependsOnFlutter();
+      return new FlutterPubspecInfo(modificationStamp, flutter, scanner.declaresPlugin());
+    }
+
+    boolean flutter = false;
+    boolean plugin = false;
+    final Map<String, Object> yamlMap = loadPubspecInfo(contents);
+    if (yamlMap != null) {
+      // Special case the 'flutter' package itself - this allows us to run their unit tests from IntelliJ.
+      final Object packageName = yamlMap.get("name");
+      if ("flutter".equals(packageName)) {
+        flutter = true;
+      }
+
+      // Check the dependencies.
+      final Object dependencies = yamlMap.get("dependencies");
+      if (dependencies instanceof Map) {
+        // We use `|=` for assigning to 'flutter' below as it might have been assigned to true above.
+        flutter |= ((Map<?, ?>)dependencies).containsKey("flutter");
+      }
+
+      // Check for a Flutter plugin.
+      final Object flutterEntry = yamlMap.get("flutter");
+      if (flutterEntry instanceof Map) {
+        plugin = ((Map<?, ?>)flutterEntry).containsKey("plugin");
+      }
+    }
+    return new FlutterPubspecInfo(modificationStamp, flutter, plugin);
   }
 
   /**
@@ -462,11 +514,6 @@ public class FlutterUtils {
     return null;
   }
 
-  private static Map<String, Object> readPubspecFileToMap(@NotNull final VirtualFile pubspec) throws IOException {
-    final String contents = new String(pubspec.contentsToByteArray(true /* cache contents */));
-    return loadPubspecInfo(contents);
-  }
-
   private static Map<String, Object> loadPubspecInfo(@NotNull String yamlContents) {
     final Yaml yaml = new Yaml(new SafeConstructor(new LoaderOptions()), new Representer(new DumperOptions()), new DumperOptions(), new Resolver() {
       @Override
@@ -480,7 +527,9 @@ public class FlutterUtils {
     });
 
     try {
-      return yaml.load(yamlContents);
+      final Object result = yaml.load(yamlContents);
+      //noinspection unchecked
+      return result instanceof Map ? (Map<String, Object>)result : null;
     }
     catch (Exception e) {
       return null;
@@ -29,6 +29,7 @@ import io.flutter.analytics.TimeTracker;
 import io.flutter.bazel.WorkspaceCache;
 import io.flutter.jxbrowser.JxBrowserManager;
 import io.flutter.pub.PubRoot;
+import io.flutter.pub.PubRootCache;
 import io.flutter.pub.PubRoots;
 import io.flutter.sdk.FlutterSdk;
 import io.flutter.utils.AndroidUtils;
@@ -58,6 +59,10 @@ public class ProjectOpenActivity implements StartupActivity, DumbAware {
       return;
     }
 
+    // The check above stops at the first Flutter module; parse the remaining pubspecs in the background.
+    FlutterUtils.preloadPubspecInfo(project);
+    PubRootCache.getInstance(project).warmUp();
+
     // Set up JxBrowser listening and check if it's already enabled.
     JxBrowserManager.getInstance().listenForSettingChanges(project);
     JxBrowserManager.getInstance().setUp(project);
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.analytics;
+
+import org.dartlang.analysis.server.protocol.AnalysisError;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Counts the analysis errors of each type across a project, given the errors of one file at a time.
+ * <p>
+ * Each update replaces the file's previous counts, adjusting the totals by the difference, so reading the totals takes
+ * constant time however many files have been analyzed. Updates may come from any thread.
+ */
+class AnalysisErrorCounts {
+  @NotNull private final String[] types;
+
+  /**
+   * The counts of each type in each file that has any errors of the counted types. The arrays are never modified.
+   */
+  @NotNull private final Map<String, int[]> countsByPath = new ConcurrentHashMap<>();
+
+  @NotNull private final AtomicIntegerArray totals;
+
+  /**
+   * @param types the {@link AnalysisError#getType() error types} to count
+   */
+  AnalysisErrorCounts(@NotNull String[] types) {
+    this.types = types;
+    this.totals = new AtomicIntegerArray(types.length);
+  }
+
+  /**
+   * Replace the counts for the given file with the counts of the given errors.
+   */
+  void update(@NotNull String path, @NotNull List<AnalysisError> errors) {
+    final int[] counts = count(errors);
+    final int[] previous = counts == null ? countsByPath.remove(path) : countsByPath.put(path, counts);
+    for (int i = 0; i < types.length; i++) {
+      final int delta = (counts == null ? 0 : counts[i]) - (previous == null ? 0 : previous[i]);
+      if (delta != 0) {
+        totals.addAndGet(i, delta);
+      }
+    }
+  }
+
+  /**
+   * Return the number of errors of the given type in all files, or 0 if the type is not counted.
+   */
+  int getTotal(@NotNull String type) {
+    final int index = indexOf(type);
+    return index < 0 ? 0 : totals.get(index);
+  }
+
+  /**
+   * Return the counts of each type in the given errors, or null if there are none of the counted types.
+   */
+  @Nullable
+  private int[] count(@NotNull List<AnalysisError> errors) {
+    int[] counts = null;
+    for (AnalysisError error : errors) {
+      final int index = indexOf(error.getType());
+      if (index >= 0) {
+        if (counts == null) {
+          counts = new int[types.length];
+        }
+        counts[index]++;
+      }
+    }
+    return counts;
+  }
+
+  private int indexOf(@Nullable String type) {
+    for (int i = 0; i < types.length; i++) {
+      if (Objects.equals(types[i], type)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
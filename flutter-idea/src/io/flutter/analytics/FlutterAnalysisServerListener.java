@@ -41,6 +41,7 @@ import java.beans.PropertyChangeEvent;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @SuppressWarnings("LocalCanBeFinal")
@@ -99,6 +100,7 @@ public final class FlutterAnalysisServerListener implements Disposable, Analysis
   // instance members
   @NotNull private final Project project;
   @NotNull private final Map<String, List<AnalysisError>> pathToErrors;
+  @NotNull private final AnalysisErrorCounts errorCounts = new AnalysisErrorCounts(ERROR_TYPES);
   @NotNull private final Map<String, Instant> pathToErrorTimestamps;
   @NotNull private final Map<String, Instant> pathToHighlightTimestamps;
   @NotNull private final Map<String, Instant> pathToOutlineTimestamps;
@@ -116,7 +118,7 @@ public final class FlutterAnalysisServerListener implements Disposable, Analysis
 
   FlutterAnalysisServerListener(@NotNull Project project) {
     this.project = project;
-    this.pathToErrors = new HashMap<>();
+    this.pathToErrors = new ConcurrentHashMap<>();
     this.pathToErrorTimestamps = new HashMap<>();
     this.pathToHighlightTimestamps = new HashMap<>();
     this.pathToOutlineTimestamps = new HashMap<>();
@@ -236,8 +238,15 @@ public final class FlutterAnalysisServerListener implements Disposable, Analysis
   @Override
   public void computedErrors(String path, List<AnalysisError> list) {
     assert list != null;
-    pathToErrors.put(path, list);
     assert path != null;
+    // Todos are ignored in the Dart Problems view, and can be ignored for any dashboard work. The list belongs to the
+    // analysis server, so filter a copy rather than the list itself.
+    final List<AnalysisError> errors =
+      list.stream().anyMatch(e -> Objects.equals(e.getType(), AnalysisErrorType.TODO))
+      ? list.stream().filter(e -> !Objects.equals(e.getType(), AnalysisErrorType.TODO)).collect(Collectors.toList())
+      : list;
+    pathToErrors.put(path, errors);
+    errorCounts.update(path, errors);
     maybeLogInitialAnalysisTime(INITIAL_COMPUTE_ERRORS_TIME, path, pathToErrorTimestamps);
   }
 
@@ -249,49 +258,6 @@ public final class FlutterAnalysisServerListener implements Disposable, Analysis
     return Objects.requireNonNull(pathToErrors.getOrDefault(path, AnalysisError.EMPTY_LIST));
   }
 
-  /**
-   * Iterate through all files in this {@link Project}, counting how many of each {@link
-   * AnalysisErrorType} is in each file. The returned {@link HashMap} will contain the set of String
-   * keys in ERROR_TYPES and values with the mentioned sums, converted to Strings.
-   */
-  @NotNull
-  private HashMap<String, Integer> getTotalAnalysisErrorCounts() {
-    // Create a zero-filled array of length ERROR_TYPES.length.
-    int[] errorCountsArray = new int[ERROR_TYPES.length];
-
-    // Iterate through each file in this project.
-    for (String keyPath : pathToErrors.keySet()) {
-      // Get the list of AnalysisErrors and remove any todos from the list, these are ignored in the
-      // Dart Problems view, and can be ignored for any dashboard work.
-      assert keyPath != null;
-      List<AnalysisError> errors = getAnalysisErrorsForFile(keyPath);
-      errors.removeIf(e -> {
-        assert e != null;
-        return Objects.equals(e.getType(), AnalysisErrorType.TODO);
-      });
-      if (errors.isEmpty()) {
-        continue;
-      }
-
-      // For this file, count how many of each ERROR_TYPES type we have and add this count to each
-      // errorCountsArray[*]
-      for (int i = 0; i < ERROR_TYPES.length; i++) {
-        final int j = i;
-        errorCountsArray[j] += (int) errors.stream().filter(e -> {
-          assert e != null;
-          return Objects.equals(e.getType(), ERROR_TYPES[j]);
-        }).count();
-      }
-    }
-
-    // Finally, create and return the final HashMap.
-    HashMap<String, Integer> errorCounts = new HashMap<>();
-    for (int i = 0; i < ERROR_TYPES.length; i++) {
-      errorCounts.put(ERROR_TYPES[i], errorCountsArray[i]);
-    }
-    return errorCounts;
-  }
-
   @Override
   public void computedHighlights(String path, List<HighlightRegion> list) {
     assert path != null;
@@ -419,16 +385,15 @@ public final class FlutterAnalysisServerListener implements Disposable, Analysis
   public void serverStatus(AnalysisStatus analysisStatus, PubStatus pubStatus) {
     assert analysisStatus != null;
     if (!analysisStatus.isAnalyzing()) {
-      @NotNull HashMap<String, Integer> errorCounts = getTotalAnalysisErrorCounts();
       errorCount = 0;
-      errorCount += extractCount(errorCounts, AnalysisErrorType.CHECKED_MODE_COMPILE_TIME_ERROR);
-      errorCount += extractCount(errorCounts, AnalysisErrorType.COMPILE_TIME_ERROR);
-      errorCount += extractCount(errorCounts, AnalysisErrorType.SYNTACTIC_ERROR);
+      errorCount += errorCounts.getTotal(AnalysisErrorType.CHECKED_MODE_COMPILE_TIME_ERROR);
+      errorCount += errorCounts.getTotal(AnalysisErrorType.COMPILE_TIME_ERROR);
+      errorCount += errorCounts.getTotal(AnalysisErrorType.SYNTACTIC_ERROR);
       warningCount = 0;
-      warningCount += extractCount(errorCounts, AnalysisErrorType.STATIC_TYPE_WARNING);
-      warningCount += extractCount(errorCounts, AnalysisErrorType.STATIC_WARNING);
-      hintCount = extractCount(errorCounts, AnalysisErrorType.HINT);
-      lintCount = extractCount(errorCounts, AnalysisErrorType.LINT);
+      warningCount += errorCounts.getTotal(AnalysisErrorType.STATIC_TYPE_WARNING);
+      warningCount += errorCounts.getTotal(AnalysisErrorType.STATIC_WARNING);
+      hintCount = errorCounts.getTotal(AnalysisErrorType.HINT);
+      lintCount = errorCounts.getTotal(AnalysisErrorType.LINT);
       if (IS_TESTING) {
         errorCount = warningCount = hintCount = lintCount = 1;
       }
@@ -473,11 +438,6 @@ public final class FlutterAnalysisServerListener implements Disposable, Analysis
     }
   }
 
-  private static int extractCount(@NotNull Map<String, Integer> errorCounts, String name) {
-    //noinspection Java8MapApi,ConstantConditions
-    return errorCounts.containsKey(name) ? errorCounts.get(name) : 0;
-  }
-
   @Override
   public void computedExistingImports(String file, Map<String, Map<String, Set<String>>> existingImports) {
     // No start time is recorded.
@@ -20,7 +20,6 @@ import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ModuleRootManager;
 import com.intellij.openapi.ui.Messages;
-import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.util.ui.UIUtil;
 import io.flutter.FlutterMessages;
@@ -30,8 +29,6 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.awt.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * The FlutterConsoleFilter handles link detection in consoles for:
@@ -82,7 +79,10 @@ public class FlutterConsoleFilter implements Filter {
   @Nullable
   public VirtualFile fileAtPath(@NotNull String pathPart) {
     // "lib/main.dart:6"
-    pathPart = pathPart.split(":")[0];
+    final int colon = pathPart.indexOf(':');
+    if (colon >= 0) {
+      pathPart = pathPart.substring(0, colon);
+    }
 
     // We require the pathPart reference to be a file reference, otherwise we'd match things like
     // "Build: Running build completed, took 191ms".
@@ -90,30 +90,7 @@ public class FlutterConsoleFilter implements Filter {
       return null;
     }
 
-    final VirtualFile[] roots = ModuleRootManager.getInstance(module).getContentRoots();
-    for (VirtualFile root : roots) {
-      if (!pathPart.isEmpty()) {
-        final String baseDirPath = root.getPath();
-        final String path = baseDirPath + "/" + pathPart;
-        VirtualFile file = findFile(path);
-        if (file == null) {
-          // check example dir too
-          // TODO(pq): remove when `example` is a content root: https://github.com/flutter/flutter-intellij/issues/2519
-          final String exampleDirRelativePath = baseDirPath + "/example/" + pathPart;
-          file = findFile(exampleDirRelativePath);
-        }
-        if (file != null) {
-          return file;
-        }
-      }
-    }
-
-    return null;
-  }
-
-  private static VirtualFile findFile(final String path) {
-    final VirtualFile file = LocalFileSystem.getInstance().findFileByPath(path);
-    return file != null && file.exists() ? file : null;
+    return FlutterConsolePathCache.getInstance(module).findFile(pathPart);
   }
 
   @Override
@@ -137,34 +114,32 @@ public class FlutterConsoleFilter implements Filter {
     //   * "Launching lib/main.dart"
     //   * "open ios/Runner.xcworkspace"
     if (pathPart.startsWith("Launching ") || pathPart.startsWith("open ")) {
-      final String[] parts = pathPart.split(" ");
-      if (parts.length > 1) {
-        pathPart = parts[1];
-        file = fileAtPath(pathPart);
-        if (file != null) {
-          lineStart = entireLength - line.length() + line.indexOf(pathPart);
-          highlightLength = pathPart.length();
-        }
+      final int wordStart = pathPart.indexOf(' ') + 1;
+      final int wordEnd = pathPart.indexOf(' ', wordStart);
+      pathPart = pathPart.substring(wordStart, wordEnd < 0 ? pathPart.length() : wordEnd);
+      file = fileAtPath(pathPart);
+      if (file != null) {
+        lineStart = entireLength - line.length() + line.indexOf(pathPart);
+        highlightLength = pathPart.length();
       }
     }
 
     // Check for embedded paths, e.g.,
     //    * "  • MyApp.xzzzz (lib/main.dart:6)"
     //    * "  • _MyHomePageState._incrementCounter (lib/main.dart:49)"
-    final String[] parts = pathPart.split(" ");
-    for (String part : parts) {
+    int wordStart = 0;
+    while (wordStart <= pathPart.length()) {
+      int wordEnd = pathPart.indexOf(' ', wordStart);
+      if (wordEnd < 0) {
+        wordEnd = pathPart.length();
+      }
       // "(lib/main.dart:49)"
-      if (part.startsWith("(") && part.endsWith(")")) {
-        part = part.substring(1, part.length() - 1);
+      if (wordEnd - wordStart >= 2 && pathPart.charAt(wordStart) == '(' && pathPart.charAt(wordEnd - 1) == ')') {
+        final String part = pathPart.substring(wordStart + 1, wordEnd - 1);
         final String[] split = part.split(":");
         if (split.length == 2) {
-          try {
-            // Reconcile line number indexing.
-            lineNumber = Math.max(0, Integer.parseInt(split[1]) - 1);
-          }
-          catch (NumberFormatException e) {
-            // Ignored.
-          }
+          // Reconcile line number indexing.
+          lineNumber = Math.max(0, parseLineNumber(split[1]) - 1);
           pathPart = part;
           lineStart = entireLength - line.length() + line.indexOf(pathPart);
           highlightLength = pathPart.length();
@@ -172,13 +147,8 @@ public class FlutterConsoleFilter implements Filter {
         }
         else if (split.length == 4 && split[0].equals("file")) {
           // part = file:///Users/user/AndroidStudioProjects/flutter_app/test/widget_test.dart:23:18
-          try {
-            // Reconcile line number indexing.
-            lineNumber = Math.max(0, Integer.parseInt(split[2]) - 1);
-          }
-          catch (NumberFormatException e) {
-            // Ignored.
-          }
+          // Reconcile line number indexing.
+          lineNumber = Math.max(0, parseLineNumber(split[2]) - 1);
           pathPart = findRelativePath(split[1]);
           if (pathPart == null) {
             return null;
@@ -188,35 +158,23 @@ public class FlutterConsoleFilter implements Filter {
           break;
         }
       }
+      wordStart = wordEnd + 1;
     }
 
     if (lineStart < 0) {
       // lib/registerC.dart:104:73: Error: Expected ';' after this.
-      final String filePathAndLineNumberExpr = "(^.*?):(\\d+?):\\d+?:\\s*?Error";
-      final Pattern pattern = Pattern.compile(filePathAndLineNumberExpr);
-      final Matcher matcher = pattern.matcher(line);
-      final boolean found = matcher.find();
-      if (found) {
-        final String filePathExpr = "((?:[^/]*/)*)(.*)";
-        final Pattern pathPattern = Pattern.compile(filePathExpr);
-        final Matcher pathMatcher = pathPattern.matcher(matcher.group(1));
-        if (pathMatcher.find()) {
-          final String path = pathMatcher.group(1) + pathMatcher.group(2);
-          file = fileAtPath(path);
-          if (file == null) {
-            return null;
-          }
-          lineNumber = Integer.parseInt(matcher.group(2));
-          lineStart = entireLength - line.length();
-          highlightLength = path.length();
-        }
-        else {
-          return null;
-        }
+      final int pathEnd = findErrorLocation(line);
+      if (pathEnd < 0) {
+        return null;
       }
-      else {
+      final String path = line.substring(0, pathEnd);
+      file = fileAtPath(path);
+      if (file == null) {
         return null;
       }
+      lineNumber = parseLineNumber(line.substring(pathEnd + 1, line.indexOf(':', pathEnd + 1)));
+      lineStart = entireLength - line.length();
+      highlightLength = path.length();
     }
 
     if (file == null) {
@@ -235,6 +193,61 @@ public class FlutterConsoleFilter implements Filter {
     return null;
   }
 
+  /**
+   * Return the offset of the colon that ends the path in a compiler error such as
+   * "lib/main.dart:104:73: Error: Expected ';' after this.", or -1 if the line doesn't start with one.
+   * <p>
+   * The path is everything up to the first "&lt;colon>&lt;digits>:&lt;digits>:" that is followed by "Error" (after
+   * optional whitespace) on the first line of the text. Each candidate colon is checked with a bounded look-ahead, so
+   * long lines without errors are rejected in linear time.
+   */
+  @VisibleForTesting
+  static int findErrorLocation(@NotNull String line) {
+    final int length = line.length();
+    for (int i = 0; i < length; i++) {
+      final char c = line.charAt(i);
+      if (c == '\n' || c == '\r') {
+        return -1;
+      }
+      if (c != ':') {
+        continue;
+      }
+      int pos = skipDigits(line, i + 1);
+      if (pos == i + 1 || pos >= length || line.charAt(pos) != ':') {
+        continue;
+      }
+      final int columnStart = pos + 1;
+      pos = skipDigits(line, columnStart);
+      if (pos == columnStart || pos >= length || line.charAt(pos) != ':') {
+        continue;
+      }
+      pos++;
+      while (pos < length && Character.isWhitespace(line.charAt(pos))) {
+        pos++;
+      }
+      if (line.startsWith("Error", pos)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int skipDigits(@NotNull String text, int pos) {
+    while (pos < text.length() && text.charAt(pos) >= '0' && text.charAt(pos) <= '9') {
+      pos++;
+    }
+    return pos;
+  }
+
+  private static int parseLineNumber(@NotNull String text) {
+    try {
+      return Integer.parseInt(text);
+    }
+    catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
   private String findRelativePath(String threeSlashFileName) {
     final VirtualFile[] roots = ModuleRootManager.getInstance(module).getContentRoots();
     for (VirtualFile root : roots) {
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.console;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.intellij.ProjectTopics;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.roots.ModuleRootEvent;
+import com.intellij.openapi.roots.ModuleRootListener;
+import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileContentChangeEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import com.intellij.util.messages.MessageBusConnection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Resolves the relative paths that appear in console output (such as "lib/main.dart") against the content roots of a
+ * module.
+ * <p>
+ * A build log can mention the same few files thousands of times, and most of the path-like words in it don't name a
+ * file at all, so both hits and misses are remembered. Entries are dropped when a file at or under the path is created,
+ * deleted, moved or renamed, and everything is dropped when the module's roots change.
+ */
+public class FlutterConsolePathCache implements Disposable {
+  private static final int MAX_ENTRIES = 1024;
+
+  @NotNull
+  public static FlutterConsolePathCache getInstance(@NotNull final Module module) {
+    return Objects.requireNonNull(module.getService(FlutterConsolePathCache.class));
+  }
+
+  @NotNull private final Module module;
+
+  /**
+   * Resolved files keyed by relative path; an empty Optional records that no file was found.
+   */
+  @NotNull private final Map<String, Optional<VirtualFile>> files = Collections.synchronizedMap(
+    new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Optional<VirtualFile>> eldest) {
+        return size() > MAX_ENTRIES;
+      }
+    });
+
+  private FlutterConsolePathCache(@NotNull final Module module) {
+    this.module = module;
+
+    final MessageBusConnection connection = module.getProject().getMessageBus().connect(this);
+    connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+      @Override
+      public void after(@NotNull List<? extends VFileEvent> events) {
+        for (VFileEvent event : events) {
+          handleFileEvent(event);
+        }
+      }
+    });
+    connection.subscribe(ProjectTopics.PROJECT_ROOTS, new ModuleRootListener() {
+      @Override
+      public void rootsChanged(@NotNull ModuleRootEvent event) {
+        files.clear();
+      }
+    });
+  }
+
+  /**
+   * Return the file at the given path relative to one of the module's content roots (or the "example" directory in one
+   * of them), or null if there is none.
+   */
+  @Nullable
+  public VirtualFile findFile(@NotNull String relativePath) {
+    final Optional<VirtualFile> cached = files.get(relativePath);
+    //noinspection OptionalAssignedToNull
+    if (cached != null && (cached.isEmpty() || cached.get().isValid())) {
+      return cached.orElse(null);
+    }
+    final VirtualFile file = resolve(relativePath);
+    files.put(relativePath, Optional.ofNullable(file));
+    return file;
+  }
+
+  @Nullable
+  private VirtualFile resolve(@NotNull String relativePath) {
+    for (VirtualFile root : ModuleRootManager.getInstance(module).getContentRoots()) {
+      final String baseDirPath = root.getPath();
+      VirtualFile file = findFileByPath(baseDirPath + "/" + relativePath);
+      if (file == null) {
+        // check example dir too
+        // TODO(pq): remove when `example` is a content root: https://github.com/flutter/flutter-intellij/issues/2519
+        file = findFileByPath(baseDirPath + "/example/" + relativePath);
+      }
+      if (file != null) {
+        return file;
+      }
+    }
+    return null;
+  }
+
+  @Nullable
+  private static VirtualFile findFileByPath(@NotNull String path) {
+    final VirtualFile file = LocalFileSystem.getInstance().findFileByPath(path);
+    return file != null && file.exists() ? file : null;
+  }
+
+  private void handleFileEvent(@NotNull VFileEvent event) {
+    if (event instanceof VFileContentChangeEvent) {
+      return;
+    }
+    if (event instanceof VFilePropertyChangeEvent && !((VFilePropertyChangeEvent)event).isRename()) {
+      return;
+    }
+    synchronized (files) {
+      if (files.isEmpty()) {
+        return;
+      }
+    }
+    invalidate(event.getPath());
+    if (event instanceof VFileMoveEvent) {
+      invalidate(((VFileMoveEvent)event).getOldPath());
+    }
+    else if (event instanceof VFilePropertyChangeEvent) {
+      invalidate(((VFilePropertyChangeEvent)event).getOldPath());
+    }
+  }
+
+  /**
+   * Drop the entries for the file or directory at the given absolute path.
+   */
+  private void invalidate(@NotNull String path) {
+    for (VirtualFile root : ModuleRootManager.getInstance(module).getContentRoots()) {
+      final String rootPath = root.getPath();
+      if (rootPath.startsWith(path) && (rootPath.length() == path.length() || rootPath.charAt(path.length()) == '/')) {
+        // The root itself (or one of its parents) changed.
+        files.clear();
+        return;
+      }
+      if (path.length() > rootPath.length() && path.startsWith(rootPath) && path.charAt(rootPath.length()) == '/') {
+        final String relativePath = path.substring(rootPath.length() + 1);
+        removeEntries(relativePath);
+        if (relativePath.equals("example")) {
+          files.clear();
+          return;
+        }
+        if (relativePath.startsWith("example/")) {
+          removeEntries(relativePath.substring("example/".length()));
+        }
+      }
+    }
+  }
+
+  private void removeEntries(@NotNull String relativePath) {
+    final String prefix = relativePath + "/";
+    synchronized (files) {
+      files.keySet().removeIf((key) -> key.equals(relativePath) || key.startsWith(prefix));
+    }
+  }
+
+  /**
+   * Drop every entry, so that the next lookups resolve their files again.
+   */
+  @VisibleForTesting
+  void clear() {
+    files.clear();
+  }
+
+  @Override
+  public void dispose() {
+    files.clear();
+  }
+}
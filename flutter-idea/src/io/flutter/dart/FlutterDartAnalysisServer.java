@@ -16,6 +16,7 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.util.io.FileUtil;
@@ -34,11 +35,20 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 
 public class FlutterDartAnalysisServer implements Disposable {
+  private static final Logger LOG = Logger.getInstance(FlutterDartAnalysisServer.class);
   private static final String FLUTTER_NOTIFICATION_OUTLINE = "flutter.outline";
   private static final String FLUTTER_NOTIFICATION_OUTLINE_KEY = "\"flutter.outline\"";
 
+  /**
+   * The maximum number of files with an outline waiting to be parsed. Outlines for the same file replace each other, so
+   * this is only reached if the server sends outlines for many files faster than we can parse them.
+   */
+  private static final int MAX_PENDING_OUTLINES = 64;
+  private static final String OUTLINE_FILE_PREFIX = "\"params\":{\"file\":";
+
   @NotNull final Project project;
 
   /**
@@ -55,7 +65,15 @@ public class FlutterDartAnalysisServer implements Disposable {
    * Each value is the {@link Consumer} for the response.
    */
   private final Map<String, Consumer<JsonObject>> responseConsumers = new HashMap<>();
-  private boolean isDisposed = false;
+
+  /**
+   * Unparsed outline notifications, keyed by file. A newer outline for a file replaces the one that is still waiting.
+   */
+  private final LinkedHashMap<String, String> pendingOutlines = new LinkedHashMap<>();
+  private boolean isDrainingOutlines = false;
+  private int droppedOutlineCount = 0;
+
+  private volatile boolean isDisposed = false;
 
   @NotNull
   public static FlutterDartAnalysisServer getInstance(@NotNull final Project project) {
@@ -214,6 +232,19 @@ public class FlutterDartAnalysisServer implements Disposable {
 
   private void processString(String jsonString) {
     if (isDisposed) return;
+
+    // Most of the server's traffic (navigation, highlights, completion, ...) is of no interest to us; only parse the
+    // messages processResponse() would act on.
+    switch (classifyMessage(jsonString, this::hasResponseConsumer)) {
+      case IGNORE:
+        return;
+      case OUTLINE:
+        enqueueOutline(jsonString);
+        return;
+      default:
+        break;
+    }
+
     ApplicationManager.getApplication().executeOnPooledThread(() -> {
       // Short circuit just in case we have been disposed in the time it took
       // for us to get around to listening for the response.
@@ -222,6 +253,146 @@ public class FlutterDartAnalysisServer implements Disposable {
     });
   }
 
+  enum MessageKind {IGNORE, OUTLINE, PROCESS}
+
+  /**
+   * Classify a message from the server by looking at its first key, without parsing it.
+   * <p>
+   * The server writes the "event" key first in notifications and the "id" key first in responses. Any message that
+   * doesn't look like that is parsed and handled by {@link #processResponse}.
+   */
+  @VisibleForTesting
+  @NotNull
+  static MessageKind classifyMessage(@NotNull String json, @NotNull Predicate<String> hasResponseConsumer) {
+    int pos = skipWhitespace(json, 0);
+    if (pos >= json.length() || json.charAt(pos) != '{') {
+      return MessageKind.PROCESS;
+    }
+    pos = skipWhitespace(json, pos + 1);
+
+    if (json.startsWith("\"event\"", pos)) {
+      pos = skipWhitespace(json, pos + "\"event\"".length());
+      if (pos >= json.length() || json.charAt(pos) != ':') {
+        return MessageKind.PROCESS;
+      }
+      pos = skipWhitespace(json, pos + 1);
+      return json.startsWith(FLUTTER_NOTIFICATION_OUTLINE_KEY, pos) ? MessageKind.OUTLINE : MessageKind.IGNORE;
+    }
+
+    if (json.startsWith("\"id\"", pos)) {
+      pos = skipWhitespace(json, pos + "\"id\"".length());
+      if (pos >= json.length() || json.charAt(pos) != ':') {
+        return MessageKind.PROCESS;
+      }
+      pos = skipWhitespace(json, pos + 1);
+      final String id = readRawString(json, pos);
+      if (id == null) {
+        return MessageKind.PROCESS;
+      }
+      return hasResponseConsumer.test(id) ? MessageKind.PROCESS : MessageKind.IGNORE;
+    }
+
+    return MessageKind.PROCESS;
+  }
+
+  private boolean hasResponseConsumer(@NotNull String id) {
+    synchronized (responseConsumers) {
+      return responseConsumers.containsKey(id);
+    }
+  }
+
+  private static int skipWhitespace(@NotNull String json, int pos) {
+    while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+      pos++;
+    }
+    return pos;
+  }
+
+  /**
+   * Return the contents of the JSON string starting at {@code pos} without unescaping them, or null if there is no
+   * string at that position.
+   */
+  @Nullable
+  private static String readRawString(@NotNull String json, int pos) {
+    if (pos >= json.length() || json.charAt(pos) != '"') {
+      return null;
+    }
+    for (int i = pos + 1; i < json.length(); i++) {
+      final char c = json.charAt(i);
+      if (c == '"') {
+        return json.substring(pos + 1, i);
+      }
+      if (c == '\\') {
+        i++;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Queue an outline notification to be parsed on a single pooled thread, replacing any outline for the same file
+   * that hasn't been parsed yet.
+   */
+  private void enqueueOutline(@NotNull String json) {
+    // The server writes the file first in the params. The (still escaped) path is only used as a key.
+    final int fileStart = json.indexOf(OUTLINE_FILE_PREFIX);
+    final String file = fileStart < 0 ? null : readRawString(json, fileStart + OUTLINE_FILE_PREFIX.length());
+    if (file == null) {
+      // Not in the expected format; handle it like any other message.
+      ApplicationManager.getApplication().executeOnPooledThread(() -> {
+        if (isDisposed) return;
+        processResponse(JsonUtils.parseString(json).getAsJsonObject());
+      });
+      return;
+    }
+
+    synchronized (pendingOutlines) {
+      if (!pendingOutlines.containsKey(file) && pendingOutlines.size() >= MAX_PENDING_OUTLINES) {
+        final Iterator<String> oldest = pendingOutlines.keySet().iterator();
+        oldest.next();
+        oldest.remove();
+        droppedOutlineCount++;
+      }
+      pendingOutlines.put(file, json);
+      if (isDrainingOutlines) {
+        return;
+      }
+      isDrainingOutlines = true;
+    }
+    ApplicationManager.getApplication().executeOnPooledThread(this::drainOutlines);
+  }
+
+  private void drainOutlines() {
+    while (true) {
+      final String json;
+      synchronized (pendingOutlines) {
+        final Iterator<String> iterator = pendingOutlines.values().iterator();
+        if (isDisposed || !iterator.hasNext()) {
+          pendingOutlines.clear();
+          isDrainingOutlines = false;
+          return;
+        }
+        json = iterator.next();
+        iterator.remove();
+      }
+      try {
+        processResponse(JsonUtils.parseString(json).getAsJsonObject());
+      }
+      catch (RuntimeException e) {
+        LOG.warn(e);
+      }
+    }
+  }
+
+  /**
+   * The number of outline notifications that were dropped because too many files had outlines waiting to be parsed.
+   */
+  public int getDroppedOutlineCount() {
+    synchronized (pendingOutlines) {
+      return droppedOutlineCount;
+    }
+  }
+
   /**
    * Handle the given {@link JsonObject} response.
    */
@@ -262,7 +433,7 @@ public class FlutterDartAnalysisServer implements Disposable {
    * Attempts to handle the given {@link JsonObject} as a notification.
    */
   private void processNotification(JsonObject response, @NotNull JsonElement eventName) {
-    // If we add code to handle more event types below, update the filter in processString().
+    // If we add code to handle more event types below, update the filter in classifyMessage().
     final String event = eventName.getAsString();
     if (event.equals(FLUTTER_NOTIFICATION_OUTLINE)) {
       final JsonObject paramsObject = response.get("params").getAsJsonObject();
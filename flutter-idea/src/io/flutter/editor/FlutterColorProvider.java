@@ -48,16 +48,18 @@ public class FlutterColorProvider implements ElementColorProvider {
         // Avoid duplicate resolves.
         return null;
       }
+      // Only the name of a material swatch can be indexed to give a color.
+      if (!FlutterColors.isSwatchName(name)) return null;
       final String code = AstBufferUtil.getTextSkippingWhitespaceComments(parent.getNode());
       return parseColorText(code.substring(code.indexOf(name)), name);
     }
     else if (parent.getNode().getElementType() == DartTokenTypes.CALL_EXPRESSION) {
       // foo(Color.fromRGBO(0, 255, 0, 0.5))
-      if (name.matches("fromARGB") || name.matches("fromRGBO")) {
+      if (isColorConstructorName(name) || !isColorConstructorCall(name, refExpr)) {
         // Avoid duplicate resolves.
         return null;
       }
-      if (parent.getLastChild() instanceof DartArguments && !name.matches("(Cupertino)?Color")) {
+      if (parent.getLastChild() instanceof DartArguments && !name.equals("Color") && !name.equals("CupertinoColor")) {
         final DartArgumentList argumentList = ((DartArguments)parent.getLastChild()).getArgumentList();
         if (argumentList == null) {
           return null;
@@ -76,7 +78,7 @@ public class FlutterColorProvider implements ElementColorProvider {
     }
     else if (parent.getNode().getElementType() == DartTokenTypes.SIMPLE_TYPE) {
       // const Color.fromARGB(100, 255, 0, 0)
-      if (name.matches("fromARGB") || name.matches("fromRGBO")) {
+      if (isColorConstructorName(name) || !isColorConstructorCall(name, refExpr)) {
         // Avoid duplicate resolves.
         return null;
       }
@@ -126,14 +128,40 @@ public class FlutterColorProvider implements ElementColorProvider {
       if (child == null) return null;
       if (child.getText().startsWith("shade")) {
         if (idNode.getText().contains(name)) return null; // Avoid duplicate resolves.
-        String code = AstBufferUtil.getTextSkippingWhitespaceComments(refExpr.getNode());
-        code = code.replaceFirst("(Cupertino)?Colors\\.", "");
-        return parseColorText(code, name);
+        final String code = AstBufferUtil.getTextSkippingWhitespaceComments(refExpr.getNode());
+        return parseColorText(removeColorsPrefix(code), name);
       }
     }
     return null;
   }
 
+  private static boolean isColorConstructorName(@NotNull String name) {
+    return name.equals("fromARGB") || name.equals("fromRGBO");
+  }
+
+  /**
+   * Returns whether the reference expression with the given identifier can be a call of a Color constructor.
+   * <p>
+   * This is the case for 'Color(...)' and for any call of 'fromARGB' or 'fromRGBO'; for other calls, such as
+   * 'foo(Color(...))', the color is found from the identifier inside the arguments instead.
+   */
+  private static boolean isColorConstructorCall(@NotNull String name, @NotNull PsiElement refExpr) {
+    if (name.equals("Color")) return true;
+    final PsiElement selectorNode = refExpr.getLastChild();
+    return selectorNode != null && isColorConstructorName(selectorNode.getText());
+  }
+
+  /**
+   * Removes the first 'Colors.' or 'CupertinoColors.' from the text.
+   */
+  @NotNull
+  private static String removeColorsPrefix(@NotNull String code) {
+    final int index = code.indexOf("Colors.");
+    if (index < 0) return code;
+    final int start = code.startsWith("Cupertino", index - "Cupertino".length()) ? index - "Cupertino".length() : index;
+    return code.substring(0, start) + code.substring(index + "Colors.".length());
+  }
+
   @Nullable
   private PsiElement resolveReferencedElement(@NotNull PsiElement element) {
     if (element instanceof DartCallExpression && element.getFirstChild().getText().equals("Color")) {
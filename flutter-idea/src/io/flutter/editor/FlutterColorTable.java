@@ -0,0 +1,225 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.editor;
+
+import com.intellij.openapi.diagnostic.Logger;
+import io.flutter.FlutterUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The named colors of a Flutter color class, such as Colors or CupertinoColors, read from one of the generated
+ * properties files.
+ * <p>
+ * The table is built once and never modified. Colors are grouped by the name of their swatch ('blue' for 'blue[200]',
+ * 'blue.shade200' and 'blue'), and the shades of a swatch are indexed by number, so a lookup is a single hash of the
+ * swatch name followed by array or small-map accesses, without building any strings.
+ */
+final class FlutterColorTable {
+  private static final Logger LOG = Logger.getInstance(FlutterColorTable.class);
+
+  private static final String SHADE = ".shade";
+
+  /**
+   * Shades are multiples of 50 from 50 to 900; the shade n is stored at index n / 50.
+   */
+  private static final int SHADE_STEP = 50;
+  private static final int SHADE_COUNT = 900 / SHADE_STEP + 1;
+
+  /**
+   * The colors named by one identifier in the color class.
+   */
+  private static class Swatch {
+    /**
+     * The color for the bare name, if it is a color itself rather than a swatch with a primary shade.
+     */
+    @Nullable FlutterColors.FlutterColor color;
+
+    /**
+     * The primary shade, for the bare name of a swatch.
+     */
+    @Nullable FlutterColors.FlutterColor primary;
+
+    @Nullable FlutterColors.FlutterColor[] shades;
+
+    /**
+     * Colors named by a property of the swatch other than a shade, such as 'darkColor' or 'primary'.
+     */
+    @Nullable Map<String, FlutterColors.FlutterColor> variants;
+  }
+
+  @NotNull private final Map<String, Swatch> swatches;
+
+  /**
+   * The name of each color, keyed by its ARGB value.
+   */
+  @NotNull private final Map<Integer, String> colorToName;
+
+  private FlutterColorTable(@NotNull Map<String, Swatch> swatches, @NotNull Map<Integer, String> colorToName) {
+    this.swatches = swatches;
+    this.colorToName = colorToName;
+  }
+
+  /**
+   * Reads the table from the given properties resource. An unreadable resource gives an empty table.
+   */
+  @NotNull
+  static FlutterColorTable load(@NotNull String resourcePath) {
+    final Properties colors = new Properties();
+    try (InputStream input = FlutterUtils.class.getResourceAsStream(resourcePath)) {
+      if (input != null) {
+        colors.load(input);
+      }
+    }
+    catch (IOException e) {
+      FlutterUtils.warn(LOG, e);
+    }
+
+    final Map<String, Swatch> swatches = new HashMap<>();
+    final Map<Integer, String> colorToName = new HashMap<>();
+    for (Map.Entry<Object, Object> entry : colors.entrySet()) {
+      final String name = (String)entry.getKey();
+      final Color color = parseColor((String)entry.getValue());
+      if (color == null) {
+        continue;
+      }
+      colorToName.put(color.getRGB(), name);
+      add(swatches, name, color);
+    }
+    return new FlutterColorTable(Collections.unmodifiableMap(swatches), Collections.unmodifiableMap(colorToName));
+  }
+
+  private static void add(@NotNull Map<String, Swatch> swatches, @NotNull String name, @NotNull Color color) {
+    final int end = swatchNameEnd(name);
+    final Swatch swatch = swatches.computeIfAbsent(name.substring(0, end), (key) -> new Swatch());
+    final FlutterColors.FlutterColor flutterColor = new FlutterColors.FlutterColor(color, false);
+    if (end == name.length()) {
+      swatch.color = flutterColor;
+      return;
+    }
+
+    final int shade = name.charAt(end) == '[' ? parseShade(name, end + 1, name.length() - 1) : -1;
+    if (shade >= 0 && name.charAt(name.length() - 1) == ']') {
+      if (swatch.shades == null) {
+        swatch.shades = new FlutterColors.FlutterColor[SHADE_COUNT];
+      }
+      swatch.shades[shade / SHADE_STEP] = flutterColor;
+      return;
+    }
+
+    if (name.charAt(end) == '.') {
+      final String variant = name.substring(end + 1);
+      if (variant.equals(FlutterColors.primarySuffix.substring(1))) {
+        swatch.primary = new FlutterColors.FlutterColor(color, true);
+      }
+      if (swatch.variants == null) {
+        swatch.variants = new HashMap<>();
+      }
+      swatch.variants.put(variant, flutterColor);
+    }
+  }
+
+  /**
+   * Returns the color for the given name, such as 'blue', 'blue[200]', 'blue.shade200' or 'activeBlue.darkColor'.
+   * <p>
+   * The bare name of a swatch returns its primary shade, marked as {@link FlutterColors.FlutterColor#isPrimary() primary}.
+   */
+  @Nullable
+  FlutterColors.FlutterColor getColor(@NotNull String key) {
+    final int end = swatchNameEnd(key);
+    final Swatch swatch = swatches.get(end == key.length() ? key : key.substring(0, end));
+    if (swatch == null) {
+      return null;
+    }
+    if (end == key.length()) {
+      return swatch.color != null ? swatch.color : swatch.primary;
+    }
+
+    final int shade;
+    if (key.charAt(end) == '[') {
+      shade = key.charAt(key.length() - 1) == ']' ? parseShade(key, end + 1, key.length() - 1) : -1;
+    }
+    else if (key.startsWith(SHADE, end)) {
+      shade = parseShade(key, end + SHADE.length(), key.length());
+    }
+    else {
+      return swatch.variants == null ? null : swatch.variants.get(key.substring(end + 1));
+    }
+    return shade < 0 || swatch.shades == null ? null : swatch.shades[shade / SHADE_STEP];
+  }
+
+  /**
+   * Returns whether the given identifier is the name of a color or swatch in this table.
+   */
+  boolean isSwatchName(@NotNull String name) {
+    return swatches.containsKey(name);
+  }
+
+  /**
+   * Returns the name of a color with the given value, or null if there is none.
+   */
+  @Nullable
+  String getColorName(@Nullable Color color) {
+    return color == null ? null : colorToName.get(color.getRGB());
+  }
+
+  /**
+   * Returns the index of the first '[' or '.' in the name, or its length if there is neither.
+   */
+  private static int swatchNameEnd(@NotNull String name) {
+    for (int i = 0; i < name.length(); i++) {
+      final char c = name.charAt(i);
+      if (c == '[' || c == '.') {
+        return i;
+      }
+    }
+    return name.length();
+  }
+
+  /**
+   * Parses the shade number in name[start, end), returning -1 if it isn't a valid shade.
+   */
+  private static int parseShade(@NotNull String name, int start, int end) {
+    if (start >= end || end - start > 3) {
+      return -1;
+    }
+    int shade = 0;
+    for (int i = start; i < end; i++) {
+      final char c = name.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      shade = shade * 10 + (c - '0');
+    }
+    return shade > 0 && shade % SHADE_STEP == 0 && shade / SHADE_STEP < SHADE_COUNT ? shade : -1;
+  }
+
+  @Nullable
+  private static Color parseColor(@Nullable String hexValue) {
+    if (hexValue == null) {
+      return null;
+    }
+
+    try {
+      // argb to r, g, b, a
+      final long value = Long.parseLong(hexValue, 16);
+
+      //noinspection UseJBColor
+      return new Color((int)(value >> 16) & 0xFF, (int)(value >> 8) & 0xFF, (int)value & 0xFF, (int)(value >> 24) & 0xFF);
+    }
+    catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
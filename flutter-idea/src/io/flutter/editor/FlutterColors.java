@@ -5,20 +5,12 @@
  */
 package io.flutter.editor;
 
-import com.intellij.openapi.diagnostic.Logger;
-import io.flutter.FlutterUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.awt.*;
-import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Properties;
 
 public class FlutterColors {
-  private static final Logger LOG = Logger.getInstance(FlutterColors.class);
-
   public static class FlutterColor {
     @NotNull
     private final Color color;
@@ -42,54 +34,21 @@ public class FlutterColors {
   static final String primarySuffix = ".primary";
   static final String defaultShade = "[500]";
 
-  private static final Properties colors;
-  private static final Map<Color, String> colorToName;
-
-  static {
-    colors = new Properties();
-
-    try {
-      colors.load(FlutterUtils.class.getResourceAsStream("/flutter/colors/material.properties"));
-    }
-    catch (IOException e) {
-      FlutterUtils.warn(LOG, e);
-    }
-
-    colorToName = new HashMap<>();
-    for (Map.Entry<Object, Object> entry : colors.entrySet()) {
-      final String name = (String)entry.getKey();
-      final String value = (String)entry.getValue();
-      final Color color = parseColor(value);
-      if (color != null) {
-        colorToName.put(color, name);
-      }
-    }
-  }
+  private static final FlutterColorTable colors = FlutterColorTable.load("/flutter/colors/material.properties");
 
   /**
    * @return the AWT color corresponding to the given Flutter color key.
    */
   @Nullable
   public static FlutterColor getColor(@NotNull String key) {
-    // Handle things like Colors.blue.shade200; convert the text to blue[200].
-    if (key.contains(".shade")) {
-      key = key.replace(".shade", "[") + "]";
-    }
-
-    if (colors.containsKey(key)) {
-      final Color color = getColorValue(key);
-      if (color != null) {
-        return new FlutterColor(color, false);
-      }
-    }
-    else if (colors.containsKey(key + primarySuffix)) {
-      final Color color = getColorValue(key + primarySuffix);
-      if (color != null) {
-        return new FlutterColor(color, true);
-      }
-    }
+    return colors.getColor(key);
+  }
 
-    return null;
+  /**
+   * Returns whether the given identifier names a material color or swatch, such as 'blue' or 'black12'.
+   */
+  static boolean isSwatchName(@NotNull String name) {
+    return colors.isSwatchName(name);
   }
 
   /**
@@ -97,7 +56,7 @@ public class FlutterColors {
    */
   @Nullable
   public static String getColorName(@Nullable Color color) {
-    String name = colorToName.get(color);
+    String name = colors.getColorName(color);
     if (name == null) return null;
     // Normalize to avoid including suffixes that are not required.
     name = maybeTrimSuffix(name, primarySuffix);
@@ -111,26 +70,4 @@ public class FlutterColors {
     }
     return value;
   }
-
-  private static Color parseColor(String hexValue) {
-    if (hexValue == null) {
-      return null;
-    }
-
-    try {
-      // argb to r, g, b, a
-      final long value = Long.parseLong(hexValue, 16);
-
-      //noinspection UseJBColor
-      return new Color((int)(value >> 16) & 0xFF, (int)(value >> 8) & 0xFF, (int)value & 0xFF, (int)(value >> 24) & 0xFF);
-    }
-    catch (IllegalArgumentException e) {
-      return null;
-    }
-  }
-
-  private static Color getColorValue(String name) {
-    final String hexValue = colors.getProperty(name);
-    return parseColor(hexValue);
-  }
 }
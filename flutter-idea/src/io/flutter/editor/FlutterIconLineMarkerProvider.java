@@ -16,9 +16,7 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.vfs.LocalFileSystem;
-import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.openapi.vfs.VirtualFileVisitor;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
@@ -34,6 +32,7 @@ import io.flutter.FlutterBundle;
 import io.flutter.sdk.FlutterSdk;
 import io.flutter.sdk.FlutterSdkUtil;
 import io.flutter.utils.IconPreviewGenerator;
+import io.flutter.utils.IconPreviewService;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.VisibleForTesting;
@@ -185,7 +184,7 @@ public class FlutterIconLineMarkerProvider extends LineMarkerProviderDescriptor
             final IconInfo iconDef = findStandardDefinition(name, selector, element.getProject(), knownPath, sdk);
             if (iconDef == null) return null;
             // <flutter-sdk>/bin/cache/artifacts/material_fonts/MaterialIcons-Regular.otf
-            icon = findStandardIconFromDef(name, iconDef, sdk.getHomePath() + MaterialRelativeAssetPath);
+            icon = findStandardIconFromDef(iconDef, sdk.getHomePath() + MaterialRelativeAssetPath, element.getProject());
           }
         }
         else if (name.equals("CupertinoIcons")) {
@@ -197,7 +196,7 @@ public class FlutterIconLineMarkerProvider extends LineMarkerProviderDescriptor
             if (iconDef == null) return null;
             final String path = FlutterSdkUtil.getPathToCupertinoIconsPackage(element.getProject());
             // <pub_cache>/hosted/pub.dartlang.org/cupertino_icons-v.m.n/assets/CupertinoIcons.ttf
-            icon = findStandardIconFromDef(name, iconDef, path + CupertinoRelativeAssetPath);
+            icon = findStandardIconFromDef(iconDef, path + CupertinoRelativeAssetPath, element.getProject());
           }
         }
         else {
@@ -223,7 +222,7 @@ public class FlutterIconLineMarkerProvider extends LineMarkerProviderDescriptor
           assert knownPath != null;
           final IconInfo iconDef = findDefinition(name, iconName, element.getProject(), knownPath);
           if (iconDef == null) return null;
-          icon = findIconFromDef(name, iconDef, knownPath);
+          icon = findIconFromDef(iconDef, knownPath, element.getProject());
         }
         if (icon != null) {
           return createLineMarker(element, icon);
@@ -247,12 +246,8 @@ public class FlutterIconLineMarkerProvider extends LineMarkerProviderDescriptor
   }
 
   @Nullable
-  private Icon findStandardIconFromDef(@NotNull String name, @NotNull IconInfo iconDef, @NotNull String path) {
-    assert LocalFileSystem.getInstance() != null;
-    final VirtualFile virtualFile = LocalFileSystem.getInstance().findFileByPath(path);
-    if (virtualFile == null) return null;
-    final IconPreviewGenerator generator = new IconPreviewGenerator(virtualFile.getPath());
-    return generator.convert(iconDef.codepoint);
+  private Icon findStandardIconFromDef(@NotNull IconInfo iconDef, @NotNull String path, @NotNull Project project) {
+    return IconPreviewService.getInstance(project).getIcon(path, IconPreviewGenerator.parseCodepoint(iconDef.codepoint));
   }
 
   // Note: package flutter_icons is not currently supported because it takes forever to analyze it.
@@ -294,8 +289,7 @@ public class FlutterIconLineMarkerProvider extends LineMarkerProviderDescriptor
       final String relativeAssetPath = family.equals("MaterialIcons") ? MaterialRelativeAssetPath : CupertinoRelativeAssetPath;
       final String base = getBasePathForFamily(family, sdk, project);
       if (base == null) return null;
-      final IconPreviewGenerator generator = new IconPreviewGenerator(base + relativeAssetPath);
-      return generator.convert(code);
+      return IconPreviewService.getInstance(project).getIcon(base + relativeAssetPath, code);
     }
     return null;
   }
@@ -333,7 +327,7 @@ public class FlutterIconLineMarkerProvider extends LineMarkerProviderDescriptor
   }
 
   @Nullable
-  private Icon findIconFromDef(@NotNull String iconClassName, @NotNull IconInfo iconDef, @NotNull String path) {
+  private Icon findIconFromDef(@NotNull IconInfo iconDef, @NotNull String path, @NotNull Project project) {
     assert LocalFileSystem.getInstance() != null;
     final VirtualFile virtualFile = LocalFileSystem.getInstance().findFileByPath(path);
     if (virtualFile == null) return null;
@@ -345,20 +339,9 @@ public class FlutterIconLineMarkerProvider extends LineMarkerProviderDescriptor
     if (parent == null) {
       return null;
     }
-    final List<VirtualFile> ttfFiles = new ArrayList<>();
-    VfsUtilCore.visitChildrenRecursively(parent, new VirtualFileVisitor<Void>() {
-      @Override
-      public boolean visitFile(@NotNull VirtualFile file) {
-        final String ext = file.getExtension();
-        if ("ttf".equals(ext)) {
-          ttfFiles.add(file);
-          return false;
-        }
-        else {
-          return super.visitFile(file);
-        }
-      }
-    });
+    final IconPreviewService service = IconPreviewService.getInstance(project);
+    final List<VirtualFile> ttfFiles = service.getFontFiles(parent);
+    final int codepoint = IconPreviewGenerator.parseCodepoint(iconDef.codepoint);
     double match = -1;
     final String family = iconDef.familyName;
     VirtualFile bestFileMatch = null;
@@ -373,14 +356,13 @@ public class FlutterIconLineMarkerProvider extends LineMarkerProviderDescriptor
       }
     } // If the family is null we could do a search for font files named similar to the package.
     if (bestFileMatch != null) {
-      final IconPreviewGenerator generator = new IconPreviewGenerator(bestFileMatch.getPath());
-      final Icon icon = generator.convert(iconDef.codepoint);
+      final Icon icon = service.getIcon(bestFileMatch, codepoint);
       if (icon != null) return icon;
     }
     for (VirtualFile file : ttfFiles) {
       assert file != null;
-      final IconPreviewGenerator generator = new IconPreviewGenerator(file.getPath());
-      final Icon icon = generator.convert(iconDef.codepoint);
+      if (file.equals(bestFileMatch)) continue;
+      final Icon icon = service.getIcon(file, codepoint);
       if (icon != null) return icon;
     }
     return null;
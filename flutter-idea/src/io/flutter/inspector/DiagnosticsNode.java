@@ -5,6 +5,8 @@
  */
 package io.flutter.inspector;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
@@ -26,10 +28,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 
@@ -69,10 +68,7 @@ public class DiagnosticsNode {
                          InspectorService.ObjectGroup inspectorService,
                          boolean isProperty,
                          DiagnosticsNode parent) {
-    this.json = json;
-    this.inspectorService = CompletableFuture.completedFuture(inspectorService);
-    this.isProperty = isProperty;
-    this.app = inspectorService.getApp();
+    this(json, CompletableFuture.completedFuture(inspectorService), inspectorService.getApp(), isProperty, parent);
   }
 
   public DiagnosticsNode(JsonObject json,
@@ -80,10 +76,38 @@ public class DiagnosticsNode {
                          FlutterApp app,
                          boolean isProperty,
                          DiagnosticsNode parent) {
-    this.json = json;
     this.inspectorService = inspectorService;
     this.isProperty = isProperty;
     this.app = app;
+
+    name = getInternedString(json, "name");
+    description = getInternedString(json, "description");
+    type = getInternedString(json, "type");
+    propertyType = getInternedString(json, "propertyType");
+    widgetRuntimeType = getInternedString(json, "widgetRuntimeType");
+    valueId = JsonUtils.getStringMember(json, "valueId");
+    objectId = JsonUtils.getStringMember(json, "objectId");
+    level = decodeLevel(json, "level");
+    defaultLevel = decodeLevel(json, "defaultLevel");
+    style = decodeStyle(json);
+    locationId = JsonUtils.getIntMember(json, "locationId");
+    creationLocation = json.has("creationLocation") && json.get("creationLocation").isJsonObject()
+                       ? json.getAsJsonObject("creationLocation")
+                       : null;
+    flags = decodeFlags(json);
+    childrenJson = getArrayMember(json, "children");
+    propertiesJson = getArrayMember(json, "properties");
+
+    JsonObject rest = null;
+    for (Map.Entry<String, JsonElement> entry : json.entrySet()) {
+      if (!DECODED_MEMBERS.contains(entry.getKey())) {
+        if (rest == null) {
+          rest = new JsonObject();
+        }
+        rest.add(entry.getKey(), entry.getValue());
+      }
+    }
+    this.rest = rest;
   }
 
   @Override
@@ -146,7 +170,7 @@ public class DiagnosticsNode {
    * The name should be omitted if the [showName] property is false.
    */
   public String getName() {
-    return getStringMember("name");
+    return name;
   }
 
   /**
@@ -156,7 +180,7 @@ public class DiagnosticsNode {
    * `:` is typically used as a separator when displaying as text.
    */
   public boolean getShowSeparator() {
-    return getBooleanMember("showSeparator", true);
+    return (flags & SHOW_SEPARATOR) != 0;
   }
 
   /**
@@ -168,7 +192,7 @@ public class DiagnosticsNode {
    * description of a property should also be a single line if possible.
    */
   public String getDescription() {
-    return getStringMember("description");
+    return description;
   }
 
   /**
@@ -176,10 +200,10 @@ public class DiagnosticsNode {
    * <p>
    */
   public TransformedRect getTransformToRoot() {
-    if (!json.has("transformToRoot")) {
+    if (!hasRestMember("transformToRoot")) {
       return null;
     }
-    return new TransformedRect(json.getAsJsonObject("transformToRoot"));
+    return new TransformedRect(rest.getAsJsonObject("transformToRoot"));
   }
 
   /**
@@ -194,7 +218,7 @@ public class DiagnosticsNode {
    * [DiagnosticLevel.error] is returned.
    */
   public DiagnosticLevel getLevel() {
-    return getLevelMember("level", DiagnosticLevel.info);
+    return level;
   }
 
   /**
@@ -212,7 +236,7 @@ public class DiagnosticsNode {
    * will make the name self-evident.
    */
   public boolean getShowName() {
-    return getBooleanMember("showName", true);
+    return (flags & SHOW_NAME) != 0;
   }
 
   /**
@@ -226,14 +250,14 @@ public class DiagnosticsNode {
    * Hint for how the node should be displayed.
    */
   public DiagnosticsTreeStyle getStyle() {
-    return getStyleMember("style", DiagnosticsTreeStyle.sparse);
+    return style;
   }
 
   /**
    * Whether to wrap text on onto multiple lines or not.
    */
   public boolean getAllowWrap() {
-    return getBooleanMember("allowWrap", true);
+    return (flags & ALLOW_WRAP) != 0;
   }
 
   /**
@@ -244,7 +268,7 @@ public class DiagnosticsNode {
    * of a specific Dart diagnostic class.
    */
   public String getType() {
-    return getStringMember("type");
+    return type;
   }
 
   /**
@@ -253,11 +277,11 @@ public class DiagnosticsNode {
    * Only relevant for String properties.
    */
   public boolean getIsQuoted() {
-    return getBooleanMember("quoted", false);
+    return (flags & QUOTED) != 0;
   }
 
   public boolean hasIsQuoted() {
-    return json.has("quoted");
+    return (flags & HAS_QUOTED) != 0;
   }
 
   /**
@@ -274,7 +298,7 @@ public class DiagnosticsNode {
   }
 
   public boolean hasUnit() {
-    return json.has("unit");
+    return hasRestMember("unit");
   }
 
   /**
@@ -287,7 +311,7 @@ public class DiagnosticsNode {
   }
 
   public boolean hasNumberToString() {
-    return json.has("numberToString");
+    return hasRestMember("numberToString");
   }
 
   /**
@@ -303,7 +327,7 @@ public class DiagnosticsNode {
   }
 
   public boolean hasIfTrue() {
-    return json.has("ifTrue");
+    return hasRestMember("ifTrue");
   }
 
   /**
@@ -319,7 +343,7 @@ public class DiagnosticsNode {
   }
 
   public boolean hasIfFalse() {
-    return json.has("ifFalse");
+    return hasRestMember("ifFalse");
   }
 
   /**
@@ -330,10 +354,10 @@ public class DiagnosticsNode {
    * Only applies to IterableProperty.
    */
   public ArrayList<String> getValues() {
-    if (!json.has("values")) {
+    if (!hasRestMember("values")) {
       return null;
     }
-    final JsonArray rawValues = json.getAsJsonArray("values");
+    final JsonArray rawValues = rest.getAsJsonArray("values");
     final ArrayList<String> values = new ArrayList<>(rawValues.size());
     for (int i = 0; i < rawValues.size(); ++i) {
       values.add(rawValues.get(i).getAsString());
@@ -342,7 +366,7 @@ public class DiagnosticsNode {
   }
 
   public boolean hasValues() {
-    return json.has("values");
+    return hasRestMember("values");
   }
 
   /**
@@ -359,7 +383,7 @@ public class DiagnosticsNode {
   }
 
   public boolean hasIfPresent() {
-    return json.has("ifPresent");
+    return hasRestMember("ifPresent");
   }
 
   /**
@@ -384,7 +408,7 @@ public class DiagnosticsNode {
    * Whether a property has a default value.
    */
   public boolean hasDefaultValue() {
-    return json.has("defaultValue");
+    return hasRestMember("defaultValue");
   }
 
   /**
@@ -417,7 +441,7 @@ public class DiagnosticsNode {
   }
 
   public boolean hasTooltip() {
-    return json.has("tooltip");
+    return hasRestMember("tooltip");
   }
 
   /**
@@ -425,7 +449,7 @@ public class DiagnosticsNode {
    * [DiagnosticLevel.warning] warning that the property is missing a [value].
    */
   public boolean getMissingIfNull() {
-    return getBooleanMember("missingIfNull", false);
+    return (flags & MISSING_IF_NULL) != 0;
   }
 
   /**
@@ -440,15 +464,15 @@ public class DiagnosticsNode {
    * Whether accessing the property throws an exception.
    */
   boolean hasException() {
-    return json.has("exception");
+    return hasRestMember("exception");
   }
 
   public boolean hasCreationLocation() {
-    return location != null || json.has("creationLocation");
+    return location != null || creationLocation != null;
   }
 
   public int getLocationId() {
-    return JsonUtils.getIntMember(json, "locationId");
+    return locationId;
   }
 
   public InspectorSourceLocation getCreationLocation() {
@@ -458,7 +482,7 @@ public class DiagnosticsNode {
     if (!hasCreationLocation()) {
       return null;
     }
-    location = new InspectorSourceLocation(json.getAsJsonObject("creationLocation"), null, app.getProject());
+    location = new InspectorSourceLocation(creationLocation, null, app.getProject());
     return location;
   }
 
@@ -476,7 +500,7 @@ public class DiagnosticsNode {
    * the word "null".
    */
   public String getPropertyType() {
-    return getStringMember("propertyType");
+    return propertyType;
   }
 
   /**
@@ -487,7 +511,7 @@ public class DiagnosticsNode {
    * [defaultValue] has type [T] or is [kNoDefaultValue].
    */
   public DiagnosticLevel getDefaultLevel() {
-    return getLevelMember("defaultLevel", DiagnosticLevel.info);
+    return defaultLevel;
   }
 
   /**
@@ -502,7 +526,7 @@ public class DiagnosticsNode {
    * could.
    */
   public boolean getIsDiagnosticableValue() {
-    return getBooleanMember("isDiagnosticableValue", false);
+    return (flags & IS_DIAGNOSTICABLE_VALUE) != 0;
   }
 
   /**
@@ -512,9 +536,56 @@ public class DiagnosticsNode {
   private final CompletableFuture<InspectorService.ObjectGroup> inspectorService;
 
   /**
-   * JSON describing the diagnostic node.
+   * The members of the JSON describing the diagnostic node that are read
+   * whenever a node is shown, decoded once by the constructor. The strings
+   * that repeat between nodes are interned.
+   */
+  private static final Set<String> DECODED_MEMBERS = new HashSet<>(Arrays.asList(
+    "name", "description", "type", "propertyType", "widgetRuntimeType", "valueId", "objectId", "level", "defaultLevel",
+    "style", "locationId", "creationLocation", "showSeparator", "showName", "allowWrap", "quoted", "missingIfNull",
+    "isDiagnosticableValue", "hasChildren", "createdByLocalProject", "summaryTree", "stateful", "children", "properties"));
+
+  private static final Interner<String> strings = Interners.newWeakInterner();
+
+  private static final int SHOW_SEPARATOR = 1;
+  private static final int SHOW_NAME = 1 << 1;
+  private static final int ALLOW_WRAP = 1 << 2;
+  private static final int QUOTED = 1 << 3;
+  private static final int HAS_QUOTED = 1 << 4;
+  private static final int MISSING_IF_NULL = 1 << 5;
+  private static final int IS_DIAGNOSTICABLE_VALUE = 1 << 6;
+  private static final int HAS_CHILDREN = 1 << 7;
+  private static final int CREATED_BY_LOCAL_PROJECT = 1 << 8;
+  private static final int SUMMARY_TREE = 1 << 9;
+  private static final int STATEFUL = 1 << 10;
+  private static final int HAS_CHILDREN_JSON = 1 << 11;
+  private static final int HAS_PROPERTIES_JSON = 1 << 12;
+
+  private final String name;
+  private final String description;
+  private final String type;
+  private final String propertyType;
+  private final String widgetRuntimeType;
+  private final String valueId;
+  private final String objectId;
+  @NotNull private final DiagnosticLevel level;
+  @NotNull private final DiagnosticLevel defaultLevel;
+  @NotNull private final DiagnosticsTreeStyle style;
+  private final int locationId;
+  @Nullable private final JsonObject creationLocation;
+  private final int flags;
+
+  /**
+   * The members of the JSON that are not decoded, or null if there are none.
    */
-  private final JsonObject json;
+  @Nullable private final JsonObject rest;
+
+  /**
+   * The JSON of the children and inline properties, dropped once they are
+   * turned into nodes.
+   */
+  @Nullable private JsonArray childrenJson;
+  @Nullable private JsonArray propertiesJson;
 
   private CompletableFuture<ArrayList<DiagnosticsNode>> children;
 
@@ -527,53 +598,101 @@ public class DiagnosticsNode {
   }
 
   public String getStringMember(@NotNull String memberName) {
-    return JsonUtils.getStringMember(json, memberName);
+    switch (memberName) {
+      case "name":
+        return name;
+      case "description":
+        return description;
+      case "type":
+        return type;
+      case "propertyType":
+        return propertyType;
+      case "widgetRuntimeType":
+        return widgetRuntimeType;
+      case "valueId":
+        return valueId;
+      case "objectId":
+        return objectId;
+      default:
+        return rest == null ? null : JsonUtils.getStringMember(rest, memberName);
+    }
   }
 
-  private boolean getBooleanMember(String memberName, boolean defaultValue) {
-    if (!json.has(memberName)) {
-      return defaultValue;
-    }
+  private boolean hasRestMember(@NotNull String memberName) {
+    return rest != null && rest.has(memberName);
+  }
+
+  @Nullable
+  private static String getInternedString(@NotNull JsonObject json, @NotNull String memberName) {
+    final String value = JsonUtils.getStringMember(json, memberName);
+    return value == null ? null : strings.intern(value);
+  }
+
+  @Nullable
+  private static JsonArray getArrayMember(@NotNull JsonObject json, @NotNull String memberName) {
+    final JsonElement value = json.get(memberName);
+    return value != null && value.isJsonArray() ? value.getAsJsonArray() : null;
+  }
+
+  private static boolean getBooleanMember(@NotNull JsonObject json, String memberName, boolean defaultValue) {
     final JsonElement value = json.get(memberName);
-    if (value instanceof JsonNull) {
+    if (value == null || value instanceof JsonNull) {
       return defaultValue;
     }
     return value.getAsBoolean();
   }
 
-  private DiagnosticLevel getLevelMember(String memberName, DiagnosticLevel defaultValue) {
-    if (!json.has(memberName)) {
-      return defaultValue;
-    }
-    final JsonElement value = json.get(memberName);
-    if (value instanceof JsonNull) {
-      return defaultValue;
+  private static int decodeFlags(@NotNull JsonObject json) {
+    int flags = 0;
+    flags |= getBooleanMember(json, "showSeparator", true) ? SHOW_SEPARATOR : 0;
+    flags |= getBooleanMember(json, "showName", true) ? SHOW_NAME : 0;
+    flags |= getBooleanMember(json, "allowWrap", true) ? ALLOW_WRAP : 0;
+    flags |= getBooleanMember(json, "quoted", false) ? QUOTED : 0;
+    flags |= json.has("quoted") ? HAS_QUOTED : 0;
+    flags |= getBooleanMember(json, "missingIfNull", false) ? MISSING_IF_NULL : 0;
+    flags |= getBooleanMember(json, "isDiagnosticableValue", false) ? IS_DIAGNOSTICABLE_VALUE : 0;
+    flags |= getBooleanMember(json, "hasChildren", false) ? HAS_CHILDREN : 0;
+    flags |= getBooleanMember(json, "createdByLocalProject", false) ? CREATED_BY_LOCAL_PROJECT : 0;
+    flags |= getBooleanMember(json, "summaryTree", false) ? SUMMARY_TREE : 0;
+    flags |= getBooleanMember(json, "stateful", false) ? STATEFUL : 0;
+    flags |= json.has("children") ? HAS_CHILDREN_JSON : 0;
+    flags |= json.has("properties") ? HAS_PROPERTIES_JSON : 0;
+    return flags;
+  }
+
+  @NotNull
+  private static DiagnosticLevel decodeLevel(@NotNull JsonObject json, @NotNull String memberName) {
+    final String value = JsonUtils.getStringMember(json, memberName);
+    if (value == null) {
+      return DiagnosticLevel.info;
     }
     try {
-      return DiagnosticLevel.valueOf(value.getAsString());
+      return DiagnosticLevel.valueOf(value);
     }
     catch (IllegalArgumentException ignore) {
-      return defaultValue;
+      return DiagnosticLevel.info;
     }
   }
 
-  private DiagnosticsTreeStyle getStyleMember(String memberName, DiagnosticsTreeStyle defaultValue) {
-    if (!json.has(memberName)) {
-      return defaultValue;
+  @NotNull
+  private static DiagnosticsTreeStyle decodeStyle(@NotNull JsonObject json) {
+    final String value = JsonUtils.getStringMember(json, "style");
+    if (value == null) {
+      return DiagnosticsTreeStyle.sparse;
     }
-    final JsonElement value = json.get(memberName);
-    if (value instanceof JsonNull) {
-      return defaultValue;
+    try {
+      return DiagnosticsTreeStyle.valueOf(value);
+    }
+    catch (IllegalArgumentException ignore) {
+      return DiagnosticsTreeStyle.sparse;
     }
-    return DiagnosticsTreeStyle.valueOf(value.getAsString());
   }
 
   /**
    * Returns a reference to the value the DiagnosticsNode object is describing.
    */
   public InspectorInstanceRef getValueRef() {
-    final JsonElement valueId = json.get("valueId");
-    return new InspectorInstanceRef(valueId.isJsonNull() ? null : valueId.getAsString());
+    return new InspectorInstanceRef(valueId);
   }
 
   public boolean isEnumProperty() {
@@ -634,53 +753,53 @@ public class DiagnosticsNode {
   }
 
   public JsonObject getValuePropertiesJson() {
-    return json.getAsJsonObject("valueProperties");
+    return hasRestMember("valueProperties") ? rest.getAsJsonObject("valueProperties") : null;
   }
 
   public boolean hasChildren() {
-    return getBooleanMember("hasChildren", false);
+    return (flags & HAS_CHILDREN) != 0;
   }
 
   public boolean isCreatedByLocalProject() {
-    return getBooleanMember("createdByLocalProject", false);
+    return (flags & CREATED_BY_LOCAL_PROJECT) != 0;
   }
 
   /**
    * Whether this node is being displayed as a full tree or a filtered tree.
    */
   public boolean isSummaryTree() {
-    return getBooleanMember("summaryTree", false);
+    return (flags & SUMMARY_TREE) != 0;
   }
 
   /**
    * Whether this node is being displayed as a full tree or a filtered tree.
    */
   public boolean isStateful() {
-    return getBooleanMember("stateful", false);
+    return (flags & STATEFUL) != 0;
   }
 
   public String getWidgetRuntimeType() {
-    return getStringMember("widgetRuntimeType");
+    return widgetRuntimeType;
   }
 
   /**
    * Check whether children are already available.
    */
   public boolean childrenReady() {
-    return json.has("children") || (children != null && children.isDone());
+    return childrenJson != null || (children != null && children.isDone());
   }
 
   public CompletableFuture<ArrayList<DiagnosticsNode>> getChildren() {
     if (children == null) {
-      if (json.has("children")) {
-        final JsonArray jsonArray = json.get("children").getAsJsonArray();
-        final ArrayList<DiagnosticsNode> nodes = new ArrayList<>();
-        for (JsonElement element : jsonArray) {
+      if (childrenJson != null) {
+        final ArrayList<DiagnosticsNode> nodes = new ArrayList<>(childrenJson.size());
+        for (JsonElement element : childrenJson) {
           final DiagnosticsNode child = new DiagnosticsNode(element.getAsJsonObject(), inspectorService, app, false, parent);
           child.setParent(this);
           nodes.add(child);
         }
         children = CompletableFuture.completedFuture(nodes);
+        childrenJson = null;
       }
       else if (hasChildren()) {
         children = inspectorService.thenComposeAsync((service) -> {
@@ -702,16 +821,14 @@ public class DiagnosticsNode {
    * Reference the actual Dart DiagnosticsNode object this object is referencing.
    */
   public InspectorInstanceRef getDartDiagnosticRef() {
-    final JsonElement objectId = json.get("objectId");
-    return new InspectorInstanceRef(objectId.isJsonNull() ? null : objectId.getAsString());
+    return new InspectorInstanceRef(objectId);
   }
 
   public boolean hasInlineProperties() {
-    if (!json.has("properties")) {
-      return false;
+    if (cachedProperties != null) {
+      return !cachedProperties.isEmpty();
     }
-    final JsonArray jsonArray = json.get("properties").getAsJsonArray();
-    return !jsonArray.isEmpty();
+    return propertiesJson != null && !propertiesJson.isEmpty();
   }
 
   /**
@@ -720,11 +837,11 @@ public class DiagnosticsNode {
   public ArrayList<DiagnosticsNode> getInlineProperties() {
     if (cachedProperties == null) {
       cachedProperties = new ArrayList<>();
-      if (json.has("properties")) {
-        final JsonArray jsonArray = json.get("properties").getAsJsonArray();
-        for (JsonElement element : jsonArray) {
+      if (propertiesJson != null) {
+        for (JsonElement element : propertiesJson) {
           cachedProperties.add(new DiagnosticsNode(element.getAsJsonObject(), inspectorService, app, true, parent));
         }
+        propertiesJson = null;
       }
     }
     return cachedProperties;
@@ -804,21 +921,87 @@ public class DiagnosticsNode {
    * field may change even for properties that have not changed because in
    * some cases such as the 'created' property for an element, the property
    * value is created dynamically each time 'getProperties' is called.
+   * Children and inline properties are compared the same way, whether or
+   * not they have been turned into nodes yet.
    */
   public boolean identicalDisplay(DiagnosticsNode node) {
     if (node == null) {
       return false;
     }
-    final Set<Map.Entry<String, JsonElement>> entries = json.entrySet();
-    if (entries.size() != node.json.entrySet().size()) {
+    return flags == node.flags &&
+           locationId == node.locationId &&
+           level == node.level &&
+           defaultLevel == node.defaultLevel &&
+           style == node.style &&
+           Objects.equals(name, node.name) &&
+           Objects.equals(description, node.description) &&
+           Objects.equals(type, node.type) &&
+           Objects.equals(propertyType, node.propertyType) &&
+           Objects.equals(widgetRuntimeType, node.widgetRuntimeType) &&
+           Objects.equals(creationLocation, node.creationLocation) &&
+           Objects.equals(rest, node.rest) &&
+           identicalChildren(node) &&
+           identicalInlineProperties(node);
+  }
+
+  private boolean identicalChildren(@NotNull DiagnosticsNode node) {
+    if ((flags & HAS_CHILDREN_JSON) == 0) {
+      // The flags match, so neither node came with its children.
+      return true;
+    }
+    if (childrenJson != null && node.childrenJson != null) {
+      return identicalDisplay(childrenJson, node.childrenJson);
+    }
+    return identicalDisplay(getChildren().getNow(null), node.getChildren().getNow(null));
+  }
+
+  private boolean identicalInlineProperties(@NotNull DiagnosticsNode node) {
+    if ((flags & HAS_PROPERTIES_JSON) == 0) {
+      return true;
+    }
+    if (propertiesJson != null && node.propertiesJson != null) {
+      return identicalDisplay(propertiesJson, node.propertiesJson);
+    }
+    return identicalDisplay(getInlineProperties(), node.getInlineProperties());
+  }
+
+  private static boolean identicalDisplay(@NotNull JsonArray nodes, @NotNull JsonArray others) {
+    if (nodes.size() != others.size()) {
       return false;
     }
-    for (Map.Entry<String, JsonElement> entry : entries) {
-      final String key = entry.getKey();
-      if (key.equals("objectId") || key.equals("valueId")) {
-        continue;
+    for (int i = 0; i < nodes.size(); i++) {
+      final JsonObject node = nodes.get(i).getAsJsonObject();
+      final JsonObject other = others.get(i).getAsJsonObject();
+      if (node.size() != other.size()) {
+        return false;
+      }
+      for (Map.Entry<String, JsonElement> entry : node.entrySet()) {
+        final String key = entry.getKey();
+        if (key.equals("objectId") || key.equals("valueId")) {
+          continue;
+        }
+        final JsonElement value = entry.getValue();
+        final JsonElement otherValue = other.get(key);
+        if ((key.equals("children") || key.equals("properties")) && value.isJsonArray() &&
+            otherValue != null && otherValue.isJsonArray()) {
+          if (!identicalDisplay(value.getAsJsonArray(), otherValue.getAsJsonArray())) {
+            return false;
+          }
+        }
+        else if (!value.equals(otherValue)) {
+          return false;
+        }
       }
-      if (!entry.getValue().equals(node.json.get(key))) {
+    }
+    return true;
+  }
+
+  private static boolean identicalDisplay(@Nullable List<DiagnosticsNode> nodes, @Nullable List<DiagnosticsNode> others) {
+    if (nodes == null || others == null || nodes.size() != others.size()) {
+      return nodes == others;
+    }
+    for (int i = 0; i < nodes.size(); i++) {
+      if (!nodes.get(i).identicalDisplay(others.get(i))) {
         return false;
       }
     }
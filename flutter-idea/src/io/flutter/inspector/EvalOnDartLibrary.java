@@ -21,8 +21,7 @@ import org.dartlang.vm.service.consumer.ServiceExtensionConsumer;
 import org.dartlang.vm.service.element.*;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.*;
 import java.util.function.Supplier;
 
@@ -42,10 +41,22 @@ public class EvalOnDartLibrary implements Disposable {
   private final Alarm myRequestsScheduler;
 
   static final int DEFAULT_REQUEST_TIMEOUT_SECONDS = 10;
+
+  /**
+   * The default number of requests that may be in flight at once.
+   */
+  static final int DEFAULT_MAX_PENDING_REQUESTS = 8;
+
+  /**
+   * Requests which have not been started yet, in the order they were added.
+   */
+  private final ArrayDeque<PendingRequest<?>> queuedRequests = new ArrayDeque<>();
   /**
-   * For robustness we ensure at most one pending request is issued at a time.
+   * The number of started requests from each object group which have not completed yet.
    */
-  private CompletableFuture<?> allPendingRequestsDone;
+  private final Map<InspectorService.ObjectGroup, Integer> inFlightByGroup = new HashMap<>();
+  private int inFlightCount;
+  private int maxPendingRequests = DEFAULT_MAX_PENDING_REQUESTS;
   private final Object pendingRequestLock = new Object();
 
   /**
@@ -56,10 +67,12 @@ public class EvalOnDartLibrary implements Disposable {
    * from an object in a group but the request to dispose the object group
    * occurred first.
    * <p>
-   * The design is we have at most 1 pending request at a time. This sacrifices
-   * some throughput with the advantage of predictable semantics and the benefit
-   * that we are able to skip large numbers of requests if they happen to be
-   * from groups of objects that should no longer be kept alive.
+   * Requests are started in the order they are added, with at most
+   * {@link #setMaxPendingRequests maxPendingRequests} of them in flight at a time
+   * so that expanding a large subtree is not limited to one round trip per node.
+   * The request that disposes an object group is held back until every earlier
+   * request from that group has completed, and requests are skipped entirely if
+   * they happen to be from groups of objects that should no longer be kept alive.
    * <p>
    * The optional ObjectGroup specified by isAlive, indicates whether the
    * request is still relevant or should be cancelled. This is an optimization
@@ -78,11 +91,98 @@ public class EvalOnDartLibrary implements Disposable {
       return CompletableFuture.completedFuture(null);
     }
 
+    // A request made while its group is being disposed is the request that disposes the group.
+    final boolean disposesGroup = isAlive != null && isAlive.isDisposing();
+    final PendingRequest<T> pending = new PendingRequest<>(isAlive, requestName, request, disposesGroup);
+    synchronized (pendingRequestLock) {
+      queuedRequests.add(pending);
+    }
+    startQueuedRequests();
+    return pending.response;
+  }
+
+  /**
+   * Set the number of requests that may be in flight at once. A value of 1 makes every request wait for the previous one.
+   */
+  public void setMaxPendingRequests(int maxPendingRequests) {
+    synchronized (pendingRequestLock) {
+      this.maxPendingRequests = Math.max(1, maxPendingRequests);
+    }
+    startQueuedRequests();
+  }
+
+  private void startQueuedRequests() {
+    final List<PendingRequest<?>> toStart = new ArrayList<>();
+    final List<PendingRequest<?>> toSkip = new ArrayList<>();
+    final boolean schedulerDisposed = myRequestsScheduler.isDisposed();
+
+    synchronized (pendingRequestLock) {
+      while (!queuedRequests.isEmpty() && (schedulerDisposed || inFlightCount < maxPendingRequests)) {
+        final PendingRequest<?> next = queuedRequests.peek();
+        final InspectorService.ObjectGroup group = next.isAlive;
+        if (schedulerDisposed || (group != null && group.isDisposed() && !next.disposesGroup)) {
+          // This is an optimization to avoid sending stale requests across the wire.
+          queuedRequests.poll();
+          toSkip.add(next);
+          continue;
+        }
+        if (next.disposesGroup && inFlightByGroup.containsKey(group)) {
+          // Wait for the outstanding reads from the group; later requests wait too so that order is preserved.
+          break;
+        }
+
+        queuedRequests.poll();
+        inFlightCount++;
+        if (group != null) {
+          inFlightByGroup.merge(group, 1, Integer::sum);
+        }
+        toStart.add(next);
+      }
+    }
+
+    for (PendingRequest<?> request : toSkip) {
+      request.response.complete(null);
+    }
+    if (!toStart.isEmpty()) {
+      myRequestsScheduler.addRequest(() -> {
+        for (PendingRequest<?> request : toStart) {
+          request.start();
+        }
+      }, 0);
+    }
+  }
+
+  private void requestDone(PendingRequest<?> request) {
+    synchronized (pendingRequestLock) {
+      inFlightCount--;
+      if (request.isAlive != null) {
+        inFlightByGroup.computeIfPresent(request.isAlive, (group, count) -> count == 1 ? null : count - 1);
+      }
+    }
+    startQueuedRequests();
+  }
+
+  private class PendingRequest<T> {
+    final InspectorService.ObjectGroup isAlive;
+    final String requestName;
+    final Supplier<CompletableFuture<T>> request;
+    final boolean disposesGroup;
     // Future that completes when the request has finished.
     final CompletableFuture<T> response = new CompletableFuture<>();
-    // This is an optimization to avoid sending stale requests across the wire.
-    final Runnable wrappedRequest = () -> {
-      if (isAlive != null && isAlive.isDisposed()) {
+
+    PendingRequest(InspectorService.ObjectGroup isAlive,
+                   String requestName,
+                   Supplier<CompletableFuture<T>> request,
+                   boolean disposesGroup) {
+      this.isAlive = isAlive;
+      this.requestName = requestName;
+      this.request = request;
+      this.disposesGroup = disposesGroup;
+    }
+
+    void start() {
+      response.whenComplete((v, t) -> requestDone(this));
+      if (isAlive != null && isAlive.isDisposed() && !disposesGroup) {
         response.complete(null);
         return;
       }
@@ -92,7 +192,14 @@ public class EvalOnDartLibrary implements Disposable {
       } catch (CompletionException ex) {
         response.completeExceptionally(ex);
       }
-      final CompletableFuture<T> future = request.get();
+      final CompletableFuture<T> future;
+      try {
+        future = request.get();
+      }
+      catch (RuntimeException ex) {
+        response.completeExceptionally(ex);
+        return;
+      }
       future.whenCompleteAsync((v, t) -> {
         if (t != null) {
           response.completeExceptionally(t);
@@ -101,27 +208,7 @@ public class EvalOnDartLibrary implements Disposable {
           response.complete(v);
         }
       });
-    };
-    synchronized (pendingRequestLock) {
-      if (allPendingRequestsDone == null || allPendingRequestsDone.isDone()) {
-        allPendingRequestsDone = response;
-        myRequestsScheduler.addRequest(wrappedRequest, 0);
-      }
-      else {
-        final CompletableFuture<?> previousDone = allPendingRequestsDone;
-        allPendingRequestsDone = response;
-        // Actually schedule this request only after the previous request completes.
-        previousDone.whenCompleteAsync((v, error) -> {
-          if (myRequestsScheduler.isDisposed()) {
-            response.complete(null);
-          }
-          else {
-            myRequestsScheduler.addRequest(wrappedRequest, 0);
-          }
-        });
-      }
     }
-    return response;
   }
 
   public EvalOnDartLibrary(Set<String> libraryNames, VmService vmService, VMServiceManager vmServiceManager) {
@@ -11,15 +11,14 @@ import com.intellij.ui.components.JBLabel;
 import com.intellij.util.ui.JBUI;
 import com.intellij.util.ui.UIUtil;
 import io.flutter.run.daemon.FlutterApp;
-import io.flutter.vmService.HeapMonitor;
+import io.flutter.vmService.HeapHistory;
 import io.flutter.vmService.HeapMonitor.HeapListener;
-import io.flutter.vmService.HeapMonitor.HeapSample;
+import io.flutter.vmService.VMServiceManager;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.Path2D;
-import java.util.LinkedList;
 
 public class HeapDisplay extends JPanel {
   public static JPanel createJPanelView(Disposable parentDisposable, FlutterApp app) {
@@ -31,7 +30,9 @@ public class HeapDisplay extends JPanel {
     heapLabel.setForeground(UIUtil.getLabelDisabledForeground());
     heapLabel.setBorder(JBUI.Borders.empty(4));
 
-    final HeapState heapState = new HeapState(60 * 1000);
+    final VMServiceManager vmServiceManager = app.getVMServiceManager();
+    assert vmServiceManager != null;
+    final HeapState heapState = new HeapState(vmServiceManager.getHeapMonitor().getTotalHistory(), 60 * 1000);
     final HeapDisplay graph = new HeapDisplay(state -> {
       heapLabel.setText(heapState.getHeapSummary());
       SwingUtilities.invokeLater(heapLabel::repaint);
@@ -44,14 +45,13 @@ public class HeapDisplay extends JPanel {
     panel.add(graph, BorderLayout.CENTER);
 
     final HeapListener listener = memoryUsages -> SwingUtilities.invokeLater(() -> {
-      heapState.handleMemoryUsage(memoryUsages);
+      heapState.update();
       graph.updateFrom(heapState);
       panel.repaint();
     });
 
-    assert app.getVMServiceManager() != null;
-    app.getVMServiceManager().addHeapListener(listener);
-    Disposer.register(parentDisposable, () -> app.getVMServiceManager().removeHeapListener(listener));
+    vmServiceManager.addHeapListener(listener);
+    Disposer.register(parentDisposable, () -> vmServiceManager.removeHeapListener(listener));
 
     return panel;
   }
@@ -82,8 +82,7 @@ public class HeapDisplay extends JPanel {
   private void updateFrom(HeapState state) {
     this.heapState = state;
 
-    if (!heapState.getSamples().isEmpty()) {
-      final HeapSample sample = heapState.getSamples().get(0);
+    if (heapState.getSamples().size() > 0) {
       if (summaryCallback != null) {
         summaryCallback.updatedSummary(state);
       }
@@ -112,9 +111,12 @@ public class HeapDisplay extends JPanel {
 
     Path2D path = null;
 
-    for (HeapSample sample : heapState.getSamples()) {
-      final double x = width - (((double)(now - sample.getSampleTime())) / ((double)heapState.getMaxSampleSizeMs()) * width);
-      final double y = (double)height * sample.getBytes() / maxDataSize;
+    // Leave a little bit extra in the samples we draw, so the line runs off the left edge.
+    final long oldestTime = now - heapState.getMaxSampleSizeMs() - 2000;
+    final HeapHistory.Snapshot samples = heapState.getSamples();
+    for (int i = 0; i < samples.size() && samples.getTimeMillis(i) >= oldestTime; i++) {
+      final double x = width - (((double)(now - samples.getTimeMillis(i))) / ((double)heapState.getMaxSampleSizeMs()) * width);
+      final double y = (double)height * samples.getHeapUsage(i) / maxDataSize;
 
       if (path == null) {
         path = new Path2D.Double();
@@ -125,28 +127,8 @@ public class HeapDisplay extends JPanel {
       }
     }
 
-    graphics2D.draw(path);
-  }
-}
-
-/**
- * A fixed-length list of captured samples.
- */
-class HeapSamples {
-  final LinkedList<HeapSample> samples = new LinkedList<>();
-  final int maxSampleSizeMs;
-
-  HeapSamples(int maxSampleSizeMs) {
-    this.maxSampleSizeMs = maxSampleSizeMs;
-  }
-
-  void addSample(HeapMonitor.HeapSample sample) {
-    samples.add(sample);
-
-    // Leave a little bit extra in the samples we trim off.
-    final long oldestTime = System.currentTimeMillis() - maxSampleSizeMs - 2000;
-    while (!samples.isEmpty() && samples.get(0).getSampleTime() < oldestTime) {
-      samples.removeFirst();
+    if (path != null) {
+      graphics2D.draw(path);
     }
   }
 }
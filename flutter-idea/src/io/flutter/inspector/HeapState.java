@@ -5,12 +5,14 @@
  */
 package io.flutter.inspector;
 
-import io.flutter.vmService.HeapMonitor;
-import org.dartlang.vm.service.element.MemoryUsage;
+import io.flutter.vmService.HeapHistory;
+import org.jetbrains.annotations.NotNull;
 
 import java.text.DecimalFormat;
-import java.util.List;
 
+/**
+ * The recent samples of a {@link HeapHistory}, as shown by a {@link HeapDisplay}.
+ */
 public class HeapState {
   private static final DecimalFormat df = new DecimalFormat();
 
@@ -18,59 +20,60 @@ public class HeapState {
     df.setMaximumFractionDigits(1);
   }
 
-  // Running count of the max heap (in bytes).
-  private int heapMaxInBytes;
+  @NotNull private final HeapHistory history;
+  private final int maxSampleSizeMs;
 
-  private final HeapSamples samples;
+  /**
+   * The samples as of the last {@link #update()}, newest first.
+   */
+  @NotNull private HeapHistory.Snapshot samples;
 
-  public HeapState(int maxSampleSizeMs) {
-    samples = new HeapSamples(maxSampleSizeMs);
+  public HeapState(@NotNull HeapHistory history, int maxSampleSizeMs) {
+    this.history = history;
+    this.maxSampleSizeMs = maxSampleSizeMs;
+    samples = history.snapshot(0);
   }
 
   public int getMaxSampleSizeMs() {
-    return samples.maxSampleSizeMs;
+    return maxSampleSizeMs;
+  }
+
+  /**
+   * Read the latest samples from the history.
+   */
+  public void update() {
+    samples = history.snapshot(history.getCapacity());
   }
 
-  public List<HeapMonitor.HeapSample> getSamples() {
-    return samples.samples;
+  @NotNull
+  public HeapHistory.Snapshot getSamples() {
+    return samples;
   }
 
   // Allocated heap size.
-  public int getCapacity() {
-    int max = heapMaxInBytes;
+  public long getCapacity() {
+    if (samples.size() == 0) {
+      return 0;
+    }
 
-    for (HeapMonitor.HeapSample sample : samples.samples) {
-      max = Math.max(max, sample.getBytes());
+    // Leave a little bit extra in the samples we look at.
+    final long oldestTime = System.currentTimeMillis() - maxSampleSizeMs - 2000;
+    long max = samples.getHeapCapacity(0);
+    for (int i = 0; i < samples.size() && samples.getTimeMillis(i) >= oldestTime; i++) {
+      max = Math.max(max, samples.getHeapUsage(i));
     }
 
     return max;
   }
 
-  private static String printMb(int bytes) {
+  private static String printMb(long bytes) {
     return df.format(bytes / (1024 * 1024.0)) + "MB";
   }
 
   public String getHeapSummary() {
-    return printMb(samples.samples.getLast().getBytes()) + " of " + printMb(heapMaxInBytes);
-  }
-
-  void addSample(HeapMonitor.HeapSample sample) {
-    samples.addSample(sample);
-  }
-
-  public void handleMemoryUsage(List<MemoryUsage> memoryUsages) {
-    int current = 0;
-    int total = 0;
-    int external = 0;
-
-    for (MemoryUsage usage : memoryUsages) {
-      current += usage.getHeapUsage();
-      total += usage.getHeapCapacity();
-      external += usage.getExternalUsage();
+    if (samples.size() == 0) {
+      return "";
     }
-
-    heapMaxInBytes = total;
-
-    addSample(new HeapMonitor.HeapSample(current, external));
+    return printMb(samples.getHeapUsage(0)) + " of " + printMb(samples.getHeapCapacity(0));
   }
 }
@@ -70,6 +70,11 @@ import java.util.function.Supplier;
  * Manages all communication between inspector code running on the DartVM and inspector code running in the IDE.
  */
 public class InspectorService implements Disposable {
+  /**
+   * The streams whose events are handled in {@link #onVmServiceReceived}.
+   */
+  private static final List<String> LISTENED_STREAM_IDS =
+    Arrays.asList(VmService.DEBUG_STREAM_ID, VmService.EXTENSION_STREAM_ID, "ToolEvent");
 
   public static class Location {
 
@@ -254,7 +259,7 @@ public class InspectorService implements Disposable {
 
     clients = new HashSet<>();
 
-    vmService.addVmServiceListener(new VmServiceListenerAdapter() {
+    vmService.addVmServiceListener(LISTENED_STREAM_IDS, new VmServiceListenerAdapter() {
       @Override
       public void received(String streamId, Event event) {
         onVmServiceReceived(streamId, event);
@@ -1468,6 +1473,13 @@ public class InspectorService implements Disposable {
     public boolean isDisposed() {
       return disposed;
     }
+
+    /**
+     * Whether {@link #dispose()} is issuing the request that disposes this group; that request must not be skipped.
+     */
+    boolean isDisposing() {
+      return !disposed && lock.isWriteLockedByCurrentThread();
+    }
   }
 
   public static String getFileUriPrefix() {
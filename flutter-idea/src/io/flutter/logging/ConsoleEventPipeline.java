@@ -0,0 +1,223 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.logging;
+
+import com.intellij.openapi.diagnostic.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Prepares console output for a stream of events concurrently, and prints it in the order the events arrived.
+ * <p>
+ * Each event is added as a task that starts its (usually asynchronous) lookups and returns a future of the code that
+ * prints the result. At most {@code maxInFlight} tasks are running at a time; the others wait in arrival order. At most
+ * {@code maxPending} events are held in total; events arriving while the pipeline is full are dropped and counted, and a
+ * notice is printed in their place once there is room again.
+ * <p>
+ * Output is printed by a task on the given executor once the oldest event is ready, so neither the threads delivering
+ * events nor the ones completing lookups print, and nothing ever blocks waiting for a lookup.
+ */
+class ConsoleEventPipeline {
+  private static final Logger LOG = Logger.getInstance(ConsoleEventPipeline.class);
+
+  private static class Entry {
+    @NotNull final Supplier<CompletableFuture<Runnable>> task;
+    @NotNull final CompletableFuture<Runnable> output = new CompletableFuture<>();
+
+    Entry(@NotNull Supplier<CompletableFuture<Runnable>> task) {
+      this.task = task;
+    }
+  }
+
+  private final int maxInFlight;
+  private final int maxPending;
+  @NotNull private final IntFunction<Runnable> droppedNotice;
+  @NotNull private final Executor printExecutor;
+
+  private final Object lock = new Object();
+
+  /**
+   * All the events that have not been printed yet, in arrival order.
+   */
+  private final ArrayDeque<Entry> pending = new ArrayDeque<>();
+
+  /**
+   * The events whose task has not been started yet because the in-flight window was full, in arrival order.
+   */
+  private final ArrayDeque<Entry> waiting = new ArrayDeque<>();
+
+  private int inFlight = 0;
+  private boolean starting = false;
+  private boolean printing = false;
+
+  private long receivedCount = 0;
+  private long droppedCount = 0;
+  private long deferredCount = 0;
+  private int droppedSinceLastEvent = 0;
+
+  /**
+   * @param droppedNotice creates the output printed in place of the given number of dropped events
+   */
+  ConsoleEventPipeline(int maxInFlight, int maxPending, @NotNull IntFunction<Runnable> droppedNotice,
+                       @NotNull Executor printExecutor) {
+    this.maxInFlight = maxInFlight;
+    this.maxPending = maxPending;
+    this.droppedNotice = droppedNotice;
+    this.printExecutor = printExecutor;
+  }
+
+  /**
+   * Add an event. Returns false if the event was dropped because the pipeline is full.
+   */
+  boolean add(@NotNull Supplier<CompletableFuture<Runnable>> task) {
+    final Entry entry = new Entry(task);
+    synchronized (lock) {
+      receivedCount++;
+      if (pending.size() >= maxPending) {
+        droppedCount++;
+        droppedSinceLastEvent++;
+        return false;
+      }
+      if (droppedSinceLastEvent > 0) {
+        final Entry notice = new Entry(() -> null);
+        notice.output.complete(droppedNotice.apply(droppedSinceLastEvent));
+        pending.addLast(notice);
+        droppedSinceLastEvent = 0;
+      }
+      pending.addLast(entry);
+      waiting.addLast(entry);
+      if (inFlight >= maxInFlight) {
+        deferredCount++;
+      }
+    }
+    startWaiting();
+    return true;
+  }
+
+  /**
+   * Start waiting tasks while there is room in the in-flight window.
+   * <p>
+   * Tasks that complete synchronously call back into this method; the thread that is already starting tasks picks up
+   * the freed slots, so the stack doesn't grow with the number of waiting tasks.
+   */
+  private void startWaiting() {
+    synchronized (lock) {
+      if (starting) {
+        return;
+      }
+      starting = true;
+    }
+    while (true) {
+      final Entry next;
+      synchronized (lock) {
+        if (inFlight >= maxInFlight || waiting.isEmpty()) {
+          starting = false;
+          return;
+        }
+        next = waiting.removeFirst();
+        inFlight++;
+      }
+      start(next);
+    }
+  }
+
+  private void start(@NotNull Entry entry) {
+    CompletableFuture<Runnable> future;
+    try {
+      future = entry.task.get();
+      if (future == null) {
+        future = CompletableFuture.completedFuture(null);
+      }
+    }
+    catch (Throwable t) {
+      future = CompletableFuture.failedFuture(t);
+    }
+    future.whenComplete((output, error) -> {
+      if (error != null) {
+        LOG.warn(error);
+      }
+      entry.output.complete(output);
+      synchronized (lock) {
+        inFlight--;
+      }
+      startWaiting();
+      printExecutor.execute(this::printReady);
+    });
+  }
+
+  /**
+   * Print the output of the oldest events, up to the first one that is still being prepared.
+   */
+  private void printReady() {
+    synchronized (lock) {
+      if (printing) {
+        return;
+      }
+      printing = true;
+    }
+    while (true) {
+      final Runnable output;
+      synchronized (lock) {
+        final Entry head = pending.peekFirst();
+        if (head == null || !head.output.isDone()) {
+          printing = false;
+          lock.notifyAll();
+          return;
+        }
+        pending.removeFirst();
+        output = head.output.getNow(null);
+      }
+      if (output != null) {
+        try {
+          output.run();
+        }
+        catch (Throwable t) {
+          LOG.warn(t);
+        }
+      }
+    }
+  }
+
+  /**
+   * Wait until the output of all the events added so far has been printed.
+   */
+  void flush() throws InterruptedException {
+    synchronized (lock) {
+      while (!pending.isEmpty() || printing) {
+        lock.wait();
+      }
+    }
+  }
+
+  long getReceivedCount() {
+    synchronized (lock) {
+      return receivedCount;
+    }
+  }
+
+  /**
+   * The number of events dropped because the pipeline was full.
+   */
+  long getDroppedCount() {
+    synchronized (lock) {
+      return droppedCount;
+    }
+  }
+
+  /**
+   * The number of events that had to wait for a free slot in the in-flight window before their lookups started.
+   */
+  long getDeferredCount() {
+    synchronized (lock) {
+      return deferredCount;
+    }
+  }
+}
@@ -32,7 +32,7 @@ import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.openapi.wm.ToolWindowManager;
 import com.intellij.openapi.wm.ex.ToolWindowManagerEx;
 import com.intellij.ui.SimpleTextAttributes;
-import com.intellij.util.concurrency.QueueProcessor;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import io.flutter.FlutterInitializer;
 import io.flutter.FlutterUtils;
 import io.flutter.devtools.DevToolsUtils;
@@ -57,10 +57,8 @@ import org.jetbrains.annotations.Nullable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Handle displaying dart:developer log messages and Flutter.Error messages in the Run and Debug
@@ -79,8 +77,18 @@ public class FlutterConsoleLogManager {
     new ConsoleViewContentType("subtle", SimpleTextAttributes.GRAY_ATTRIBUTES.toTextAttributes());
   private static final ConsoleViewContentType ERROR_CONTENT_TYPE = ConsoleViewContentType.ERROR_OUTPUT;
 
-  private static QueueProcessor<Runnable> queue;
-  private static final AtomicInteger queueLength = new AtomicInteger();
+  /**
+   * The number of events whose VM service lookups may run at the same time.
+   */
+  private static final int MAX_IN_FLIGHT_EVENTS = 16;
+
+  /**
+   * The number of events that may wait to be printed before new events are dropped.
+   */
+  private static final int MAX_PENDING_EVENTS = 2000;
+
+  private static final int STRING_LOOKUP_TIMEOUT_SECONDS = 1;
+  private static final int TO_STRING_TIMEOUT_SECONDS = 5;
 
   /**
    * Set our preferred settings for the run console.
@@ -101,6 +109,11 @@ public class FlutterConsoleLogManager {
 
   private int frameErrorCount = 0;
 
+  /**
+   * Prints this app's logging and Flutter.Error events in the order they arrived.
+   */
+  @NotNull private final ConsoleEventPipeline pipeline;
+
   private CompletableFuture<InspectorService.ObjectGroup> objectGroup;
 
   public FlutterConsoleLogManager(@NotNull ConsoleView console, @NotNull FlutterApp app) {
@@ -129,9 +142,11 @@ public class FlutterConsoleLogManager {
       }
     });
 
-    if (queue == null) {
-      queue = QueueProcessor.createRunnableQueueProcessor();
-    }
+    pipeline = new ConsoleEventPipeline(
+      MAX_IN_FLIGHT_EVENTS, MAX_PENDING_EVENTS,
+      (dropped) -> () -> console.print("[" + dropped + (dropped == 1 ? " log message" : " log messages") + " dropped]\n",
+                                       SUBTLE_CONTENT_TYPE),
+      AppExecutorUtil.getAppExecutorService());
   }
 
   /**
@@ -170,23 +185,7 @@ public class FlutterConsoleLogManager {
       final DiagnosticsNode diagnosticsNode = new DiagnosticsNode(jsonObject, objectGroup, app, false, null);
 
       if (FlutterSettings.getInstance().isShowStructuredErrors()) {
-        queueLength.incrementAndGet();
-
-        queue.add(() -> {
-          try {
-            processFlutterErrorEvent(diagnosticsNode);
-          }
-          catch (Throwable t) {
-            LOG.warn(t);
-          }
-          finally {
-            queueLength.decrementAndGet();
-
-            synchronized (queueLength) {
-              queueLength.notifyAll();
-            }
-          }
-        });
+        pipeline.add(() -> CompletableFuture.completedFuture(() -> processFlutterErrorEvent(diagnosticsNode)));
       }
     }
     catch (Throwable t) {
@@ -198,19 +197,26 @@ public class FlutterConsoleLogManager {
    * Wait until all pending work has completed.
    */
   public void flushFlutterErrorQueue() {
-    // If the queue isn't empty, then wait until the all the items have been processed.
-    if (queueLength.get() > 0) {
-      try {
-        while (queueLength.get() > 0) {
-          synchronized (queueLength) {
-            queueLength.wait();
-          }
-        }
-      }
-      catch (InterruptedException e) {
-        e.printStackTrace();
-      }
+    try {
+      pipeline.flush();
     }
+    catch (InterruptedException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * The number of logging and Flutter.Error events that were dropped because too many were waiting to be printed.
+   */
+  public long getDroppedEventCount() {
+    return pipeline.getDroppedCount();
+  }
+
+  /**
+   * The number of events that had to wait for the lookups of earlier events to finish before their own could start.
+   */
+  public long getDeferredEventCount() {
+    return pipeline.getDeferredCount();
   }
 
   private static final int errorSeparatorLength = 100;
@@ -456,14 +462,7 @@ public class FlutterConsoleLogManager {
   }
 
   public void handleLoggingEvent(@NotNull Event event) {
-    queue.add(() -> {
-      try {
-        processLoggingEvent(event);
-      }
-      catch (Throwable t) {
-        LOG.warn(t);
-      }
-    });
+    pipeline.add(() -> renderLoggingEvent(event));
   }
 
   private ConsoleViewContentType getContentTypeFor(DiagnosticLevel level) {
@@ -480,12 +479,25 @@ public class FlutterConsoleLogManager {
 
   @VisibleForTesting
   public void processLoggingEvent(@NotNull Event event) {
+    renderLoggingEvent(event).join().run();
+  }
+
+  /**
+   * Start the VM service lookups needed to print a logging event.
+   *
+   * @return a future of the code that prints the event, which completes once all the lookups have finished or timed out.
+   */
+  @NotNull
+  private CompletableFuture<Runnable> renderLoggingEvent(@NotNull Event event) {
+    final Runnable nothing = () -> {
+    };
+
     final LogRecord logRecord = event.getLogRecord();
-    if (logRecord == null) return;
+    if (logRecord == null) return CompletableFuture.completedFuture(nothing);
 
     final VmService service = app.getVmService();
     if (service == null) {
-      return;
+      return CompletableFuture.completedFuture(nothing);
     }
 
     final IsolateRef isolateRef = event.getIsolate();
@@ -495,19 +507,20 @@ public class FlutterConsoleLogManager {
 
     final String name = loggerName.getValueAsString().isEmpty() ? "log" : loggerName.getValueAsString();
     final String prefix = "[" + name + "] ";
-    final String messageStr = getFullStringValue(service, isolateRef.getId(), message);
+    final String padding = StringUtil.repeat(" ", prefix.length());
 
-    console.print(prefix, SUBTLE_CONTENT_TYPE);
-    console.print(messageStr + "\n", NORMAL_CONTENT_TYPE);
+    final CompletableFuture<String> messageStr = getFullStringValue(service, isolateRef.getId(), message);
 
     @NotNull final InstanceRef error = logRecord.getError();
     @NotNull final InstanceRef stackTrace = logRecord.getStackTrace();
 
-    if (!error.isNull()) {
-      final String padding = StringUtil.repeat(" ", prefix.length());
-
-      if (error.getKind() == InstanceKind.String) {
-        String string = getFullStringValue(service, isolateRef.getId(), error);
+    final CompletableFuture<Runnable> errorOutput;
+    if (error.isNull()) {
+      errorOutput = CompletableFuture.completedFuture(nothing);
+    }
+    else if (error.getKind() == InstanceKind.String) {
+      errorOutput = getFullStringValue(service, isolateRef.getId(), error).thenApply((value) -> {
+        String string = value;
 
         // Handle json in the error payload.
         boolean isJson = false;
@@ -521,44 +534,48 @@ public class FlutterConsoleLogManager {
         catch (JsonSyntaxException ignored) {
         }
 
-        console.print(padding + string + "\n", isJson ? ConsoleViewContentType.NORMAL_OUTPUT : ERROR_CONTENT_TYPE);
-      }
-      else {
-        final CountDownLatch latch = new CountDownLatch(1);
-
-        service.invoke(
-          isolateRef.getId(), error.getId(),
-          "toString", Collections.emptyList(),
-          true,
-          new VmServiceConsumers.InvokeConsumerWrapper() {
-            @Override
-            public void received(InstanceRef response) {
-              console.print(padding + stringValueFromStringRef(response) + "\n", ERROR_CONTENT_TYPE);
-              latch.countDown();
-            }
-
-            @Override
-            public void noGoodResult() {
-              console.print(padding + error.getClassRef().getName() + " " + error.getId() + "\n", ERROR_CONTENT_TYPE);
-              latch.countDown();
-            }
-          });
-
-        try {
-          latch.await();
-        }
-        catch (InterruptedException ignored) {
-        }
-      }
+        final String text = padding + string + "\n";
+        final ConsoleViewContentType contentType = isJson ? ConsoleViewContentType.NORMAL_OUTPUT : ERROR_CONTENT_TYPE;
+        return () -> console.print(text, contentType);
+      });
     }
+    else {
+      final String fallback = padding + error.getClassRef().getName() + " " + error.getId() + "\n";
+      final CompletableFuture<String> text = new CompletableFuture<>();
+
+      service.invoke(
+        isolateRef.getId(), error.getId(),
+        "toString", Collections.emptyList(),
+        true,
+        new VmServiceConsumers.InvokeConsumerWrapper() {
+          @Override
+          public void received(InstanceRef response) {
+            text.complete(padding + stringValueFromStringRef(response) + "\n");
+          }
 
-    if (!stackTrace.isNull()) {
-      final String padding = StringUtil.repeat(" ", prefix.length());
-      final String out = stackTrace.getValueAsString() == null ? "" : stackTrace.getValueAsString().trim();
+          @Override
+          public void noGoodResult() {
+            text.complete(fallback);
+          }
+        });
 
-      console.print(
-        padding + out.replaceAll("\n", "\n" + padding) + "\n", ERROR_CONTENT_TYPE);
+      errorOutput = text.completeOnTimeout(fallback, TO_STRING_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+        .thenApply((value) -> () -> console.print(value, ERROR_CONTENT_TYPE));
     }
+
+    return messageStr.thenCombine(errorOutput, (messageText, printError) -> () -> {
+      console.print(prefix, SUBTLE_CONTENT_TYPE);
+      console.print(messageText + "\n", NORMAL_CONTENT_TYPE);
+
+      printError.run();
+
+      if (!stackTrace.isNull()) {
+        final String out = stackTrace.getValueAsString() == null ? "" : stackTrace.getValueAsString().trim();
+
+        console.print(
+          padding + out.replaceAll("\n", "\n" + padding) + "\n", ERROR_CONTENT_TYPE);
+      }
+    });
   }
 
   private String stringValueFromStringRef(InstanceRef ref) {
@@ -573,49 +590,38 @@ public class FlutterConsoleLogManager {
     return ref.getValueAsString() + "...";
   }
 
-  private String getFullStringValue(@NotNull VmService service, String isolateId, @Nullable InstanceRef ref) {
-    if (ref == null) return null;
+  @NotNull
+  private CompletableFuture<String> getFullStringValue(@NotNull VmService service, String isolateId, @Nullable InstanceRef ref) {
+    if (ref == null) return CompletableFuture.completedFuture(null);
 
     if (!ref.getValueAsStringIsTruncated()) {
-      return ref.getValueAsString();
+      return CompletableFuture.completedFuture(ref.getValueAsString());
     }
 
-    final CountDownLatch latch = new CountDownLatch(1);
-    final String[] result = new String[1];
+    final CompletableFuture<String> result = new CompletableFuture<>();
 
     service.getObject(isolateId, ref.getId(), 0, ref.getLength(), new GetObjectConsumer() {
       @Override
       public void onError(RPCError error) {
-        result[0] = formatTruncatedString(ref);
-        latch.countDown();
+        result.complete(formatTruncatedString(ref));
       }
 
       @Override
       public void received(Obj response) {
         if (response instanceof Instance && ((Instance)response).getKind() == InstanceKind.String) {
-          result[0] = stringValueFromStringRef((Instance)response);
+          result.complete(stringValueFromStringRef((Instance)response));
         }
         else {
-          result[0] = formatTruncatedString(ref);
+          result.complete(formatTruncatedString(ref));
         }
-
-        latch.countDown();
       }
 
       @Override
       public void received(Sentinel response) {
-        result[0] = formatTruncatedString(ref);
-        latch.countDown();
+        result.complete(formatTruncatedString(ref));
       }
     });
 
-    try {
-      latch.await(1, TimeUnit.SECONDS);
-    }
-    catch (InterruptedException e) {
-      return null;
-    }
-
-    return result[0];
+    return result.completeOnTimeout(formatTruncatedString(ref), STRING_LOOKUP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
   }
 }
@@ -23,6 +23,7 @@ import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.util.ui.EdtInvocationManager;
+import gnu.trove.TIntArrayList;
 import gnu.trove.TIntObjectHashMap;
 import io.flutter.utils.AsyncUtils;
 import org.jetbrains.annotations.NotNull;
@@ -30,7 +31,9 @@ import org.jetbrains.annotations.NotNull;
 import javax.swing.Timer;
 import java.awt.event.ActionEvent;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * This class provides the glue code between code fetching performance
@@ -51,10 +54,19 @@ public class FlutterWidgetPerf implements Disposable, WidgetPerfListener {
 
   public static final long IDLE_DELAY_MILISECONDS = 400;
 
+  /**
+   * Note: the fields are only written while applying an update; see {@link #applyUpdate(Runnable)}.
+   */
   static class StatsForReportKind {
-    final TIntObjectHashMap<SlidingWindowStats> data = new TIntObjectHashMap<>();
-    private int lastStartTime = -1;
-    private int lastNonEmptyReportTime = -1;
+    final SlidingWindowStats data = new SlidingWindowStats();
+    private volatile int lastStartTime = -1;
+    private volatile int lastNonEmptyReportTime = -1;
+
+    void clear() {
+      data.clear();
+      lastStartTime = -1;
+      lastNonEmptyReportTime = -1;
+    }
   }
 
   // Retry requests if we do not receive a response within this interval.
@@ -75,7 +87,15 @@ public class FlutterWidgetPerf implements Disposable, WidgetPerfListener {
   private final Map<TextEditor, EditorPerfModel> editorDecorations = new HashMap<>();
   private final TIntObjectHashMap<Location> knownLocationIds = new TIntObjectHashMap<>();
   private final SetMultimap<String, Location> locationsPerFile = HashMultimap.create();
-  private final Map<PerfReportKind, StatsForReportKind> stats = new HashMap<>();
+  private final Map<PerfReportKind, StatsForReportKind> stats = new EnumMap<>(PerfReportKind.class);
+
+  /**
+   * Updates to the stats, applied in order by whichever thread finds them pending.
+   * <p>
+   * This keeps the stats single-writer without making threads that report events wait on a lock.
+   */
+  private final Queue<Runnable> pendingUpdates = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean applyingUpdates = new AtomicBoolean();
 
   final Set<TextEditor> currentEditors = new HashSet<>();
   private boolean profilingEnabled;
@@ -96,6 +116,9 @@ public class FlutterWidgetPerf implements Disposable, WidgetPerfListener {
     this.perfModelFactory = perfModelFactory;
     this.fileLocationMapperFactory = fileLocationMapperFactory;
     this.perfLinter = new WidgetPerfLinter(this, perfProvider);
+    for (PerfReportKind kind : PerfReportKind.values()) {
+      stats.put(kind, new StatsForReportKind());
+    }
 
     perfProvider.setTarget(this);
     uiAnimationTimer = new Timer(1000 / UI_FPS, event -> {
@@ -160,148 +183,167 @@ public class FlutterWidgetPerf implements Disposable, WidgetPerfListener {
 
   @Override
   public void onWidgetPerfEvent(PerfReportKind kind, JsonObject json) {
-    // Read access to the Document objects on background thread is needed so
-    // a ReadAction is required. Document objects are used to determine the
-    // widget names at specific locations in documents.
-    final Runnable action = () -> {
-      synchronized (this) {
-        final long startTimeMicros = json.get("startTime").getAsLong();
-        final int startTimeMilis = (int)(startTimeMicros / 1000);
-        lastLocalPerfEventTime = System.currentTimeMillis();
-        final StatsForReportKind statsForReportKind = getStatsForKind(kind);
-        if (statsForReportKind.lastStartTime > startTimeMilis) {
-          // We went backwards in time. There must have been a hot restart so
-          // clear all old stats.
-          statsForReportKind.data.forEachValue((SlidingWindowStats entry) -> {
-            entry.clear();
-            return true;
-          });
-        }
-        statsForReportKind.lastStartTime = startTimeMilis;
-
-        // Prefer the new 'locations' format if it exists; else read from 'newLocations'.
-        if (json.has("locations")) {
-          final JsonObject fileLocationsMap = json.getAsJsonObject("locations");
-
-          for (Map.Entry<String, JsonElement> entry : fileLocationsMap.entrySet()) {
-            final String path = entry.getKey();
-            final FileLocationMapper locationMapper = fileLocationMapperFactory.create(path);
-
-            final JsonObject locations = entry.getValue().getAsJsonObject();
-
-            final JsonArray ids = locations.getAsJsonArray("ids");
-            final JsonArray lines = locations.getAsJsonArray("lines");
-            final JsonArray columns = locations.getAsJsonArray("columns");
-            final JsonArray names = locations.getAsJsonArray("names");
-
-            for (int i = 0; i < ids.size(); i++) {
-              final int id = ids.get(i).getAsInt();
-              final int line = lines.get(i).getAsInt();
-              final int column = columns.get(i).getAsInt();
-
-              final TextRange textRange = locationMapper.getIdentifierRange(line, column);
-
-              final Location location = new Location(
-                locationMapper.getPath(),
-                line,
-                column,
-                id,
-                textRange,
-                names.get(i).getAsString()
-              );
-
-              final Location existingLocation = knownLocationIds.get(id);
-              if (existingLocation == null) {
-                addNewLocation(id, location);
-              }
-              else {
-                if (!location.equals(existingLocation)) {
-                  // Cleanup all references to the old location as it is stale.
-                  // This occurs if there is a hot restart or reload that we weren't aware of.
-                  locationsPerFile.remove(existingLocation.path, existingLocation);
-                  for (StatsForReportKind statsForKind : stats.values()) {
-                    statsForKind.data.remove(id);
-                  }
-                  addNewLocation(id, location);
-                }
-              }
-            }
-          }
+    final long startTimeMicros = json.get("startTime").getAsLong();
+    final int startTimeMilis = (int)(startTimeMicros / 1000);
+    lastLocalPerfEventTime = System.currentTimeMillis();
+
+    // Ids of locations that changed, so that their stats are stale.
+    final TIntArrayList staleLocationIds = new TIntArrayList();
+    if (json.has("locations") || json.has("newLocations")) {
+      // Read access to the Document objects on background thread is needed so
+      // a ReadAction is required. Document objects are used to determine the
+      // widget names at specific locations in documents.
+      final Runnable action = () -> {
+        synchronized (this) {
+          updateLocations(json, staleLocationIds);
         }
-        else if (json.has("newLocations")) {
-          final JsonObject newLocations = json.getAsJsonObject("newLocations");
-          for (Map.Entry<String, JsonElement> entry : newLocations.entrySet()) {
-            final String path = entry.getKey();
-            final FileLocationMapper locationMapper = fileLocationMapperFactory.create(path);
-            final JsonArray entries = entry.getValue().getAsJsonArray();
-            assert (entries.size() % 3 == 0);
-            for (int i = 0; i < entries.size(); i += 3) {
-              final int id = entries.get(i).getAsInt();
-              final int line = entries.get(i + 1).getAsInt();
-              final int column = entries.get(i + 2).getAsInt();
-              final TextRange textRange = locationMapper.getIdentifierRange(line, column);
-              String name = locationMapper.getText(textRange);
-              if (name == null) {
-                name = "";
-              }
-              final Location location = new Location(locationMapper.getPath(), line, column, id, textRange, name);
-
-              final Location existingLocation = knownLocationIds.get(id);
-              if (existingLocation == null) {
-                addNewLocation(id, location);
-              }
-              else {
-                if (!location.equals(existingLocation)) {
-                  // Cleanup all references to the old location as it is stale.
-                  // This occurs if there is a hot restart or reload that we weren't aware of.
-                  locationsPerFile.remove(existingLocation.path, existingLocation);
-                  for (StatsForReportKind statsForKind : stats.values()) {
-                    statsForKind.data.remove(id);
-                  }
-                  addNewLocation(id, location);
-                }
-              }
-            }
-          }
+      };
+
+      final Application application = ApplicationManager.getApplication();
+      if (application != null) {
+        application.runReadAction(action);
+      }
+      else {
+        // Unittest case.
+        action.run();
+      }
+    }
+
+    // The events are pairs of location id and count.
+    final JsonArray events = json.getAsJsonArray("events");
+    assert (events.size() % 2 == 0);
+    final int[] entries = new int[events.size() - events.size() % 2];
+    for (int i = 0; i < entries.length; i++) {
+      entries[i] = events.get(i).getAsInt();
+    }
+
+    applyUpdate(() -> {
+      final StatsForReportKind statsForKind = stats.get(kind);
+      if (statsForKind.lastStartTime > startTimeMilis) {
+        // We went backwards in time. There must have been a hot restart so
+        // clear all old stats.
+        statsForKind.data.clear();
+      }
+      statsForKind.lastStartTime = startTimeMilis;
+
+      // Cleanup all references to stale locations.
+      for (int i = 0; i < staleLocationIds.size(); i++) {
+        for (StatsForReportKind forKind : stats.values()) {
+          forKind.data.clear(staleLocationIds.get(i));
         }
+      }
+
+      if (entries.length > 0) {
+        statsForKind.lastNonEmptyReportTime = startTimeMilis;
+      }
+      for (int i = 0; i < entries.length; i += 2) {
+        statsForKind.data.add(entries[i], entries[i + 1], startTimeMilis);
+      }
+    });
+  }
 
-        final StatsForReportKind statsForKind = getStatsForKind(kind);
-        final PerfSourceReport report = new PerfSourceReport(json.getAsJsonArray("events"), kind, startTimeMicros);
-        if (!report.getEntries().isEmpty()) {
-          statsForReportKind.lastNonEmptyReportTime = startTimeMilis;
+  /**
+   * Record the locations described by a report, adding the ids of locations that changed to staleLocationIds.
+   */
+  private void updateLocations(JsonObject json, TIntArrayList staleLocationIds) {
+    // Prefer the new 'locations' format if it exists; else read from 'newLocations'.
+    if (json.has("locations")) {
+      final JsonObject fileLocationsMap = json.getAsJsonObject("locations");
+
+      for (Map.Entry<String, JsonElement> entry : fileLocationsMap.entrySet()) {
+        final String path = entry.getKey();
+        final FileLocationMapper locationMapper = fileLocationMapperFactory.create(path);
+
+        final JsonObject locations = entry.getValue().getAsJsonObject();
+
+        final JsonArray ids = locations.getAsJsonArray("ids");
+        final JsonArray lines = locations.getAsJsonArray("lines");
+        final JsonArray columns = locations.getAsJsonArray("columns");
+        final JsonArray names = locations.getAsJsonArray("names");
+
+        for (int i = 0; i < ids.size(); i++) {
+          final int id = ids.get(i).getAsInt();
+          final int line = lines.get(i).getAsInt();
+          final int column = columns.get(i).getAsInt();
+
+          final TextRange textRange = locationMapper.getIdentifierRange(line, column);
+
+          final Location location = new Location(
+            locationMapper.getPath(),
+            line,
+            column,
+            id,
+            textRange,
+            names.get(i).getAsString()
+          );
+          updateLocation(id, location, staleLocationIds);
         }
-        for (PerfSourceReport.Entry entry : report.getEntries()) {
-          final int locationId = entry.locationId;
-          SlidingWindowStats statsForLocation = statsForKind.data.get(locationId);
-          if (statsForLocation == null) {
-            statsForLocation = new SlidingWindowStats();
-            statsForKind.data.put(locationId, statsForLocation);
+      }
+    }
+    else if (json.has("newLocations")) {
+      final JsonObject newLocations = json.getAsJsonObject("newLocations");
+      for (Map.Entry<String, JsonElement> entry : newLocations.entrySet()) {
+        final String path = entry.getKey();
+        final FileLocationMapper locationMapper = fileLocationMapperFactory.create(path);
+        final JsonArray entries = entry.getValue().getAsJsonArray();
+        assert (entries.size() % 3 == 0);
+        for (int i = 0; i < entries.size(); i += 3) {
+          final int id = entries.get(i).getAsInt();
+          final int line = entries.get(i + 1).getAsInt();
+          final int column = entries.get(i + 2).getAsInt();
+          final TextRange textRange = locationMapper.getIdentifierRange(line, column);
+          String name = locationMapper.getText(textRange);
+          if (name == null) {
+            name = "";
           }
-          statsForLocation.add(entry.total, startTimeMilis);
+          final Location location = new Location(locationMapper.getPath(), line, column, id, textRange, name);
+          updateLocation(id, location, staleLocationIds);
         }
       }
-    };
+    }
+  }
 
-    final Application application = ApplicationManager.getApplication();
-    if (application != null) {
-      application.runReadAction(action);
+  private void updateLocation(int id, Location location, TIntArrayList staleLocationIds) {
+    final Location existingLocation = knownLocationIds.get(id);
+    if (existingLocation == null) {
+      addNewLocation(id, location);
     }
     else {
-      // Unittest case.
-      action.run();
+      if (!location.equals(existingLocation)) {
+        // Cleanup all references to the old location as it is stale.
+        // This occurs if there is a hot restart or reload that we weren't aware of.
+        locationsPerFile.remove(existingLocation.path, existingLocation);
+        staleLocationIds.add(id);
+        addNewLocation(id, location);
+      }
+    }
+  }
+
+  /**
+   * Queue an update to the stats, and apply all pending updates unless another thread is already doing so.
+   */
+  private void applyUpdate(Runnable update) {
+    pendingUpdates.add(update);
+    while (!pendingUpdates.isEmpty() && applyingUpdates.compareAndSet(false, true)) {
+      try {
+        Runnable next;
+        while ((next = pendingUpdates.poll()) != null) {
+          next.run();
+        }
+      }
+      finally {
+        applyingUpdates.set(false);
+      }
     }
   }
 
   @Override
   public void onNavigation() {
-    synchronized (this) {
+    applyUpdate(() -> {
       for (StatsForReportKind statsForKind : stats.values()) {
-        statsForKind.data.forEachValue((SlidingWindowStats entry) -> {
-          entry.onNavigation();
-          return true;
-        });
+        statsForKind.data.onNavigation();
       }
-    }
+    });
   }
 
   @Override
@@ -314,15 +356,6 @@ public class FlutterWidgetPerf implements Disposable, WidgetPerfListener {
     perfListeners.remove(listener);
   }
 
-  private StatsForReportKind getStatsForKind(PerfReportKind kind) {
-    StatsForReportKind report = stats.get(kind);
-    if (report == null) {
-      report = new StatsForReportKind();
-      stats.put(kind, report);
-    }
-    return report;
-  }
-
   private void addNewLocation(int id, Location location) {
     knownLocationIds.put(id, location);
     locationsPerFile.put(location.path, location);
@@ -414,13 +447,8 @@ public class FlutterWidgetPerf implements Disposable, WidgetPerfListener {
     final String path = fileEditor.getFile().getPath();
     for (PerfReportKind kind : PerfReportKind.values()) {
       final StatsForReportKind forKind = stats.get(kind);
-      if (forKind == null) {
-        continue;
-      }
-      final TIntObjectHashMap<SlidingWindowStats> data = forKind.data;
       for (Location location : locationsPerFile.get(path)) {
-        final SlidingWindowStats entry = data.get(location.id);
-        if (entry == null) {
+        if (!forKind.data.hasLocation(location.id)) {
           continue;
         }
         final TextRange range = location.textRange;
@@ -431,7 +459,7 @@ public class FlutterWidgetPerf implements Disposable, WidgetPerfListener {
           range,
           new SummaryStats(
             kind,
-            new SlidingWindowStatsSummary(entry, forKind.lastStartTime, location),
+            new SlidingWindowStatsSummary(forKind.data, forKind.lastStartTime, location),
             location.name
           )
         );
@@ -553,8 +581,14 @@ public class FlutterWidgetPerf implements Disposable, WidgetPerfListener {
   protected void onRestart() {
     AsyncUtils.invokeLater(() -> {
       // The app has restarted. Location ids may not be valid.
-      knownLocationIds.clear();
-      stats.clear();
+      synchronized (this) {
+        knownLocationIds.clear();
+      }
+      applyUpdate(() -> {
+        for (StatsForReportKind statsForKind : stats.values()) {
+          statsForKind.clear();
+        }
+      });
       clearModels();
     });
   }
@@ -577,34 +611,31 @@ public class FlutterWidgetPerf implements Disposable, WidgetPerfListener {
     final ArrayList<SlidingWindowStatsSummary> entries = new ArrayList<>();
     synchronized (this) {
       final StatsForReportKind forKind = stats.get(kind);
-      if (forKind != null) {
-        final int time = forKind.lastNonEmptyReportTime;
-        forKind.data.forEachEntry((int locationId, SlidingWindowStats stats) -> {
-          for (PerfMetric metric : metrics) {
-            if (stats.getValue(metric, time) > 0) {
-              final Location location = knownLocationIds.get(locationId);
-              // TODO(jacobr): consider changing this check for
-              // location != null to an assert once the edge case leading to
-              // occassional null locations has been fixed. I expect the edge
-              // case occurs because we are sometimes including a few stats
-              // from before a hot restart due to an incorrect ordering for
-              // when the events occur. In any case, the extra != null check
-              // is harmless and ensures the UI display is robust at the cost
-              // of perhaps ommiting a little likely stale data.
-              // See https://github.com/flutter/flutter-intellij/issues/2892
-              if (location != null) {
-                entries.add(new SlidingWindowStatsSummary(
-                  stats,
-                  time,
-                  location
-                ));
-              }
-              return true;
+      final int time = forKind.lastNonEmptyReportTime;
+      forKind.data.forEachLocation((int locationId) -> {
+        for (PerfMetric metric : metrics) {
+          if (forKind.data.getValue(locationId, metric, time) > 0) {
+            final Location location = knownLocationIds.get(locationId);
+            // TODO(jacobr): consider changing this check for
+            // location != null to an assert once the edge case leading to
+            // occassional null locations has been fixed. I expect the edge
+            // case occurs because we are sometimes including a few stats
+            // from before a hot restart due to an incorrect ordering for
+            // when the events occur. In any case, the extra != null check
+            // is harmless and ensures the UI display is robust at the cost
+            // of perhaps ommiting a little likely stale data.
+            // See https://github.com/flutter/flutter-intellij/issues/2892
+            if (location != null) {
+              entries.add(new SlidingWindowStatsSummary(
+                forKind.data,
+                time,
+                location
+              ));
             }
+            return;
           }
-          return true;
-        });
-      }
+        }
+      });
     }
     return entries;
   }
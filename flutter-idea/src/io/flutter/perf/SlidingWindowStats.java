@@ -5,139 +5,346 @@
  */
 package io.flutter.perf;
 
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
 /**
- * Class for accumulating sliding window performance stats optimized for fast
- * performance and stable memory usage.
+ * Class for accumulating sliding window performance stats for all locations
+ * of one report kind, optimized for fast performance and stable memory usage.
+ * <p>
+ * The stats are stored by column. The timestamps of the most recent reports
+ * are kept in a ring shared by all locations, and for each of those reports a
+ * row of a dense matrix holds the cumulative count of every location up to and
+ * including that report. The total for a location within a window is then the
+ * difference of two entries of its column, and the rows covering a window are
+ * found with one search of the shared timestamps. The column of a location
+ * that is cleared is reused for the next new location, so the matrix only
+ * grows with the number of locations that have stats at the same time.
+ * <p>
+ * Updates must be made by one thread at a time. Queries can be made from any
+ * thread without locking; a query that races with an update may see the
+ * latest report partially added.
  */
 class SlidingWindowStats {
   // This lets as track a bit over 3 seconds at 60fps.
   // TODO(jacobr): consider a longer sliding window length
   // if we care about replaying historic stats for a longer
   // period of time.
-  static final int _windowLength = 200 * 2;
-  /// Array of timestamp followed by count.
-  final int[] _window;
-  int _next = 0;
-  int _start = 0;
+  static final int WINDOW_LENGTH = 200;
 
-  int _total = 0;
-  int _totalSinceNavigation = 0;
+  /**
+   * Windows spanning at most this many reports are scanned directly; the peaks
+   * of longer windows are computed for all locations at once and cached.
+   */
+  private static final int MAX_SCANNED_ROWS = 4;
 
-  SlidingWindowStats() {
-    _window = new int[_windowLength];
-  }
+  // Location ids are assigned sequentially by package:flutter.
+  private static final int MAX_LOCATION_ID = 1 << 20;
+
+  private static class Peaks {
+    final int version;
+    final int windowStart;
+    final int[] values;
 
-  int getTotal() {
-    return _total;
+    Peaks(int version, int windowStart, int[] values) {
+      this.version = version;
+      this.windowStart = windowStart;
+      this.values = values;
+    }
   }
 
-  int getTotalSinceNavigation() {
-    return _totalSinceNavigation;
+  /**
+   * The stats since the last clear. Replaced when more columns are needed.
+   */
+  private static class Table {
+    final int capacity;
+    final int[] timestamps;
+    /// Cumulative counts; the count for a column at a row is at [slot(row) * capacity + column].
+    final int[] cumulative;
+    final int[] navigationTotals;
+    /// The location id of each column, or -1 for a column that is no longer used.
+    final int[] locationIds;
+    /// The columns that are no longer used, whose counts are all zero; the first freeCount entries are valid.
+    final int[] freeColumns;
+    int freeCount;
+    /// The column of each location id plus one, or 0 if the location has no column.
+    volatile int[] columnOfId;
+
+    volatile int rowCount;
+    volatile int columnCount;
+    /// Incremented after each update, to tell cached peaks apart.
+    volatile int version;
+    volatile Peaks peaks;
+
+    Table(int capacity) {
+      this.capacity = capacity;
+      timestamps = new int[WINDOW_LENGTH];
+      cumulative = new int[WINDOW_LENGTH * capacity];
+      navigationTotals = new int[capacity];
+      locationIds = new int[capacity];
+      freeColumns = new int[capacity];
+      columnOfId = new int[0];
+    }
   }
 
+  private volatile Table table = new Table(16);
+
   void clear() {
-    _next = 0;
-    _start = 0;
-    _total = 0;
-    _totalSinceNavigation = 0;
+    table = new Table(16);
+  }
+
+  /**
+   * Drops the stats of a single location.
+   */
+  void clear(int locationId) {
+    final Table t = table;
+    final int column = getColumn(t, locationId);
+    if (column < 0) {
+      return;
+    }
+    for (int slot = 0; slot < WINDOW_LENGTH; slot++) {
+      t.cumulative[slot * t.capacity + column] = 0;
+    }
+    t.navigationTotals[column] = 0;
+    t.locationIds[column] = -1;
+    t.columnOfId[locationId] = 0;
+    t.freeColumns[t.freeCount++] = column;
+    t.version++;
   }
 
   void onNavigation() {
-    _totalSinceNavigation = 0;
+    final Table t = table;
+    final int rows = t.rowCount;
+    if (rows == 0) {
+      return;
+    }
+    System.arraycopy(t.cumulative, slot(rows - 1) * t.capacity, t.navigationTotals, 0, t.columnCount);
+    t.version++;
   }
 
-  int getTotalWithinWindow(int windowStart) {
-    if (_next == _start) {
-      return 0;
+  void add(int locationId, int count, int timeStamp) {
+    if (locationId < 0 || locationId >= MAX_LOCATION_ID) {
+      return;
+    }
+    Table t = table;
+    int column = getColumn(t, locationId);
+    if (column < 0) {
+      t = addColumn(t, locationId);
+      column = getColumn(t, locationId);
     }
-    final int end = _start >= 0 ? _start : _next;
-    int i = _next;
-    int count = 0;
-    while (true) {
-      i -= 2;
-      if (i < 0) {
-        i += _windowLength;
-      }
 
-      if (_window[i] < windowStart) {
-        break;
+    final int rows = t.rowCount;
+    if (rows == 0 || t.timestamps[slot(rows - 1)] != timeStamp) {
+      // The sliding window assumes timestamps must be given in increasing
+      // order.
+      assert (rows == 0 || t.timestamps[slot(rows - 1)] < timeStamp);
+      final int slot = slot(rows);
+      t.timestamps[slot] = timeStamp;
+      if (rows == 0) {
+        Arrays.fill(t.cumulative, slot * t.capacity, slot * t.capacity + t.columnCount, 0);
       }
-      count += _window[i + 1];
-      if (i == end) {
-        break;
+      else {
+        System.arraycopy(t.cumulative, slot(rows - 1) * t.capacity, t.cumulative, slot * t.capacity, t.columnCount);
       }
+      t.rowCount = rows + 1;
     }
-    return count;
+    t.cumulative[slot(t.rowCount - 1) * t.capacity + column] += count;
+    t.version++;
   }
 
-  void add(int count, int timeStamp) {
-    _total += count;
-    _totalSinceNavigation += count;
-    if (_start != _next) {
-      int last = _next - 2;
-      if (last < 0) {
-        last += _windowLength;
-      }
-      final int lastTimeStamp = _window[last];
-      if (lastTimeStamp == timeStamp) {
-        _window[last + 1] += count;
-        return;
+  @VisibleForTesting
+  int getColumnCount() {
+    return table.columnCount;
+  }
+
+  boolean hasLocation(int locationId) {
+    return getColumn(table, locationId) >= 0;
+  }
+
+  /**
+   * Calls the consumer with the id of each location that has stats.
+   */
+  void forEachLocation(IntConsumer consumer) {
+    final Table t = table;
+    final int columns = t.columnCount;
+    for (int column = 0; column < columns; column++) {
+      final int locationId = t.locationIds[column];
+      if (locationId >= 0) {
+        consumer.accept(locationId);
       }
-      // The sliding window assumes timestamps must be given in increasing
-      // order.
-      assert (lastTimeStamp < timeStamp);
     }
-    _window[_next] = timeStamp;
-    _window[_next + 1] = count;
-    _next += 2;
-    if (_next == _windowLength) {
-      _next = 0;
+  }
+
+  int getTotal(int locationId) {
+    final Table t = table;
+    final int column = getColumn(t, locationId);
+    final int rows = t.rowCount;
+    return column < 0 || rows == 0 ? 0 : getCumulative(t, rows - 1, column);
+  }
+
+  int getTotalSinceNavigation(int locationId) {
+    final Table t = table;
+    final int column = getColumn(t, locationId);
+    final int rows = t.rowCount;
+    return column < 0 || rows == 0 ? 0 : getCumulative(t, rows - 1, column) - t.navigationTotals[column];
+  }
+
+  int getTotalWithinWindow(int locationId, int windowStart) {
+    final Table t = table;
+    final int column = getColumn(t, locationId);
+    final int rows = t.rowCount;
+    if (column < 0) {
+      return 0;
     }
-    if (_start == _next) {
-      // The entire sliding window is now full so no need
-      // to track an explicit start.
-      _start = -1;
+    final int first = findFirstRow(t, rows, windowStart);
+    if (first >= rows) {
+      return 0;
     }
+    return getCumulative(t, rows - 1, column) - (first == 0 ? 0 : getCumulative(t, first - 1, column));
   }
 
-  public int getPeakWithinWindow(int windowStart) {
-    if (_next == _start) {
+  int getPeakWithinWindow(int locationId, int windowStart) {
+    final Table t = table;
+    final int column = getColumn(t, locationId);
+    if (column < 0) {
       return 0;
     }
-    final int end = _start >= 0 ? _start : _next;
-    int i = _next;
-    int peakValue = 0;
-    while (true) {
-      i -= 2;
-      if (i < 0) {
-        i += _windowLength;
+    final int version = t.version;
+    final int rows = t.rowCount;
+    final int first = findFirstRow(t, rows, windowStart);
+    if (rows - first <= MAX_SCANNED_ROWS) {
+      int peakValue = 0;
+      for (int row = first; row < rows; row++) {
+        peakValue = Math.max(peakValue, getCount(t, row, column));
       }
+      return peakValue;
+    }
 
-      if (_window[i] < windowStart) {
-        break;
-      }
-      peakValue = Math.max(peakValue, _window[i + 1]);
-      if (i == end) {
-        break;
-      }
+    Peaks peaks = t.peaks;
+    if (peaks == null || peaks.version != version || peaks.windowStart != windowStart) {
+      peaks = new Peaks(version, windowStart, computePeaks(t, first, rows));
+      t.peaks = peaks;
     }
-    return peakValue;
+    return column < peaks.values.length ? peaks.values[column] : 0;
   }
 
-  public int getValue(PerfMetric metric, int currentTime) {
+  public int getValue(int locationId, PerfMetric metric, int currentTime) {
     switch (metric) {
       case total:
-        return getTotal();
+        return getTotal(locationId);
       case pastSecond:
-        return getTotalWithinWindow(currentTime - 999);
+        return getTotalWithinWindow(locationId, currentTime - 999);
       case lastFrame:
-        return getPeakWithinWindow(currentTime);
+        return getPeakWithinWindow(locationId, currentTime);
       case peakRecent:
-        return getPeakWithinWindow(currentTime - 499);
+        return getPeakWithinWindow(locationId, currentTime - 499);
       case totalSinceEnteringCurrentScreen:
-        return getTotalSinceNavigation();
+        return getTotalSinceNavigation(locationId);
       default:
         return 0;
     }
   }
+
+  /**
+   * Returns the peak count of every column over the given rows, reading the
+   * matrix in row order.
+   */
+  private static int[] computePeaks(Table t, int first, int rows) {
+    final int columns = t.columnCount;
+    final int[] peaks = new int[columns];
+    for (int row = first; row < rows; row++) {
+      final int base = slot(row) * t.capacity;
+      final int previousBase = row == 0 ? -1 : slot(row - 1) * t.capacity;
+      for (int column = 0; column < columns; column++) {
+        final int count = t.cumulative[base + column] - (previousBase < 0 ? 0 : t.cumulative[previousBase + column]);
+        if (count > peaks[column]) {
+          peaks[column] = count;
+        }
+      }
+    }
+    return peaks;
+  }
+
+  /**
+   * Returns the first row with a timestamp at or after the window start, or
+   * the row count if there is none.
+   * <p>
+   * Only rows whose previous row is still in the ring are considered, so that
+   * the count of each row is known. The slot after the latest row is skipped
+   * too, as an update may be overwriting it.
+   */
+  private static int findFirstRow(Table t, int rows, int windowStart) {
+    int low = Math.max(0, rows - (WINDOW_LENGTH - 2));
+    int high = rows;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (t.timestamps[slot(mid)] < windowStart) {
+        low = mid + 1;
+      }
+      else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private static int getCount(Table t, int row, int column) {
+    return getCumulative(t, row, column) - (row == 0 ? 0 : getCumulative(t, row - 1, column));
+  }
+
+  private static int getCumulative(Table t, int row, int column) {
+    return t.cumulative[slot(row) * t.capacity + column];
+  }
+
+  private static int getColumn(Table t, int locationId) {
+    final int[] columnOfId = t.columnOfId;
+    if (locationId < 0 || locationId >= columnOfId.length) {
+      return -1;
+    }
+    return columnOfId[locationId] - 1;
+  }
+
+  /**
+   * Adds a column for the location, returning the table that holds it.
+   */
+  private Table addColumn(Table t, int locationId) {
+    if (locationId >= t.columnOfId.length) {
+      t.columnOfId = Arrays.copyOf(t.columnOfId, Math.min(MAX_LOCATION_ID, Math.max(locationId + 1, t.columnOfId.length * 2)));
+    }
+    if (t.freeCount > 0) {
+      final int column = t.freeColumns[--t.freeCount];
+      t.locationIds[column] = locationId;
+      t.columnOfId[locationId] = column + 1;
+      return t;
+    }
+
+    if (t.columnCount == t.capacity) {
+      // There are no free columns to carry over.
+      final Table grown = new Table(t.capacity * 2);
+      System.arraycopy(t.timestamps, 0, grown.timestamps, 0, WINDOW_LENGTH);
+      for (int slot = 0; slot < WINDOW_LENGTH; slot++) {
+        System.arraycopy(t.cumulative, slot * t.capacity, grown.cumulative, slot * grown.capacity, t.columnCount);
+      }
+      System.arraycopy(t.navigationTotals, 0, grown.navigationTotals, 0, t.columnCount);
+      System.arraycopy(t.locationIds, 0, grown.locationIds, 0, t.columnCount);
+      grown.columnOfId = t.columnOfId;
+      grown.rowCount = t.rowCount;
+      grown.columnCount = t.columnCount;
+      grown.version = t.version + 1;
+      table = grown;
+      t = grown;
+    }
+
+    final int column = t.columnCount;
+    t.locationIds[column] = locationId;
+    t.columnCount = column + 1;
+    t.columnOfId[locationId] = column + 1;
+    return t;
+  }
+
+  private static int slot(int row) {
+    return row % WINDOW_LENGTH;
+  }
 }
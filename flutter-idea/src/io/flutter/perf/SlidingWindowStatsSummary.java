@@ -8,7 +8,7 @@ package io.flutter.perf;
 import org.jetbrains.annotations.NotNull;
 
 /**
- * Snapshot of a SlidingWindowStats object for a specific time.
+ * Snapshot of the SlidingWindowStats of a location for a specific time.
  */
 public class SlidingWindowStatsSummary {
   private final int[] cachedStats;
@@ -17,7 +17,7 @@ public class SlidingWindowStatsSummary {
   public SlidingWindowStatsSummary(@NotNull SlidingWindowStats stats, int currentTime, @NotNull Location location) {
     cachedStats = new int[PerfMetric.values().length];
     for (PerfMetric metric : PerfMetric.values()) {
-      cachedStats[metric.ordinal()] = stats.getValue(metric, currentTime);
+      cachedStats[metric.ordinal()] = stats.getValue(location.id, metric, currentTime);
     }
     this.location = location;
   }
@@ -21,6 +21,7 @@ import org.dartlang.vm.service.element.Event;
 import org.dartlang.vm.service.element.IsolateRef;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collections;
 import java.util.concurrent.CompletableFuture;
 
 public class VmServiceWidgetPerfProvider implements WidgetPerfProvider {
@@ -129,7 +130,7 @@ public class VmServiceWidgetPerfProvider implements WidgetPerfProvider {
     isolateRefStreamSubscription = vmServiceManager.getCurrentFlutterIsolate(
       (isolateRef) -> requestRepaint(When.soon), false);
 
-    vmService.addVmServiceListener(new VmServiceListenerAdapter() {
+    vmService.addVmServiceListener(Collections.singletonList(VmService.EXTENSION_STREAM_ID), new VmServiceListenerAdapter() {
       @Override
       public void received(String streamId, Event event) {
         onVmServiceReceived(streamId, event);
@@ -15,19 +15,18 @@ import com.intellij.util.ui.UIUtil;
 import io.flutter.run.daemon.FlutterApp;
 import io.flutter.vmService.DisplayRefreshRateManager;
 import io.flutter.vmService.FlutterFramesMonitor;
+import io.flutter.vmService.FrameHistory;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.MouseEvent;
 import java.awt.geom.Path2D;
 import java.text.DecimalFormat;
 import java.util.List;
 import java.util.*;
 
-// TODO(devoncarew): We have a drawing artifacts issue - tall frame columns can be left behind
-// as artifacts when they scroll off the screen.
-
 public class FrameRenderingDisplay {
   static final DecimalFormat df = new DecimalFormat();
 
@@ -100,47 +99,79 @@ public class FrameRenderingDisplay {
   }
 }
 
+/**
+ * A bar chart of the most recent frames, painted directly from the {@link FrameHistory}.
+ * <p>
+ * Tooltips are computed on demand from the bars drawn by the last paint, and a new frame only repaints the strip of the chart
+ * that can contain bars.
+ */
 class FrameRenderingPanel extends JPanel {
   private final FlutterFramesMonitor framesMonitor;
 
   private final DisplayRefreshRateManager displayRefreshRateManager;
 
-  private final Map<FlutterFramesMonitor.FlutterFrameEvent, JComponent> frameWidgets = new HashMap<>();
+  /**
+   * The frames drawn by the last paint, and the horizontal position of each of their bars; used for hit-testing tooltips.
+   */
+  private FrameHistory.Snapshot paintedFrames;
+  private int[] paintedBarX = new int[0];
+  private int paintedBarWidth;
 
-  private Rectangle lastSavedBounds;
+  /**
+   * The height of the tallest bar drawn by the last paint.
+   */
+  private volatile int paintedMaxBarHeight;
 
   FrameRenderingPanel(@NotNull FlutterFramesMonitor framesMonitor, @NotNull DisplayRefreshRateManager displayRefreshRateManager) {
     this.framesMonitor = framesMonitor;
     this.displayRefreshRateManager = displayRefreshRateManager;
 
-    setLayout(null);
     final Color color = UIUtil.getLabelDisabledForeground();
     //noinspection UseJBColor
     setForeground(new Color(color.getRed(), color.getGreen(), color.getBlue(), 0x7f));
-  }
 
-  public void update() {
-    SwingUtilities.invokeLater(this::updateFromFramesMonitor);
+    // Register with the tooltip manager; the text itself comes from getToolTipText(MouseEvent).
+    ToolTipManager.sharedInstance().registerComponent(this);
   }
 
-  public void doLayout() {
-    if (lastSavedBounds != null && !lastSavedBounds.equals(getBounds())) {
-      lastSavedBounds = null;
+  /**
+   * Called on any thread when a new frame has been added to the history.
+   */
+  public void update() {
+    final int height = getHeight();
+    if (height <= 0) {
+      return;
+    }
 
-      SwingUtilities.invokeLater(this::updateFromFramesMonitor);
+    // All existing bars move left, so the dirty region is the strip containing the tallest old or new bar.
+    final FrameHistory.Snapshot newest = framesMonitor.getHistory().snapshot(1);
+    int dirtyHeight = paintedMaxBarHeight;
+    if (newest.size() > 0) {
+      dirtyHeight = Math.max(dirtyHeight, getBarHeight(newest.getElapsedMicros(0), height));
     }
+    repaint(0, height - dirtyHeight, getWidth(), dirtyHeight);
   }
 
   private static final Stroke STROKE = new BasicStroke(
     0.5f, BasicStroke.CAP_BUTT,
     BasicStroke.JOIN_MITER, 10.0f, new float[]{2.0f, 2.0f}, 0.0f);
 
+  private static float getMicrosPerPixel(int height) {
+    return (2.0f * 1000000.0f / 60.0f) / height;
+  }
+
+  private static int getBarHeight(long elapsedMicros, int height) {
+    return Math.max(1, Math.min(height, Math.round(elapsedMicros / getMicrosPerPixel(height))));
+  }
+
   @Override
   protected void paintComponent(Graphics g) {
     super.paintComponent(g);
 
-    final Rectangle bounds = getBounds();
-    final int height = bounds.height;
+    final int width = getWidth();
+    final int height = getHeight();
+
+    paintFrames(g, width, height);
 
     if (height <= 20) {
       return;
@@ -148,83 +179,86 @@ class FrameRenderingPanel extends JPanel {
 
     final Graphics2D g2 = (Graphics2D)g;
 
-    final float msPerPixel = (2.0f * 1000000.0f / 60.0f) / height;
-    final float y = displayRefreshRateManager.getTargetMicrosPerFrame() / msPerPixel;
+    final float y = displayRefreshRateManager.getTargetMicrosPerFrame() / getMicrosPerPixel(height);
     final Stroke oldStroke = g2.getStroke();
+    final Color oldColor = g2.getColor();
     try {
+      g2.setColor(getForeground());
       g2.setStroke(STROKE);
       final Path2D path = new Path2D.Float();
       // Slight left indent to allow space for [targetFrameTimeLabel].
       path.moveTo(34, height - y);
-      path.lineTo(bounds.width, height - y);
+      path.lineTo(width, height - y);
       g2.draw(path);
     }
     finally {
       g2.setStroke(oldStroke);
+      g2.setColor(oldColor);
     }
   }
 
-  void updateFromFramesMonitor() {
-    final Set<FlutterFramesMonitor.FlutterFrameEvent> frames = new HashSet<>(frameWidgets.keySet());
+  private void paintFrames(Graphics g, int width, int height) {
+    final int inc = height <= 20 ? 1 : 2;
+    final int barWidth = Math.min(Math.max(Math.round(height / 8.0f), 2), 5);
+
+    // Only copy as many frames as can be visible.
+    final FrameHistory.Snapshot snapshot = framesMonitor.getHistory().snapshot(width / (barWidth + inc) + 1);
+    final int[] barX = new int[snapshot.size()];
+    final Color normalColor = UIUtil.getLabelForeground();
+    final Rectangle clip = g.getClipBounds();
+
+    int x = width;
+    int maxBarHeight = 0;
+    int count = 0;
+    for (int i = 0; i < snapshot.size(); i++) {
+      if (x + barWidth < 0) {
+        break;
+      }
 
-    final Rectangle bounds = getBounds();
-    lastSavedBounds = bounds;
+      x -= (barWidth + inc);
+      barX[i] = x;
+      count++;
 
-    final int height = bounds.height;
-    final int inc = height <= 20 ? 1 : 2;
+      final int barHeight = getBarHeight(snapshot.getElapsedMicros(i), height);
+      maxBarHeight = Math.max(maxBarHeight, barHeight);
+      if (clip == null || clip.intersects(x, height - barHeight, barWidth, barHeight)) {
+        g.setColor(snapshot.isSlow(i) ? JBColor.RED : normalColor);
+        g.fillRect(x, height - barHeight, barWidth, barHeight);
+      }
 
-    int x = bounds.width;
-
-    final int widgetWidth = Math.min(Math.max(Math.round(height / 8.0f), 2), 5);
-
-    synchronized (framesMonitor) {
-      for (FlutterFramesMonitor.FlutterFrameEvent frame : framesMonitor.frames) {
-        if (x + widgetWidth < 0) {
-          break;
-        }
-
-        x -= (widgetWidth + inc);
-
-        final float msPerPixel = (2.0f * 1000000.0f / 60.0f) / height;
-        JComponent widget = frameWidgets.get(frame);
-        if (widget != null) {
-          frames.remove(frame);
-        }
-        else {
-          widget = new JLabel();
-          widget.setOpaque(true);
-          widget.setBackground(frame.isSlowFrame() ? JBColor.RED : UIUtil.getLabelForeground());
-          widget.setToolTipText(frame.isSlowFrame()
-                                ? "This frame took " +
-                                  FrameRenderingDisplay.df.format(frame.elapsedMicros / 1000.0d) +
-                                  "ms to render, which\ncan cause frame rate to drop below " +
-                                  Math.round(displayRefreshRateManager.getCurrentDisplayRefreshRateRaw()) + " FPS."
-                                : "This frame took " + FrameRenderingDisplay.df.format(frame.elapsedMicros / 1000.0d) + "ms to render.");
-          frameWidgets.put(frame, widget);
-          add(widget);
-        }
-
-        int pixelHeight = Math.round(frame.elapsedMicros / msPerPixel);
-        if (pixelHeight > height) {
-          pixelHeight = height;
-        }
-        pixelHeight = Math.max(1, pixelHeight);
-        widget.setPreferredSize(new Dimension(widgetWidth, pixelHeight));
-        widget.setBounds(x, height - pixelHeight, widgetWidth, pixelHeight);
-
-        // Add a gap between sets of frames.
-        if (frame.frameSetStart) {
-          x -= widgetWidth;
-        }
+      // Add a gap between sets of frames.
+      if (snapshot.isSetStart(i)) {
+        x -= barWidth;
       }
     }
 
-    if (!frames.isEmpty()) {
-      for (FlutterFramesMonitor.FlutterFrameEvent frame : frames) {
-        final JComponent widget = frameWidgets.remove(frame);
-        remove(widget);
+    paintedFrames = snapshot;
+    paintedBarX = count == barX.length ? barX : Arrays.copyOf(barX, count);
+    paintedBarWidth = barWidth;
+    paintedMaxBarHeight = maxBarHeight;
+  }
+
+  @Override
+  public String getToolTipText(MouseEvent event) {
+    final FrameHistory.Snapshot frames = paintedFrames;
+    if (frames == null) {
+      return null;
+    }
+
+    final int height = getHeight();
+    for (int i = 0; i < paintedBarX.length; i++) {
+      final int barHeight = getBarHeight(frames.getElapsedMicros(i), height);
+      if (event.getX() >= paintedBarX[i] && event.getX() < paintedBarX[i] + paintedBarWidth && event.getY() >= height - barHeight) {
+        final long elapsedMicros = frames.getElapsedMicros(i);
+        return frames.isSlow(i)
+               ? "This frame took " +
+                 FrameRenderingDisplay.df.format(elapsedMicros / 1000.0d) +
+                 "ms to render, which\ncan cause frame rate to drop below " +
+                 Math.round(displayRefreshRateManager.getCurrentDisplayRefreshRateRaw()) + " FPS."
+               : "This frame took " + FrameRenderingDisplay.df.format(elapsedMicros / 1000.0d) + "ms to render.";
       }
     }
+    return null;
   }
 }
 
@@ -224,23 +224,11 @@ public class PubRoot {
     return pubspec;
   }
 
-  private FlutterUtils.FlutterPubspecInfo cachedPubspecInfo;
-
   /**
    * Returns true if the pubspec declares a flutter dependency.
    */
   public boolean declaresFlutter() {
-    validateUpdateCachedPubspecInfo();
-    return cachedPubspecInfo.declaresFlutter();
-  }
-
-  /**
-   * Check if the cache needs to be updated.
-   */
-  private void validateUpdateCachedPubspecInfo() {
-    if (cachedPubspecInfo == null || cachedPubspecInfo.getModificationStamp() != pubspec.getModificationStamp()) {
-      cachedPubspecInfo = FlutterUtils.getFlutterPubspecInfo(pubspec);
-    }
+    return FlutterUtils.declaresFlutter(pubspec);
   }
 
   /**
@@ -5,21 +5,38 @@
  */
 package io.flutter.pub;
 
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ModuleRootManager;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.*;
 import com.intellij.psi.PsiFile;
+import com.intellij.util.containers.ContainerUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Cache the information computed from pubspecs in the project.
+ * <p>
+ * Two maps are kept, both safe to use from any thread:
+ * <ul>
+ * <li>the {@link PubRoot} (or its absence) for each directory that was asked about;</li>
+ * <li>for each directory that contained a file that was asked about, the directory holding the nearest
+ * pubspec.yaml at or above it.</li>
+ * </ul>
+ * Entries are dropped when a pubspec.yaml, .dart_tool/package_config.json or .packages file changes, and the second
+ * map is cleared whenever a pubspec.yaml is created, deleted, moved or renamed, or a directory is moved or renamed.
  */
-public class PubRootCache {
+public class PubRootCache implements Disposable {
   @NotNull
   public static PubRootCache getInstance(@NotNull final Project project) {
     return Objects.requireNonNull(project.getService(PubRootCache.class));
@@ -27,10 +44,29 @@ public class PubRootCache {
 
   @NotNull final Project project;
 
-  private final Map<VirtualFile, PubRoot> cache = new HashMap<>();
+  @NotNull private final Map<VirtualFile, Optional<PubRoot>> cache = ContainerUtil.createConcurrentWeakMap();
+
+  /**
+   * The directory containing the nearest pubspec.yaml at or above each directory, if any.
+   */
+  @NotNull private final Map<VirtualFile, Optional<VirtualFile>> pubspecDirs = ContainerUtil.createConcurrentWeakMap();
+
+  /**
+   * Incremented whenever entries are dropped, so that a lookup that raced with a VFS change is not cached.
+   */
+  @NotNull private final AtomicLong generation = new AtomicLong();
 
   private PubRootCache(@NotNull final Project project) {
     this.project = project;
+
+    project.getMessageBus().connect(this).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+      @Override
+      public void after(@NotNull List<? extends VFileEvent> events) {
+        for (VFileEvent event : events) {
+          handleFileEvent(event);
+        }
+      }
+    });
   }
 
   @Nullable
@@ -45,19 +81,11 @@ public class PubRootCache {
 
   @Nullable
   public PubRoot getRoot(VirtualFile file) {
-    file = findPubspecDir(file);
     if (file == null) {
       return null;
     }
-
-    PubRoot root = cache.get(file);
-
-    if (root == null) {
-      cache.put(file, PubRoot.forDirectory(file));
-      root = cache.get(file);
-    }
-
-    return root;
+    final VirtualFile dir = findPubspecDir(file.isDirectory() ? file : file.getParent());
+    return dir == null ? null : getRootForDirectory(dir);
   }
 
   @NotNull
@@ -65,13 +93,7 @@ public class PubRootCache {
     final List<PubRoot> result = new ArrayList<>();
 
     for (VirtualFile dir : ModuleRootManager.getInstance(module).getContentRoots()) {
-      PubRoot root = cache.get(dir);
-
-      if (root == null) {
-        cache.put(dir, PubRoot.forDirectory(dir));
-        root = cache.get(dir);
-      }
-
+      final PubRoot root = getRootForDirectory(dir);
       if (root != null) {
         result.add(root);
       }
@@ -89,19 +111,125 @@ public class PubRootCache {
     return result;
   }
 
+  /**
+   * Fill the cache for the content roots of all modules on a background thread, so that later lookups from the
+   * editor don't need to touch the file system.
+   */
+  public void warmUp() {
+    ApplicationManager.getApplication().executeOnPooledThread(() -> ReadAction.run(() -> {
+      if (project.isDisposed()) {
+        return;
+      }
+      for (Module module : ModuleManager.getInstance(project).getModules()) {
+        for (VirtualFile dir : ModuleRootManager.getInstance(module).getContentRoots()) {
+          getRootForDirectory(dir);
+          findPubspecDir(dir);
+        }
+      }
+    }));
+  }
+
   @Nullable
-  private VirtualFile findPubspecDir(VirtualFile file) {
-    if (file == null) {
+  private PubRoot getRootForDirectory(@NotNull VirtualFile dir) {
+    final Optional<PubRoot> cached = cache.get(dir);
+    //noinspection OptionalAssignedToNull
+    if (cached != null && (cached.isEmpty() || cached.get().getPubspec().isValid())) {
+      return cached.orElse(null);
+    }
+    final long startGeneration = generation.get();
+    final PubRoot root = PubRoot.forDirectory(dir);
+    if (generation.get() == startGeneration) {
+      cache.put(dir, Optional.ofNullable(root));
+    }
+    return root;
+  }
+
+  /**
+   * Return the directory containing the nearest pubspec.yaml at or above the given directory, remembering the answer
+   * for it and each directory above it that was visited.
+   */
+  @Nullable
+  private VirtualFile findPubspecDir(@Nullable VirtualFile dir) {
+    if (dir == null) {
       return null;
     }
 
-    if (file.isDirectory()) {
-      final VirtualFile pubspec = file.findChild("pubspec.yaml");
-      if (pubspec != null && pubspec.exists() && !pubspec.isDirectory()) {
-        return file;
+    final Optional<VirtualFile> cached = pubspecDirs.get(dir);
+    //noinspection OptionalAssignedToNull
+    if (cached != null && (cached.isEmpty() || cached.get().isValid())) {
+      return cached.orElse(null);
+    }
+
+    final long startGeneration = generation.get();
+    final VirtualFile result;
+    final VirtualFile pubspec = dir.isDirectory() ? dir.findChild("pubspec.yaml") : null;
+    if (pubspec != null && pubspec.exists() && !pubspec.isDirectory()) {
+      result = dir;
+    }
+    else {
+      result = findPubspecDir(dir.getParent());
+    }
+    if (generation.get() == startGeneration) {
+      pubspecDirs.put(dir, Optional.ofNullable(result));
+    }
+    return result;
+  }
+
+  private void handleFileEvent(@NotNull VFileEvent event) {
+    if (event instanceof VFileContentChangeEvent) {
+      invalidate(event.getPath(), false);
+      return;
+    }
+    final boolean isRename = event instanceof VFilePropertyChangeEvent && ((VFilePropertyChangeEvent)event).isRename();
+    if (event instanceof VFilePropertyChangeEvent && !isRename) {
+      return;
+    }
+
+    // Moving a directory changes which pubspec the directories inside it belong to. (Creating or deleting one doesn't
+    // change anything for the directories that remain.)
+    final VirtualFile file = event.getFile();
+    if ((event instanceof VFileMoveEvent || isRename) && file != null && file.isDirectory()) {
+      generation.incrementAndGet();
+      pubspecDirs.clear();
+    }
+
+    invalidate(event.getPath(), true);
+    if (event instanceof VFileMoveEvent) {
+      invalidate(((VFileMoveEvent)event).getOldPath(), true);
+    }
+    else if (isRename) {
+      invalidate(((VFilePropertyChangeEvent)event).getOldPath(), true);
+    }
+  }
+
+  /**
+   * Drop the entries that depend on the file at the given path, if it's one of the files a {@link PubRoot} is built from.
+   */
+  private void invalidate(@NotNull String path, boolean structural) {
+    final String rootPath;
+    if (path.endsWith("/pubspec.yaml")) {
+      rootPath = path.substring(0, path.length() - "/pubspec.yaml".length());
+      if (structural) {
+        generation.incrementAndGet();
+        pubspecDirs.clear();
       }
     }
+    else if (path.endsWith("/.dart_tool/package_config.json")) {
+      rootPath = path.substring(0, path.length() - "/.dart_tool/package_config.json".length());
+    }
+    else if (path.endsWith("/.packages")) {
+      rootPath = path.substring(0, path.length() - "/.packages".length());
+    }
+    else {
+      return;
+    }
+    generation.incrementAndGet();
+    cache.keySet().removeIf((dir) -> !dir.isValid() || dir.getPath().equals(rootPath));
+  }
 
-    return findPubspecDir(file.getParent());
+  @Override
+  public void dispose() {
+    cache.clear();
+    pubspecDirs.clear();
   }
 }
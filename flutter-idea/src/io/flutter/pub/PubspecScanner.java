@@ -0,0 +1,281 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.pub;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Extracts the few pubspec values the plugin needs to classify a package -- the top-level {@code name}, whether
+ * {@code dependencies} contains {@code flutter} and whether the {@code flutter} section contains {@code plugin} --
+ * without building a YAML object graph.
+ * <p>
+ * The scanner only understands the block-style mappings that pub and the Flutter tools write. If the file uses any
+ * other YAML construct where it matters (flow collections, anchors, tags, complex keys, multiple documents, ...)
+ * {@link #scan} returns null and the caller should fall back to a full YAML parser.
+ */
+public class PubspecScanner {
+  private static final String DEPENDENCIES = "dependencies";
+  private static final String FLUTTER = "flutter";
+
+  @Nullable private String name;
+  private boolean dependsOnFlutter;
+  private boolean declaresPlugin;
+
+  private PubspecScanner() {
+  }
+
+  /**
+   * The top-level {@code name}, or null if it is missing or not a scalar.
+   */
+  @Nullable
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Whether the {@code dependencies} mapping has a {@code flutter} key.
+   */
+  public boolean dependsOnFlutter() {
+    return dependsOnFlutter;
+  }
+
+  /**
+   * Whether the top-level {@code flutter} mapping has a {@code plugin} key.
+   */
+  public boolean declaresPlugin() {
+    return declaresPlugin;
+  }
+
+  /**
+   * Scan the text of a pubspec, returning null if it can't be scanned reliably.
+   */
+  @Nullable
+  public static PubspecScanner scan(@NotNull CharSequence text) {
+    final PubspecScanner result = new PubspecScanner();
+    boolean seenName = false;
+    boolean seenDependencies = false;
+    boolean seenFlutter = false;
+
+    // The top-level key whose nested mapping is being scanned, if it is one we care about.
+    String block = null;
+    int childIndent = -1;
+    boolean seenTopLevel = false;
+    // Whether the previous entry was a plain name, which could continue on the next line.
+    boolean inName = false;
+
+    final int length = text.length();
+    int lineStart = length > 0 && text.charAt(0) == '\uFEFF' ? 1 : 0;
+    while (lineStart < length) {
+      int lineEnd = lineStart;
+      while (lineEnd < length && text.charAt(lineEnd) != '\n') {
+        lineEnd++;
+      }
+      final int nextLine = lineEnd + 1;
+      while (lineEnd > lineStart && isSpace(text.charAt(lineEnd - 1))) {
+        lineEnd--;
+      }
+
+      int pos = lineStart;
+      while (pos < lineEnd && text.charAt(pos) == ' ') {
+        pos++;
+      }
+      final int indent = pos - lineStart;
+
+      if (pos == lineEnd || text.charAt(pos) == '#') {
+        // Blank line or comment.
+        lineStart = nextLine;
+        continue;
+      }
+
+      if (indent == 0) {
+        if (startsWith(text, pos, lineEnd, "---") || startsWith(text, pos, lineEnd, "...") || !isPlainKeyStart(text.charAt(pos))) {
+          return null;
+        }
+        final int colon = findKeyColon(text, pos, lineEnd);
+        if (colon < 0) {
+          return null;
+        }
+        final String key = text.subSequence(pos, trimEnd(text, pos, colon)).toString();
+        final int valueStart = skipSpaces(text, colon + 1, lineEnd);
+        final boolean hasValue = valueStart < lineEnd && text.charAt(valueStart) != '#';
+
+        seenTopLevel = true;
+        block = null;
+        childIndent = -1;
+        inName = false;
+        switch (key) {
+          case "name":
+            if (seenName) return null;
+            seenName = true;
+            if (hasValue) {
+              if (!isPlainValueStart(text.charAt(valueStart))) return null;
+              result.name = readScalar(text, valueStart, lineEnd);
+              if (result.name == null) return null;
+              inName = text.charAt(valueStart) != '\'' && text.charAt(valueStart) != '"';
+            }
+            break;
+          case DEPENDENCIES:
+          case FLUTTER:
+            if (key.equals(DEPENDENCIES) ? seenDependencies : seenFlutter) return null;
+            if (key.equals(DEPENDENCIES)) {
+              seenDependencies = true;
+            }
+            else {
+              seenFlutter = true;
+            }
+            if (hasValue) {
+              // A scalar is not a mapping, but a flow mapping or an alias might be.
+              if (!isPlainValueStart(text.charAt(valueStart))) return null;
+            }
+            else {
+              block = key;
+            }
+            break;
+          case "<<":
+            return null;
+          default:
+            break;
+        }
+      }
+      else if (!seenTopLevel || inName) {
+        return null;
+      }
+      else if (block != null) {
+        if (childIndent < 0) {
+          childIndent = indent;
+        }
+        if (indent < childIndent) {
+          return null;
+        }
+        if (indent == childIndent) {
+          if (!isPlainKeyStart(text.charAt(pos))) {
+            return null;
+          }
+          final int colon = findKeyColon(text, pos, lineEnd);
+          if (colon < 0) {
+            return null;
+          }
+          final String key = text.subSequence(pos, trimEnd(text, pos, colon)).toString();
+          if (key.equals("<<")) {
+            return null;
+          }
+          if (block.equals(DEPENDENCIES) && key.equals(FLUTTER)) {
+            result.dependsOnFlutter = true;
+          }
+          else if (block.equals(FLUTTER) && key.equals("plugin")) {
+            result.declaresPlugin = true;
+          }
+        }
+        // Deeper lines belong to the value of a nested key.
+      }
+      lineStart = nextLine;
+    }
+    return result;
+  }
+
+  private static boolean isSpace(char c) {
+    return c == ' ' || c == '\t' || c == '\r';
+  }
+
+  /**
+   * Whether a key starting with this character is a plain scalar that the scanner can read.
+   */
+  private static boolean isPlainKeyStart(char c) {
+    return "-?:,[]{}#&*!|>'\"%@`\t".indexOf(c) < 0;
+  }
+
+  /**
+   * Whether a value starting with this character is a scalar that the scanner can read.
+   */
+  private static boolean isPlainValueStart(char c) {
+    return "[]{}&*!|>%@`".indexOf(c) < 0;
+  }
+
+  private static boolean startsWith(@NotNull CharSequence text, int pos, int end, @NotNull String prefix) {
+    if (end - pos < prefix.length()) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (text.charAt(pos + i) != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Return the index of the colon that ends a plain mapping key, or -1 if the line is not a mapping entry.
+   */
+  private static int findKeyColon(@NotNull CharSequence text, int pos, int end) {
+    for (int i = pos; i < end; i++) {
+      final char c = text.charAt(i);
+      if (c == ':' && (i + 1 == end || isSpace(text.charAt(i + 1)))) {
+        return i;
+      }
+      if (c == '#' && i > pos && isSpace(text.charAt(i - 1))) {
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  private static int skipSpaces(@NotNull CharSequence text, int pos, int end) {
+    while (pos < end && isSpace(text.charAt(pos))) {
+      pos++;
+    }
+    return pos;
+  }
+
+  private static int trimEnd(@NotNull CharSequence text, int start, int end) {
+    while (end > start && isSpace(text.charAt(end - 1))) {
+      end--;
+    }
+    return end;
+  }
+
+  /**
+   * Read a single line plain or quoted scalar, returning null if it uses escapes or continues on the next line.
+   */
+  @Nullable
+  private static String readScalar(@NotNull CharSequence text, int pos, int end) {
+    final char first = text.charAt(pos);
+    if (first == '\'' || first == '"') {
+      final int close = indexOf(text, first, pos + 1, end);
+      if (close < 0) {
+        return null;
+      }
+      final String value = text.subSequence(pos + 1, close).toString();
+      if (first == '"' && value.indexOf('\\') >= 0) {
+        return null;
+      }
+      final int rest = skipSpaces(text, close + 1, end);
+      if (rest < end && text.charAt(rest) != '#') {
+        // Either a quoted quote or trailing garbage.
+        return null;
+      }
+      return value;
+    }
+
+    int valueEnd = end;
+    for (int i = pos; i < end; i++) {
+      if (text.charAt(i) == '#' && isSpace(text.charAt(i - 1))) {
+        valueEnd = i;
+        break;
+      }
+    }
+    return text.subSequence(pos, trimEnd(text, pos, valueEnd)).toString();
+  }
+
+  private static int indexOf(@NotNull CharSequence text, char c, int pos, int end) {
+    for (int i = pos; i < end; i++) {
+      if (text.charAt(i) == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -43,9 +43,7 @@ import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.openapi.wm.ToolWindowId;
 import com.intellij.openapi.wm.ToolWindowManager;
 import com.intellij.psi.PsiDocumentManager;
-import com.intellij.psi.PsiErrorElement;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.ui.LightweightHint;
 import com.intellij.util.messages.MessageBusConnection;
 import com.intellij.util.ui.UIUtil;
@@ -53,6 +51,7 @@ import com.jetbrains.lang.dart.ide.errorTreeView.DartProblemsView;
 import com.jetbrains.lang.dart.psi.DartFile;
 import icons.FlutterIcons;
 import io.flutter.FlutterConstants;
+import io.flutter.FlutterInitializer;
 import io.flutter.FlutterUtils;
 import io.flutter.actions.FlutterAppAction;
 import io.flutter.actions.ProjectActions;
@@ -97,6 +96,11 @@ public class FlutterReloadManager {
 
   private Notification lastNotification;
 
+  /**
+   * When the last save that may trigger a reload started, from {@link System#nanoTime()}, or 0 if there is none.
+   */
+  private volatile long saveStartNanos;
+
   /**
    * Initialize the reload manager for the given project.
    */
@@ -113,6 +117,9 @@ public class FlutterReloadManager {
   private FlutterReloadManager(@NotNull Project project) {
     this.myProject = project;
 
+    // Start tracking parse errors now, so that they are known by the time files are saved.
+    final SyntaxErrorTracker syntaxErrorTracker = SyntaxErrorTracker.getInstance(project);
+
     final MessageBusConnection connection = ApplicationManager.getApplication().getMessageBus().connect(project);
     connection.subscribe(AnActionListener.TOPIC, new AnActionListener() {
       private @Nullable Project eventProject;
@@ -168,6 +175,7 @@ public class FlutterReloadManager {
           }
         }
         if (!isModified) return;
+        saveStartNanos = System.nanoTime();
 
         ApplicationManager.getApplication().invokeLater(() -> {
           // Find a Dart editor to trigger the reload.
@@ -180,7 +188,7 @@ public class FlutterReloadManager {
               if (psiFile instanceof DartFile && someEditor == null) {
                 someEditor = editor;
               }
-              if (null != PsiTreeUtil.findChildOfType(psiFile, PsiErrorElement.class, false)) {
+              if (syntaxErrorTracker.hasSyntaxErrors(editor.getDocument())) {
                 // The Dart plugin may create empty files that it then claims have a syntax error. Ignore them.
                 if (editor.getDocument().getTextLength() != 0) {
                   // If there are analysis errors we want to silently exit, without showing a notification.
@@ -257,6 +265,7 @@ public class FlutterReloadManager {
 
       final Notification notification = showRunNotification(app, null, "Reloading…", false);
       final long startTime = System.currentTimeMillis();
+      logSaveToReloadTime();
 
       app.performHotReload(true, FlutterConstants.RELOAD_REASON_SAVE).thenAccept(result -> {
         if (!result.ok()) {
@@ -444,17 +453,22 @@ public class FlutterReloadManager {
     // We block reload if we find issues in the immediate file. We don't block reload if there
     // are analysis issues in other files; the compilation errors from the flutter tool
     // will indicate to the user where the problems are.
+    return ApplicationManager.getApplication().runReadAction(
+      (Computable<Boolean>)() -> SyntaxErrorTracker.getInstance(myProject).hasSyntaxErrors(document));
+  }
 
-    final PsiErrorElement firstError = ApplicationManager.getApplication().runReadAction((Computable<PsiErrorElement>)() -> {
-      final PsiFile psiFile = PsiDocumentManager.getInstance(myProject).getPsiFile(document);
-      if (psiFile instanceof DartFile) {
-        return PsiTreeUtil.findChildOfType(psiFile, PsiErrorElement.class, false);
-      }
-      else {
-        return null;
-      }
-    });
-    return firstError != null;
+  /**
+   * Report the time from the start of the save that triggered a reload to the reload request.
+   */
+  private void logSaveToReloadTime() {
+    final long start = saveStartNanos;
+    saveStartNanos = 0;
+    if (start == 0) {
+      return;
+    }
+    final long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    LOG.debug("Reload requested " + elapsedMs + "ms after save");
+    FlutterInitializer.getAnalytics().sendTiming("reload", "save-to-reload", elapsedMs);
   }
 
   private LightweightHint showEditorHint(@NotNull Editor editor, String message, boolean isError) {
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.run;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.fileEditor.FileEditorManagerListener;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.jetbrains.lang.dart.psi.DartFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks which open Dart files contain parse errors, so that reload on save doesn't need to walk the PSI of every
+ * open file.
+ * <p>
+ * A file is checked again in the background after each PSI change. Each result records the modification stamp of the
+ * PSI it was computed from, so a lookup only walks the tree when the file changed since its last check.
+ */
+public class SyntaxErrorTracker implements Disposable {
+  @NotNull
+  public static SyntaxErrorTracker getInstance(@NotNull final Project project) {
+    return Objects.requireNonNull(project.getService(SyntaxErrorTracker.class));
+  }
+
+  private static class Result {
+    final long stamp;
+    final boolean hasErrors;
+
+    Result(long stamp, boolean hasErrors) {
+      this.stamp = stamp;
+      this.hasErrors = hasErrors;
+    }
+  }
+
+  @NotNull private final Project project;
+  @NotNull private final Map<VirtualFile, Result> results = new ConcurrentHashMap<>();
+
+  private SyntaxErrorTracker(@NotNull final Project project) {
+    this.project = project;
+
+    PsiManager.getInstance(project).addPsiTreeChangeListener(new PsiTreeChangeAdapter() {
+      @Override
+      public void childAdded(@NotNull PsiTreeChangeEvent event) {
+        scheduleCheck(event.getFile());
+      }
+
+      @Override
+      public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+        scheduleCheck(event.getFile());
+      }
+
+      @Override
+      public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+        scheduleCheck(event.getFile());
+      }
+
+      @Override
+      public void childMoved(@NotNull PsiTreeChangeEvent event) {
+        scheduleCheck(event.getFile());
+      }
+
+      @Override
+      public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+        scheduleCheck(event.getFile());
+      }
+    }, this);
+
+    project.getMessageBus().connect(this).subscribe(FileEditorManagerListener.FILE_EDITOR_MANAGER, new FileEditorManagerListener() {
+      @Override
+      public void fileClosed(@NotNull FileEditorManager source, @NotNull VirtualFile file) {
+        if (!source.isFileOpen(file)) {
+          results.remove(file);
+        }
+      }
+    });
+  }
+
+  /**
+   * Return whether the PSI of the given document is a Dart file with parse errors.
+   * <p>
+   * Must be called from a read action.
+   */
+  public boolean hasSyntaxErrors(@NotNull Document document) {
+    final PsiFile psiFile = PsiDocumentManager.getInstance(project).getPsiFile(document);
+    if (!(psiFile instanceof DartFile)) {
+      return false;
+    }
+    final VirtualFile file = psiFile.getVirtualFile();
+    final Result cached = file == null ? null : results.get(file);
+    if (cached != null && cached.stamp == psiFile.getModificationStamp()) {
+      return cached.hasErrors;
+    }
+    return check(psiFile).hasErrors;
+  }
+
+  private void scheduleCheck(@Nullable PsiFile psiFile) {
+    if (!(psiFile instanceof DartFile)) {
+      return;
+    }
+    final VirtualFile file = psiFile.getVirtualFile();
+    if (file == null || !FileEditorManager.getInstance(project).isFileOpen(file)) {
+      return;
+    }
+    ReadAction.nonBlocking(() -> {
+        if (psiFile.isValid()) {
+          check(psiFile);
+        }
+      })
+      .coalesceBy(this, file)
+      .expireWith(this)
+      .submit(AppExecutorUtil.getAppExecutorService());
+  }
+
+  @NotNull
+  private Result check(@NotNull PsiFile psiFile) {
+    final long stamp = psiFile.getModificationStamp();
+    final Result result = new Result(stamp, PsiTreeUtil.findChildOfType(psiFile, PsiErrorElement.class, false) != null);
+    final VirtualFile file = psiFile.getVirtualFile();
+    if (file != null && FileEditorManager.getInstance(project).isFileOpen(file)) {
+      results.merge(file, result, (old, updated) -> updated.stamp >= old.stamp ? updated : old);
+    }
+    return result;
+  }
+
+  @Override
+  public void dispose() {
+    results.clear();
+  }
+}
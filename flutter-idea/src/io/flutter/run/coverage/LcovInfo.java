@@ -5,130 +5,328 @@
  */
 package io.flutter.run.coverage;
 
-import com.intellij.openapi.diagnostic.Logger;
+import com.google.common.annotations.VisibleForTesting;
 import com.intellij.openapi.util.SystemInfo;
+import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.rt.coverage.data.ClassData;
 import com.intellij.rt.coverage.data.LineData;
 import com.intellij.rt.coverage.data.ProjectData;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.URI;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Stream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+/**
+ * Reads lcov.info files into {@link ProjectData}.
+ * <p>
+ * Files are memory-mapped (read into memory on Windows) and parsed directly from bytes. Large files are split into
+ * slices at "SF:" lines, which are parsed in parallel; the hit counts of each source file are kept in a primitive array
+ * indexed by line number. Counts for the same source file in several records or files are added together.
+ */
 public class LcovInfo {
-  private static final Logger LOG = Logger.getInstance(LcovInfo.class.getName());
+  private static final byte[] FILE_LABEL = "SF:".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] DATA_LABEL = "DA:".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] END_LABEL = "end_of_record".getBytes(StandardCharsets.US_ASCII);
 
-  private static final String FILE_LABEL = "SF:";
-  private static final String DATA_LABEL = "DA:";
-  private static final String END_LABEL = "end_of_record";
+  /**
+   * Files smaller than this are parsed on the calling thread.
+   */
+  private static final int MIN_SLICE_SIZE = 4 * 1024 * 1024;
 
-  private final Map<String, List<LineCount>> counts = new HashMap<>();
+  private LcovInfo() {
+  }
 
-  private Path currentFile = null;
-  private List<LineCount> lineCounts = null;
-  private final String base;
+  public static void readInto(@NotNull ProjectData data, @NotNull File file) throws IOException {
+    readInto(data, Collections.singletonList(file));
+  }
 
-  private LcovInfo(String base) {
-    this.base = base;
+  /**
+   * Read several lcov files (for example the results of separate per-package test runs) into one {@link ProjectData}.
+   * <p>
+   * The relative source paths in each file are resolved against the directory containing that file's "coverage"
+   * directory.
+   */
+  public static void readInto(@NotNull ProjectData data, @NotNull Collection<File> files) throws IOException {
+    readInto(data, files, MIN_SLICE_SIZE);
   }
 
-  public static void readInto(@NotNull ProjectData data, @NotNull File file) throws IOException {
-    final String filePath = file.getAbsolutePath();
-    final int index = filePath.indexOf("coverage");
-    if (index < 0) {
-      // TODO Define at least one class in data
-      return;
-    }
-    final LcovInfo lcov = new LcovInfo(filePath.substring(0, index));
-    try (final Stream<String> lines = Files.lines(file.toPath())) {
-      lines.forEach(lcov::processLine);
-    }
-    for (String path : lcov.counts.keySet()) {
-      final List<LineCount> list = lcov.counts.get(path);
-      if (list == null || list.isEmpty()) {
+  /**
+   * Like {@link #readInto(ProjectData, Collection)}, with the size below which a file is not split into slices.
+   */
+  @VisibleForTesting
+  public static void readInto(@NotNull ProjectData data, @NotNull Collection<File> files, int minSliceSize) throws IOException {
+    final Map<String, LineHits> counts = new HashMap<>();
+    for (File file : files) {
+      final String filePath = file.getAbsolutePath();
+      final int index = filePath.indexOf("coverage");
+      if (index < 0) {
+        // TODO Define at least one class in data
+        continue;
+      }
+      mergeInto(counts, parse(file, filePath.substring(0, index), minSliceSize));
+    }
+
+    for (Map.Entry<String, LineHits> entry : counts.entrySet()) {
+      final LineHits hits = entry.getValue();
+      if (hits.maxLine < 0) {
         continue;
       }
+      final String path = entry.getKey();
       final ClassData classData = data.getOrCreateClassData(path);
-      classData.setSource(fullPath(path));
-      final int max = list.get(list.size() - 1).lineNum + 1;
-      final LineData[] lines = new LineData[max];
-      for (LineCount line : list) {
-        final LineData lineData = new LineData(line.lineNum, null);
-        lineData.setHits(line.execCount);
-        lines[line.lineNum] = lineData;
+      classData.setSource(path);
+      final LineData[] lines = new LineData[hits.maxLine + 1];
+      for (int lineNum = 0; lineNum <= hits.maxLine; lineNum++) {
+        final int count = hits.hits[lineNum];
+        if (count < 0) {
+          continue;
+        }
+        final LineData lineData = new LineData(lineNum, null);
+        lineData.setHits(count);
+        lines[lineNum] = lineData;
         classData.registerMethodSignature(lineData);
       }
       classData.setLines(lines);
     }
   }
 
-  void processLine(String line) {
-    line = line.trim();
-    if (line.startsWith(DATA_LABEL)) {
-      assert currentFile != null;
-      assert lineCounts != null;
-      addLineCount(line.substring(DATA_LABEL.length()));
-    }
-    else if (line.startsWith(FILE_LABEL)) {
-      //currentFile = Paths.get(line.substring(FILE_LABEL.length())).normalize();
-      final File file = new File(base, line.substring(FILE_LABEL.length()));
-      final URI normalize = file.toURI().normalize();
-      currentFile = Paths.get(normalize);
-      lineCounts = new ArrayList<>();
-    }
-    else if (line.equals(END_LABEL)) {
-      storeLineCounts();
-      currentFile = null;
-      lineCounts = null;
+  @NotNull
+  private static Map<String, LineHits> parse(@NotNull File file, @NotNull String base, int minSliceSize) throws IOException {
+    final ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      final long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("lcov file too large: " + file.getPath());
+      }
+      if (SystemInfo.isWindows) {
+        // A mapped file stays locked on Windows until the buffer is collected, which would stop the next test run from
+        // writing its results.
+        buffer = ByteBuffer.allocate((int)size);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+          // Keep reading.
+        }
+        buffer.flip();
+      }
+      else {
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      }
     }
-  }
 
-  private void addLineCount(String data) {
-    final String[] parts = data.split(",");
-    assert parts.length >= 2;
-    final int lineNum = safelyParse(parts[0]);
-    final int execCount = safelyParse(parts[1]);
-    lineCounts.add(new LineCount(lineNum, execCount));
-  }
+    final int size = buffer.limit();
+    final int sliceCount = Math.max(1, Math.min(size / minSliceSize, Runtime.getRuntime().availableProcessors()));
+    if (sliceCount == 1) {
+      return new Parser(buffer, base).parse(0, size);
+    }
 
-  private static int safelyParse(String val) {
+    // Each slice after the first starts at the first "SF:" line at or after its nominal start, so that no record spans
+    // two slices.
+    final int[] starts = new int[sliceCount + 1];
+    starts[sliceCount] = size;
+    for (int i = 1; i < sliceCount; i++) {
+      starts[i] = Math.max(starts[i - 1], findRecordStart(buffer, (int)((long)size * i / sliceCount)));
+    }
+
+    final List<CompletableFuture<Map<String, LineHits>>> slices = new ArrayList<>();
+    for (int i = 0; i < sliceCount; i++) {
+      final int from = starts[i];
+      final int to = starts[i + 1];
+      slices.add(CompletableFuture.supplyAsync(() -> new Parser(buffer, base).parse(from, to), AppExecutorUtil.getAppExecutorService()));
+    }
+    final Map<String, LineHits> counts = new HashMap<>();
     try {
-      return Integer.parseInt(val);
+      for (CompletableFuture<Map<String, LineHits>> slice : slices) {
+        mergeInto(counts, slice.join());
+      }
     }
-    catch (NumberFormatException ex) {
-      return 0;
+    catch (CompletionException ex) {
+      throw new IOException(ex.getCause());
     }
+    return counts;
   }
 
-  private void storeLineCounts() {
-    final String path = fullPath(currentFile.toString());
-    counts.put(path, lineCounts);
+  /**
+   * Return the offset of the first line starting with "SF:" at or after the given offset, or the end of the buffer.
+   */
+  private static int findRecordStart(@NotNull ByteBuffer buffer, int offset) {
+    final int size = buffer.limit();
+    for (int i = offset; i < size; i++) {
+      if ((i == 0 || buffer.get(i - 1) == '\n') && startsWith(buffer, i, size, FILE_LABEL)) {
+        return i;
+      }
+    }
+    return size;
   }
 
-  private static String fullPath(String path) {
-    String absPath = new File(path).getAbsolutePath();
-    if (SystemInfo.isWindows) {
-      absPath = absPath.replaceAll("\\\\", "/");
+  private static void mergeInto(@NotNull Map<String, LineHits> counts, @NotNull Map<String, LineHits> other) {
+    for (Map.Entry<String, LineHits> entry : other.entrySet()) {
+      final LineHits existing = counts.putIfAbsent(entry.getKey(), entry.getValue());
+      if (existing != null) {
+        existing.addAll(entry.getValue());
+      }
+    }
+  }
+
+  private static boolean startsWith(@NotNull ByteBuffer buffer, int offset, int end, byte[] prefix) {
+    if (end - offset < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (buffer.get(offset + i) != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Parses the records in a range of an lcov file.
+   */
+  private static class Parser {
+    @NotNull private final ByteBuffer buffer;
+    @NotNull private final String base;
+    @NotNull private final Map<String, LineHits> counts = new HashMap<>();
+
+    @Nullable private String currentFile;
+    @Nullable private LineHits lineHits;
+
+    Parser(@NotNull ByteBuffer buffer, @NotNull String base) {
+      this.buffer = buffer;
+      this.base = base;
+    }
+
+    @NotNull
+    Map<String, LineHits> parse(int from, int to) {
+      int lineStart = from;
+      while (lineStart < to) {
+        int lineEnd = lineStart;
+        while (lineEnd < to && buffer.get(lineEnd) != '\n') {
+          lineEnd++;
+        }
+        processLine(lineStart, lineEnd);
+        lineStart = lineEnd + 1;
+      }
+      return counts;
+    }
+
+    private void processLine(int start, int end) {
+      while (start < end && buffer.get(start) <= ' ') {
+        start++;
+      }
+      while (end > start && buffer.get(end - 1) <= ' ') {
+        end--;
+      }
+      if (startsWith(buffer, start, end, DATA_LABEL)) {
+        if (lineHits != null) {
+          addLineCount(start + DATA_LABEL.length, end);
+        }
+      }
+      else if (startsWith(buffer, start, end, FILE_LABEL)) {
+        currentFile = fullPath(decode(start + FILE_LABEL.length, end));
+        lineHits = new LineHits();
+      }
+      else if (end - start == END_LABEL.length && startsWith(buffer, start, end, END_LABEL)) {
+        if (currentFile != null && lineHits != null) {
+          final LineHits existing = counts.putIfAbsent(currentFile, lineHits);
+          if (existing != null) {
+            existing.addAll(lineHits);
+          }
+        }
+        currentFile = null;
+        lineHits = null;
+      }
+    }
+
+    /**
+     * Parse "&lt;line number>,&lt;execution count>[,&lt;checksum>]".
+     */
+    private void addLineCount(int start, int end) {
+      int comma = start;
+      while (comma < end && buffer.get(comma) != ',') {
+        comma++;
+      }
+      int countEnd = comma + 1;
+      while (countEnd < end && buffer.get(countEnd) != ',') {
+        countEnd++;
+      }
+      final int lineNum = parseInt(start, comma);
+      if (lineNum < 0 || comma >= end) {
+        return;
+      }
+      assert lineHits != null;
+      lineHits.add(lineNum, Math.max(0, parseInt(comma + 1, countEnd)));
+    }
+
+    /**
+     * Parse a decimal integer, returning 0 if the text is not a number and saturating if it is too large.
+     */
+    private int parseInt(int start, int end) {
+      final boolean negative = start < end && buffer.get(start) == '-';
+      int pos = negative ? start + 1 : start;
+      if (pos == end) {
+        return 0;
+      }
+      long value = 0;
+      for (; pos < end; pos++) {
+        final int digit = buffer.get(pos) - '0';
+        if (digit < 0 || digit > 9) {
+          return 0;
+        }
+        value = Math.min(value * 10 + digit, Integer.MAX_VALUE);
+      }
+      return (int)(negative ? -value : value);
+    }
+
+    @NotNull
+    private String decode(int start, int end) {
+      final byte[] bytes = new byte[end - start];
+      for (int i = 0; i < bytes.length; i++) {
+        bytes[i] = buffer.get(start + i);
+      }
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @NotNull
+    private String fullPath(@NotNull String sourcePath) {
+      return FileUtil.toCanonicalPath(FileUtil.isAbsolute(sourcePath) ? sourcePath : base + sourcePath);
     }
-    return absPath;
   }
 
-  private static class LineCount {
-    int lineNum;
-    int execCount;
+  /**
+   * The hit counts of the lines of one source file, indexed by line number; -1 marks lines without data.
+   */
+  private static class LineHits {
+    int[] hits = new int[64];
+    int maxLine = -1;
+
+    LineHits() {
+      Arrays.fill(hits, -1);
+    }
 
-    public LineCount(int num, int count) {
-      lineNum = num;
-      execCount = count;
+    void add(int lineNum, int count) {
+      if (lineNum >= hits.length) {
+        final int oldLength = hits.length;
+        hits = Arrays.copyOf(hits, Math.max(lineNum + 1, oldLength + (oldLength >> 1)));
+        Arrays.fill(hits, oldLength, hits.length, -1);
+      }
+      final int existing = hits[lineNum];
+      hits[lineNum] = existing < 0 ? count : (int)Math.min((long)existing + count, Integer.MAX_VALUE);
+      maxLine = Math.max(maxLine, lineNum);
+    }
+
+    void addAll(@NotNull LineHits other) {
+      for (int lineNum = 0; lineNum <= other.maxLine; lineNum++) {
+        if (other.hits[lineNum] >= 0) {
+          add(lineNum, other.hits[lineNum]);
+        }
+      }
     }
   }
 }
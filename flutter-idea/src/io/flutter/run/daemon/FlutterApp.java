@@ -679,7 +679,7 @@ public class FlutterApp implements Disposable {
     myVmService = vmService;
     myVMServiceManager = vmServiceManager;
 
-    myVmService.addVmServiceListener(new VmServiceListenerAdapter() {
+    myVmService.addVmServiceListener(Collections.singletonList(VmService.EXTENSION_STREAM_ID), new VmServiceListenerAdapter() {
       @Override
       public void received(String streamId, Event event) {
         if (StringUtil.equals(streamId, VmService.EXTENSION_STREAM_ID)) {
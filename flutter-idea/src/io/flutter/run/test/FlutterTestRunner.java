@@ -53,6 +53,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.util.Collections;
 
 /**
  * Runs a Flutter test configuration in the debugger.
@@ -131,7 +132,7 @@ public class FlutterTestRunner extends GenericProgramRunner {
 
       // Listen for debug 'PauseStart' events for isolates after the initial connect and resume those isolates.
       vmService.streamListen(VmService.DEBUG_STREAM_ID, VmServiceConsumers.EMPTY_SUCCESS_CONSUMER);
-      vmService.addVmServiceListener(new VmServiceListenerAdapter() {
+      vmService.addVmServiceListener(Collections.singletonList(VmService.DEBUG_STREAM_ID), new VmServiceListenerAdapter() {
         @Override
         public void received(String streamId, Event event) {
           if (EventKind.PauseStart.equals(event.getKind())) {
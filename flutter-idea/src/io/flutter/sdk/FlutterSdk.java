@@ -7,9 +7,9 @@ package io.flutter.sdk;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSyntaxException;
 import com.intellij.execution.process.*;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.module.Module;
@@ -49,6 +49,9 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.attribute.FileTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static java.util.Arrays.asList;
 
@@ -66,15 +69,48 @@ public class FlutterSdk {
 
   private static final Map<String, FlutterSdk> projectSdkCache = new HashMap<>();
 
+  /**
+   * Runs of 'flutter config --machine' in progress, keyed by SDK home path, so that concurrent queries share one run.
+   */
+  private static final Map<String, CompletableFuture<Map<String, String>>> configRuns = new ConcurrentHashMap<>();
+
   private final @NotNull VirtualFile myHome;
   private final @NotNull FlutterSdkVersion myVersion;
-  private final Map<String, String> cachedConfigValues = new HashMap<>();
+  private final Map<String, String> cachedConfigValues = new ConcurrentHashMap<>();
+
+  /**
+   * Set once {@link #cachedConfigValues} holds the 'flutter config' values, from the last session or from the tool.
+   */
+  private final AtomicBoolean configValuesLoaded = new AtomicBoolean();
 
   private FlutterSdk(@NotNull final VirtualFile home, @NotNull final FlutterSdkVersion version) {
     myHome = home;
     myVersion = version;
   }
 
+  /**
+   * On first use, serve the 'flutter config' values from the last session, and check them against the tool in the
+   * background if any of the files they depend on changed since.
+   */
+  private void restoreConfigValues() {
+    if (!configValuesLoaded.compareAndSet(false, true)) {
+      return;
+    }
+    final FlutterSdkQueryCache queryCache = FlutterSdkQueryCache.getInstance();
+    final Map<String, String> persisted = queryCache.getConfig(getHomePath(), null);
+    if (persisted != null) {
+      persisted.forEach(cachedConfigValues::putIfAbsent);
+    }
+    if (ApplicationManager.getApplication() == null) {
+      return;
+    }
+    ApplicationManager.getApplication().executeOnPooledThread(() -> {
+      if (queryCache.getConfig(getHomePath(), FlutterSdkQueryCache.computeStamps(getHomePath())) == null) {
+        runFlutterConfig();
+      }
+    });
+  }
+
   public boolean isOlderThanToolsStamp(@NotNull VirtualFile gen) {
     final VirtualFile bin = myHome.findChild("bin");
     if (bin == null) return false;
@@ -554,7 +590,9 @@ public class FlutterSdk {
       }
     }
 
-    cachedConfigValues.put("channel", branch);
+    if (branch != null) {
+      cachedConfigValues.put("channel", branch);
+    }
     return FlutterSdkChannel.fromText(branch);
   }
 
@@ -570,6 +608,7 @@ public class FlutterSdk {
     platforms.add("enable-android");
     platforms.add("enable-ios");
     if (useCachedValue) {
+      restoreConfigValues();
       for (String key : PLATFORMS) {
         final String value = cachedConfigValues.get(key);
         if ("true".equals(value)) {
@@ -582,72 +621,152 @@ public class FlutterSdk {
       return platforms;
     }
 
+    final Map<String, String> config = runFlutterConfig();
+    if (config == null) {
+      return platforms;
+    }
+    for (String key : PLATFORMS) {
+      final String value = config.get(key);
+      if ("true".equals(value)) {
+        platforms.add(key);
+      }
+      else if ("false".equals(value)) {
+        platforms.remove(key);
+      }
+    }
+    return platforms;
+  }
+
+  /**
+   * Query 'flutter config' for the given key, and optionally use any existing cached value.
+   * <p>
+   * Cached values include those saved in an earlier session. Without a cached value, the saved values are used if the
+   * files they depend on haven't changed since, and the tool is run otherwise. With useCachedValue false the tool is
+   * always run, since some values (such as android-studio-dir) are detected from the environment.
+   */
+  @Nullable
+  public String queryFlutterConfig(String key, boolean useCachedValue) {
+    final Map<String, String> config;
+    if (useCachedValue) {
+      restoreConfigValues();
+      if (cachedConfigValues.containsKey(key)) {
+        return cachedConfigValues.get(key);
+      }
+      config = loadFlutterConfig();
+    }
+    else {
+      config = runFlutterConfig();
+    }
+    return config == null ? null : config.get(key);
+  }
+
+  /**
+   * Return the output of 'flutter config --machine', from disk if it is still current, otherwise by running the tool.
+   * <p>
+   * Returns null if the tool fails. Do not run this on EDT.
+   */
+  @Nullable
+  private Map<String, String> loadFlutterConfig() {
+    final FlutterSdkQueryCache queryCache = FlutterSdkQueryCache.getInstance();
+    final Map<String, String> persisted = queryCache.getConfig(getHomePath(), FlutterSdkQueryCache.computeStamps(getHomePath()));
+    if (persisted != null) {
+      cachedConfigValues.putAll(persisted);
+      return persisted;
+    }
+    return runFlutterConfig();
+  }
+
+  /**
+   * Run 'flutter config --machine' and save its output, or wait for the run already in progress for this SDK.
+   * <p>
+   * Returns null if the tool fails. Do not run this on EDT.
+   */
+  @Nullable
+  private Map<String, String> runFlutterConfig() {
+    final String homePath = getHomePath();
+    final CompletableFuture<Map<String, String>> run = new CompletableFuture<>();
+    final CompletableFuture<Map<String, String>> existing = configRuns.putIfAbsent(homePath, run);
+    if (existing != null) {
+      final Map<String, String> config = existing.join();
+      if (config != null) {
+        cachedConfigValues.putAll(config);
+        configValuesLoaded.set(true);
+      }
+      return config;
+    }
+
+    Map<String, String> config = null;
+    try {
+      config = readFlutterConfig();
+      if (config != null) {
+        cachedConfigValues.putAll(config);
+        configValuesLoaded.set(true);
+        // Running the tool can update its own files (such as bin/cache/flutter.version.json), so stamp them afterwards.
+        FlutterSdkQueryCache.getInstance().putConfig(homePath, FlutterSdkQueryCache.computeStamps(homePath), config);
+      }
+      return config;
+    }
+    finally {
+      configRuns.remove(homePath, run);
+      run.complete(config);
+    }
+  }
+
+  @Nullable
+  private Map<String, String> readFlutterConfig() {
     final String stdout = returnOutputOfQuery(flutterConfig("--machine"));
     if (stdout == null) {
-      return platforms;
+      return null;
     }
     final int startJsonIndex = stdout.indexOf('{');
     if (startJsonIndex == -1) {
-      return platforms;
+      return null;
     }
+    final Map<String, String> config = new HashMap<>();
     try {
       final JsonElement elem = JsonUtils.parseString(stdout.substring(startJsonIndex));
-      if (elem.isJsonNull()) {
+      if (!elem.isJsonObject()) {
         FlutterUtils.warn(LOG, FlutterBundle.message("flutter.sdk.invalid.json.error"));
-        return platforms;
+        return null;
       }
 
       final JsonObject obj = elem.getAsJsonObject();
-      for (String key : PLATFORMS) {
-        final JsonPrimitive primitive = obj.getAsJsonPrimitive(key);
-        if (primitive != null) {
-          if ("true".equals(primitive.getAsString())) {
-            platforms.add(key);
-          }
-          else if ("false".equals(primitive.getAsString())) {
-            platforms.remove(key);
-          }
-          cachedConfigValues.put(key, primitive.getAsString());
+      for (String jsonKey : JsonUtils.getKeySet(obj)) {
+        final JsonElement element = obj.get(jsonKey);
+        if (element != null && element.isJsonPrimitive()) {
+          config.put(jsonKey, element.getAsString());
         }
       }
     }
     catch (JsonSyntaxException ignored) {
+      return null;
     }
-    return platforms;
+    return config;
   }
 
   /**
-   * Query 'flutter config' for the given key, and optionally use any existing cached value.
+   * Returns the output of the last 'flutter --version' run for this SDK, possibly from an earlier session, or null if
+   * there is none.
    */
   @Nullable
-  public String queryFlutterConfig(String key, boolean useCachedValue) {
-    if (useCachedValue && cachedConfigValues.containsKey(key)) {
-      return cachedConfigValues.get(key);
-    }
+  public String getLastVersionOutput() {
+    return FlutterSdkQueryCache.getInstance().getVersionOutput(getHomePath(), null);
+  }
 
-    final String stdout = returnOutputOfQuery(flutterConfig("--machine"));
-    if (stdout != null) {
-      try {
-        final JsonElement elem = JsonUtils.parseString(stdout.substring(stdout.indexOf('{')));
-        if (elem.isJsonNull()) {
-          FlutterUtils.warn(LOG, FlutterBundle.message("flutter.sdk.invalid.json.error"));
-          return null;
-        }
+  /**
+   * Returns whether {@link #getLastVersionOutput()} is still current, i.e. no file it depends on changed since.
+   */
+  public boolean isVersionOutputCurrent() {
+    final String homePath = getHomePath();
+    return FlutterSdkQueryCache.getInstance().getVersionOutput(homePath, FlutterSdkQueryCache.computeStamps(homePath)) != null;
+  }
 
-        final JsonObject obj = elem.getAsJsonObject();
-        for (String jsonKey : JsonUtils.getKeySet(obj)) {
-          final JsonElement element = obj.get(jsonKey);
-          if (element == null || element.isJsonNull()) {
-            continue;
-          }
-          final JsonPrimitive primitive = (JsonPrimitive)element;
-          cachedConfigValues.put(jsonKey, primitive.getAsString());
-        }
-      }
-      catch (JsonSyntaxException ignored) {
-      }
-    }
-    return null;
+  /**
+   * Save the output of a successful 'flutter --version' run, to be returned by {@link #getLastVersionOutput()}.
+   */
+  public void rememberVersionOutput(@NotNull String output) {
+    final String homePath = getHomePath();
+    FlutterSdkQueryCache.getInstance().putVersionOutput(homePath, FlutterSdkQueryCache.computeStamps(homePath), output);
   }
 
   // Do not run this on EDT.
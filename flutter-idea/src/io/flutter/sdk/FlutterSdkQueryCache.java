@@ -0,0 +1,189 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.sdk;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.SystemInfo;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Remembers the output of slow 'flutter' queries across IDE sessions.
+ * <p>
+ * Results are stored per SDK home, together with the modification times and sizes of the files the output depends on
+ * (the SDK's version files and the user's Flutter settings). A stored result is current while none of them changed.
+ */
+class FlutterSdkQueryCache {
+  private static final Logger LOG = Logger.getInstance(FlutterSdkQueryCache.class);
+
+  private static FlutterSdkQueryCache instance;
+
+  @NotNull
+  static synchronized FlutterSdkQueryCache getInstance() {
+    if (instance == null) {
+      instance = new FlutterSdkQueryCache(Paths.get(PathManager.getSystemPath(), "flutter", "sdk-queries.json"));
+    }
+    return instance;
+  }
+
+  /**
+   * The stored results for one SDK. Fields are serialized with Gson.
+   */
+  static class Entry {
+    @Nullable String stamps;
+    @Nullable Map<String, String> config;
+    @Nullable String versionOutput;
+  }
+
+  @NotNull private final Path file;
+  @NotNull private final Gson gson = new Gson();
+
+  /**
+   * Entries keyed by SDK home path; loaded on first use.
+   */
+  @Nullable private Map<String, Entry> entries;
+
+  FlutterSdkQueryCache(@NotNull Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Returns the stored 'flutter config --machine' values for the SDK, or null if there are none.
+   *
+   * @param stamps the current {@link #computeStamps stamps}, or null to accept values even if they may be out of date
+   */
+  @Nullable
+  synchronized Map<String, String> getConfig(@NotNull String homePath, @Nullable String stamps) {
+    final Entry entry = getEntry(homePath, stamps);
+    return entry == null || entry.config == null ? null : Collections.unmodifiableMap(entry.config);
+  }
+
+  /**
+   * Returns the stored 'flutter --version' output for the SDK, or null if there is none.
+   *
+   * @param stamps the current {@link #computeStamps stamps}, or null to accept output even if it may be out of date
+   */
+  @Nullable
+  synchronized String getVersionOutput(@NotNull String homePath, @Nullable String stamps) {
+    final Entry entry = getEntry(homePath, stamps);
+    return entry == null ? null : entry.versionOutput;
+  }
+
+  synchronized void putConfig(@NotNull String homePath, @NotNull String stamps, @NotNull Map<String, String> config) {
+    update(homePath, stamps).config = new HashMap<>(config);
+    save();
+  }
+
+  synchronized void putVersionOutput(@NotNull String homePath, @NotNull String stamps, @NotNull String output) {
+    update(homePath, stamps).versionOutput = output;
+    save();
+  }
+
+  @Nullable
+  private Entry getEntry(@NotNull String homePath, @Nullable String stamps) {
+    final Entry entry = load().get(homePath);
+    if (entry == null || (stamps != null && !stamps.equals(entry.stamps))) {
+      return null;
+    }
+    return entry;
+  }
+
+  /**
+   * Returns the entry for the SDK, replacing it if it was computed from different files.
+   */
+  @NotNull
+  private Entry update(@NotNull String homePath, @NotNull String stamps) {
+    final Map<String, Entry> all = load();
+    Entry entry = all.get(homePath);
+    if (entry == null || !stamps.equals(entry.stamps)) {
+      entry = new Entry();
+      entry.stamps = stamps;
+      all.put(homePath, entry);
+    }
+    return entry;
+  }
+
+  @NotNull
+  private Map<String, Entry> load() {
+    if (entries != null) {
+      return entries;
+    }
+    entries = new HashMap<>();
+    if (Files.isRegularFile(file)) {
+      try {
+        final Map<String, Entry> stored =
+          gson.fromJson(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), new TypeToken<Map<String, Entry>>() {
+          }.getType());
+        if (stored != null) {
+          entries.putAll(stored);
+        }
+      }
+      catch (IOException | JsonParseException e) {
+        LOG.info("Unable to read " + file + ": " + e);
+      }
+    }
+    return entries;
+  }
+
+  private void save() {
+    try {
+      Files.createDirectories(file.getParent());
+      final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+      Files.write(temp, gson.toJson(load()).getBytes(StandardCharsets.UTF_8));
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (IOException e) {
+      LOG.info("Unable to write " + file + ": " + e);
+    }
+  }
+
+  /**
+   * Returns a string that changes whenever one of the files that the output of 'flutter config' and 'flutter --version'
+   * depends on changes.
+   */
+  @NotNull
+  static String computeStamps(@NotNull String homePath) {
+    final List<Path> files = new ArrayList<>();
+    files.add(Paths.get(homePath, "version"));
+    files.add(Paths.get(homePath, "bin", "cache", "flutter.version.json"));
+
+    // The Flutter settings file has moved over time; stamp all the places the tool has used.
+    final String userHome = System.getProperty("user.home");
+    files.add(Paths.get(userHome, ".flutter_settings"));
+    final String configHome = System.getenv("XDG_CONFIG_HOME");
+    files.add(configHome != null ? Paths.get(configHome, "flutter", "settings") : Paths.get(userHome, ".config", "flutter", "settings"));
+    if (SystemInfo.isWindows && System.getenv("APPDATA") != null) {
+      files.add(Paths.get(System.getenv("APPDATA"), ".flutter_settings"));
+    }
+
+    final StringBuilder stamps = new StringBuilder();
+    for (Path path : files) {
+      if (stamps.length() > 0) {
+        stamps.append('|');
+      }
+      stamps.append(path.getFileName()).append(':');
+      try {
+        stamps.append(Files.getLastModifiedTime(path).toMillis()).append(':').append(Files.size(path));
+      }
+      catch (IOException e) {
+        stamps.append('-');
+      }
+    }
+    return stamps.toString();
+  }
+}
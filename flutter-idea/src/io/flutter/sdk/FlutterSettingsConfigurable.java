@@ -433,6 +433,19 @@ public class FlutterSettingsConfigurable implements SearchableConfigurable {
     // when the semaphone was locked for a long time on the EDT.
     final ModalityState modalityState = ModalityState.current();
     ApplicationManager.getApplication().executeOnPooledThread(() -> {
+      // Show the version from the last run right away, and skip running the tool if it can't have changed.
+      final String lastVersionOutput = sdk.getLastVersionOutput();
+      if (lastVersionOutput != null) {
+        final boolean isCurrent = sdk.isVersionOutputCurrent();
+        ApplicationManager.getApplication().invokeLater(() -> {
+          fullVersionString = lastVersionOutput;
+          updateVersionTextIfCurrent(sdk, firstLine(lastVersionOutput));
+        }, modalityState);
+        if (isCurrent) {
+          return;
+        }
+      }
+
       try {
         if (updater != null) {
           // If we get back here before the previous one finished then just kill it.
@@ -448,8 +461,10 @@ public class FlutterSettingsConfigurable implements SearchableConfigurable {
           // "flutter --version" can take a long time on a slow network.
           updater = sdk.flutterVersion().start((ProcessOutput output) -> {
             fullVersionString = output.getStdout();
-            final String[] lines = StringUtil.splitByLines(fullVersionString);
-            final String singleLineVersion = lines.length > 0 ? lines[0] : "";
+            if (output.getExitCode() == 0 && !fullVersionString.isEmpty()) {
+              sdk.rememberVersionOutput(fullVersionString);
+            }
+            final String singleLineVersion = firstLine(fullVersionString);
 
             ApplicationManager.getApplication().invokeLater(() -> {
               updater = null;
@@ -465,6 +480,12 @@ public class FlutterSettingsConfigurable implements SearchableConfigurable {
     });
   }
 
+  @NotNull
+  private static String firstLine(@NotNull String text) {
+    final String[] lines = StringUtil.splitByLines(text);
+    return lines.length > 0 ? lines[0] : "";
+  }
+
   /***
    * Sets the version text but only if we don't have stale data.
    *
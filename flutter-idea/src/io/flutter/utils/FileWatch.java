@@ -7,9 +7,8 @@ package io.flutter.utils;
 
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.LinkedListMultimap;
-import com.google.common.collect.Multimap;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.application.Application;
 import com.intellij.openapi.application.ApplicationManager;
@@ -19,14 +18,14 @@ import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.vfs.VirtualFileManager;
 import com.intellij.openapi.vfs.newvfs.BulkFileListener;
 import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
 import com.intellij.util.messages.MessageBusConnection;
 import io.flutter.FlutterUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -38,6 +37,26 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * which may be different from when it's changed on disk, due to caching.
  */
 public class FileWatch {
+  /**
+   * Which changes at or under a watched location fire events.
+   */
+  public enum Depth {
+    /**
+     * Changes to the file or directory itself.
+     */
+    SELF,
+
+    /**
+     * Changes to the file or directory itself, or to any file directly inside it.
+     */
+    CHILDREN,
+
+    /**
+     * Changes to the file or directory itself, or to anything beneath it.
+     */
+    RECURSIVE
+  }
+
   private final @NotNull ImmutableSet<Location> watched;
   private final @NotNull Runnable callback;
 
@@ -64,7 +83,15 @@ public class FileWatch {
    */
   public static @NotNull
   FileWatch subscribe(@NotNull VirtualFile file, @NotNull Runnable callback) {
-    final FileWatch watcher = new FileWatch(ImmutableSet.of(new Location(file, null)), callback);
+    return subscribe(file, Depth.SELF, callback);
+  }
+
+  /**
+   * Starts watching a single file or directory, and possibly what is beneath it.
+   */
+  public static @NotNull
+  FileWatch subscribe(@NotNull VirtualFile file, @NotNull Depth depth, @NotNull Runnable callback) {
+    final FileWatch watcher = new FileWatch(ImmutableSet.of(new Location(file, null, depth)), callback);
     subscriptions.subscribe(watcher);
     return watcher;
   }
@@ -78,9 +105,21 @@ public class FileWatch {
    */
   public static @NotNull
   FileWatch subscribe(@NotNull VirtualFile base, @NotNull Iterable<String> paths, @NotNull Runnable callback) {
+    return subscribe(base, paths, Depth.SELF, callback);
+  }
+
+  /**
+   * Starts watching some paths beneath a VirtualFile, and possibly what is beneath them.
+   *
+   * <p>Each path is relative to the VirtualFile and need not exist.
+   *
+   * @param callback will be run asynchronously sometime after the file changed.
+   */
+  public static @NotNull
+  FileWatch subscribe(@NotNull VirtualFile base, @NotNull Iterable<String> paths, @NotNull Depth depth, @NotNull Runnable callback) {
     final ImmutableSet.Builder<Location> builder = ImmutableSet.builder();
     for (String path : paths) {
-      builder.add(new Location(base, path));
+      builder.add(new Location(base, path, depth));
     }
     final FileWatch watcher = new FileWatch(builder.build(), callback);
     subscriptions.subscribe(watcher);
@@ -143,38 +182,62 @@ public class FileWatch {
    */
   private static class Location {
     private final @NotNull VirtualFile base;
-    private final @Nullable String path;
+    private final @NotNull Depth depth;
 
     /**
      * The segments in the watched path, in reverse order (from leaf to base).
      */
     private final @NotNull List<String> reversedNames;
 
-    Location(@NotNull VirtualFile base, @Nullable String path) {
+    private final @Nullable String path;
+
+    /**
+     * The keys of this location in the {@link Subscriptions} trie: the file system's protocol, followed by the
+     * segments of the full path.
+     *
+     * <p>Since the base can be renamed or moved, these are recomputed by {@link Subscriptions#rekey}. Only
+     * accessed while holding the lock on {@link Subscriptions}.
+     */
+    private @NotNull List<String> keys;
+
+    Location(@NotNull VirtualFile base, @Nullable String path, @NotNull Depth depth) {
       if (path != null && path.isEmpty()) {
         throw new IllegalArgumentException("can't watch an empty path");
       }
       this.base = base;
       this.path = path;
+      this.depth = depth;
       this.reversedNames = path == null ? ImmutableList.of() : ImmutableList.copyOf(splitter.splitToList(path)).reverse();
+      this.keys = currentKeys();
     }
 
     /**
-     * Returns the name at the end of the path being watched.
+     * Returns the keys for where the base is now.
      */
-    String getName() {
-      if (reversedNames.isEmpty()) {
-        return base.getName();
-      }
-      else {
-        return reversedNames.get(0);
-      }
+    @NotNull
+    List<String> currentKeys() {
+      return ImmutableList.<String>builder()
+        .add(base.getFileSystem().getProtocol())
+        .addAll(splitter.split(path == null ? base.getPath() : base.getPath() + "/" + path))
+        .build();
     }
 
     /**
-     * Returns true if the given VirtualFile is at this location.
+     * Returns true if the given VirtualFile is at this location, or beneath it as allowed by the depth.
      */
     boolean matches(VirtualFile file) {
+      int levels = 0;
+      while (file != null && (depth == Depth.RECURSIVE || levels <= (depth == Depth.CHILDREN ? 1 : 0))) {
+        if (matchesExactly(file)) {
+          return true;
+        }
+        file = file.getParent();
+        levels++;
+      }
+      return false;
+    }
+
+    private boolean matchesExactly(VirtualFile file) {
       for (String name : reversedNames) {
         if (file == null || !file.getName().equals(name)) {
           return false;
@@ -187,39 +250,177 @@ public class FileWatch {
     private static final Splitter splitter = Splitter.on('/');
   }
 
+  /**
+   * An immutable node in the trie of watched paths.
+   */
+  private static class Node {
+    static final Node EMPTY = new Node(ImmutableMap.of(), ImmutableList.of(), ImmutableList.of(), ImmutableList.of());
+
+    final @NotNull ImmutableMap<String, Node> children;
+    final @NotNull ImmutableList<FileWatch> self;
+    final @NotNull ImmutableList<FileWatch> childWatches;
+    final @NotNull ImmutableList<FileWatch> recursive;
+
+    Node(@NotNull ImmutableMap<String, Node> children,
+         @NotNull ImmutableList<FileWatch> self,
+         @NotNull ImmutableList<FileWatch> childWatches,
+         @NotNull ImmutableList<FileWatch> recursive) {
+      this.children = children;
+      this.self = self;
+      this.childWatches = childWatches;
+      this.recursive = recursive;
+    }
+
+    boolean isEmpty() {
+      return children.isEmpty() && self.isEmpty() && childWatches.isEmpty() && recursive.isEmpty();
+    }
+
+    /**
+     * Returns a copy of this node with the given watch added to (or removed from) the node at the end of the keys.
+     * <p>
+     * Only the nodes along the path are copied. Empty nodes are pruned.
+     */
+    @NotNull
+    Node update(@NotNull List<String> keys, int index, @NotNull Depth depth, @NotNull FileWatch w, boolean add) {
+      if (index == keys.size()) {
+        return new Node(children,
+                        depth == Depth.SELF ? updateList(self, w, add) : self,
+                        depth == Depth.CHILDREN ? updateList(childWatches, w, add) : childWatches,
+                        depth == Depth.RECURSIVE ? updateList(recursive, w, add) : recursive);
+      }
+      final String key = keys.get(index);
+      final Node child = children.get(key);
+      if (child == null && !add) {
+        return this;
+      }
+      final Node updated = (child == null ? EMPTY : child).update(keys, index + 1, depth, w, add);
+      final Map<String, Node> newChildren = new HashMap<>(children);
+      if (updated.isEmpty()) {
+        newChildren.remove(key);
+      }
+      else {
+        newChildren.put(key, updated);
+      }
+      return new Node(ImmutableMap.copyOf(newChildren), self, childWatches, recursive);
+    }
+
+    @NotNull
+    private static ImmutableList<FileWatch> updateList(@NotNull ImmutableList<FileWatch> list, @NotNull FileWatch w, boolean add) {
+      if (add) {
+        return ImmutableList.<FileWatch>builder().addAll(list).add(w).build();
+      }
+      final List<FileWatch> copy = new ArrayList<>(list);
+      copy.remove(w);
+      return ImmutableList.copyOf(copy);
+    }
+  }
+
   private static final Subscriptions subscriptions = new Subscriptions();
 
   private static class Subscriptions {
 
     /**
-     * For each VirtualFile name, the FileWatches that are subscribed (across all Projects).
+     * A trie of the watched locations (across all Projects), keyed by file system protocol and then path segments.
      *
-     * <p>For thread safety, all access should be synchronized.
+     * <p>The trie is immutable; subscribing or unsubscribing publishes an updated copy, so that events can be
+     * matched against a snapshot without locking. Updates should be synchronized.
      */
-    private final Multimap<String, FileWatch> byFile = LinkedListMultimap.create();
+    private volatile @NotNull Node root = Node.EMPTY;
 
     private final Delivery delivery = new Delivery();
 
     synchronized void subscribe(FileWatch w) {
+      Node next = root;
       for (Location loc : w.watched) {
-        byFile.put(loc.getName(), w);
+        next = next.update(loc.keys, 0, loc.depth, w, true);
       }
-      delivery.enable(!byFile.isEmpty());
+      root = next;
+      delivery.enable(!next.isEmpty());
     }
 
     synchronized void unsubscribe(FileWatch w) {
+      Node next = root;
       for (Location loc : w.watched) {
-        byFile.remove(loc.getName(), w);
+        next = next.update(loc.keys, 0, loc.depth, w, false);
       }
-      delivery.enable(!byFile.isEmpty());
+      root = next;
+      delivery.enable(!next.isEmpty());
     }
 
-    synchronized void addWatchesForFile(@NotNull Set<FileWatch> out, @Nullable VirtualFile f) {
-      if (f == null) return;
+    @NotNull
+    Node snapshot() {
+      return root;
+    }
 
-      for (FileWatch w : byFile.get(f.getName())) {
-        if (w.matches(f)) {
-          out.add(w);
+    /**
+     * Moves the watches at or under a file that was renamed or moved to where their base is now.
+     * <p>
+     * The watches follow their base VirtualFile; watches whose base didn't move keep their keys.
+     */
+    synchronized void rekey(@NotNull String protocol, @NotNull String oldPath) {
+      Node node = root.children.get(protocol);
+      for (String key : Location.splitter.split(oldPath)) {
+        if (node == null) {
+          return;
+        }
+        node = node.children.get(key);
+      }
+      if (node == null) {
+        return;
+      }
+
+      final Set<FileWatch> moved = new LinkedHashSet<>();
+      addAllWatches(moved, node);
+      Node next = root;
+      for (FileWatch w : moved) {
+        for (Location loc : w.watched) {
+          final List<String> keys = loc.currentKeys();
+          if (!keys.equals(loc.keys)) {
+            next = next.update(loc.keys, 0, loc.depth, w, false);
+            next = next.update(keys, 0, loc.depth, w, true);
+            loc.keys = keys;
+          }
+        }
+      }
+      root = next;
+    }
+
+    private static void addAllWatches(@NotNull Set<FileWatch> out, @NotNull Node node) {
+      out.addAll(node.self);
+      out.addAll(node.childWatches);
+      out.addAll(node.recursive);
+      for (Node child : node.children.values()) {
+        addAllWatches(out, child);
+      }
+    }
+
+    /**
+     * Adds the watches matching a change to the file at the given path.
+     * <p>
+     * This takes time proportional to the depth of the path (plus the number of matching watches), regardless of how
+     * many watches there are.
+     */
+    static void addWatchesForPath(@NotNull Set<FileWatch> out, @NotNull Node root, @NotNull String protocol, @NotNull String path) {
+      Node node = root.children.get(protocol);
+      int start = 0;
+      while (node != null) {
+        out.addAll(node.recursive);
+        if (start > path.length()) {
+          // The whole path matched.
+          out.addAll(node.self);
+          out.addAll(node.childWatches);
+          return;
+        }
+        final int end = path.indexOf('/', start);
+        if (end < 0) {
+          // This node is the changed file's directory.
+          out.addAll(node.childWatches);
+          node = node.children.get(path.substring(start));
+          start = path.length() + 1;
+        }
+        else {
+          node = node.children.get(path.substring(start, end));
+          start = end + 1;
         }
       }
     }
@@ -258,15 +459,33 @@ public class FileWatch {
 
     @Override
     public void after(@NotNull List<? extends VFileEvent> events) {
+      // Match the batch against a snapshot, without locking. Only moves and renames take a new one.
+      Node root = subscriptions.snapshot();
+      if (root.isEmpty()) {
+        return;
+      }
+
       final Set<FileWatch> todo = new LinkedHashSet<>();
-      synchronized (subscriptions) {
-        for (VFileEvent event : events) {
-          subscriptions.addWatchesForFile(todo, event.getFile());
+      for (VFileEvent event : events) {
+        final String protocol = event.getFileSystem().getProtocol();
+        Subscriptions.addWatchesForPath(todo, root, protocol, event.getPath());
+        // A file that moves away from a watched location is a change to that location too.
+        String oldPath = null;
+        if (event instanceof VFileMoveEvent) {
+          oldPath = ((VFileMoveEvent)event).getOldPath();
+        }
+        else if (event instanceof VFilePropertyChangeEvent && ((VFilePropertyChangeEvent)event).isRename()) {
+          oldPath = ((VFilePropertyChangeEvent)event).getOldPath();
+        }
+        if (oldPath != null) {
+          Subscriptions.addWatchesForPath(todo, root, protocol, oldPath);
+          // Watches under the moved file follow their base to its new path, for the rest of the batch too.
+          subscriptions.rekey(protocol, oldPath);
+          root = subscriptions.snapshot();
         }
       }
 
-      // Deliver changes synchronously, but after releasing the lock in case
-      // the callback subscribes/unsubscribes.
+      // Deliver changes synchronously; callbacks may subscribe or unsubscribe.
       for (FileWatch w : todo) {
         w.fireEvent();
       }
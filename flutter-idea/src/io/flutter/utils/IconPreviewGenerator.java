@@ -66,19 +66,19 @@ public class IconPreviewGenerator {
   }
 
   public Icon convert(String number) {
-    int codepoint;
-    if (number.startsWith("0x") || number.startsWith("0X")) {
-      number = number.substring(2);
-      codepoint = Integer.parseInt(number, 16);
-    }
-    else {
-      codepoint = Integer.parseInt(number, 10);
-    }
-    return convert(codepoint);
+    return convert(parseCodepoint(number));
   }
 
   public Icon convert(int code) {
-    return runInGraphicsContext((BufferedImage image, Graphics2D graphics, FontRenderContext frc) -> {
+    return convert(null, code);
+  }
+
+  /**
+   * Render the glyph for the given code point with a font that has already been loaded from {@link #fontFilePath}, or
+   * load the font first if it is null.
+   */
+  public Icon convert(@Nullable Font font, int code) {
+    return runInGraphicsContext(font, (BufferedImage image, Graphics2D graphics, FontRenderContext frc) -> {
       char ch = Character.toChars(code)[0];
       String codepoint = Character.toString(ch);
 
@@ -96,7 +96,7 @@ public class IconPreviewGenerator {
     //noinspection ResultOfMethodCallIgnored
     new File(outputPath).mkdirs();
 
-    runInGraphicsContext((BufferedImage image, Graphics2D graphics, FontRenderContext frc) -> {
+    runInGraphicsContext(null, (BufferedImage image, Graphics2D graphics, FontRenderContext frc) -> {
       Properties fontMap = new Properties();
       File file = new File(path);
       try (InputStream stream = new BufferedInputStream(new FileInputStream(file))) {
@@ -122,13 +122,37 @@ public class IconPreviewGenerator {
     });
   }
 
-  private Icon runInGraphicsContext(TripleFunction<BufferedImage, Graphics2D, FontRenderContext, Icon> callback) {
+  /**
+   * Parse a code point written as a Dart integer literal, in hex (0x...) or decimal.
+   */
+  public static int parseCodepoint(@NotNull String number) {
+    if (number.startsWith("0x") || number.startsWith("0X")) {
+      return Integer.parseInt(number.substring(2), 16);
+    }
+    else {
+      return Integer.parseInt(number, 10);
+    }
+  }
+
+  /**
+   * Load the font in the given TrueType or OpenType file. The result has a size of 1 and is derived to the requested
+   * size when an icon is rendered, so it can be shared by generators of different sizes.
+   */
+  @NotNull
+  public static Font loadFont(@NotNull String fontFilePath) throws IOException, FontFormatException {
+    try (InputStream inputStream = new BufferedInputStream(new FileInputStream(fontFilePath))) {
+      return Font.createFont(Font.TRUETYPE_FONT, inputStream);
+    }
+  }
+
+  private Icon runInGraphicsContext(@Nullable Font baseFont,
+                                    TripleFunction<BufferedImage, Graphics2D, FontRenderContext, Icon> callback) {
     Icon result = null;
     Graphics2D graphics = null;
     //noinspection UndesirableClassUsage
     BufferedImage image = new BufferedImage(iconSize, iconSize, BufferedImage.TYPE_4BYTE_ABGR);
-    try (InputStream inputStream = new FileInputStream(fontFilePath)) {
-      Font font = Font.createFont(Font.TRUETYPE_FONT, inputStream).deriveFont(Font.PLAIN, fontSize);
+    try {
+      Font font = (baseFont != null ? baseFont : loadFont(fontFilePath)).deriveFont(Font.PLAIN, fontSize);
       graphics = image.createGraphics();
       graphics.setFont(font);
       graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.utils;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.VirtualFileVisitor;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileContentChangeEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import io.flutter.FlutterUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.IOException;
+import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Renders icon previews for the editor, caching everything that is expensive to recompute:
+ * <ul>
+ * <li>the parsed {@link Font} of each font file, until the file's modification stamp changes;</li>
+ * <li>the TrueType font files found under each package root, kept up to date from VFS events;</li>
+ * <li>the most recently rendered icons, keyed by font, code point, size and color.</li>
+ * </ul>
+ */
+public class IconPreviewService implements Disposable {
+  private static final Logger LOG = Logger.getInstance(IconPreviewService.class);
+
+  private static final int ICON_CACHE_SIZE = 2048;
+
+  @NotNull
+  public static IconPreviewService getInstance(@NotNull final Project project) {
+    return Objects.requireNonNull(project.getService(IconPreviewService.class));
+  }
+
+  /**
+   * Parsed fonts keyed by file path.
+   */
+  @NotNull private final Map<String, FontEntry> fonts = new ConcurrentHashMap<>();
+
+  /**
+   * The .ttf files under each package root, in the order {@link VfsUtilCore#visitChildrenRecursively} finds them.
+   */
+  @NotNull private final Map<VirtualFile, List<VirtualFile>> fontFilesByRoot = new ConcurrentHashMap<>();
+
+  /**
+   * Incremented whenever {@link #fontFilesByRoot} is invalidated, so that a scan that raced with a VFS change is not cached.
+   */
+  @NotNull private final AtomicLong fontFilesGeneration = new AtomicLong();
+
+  @NotNull private final Map<IconKey, Icon> icons = Collections.synchronizedMap(
+    new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<IconKey, Icon> eldest) {
+        return size() > ICON_CACHE_SIZE;
+      }
+    });
+
+  private IconPreviewService(@NotNull final Project project) {
+    project.getMessageBus().connect(this).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+      @Override
+      public void after(@NotNull List<? extends VFileEvent> events) {
+        for (VFileEvent event : events) {
+          handleFileEvent(event);
+        }
+      }
+    });
+  }
+
+  /**
+   * Return the preview of the glyph for the given code point in the font at the given path, rendered at the default size
+   * and color of {@link IconPreviewGenerator}, or null if the font could not be loaded.
+   */
+  @Nullable
+  public Icon getIcon(@NotNull String fontFilePath, int codepoint) {
+    final VirtualFile file = LocalFileSystem.getInstance().findFileByPath(fontFilePath);
+    return file == null ? null : getIcon(new IconPreviewGenerator(file.getPath()), file, codepoint);
+  }
+
+  @Nullable
+  public Icon getIcon(@NotNull VirtualFile fontFile, int codepoint) {
+    return getIcon(new IconPreviewGenerator(fontFile.getPath()), fontFile, codepoint);
+  }
+
+  @Nullable
+  public Icon getIcon(@NotNull VirtualFile fontFile, int codepoint, int iconSize, int fontSize, @Nullable Color fontColor) {
+    return getIcon(new IconPreviewGenerator(fontFile.getPath(), iconSize, fontSize, fontColor), fontFile, codepoint);
+  }
+
+  @Nullable
+  private Icon getIcon(@NotNull IconPreviewGenerator generator, @NotNull VirtualFile fontFile, int codepoint) {
+    final long stamp = fontFile.getModificationStamp();
+    final IconKey key =
+      new IconKey(fontFile.getPath(), stamp, codepoint, generator.iconSize, generator.fontSize, generator.fontColor.getRGB());
+    final Icon cached = icons.get(key);
+    if (cached != null) {
+      return cached;
+    }
+    final Font font = getFont(fontFile.getPath(), stamp);
+    if (font == null) {
+      return null;
+    }
+    final Icon icon = generator.convert(font, codepoint);
+    if (icon != null) {
+      icons.put(key, icon);
+    }
+    return icon;
+  }
+
+  /**
+   * Return the parsed font in the given file, or null if it could not be loaded.
+   */
+  @Nullable
+  public Font getFont(@NotNull VirtualFile fontFile) {
+    return getFont(fontFile.getPath(), fontFile.getModificationStamp());
+  }
+
+  @Nullable
+  private Font getFont(@NotNull String path, long stamp) {
+    final FontEntry entry = fonts.get(path);
+    if (entry != null && entry.stamp == stamp) {
+      return entry.font;
+    }
+    final Font font;
+    try {
+      font = IconPreviewGenerator.loadFont(path);
+    }
+    catch (IOException | FontFormatException ex) {
+      FlutterUtils.warn(LOG, ex);
+      return null;
+    }
+    fonts.put(path, new FontEntry(font, stamp));
+    return font;
+  }
+
+  /**
+   * Return the .ttf files under the given package root. The directory is scanned the first time it is requested; after
+   * that the list is reused until a font file or directory below it is created, deleted, moved or renamed.
+   */
+  @NotNull
+  public List<VirtualFile> getFontFiles(@NotNull VirtualFile packageRoot) {
+    final List<VirtualFile> cached = fontFilesByRoot.get(packageRoot);
+    if (cached != null) {
+      return cached;
+    }
+    final long generation = fontFilesGeneration.get();
+    final List<VirtualFile> ttfFiles = new ArrayList<>();
+    VfsUtilCore.visitChildrenRecursively(packageRoot, new VirtualFileVisitor<Void>() {
+      @Override
+      public boolean visitFile(@NotNull VirtualFile file) {
+        final String ext = file.getExtension();
+        if ("ttf".equals(ext)) {
+          ttfFiles.add(file);
+          return false;
+        }
+        else {
+          return super.visitFile(file);
+        }
+      }
+    });
+    final List<VirtualFile> result = Collections.unmodifiableList(ttfFiles);
+    if (fontFilesGeneration.get() == generation) {
+      fontFilesByRoot.put(packageRoot, result);
+    }
+    return result;
+  }
+
+  private void handleFileEvent(@NotNull VFileEvent event) {
+    final String path = event.getPath();
+    final boolean isFont = path.endsWith(".ttf") || path.endsWith(".otf");
+
+    if (event instanceof VFileContentChangeEvent) {
+      // The modification stamp guards the caches against stale fonts; drop the old font so it can be collected.
+      if (isFont) {
+        fonts.remove(path);
+      }
+      return;
+    }
+
+    if (isFont) {
+      fonts.remove(path);
+    }
+    else {
+      final VirtualFile file = event.getFile();
+      if (file != null && !file.isDirectory()) {
+        return;
+      }
+    }
+
+    // A font file or a directory that may contain font files was created, deleted, moved, renamed or copied.
+    boolean invalidated = false;
+    for (Iterator<VirtualFile> iter = fontFilesByRoot.keySet().iterator(); iter.hasNext(); ) {
+      final VirtualFile root = iter.next();
+      if (!root.isValid() || isAncestorPath(root.getPath(), path) || isAncestorPath(path, root.getPath())) {
+        iter.remove();
+        invalidated = true;
+      }
+    }
+    if (invalidated) {
+      fontFilesGeneration.incrementAndGet();
+    }
+  }
+
+  private static boolean isAncestorPath(@NotNull String ancestor, @NotNull String path) {
+    return path.startsWith(ancestor) && (path.length() == ancestor.length() || path.charAt(ancestor.length()) == '/');
+  }
+
+  @Override
+  public void dispose() {
+    fonts.clear();
+    fontFilesByRoot.clear();
+    icons.clear();
+  }
+
+  private static class FontEntry {
+    @NotNull final Font font;
+    final long stamp;
+
+    FontEntry(@NotNull Font font, long stamp) {
+      this.font = font;
+      this.stamp = stamp;
+    }
+  }
+
+  private static class IconKey {
+    @NotNull final String path;
+    final long stamp;
+    final int codepoint;
+    final int iconSize;
+    final int fontSize;
+    final int rgb;
+
+    IconKey(@NotNull String path, long stamp, int codepoint, int iconSize, int fontSize, int rgb) {
+      this.path = path;
+      this.stamp = stamp;
+      this.codepoint = codepoint;
+      this.iconSize = iconSize;
+      this.fontSize = fontSize;
+      this.rgb = rgb;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof IconKey)) return false;
+      final IconKey other = (IconKey)o;
+      return stamp == other.stamp && codepoint == other.codepoint && iconSize == other.iconSize && fontSize == other.fontSize &&
+             rgb == other.rgb && path.equals(other.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, stamp, codepoint, iconSize, fontSize, rgb);
+    }
+  }
+}
@@ -595,15 +595,27 @@ public class InspectorPanel extends JPanel implements Disposable, InspectorServi
         treeGroups.cancelNext();
         return;
       }
-      // TODO(jacobr): as a performance optimization we should check if the
-      // new tree is identical to the existing tree in which case we should
-      // dispose the new tree and keep the old tree.
       treeGroups.promoteNext();
       clearValueToTreeNodeMapping();
       if (n != null) {
-        final DefaultMutableTreeNode rootNode = new DefaultMutableTreeNode(n);
-        getTreeModel().setRoot(rootNode);
-        setupTreeNode(rootNode, n, true);
+        final DefaultMutableTreeNode rootNode;
+        if (InspectorTreeDiff.canUpdate(getRootNode(), n)) {
+          // Update the existing tree in place, so that a refresh only touches
+          // the nodes that changed and keeps the expansion state of the rest.
+          rootNode = getRootNode();
+          final InspectorTreeDiff diff = new InspectorTreeDiff(getTreeModel(), this::registerTreeNode);
+          diff.update(rootNode, n);
+          programaticExpansionInProgress = true;
+          for (DefaultMutableTreeNode subtree : diff.getInsertedSubtrees()) {
+            expandAll(myRootsTree, new TreePath(subtree.getPath()), false);
+          }
+          programaticExpansionInProgress = false;
+        }
+        else {
+          rootNode = new DefaultMutableTreeNode(n);
+          getTreeModel().setRoot(rootNode);
+          setupTreeNode(rootNode, n, true);
+        }
 
         // Legacy case. We got the root node but no children are loaded yet.
         // When the root node is hidden, we will never show anything unless we
@@ -747,14 +759,7 @@ public class InspectorPanel extends JPanel implements Disposable, InspectorServi
   void setupTreeNode(DefaultMutableTreeNode node, DiagnosticsNode diagnosticsNode, boolean expandChildren) {
     node.setUserObject(diagnosticsNode);
     node.setAllowsChildren(diagnosticsNode.hasChildren());
-    final InspectorInstanceRef valueRef = diagnosticsNode.getValueRef();
-    // Properties do not have unique values so should not go in the valueToTreeNode map.
-    if (valueRef.getId() != null && !diagnosticsNode.isProperty()) {
-      valueToTreeNode.put(valueRef, node);
-    }
-    if (parentTree != null) {
-      parentTree.maybeUpdateValueUI(valueRef);
-    }
+    registerTreeNode(node, diagnosticsNode);
     if (diagnosticsNode.hasChildren() || !diagnosticsNode.getInlineProperties().isEmpty()) {
       if (diagnosticsNode.childrenReady() || !diagnosticsNode.hasChildren()) {
         final CompletableFuture<ArrayList<DiagnosticsNode>> childrenFuture = diagnosticsNode.getChildren();
@@ -763,11 +768,22 @@ public class InspectorPanel extends JPanel implements Disposable, InspectorServi
       }
       else {
         node.removeAllChildren();
-        node.add(new DefaultMutableTreeNode("Loading..."));
+        node.add(new DefaultMutableTreeNode(InspectorTreeDiff.LOADING_PLACEHOLDER));
       }
     }
   }
 
+  private void registerTreeNode(DefaultMutableTreeNode node, DiagnosticsNode diagnosticsNode) {
+    final InspectorInstanceRef valueRef = diagnosticsNode.getValueRef();
+    // Properties do not have unique values so should not go in the valueToTreeNode map.
+    if (valueRef.getId() != null && !diagnosticsNode.isProperty()) {
+      valueToTreeNode.put(valueRef, node);
+    }
+    if (parentTree != null) {
+      parentTree.maybeUpdateValueUI(valueRef);
+    }
+  }
+
   void setupChildren(DiagnosticsNode parent, DefaultMutableTreeNode treeNode, ArrayList<DiagnosticsNode> children, boolean expandChildren) {
     final DefaultTreeModel model = getTreeModel();
     if (treeNode.getChildCount() > 0) {
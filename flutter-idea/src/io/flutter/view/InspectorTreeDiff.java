@@ -0,0 +1,254 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.view;
+
+import io.flutter.inspector.DiagnosticsNode;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Updates the tree nodes showing a {@link DiagnosticsNode} tree to show a newer version of the same tree.
+ * <p>
+ * Nodes are matched by key: the value id of a node, the name of a property, or failing both the description. Tree nodes
+ * whose key is still present keep their place, so their expansion state is kept; the user object of every node is
+ * replaced with the new {@link DiagnosticsNode}. Only the differences are reported to the model: a node whose
+ * description, name or child count changed fires nodesChanged, and children that appeared or disappeared fire
+ * nodesWereInserted or nodesWereRemoved on their parent.
+ */
+class InspectorTreeDiff {
+  static final String LOADING_PLACEHOLDER = "Loading...";
+
+  @NotNull private final DefaultTreeModel model;
+
+  /**
+   * Called for every node of the new tree, reused or not, once its user object is set.
+   */
+  @NotNull private final BiConsumer<DefaultMutableTreeNode, DiagnosticsNode> onNodeShown;
+
+  @NotNull private final List<DefaultMutableTreeNode> insertedSubtrees = new ArrayList<>();
+
+  InspectorTreeDiff(@NotNull DefaultTreeModel model, @NotNull BiConsumer<DefaultMutableTreeNode, DiagnosticsNode> onNodeShown) {
+    this.model = model;
+    this.onNodeShown = onNodeShown;
+  }
+
+  /**
+   * Returns whether the tree under root shows an earlier version of the tree under newRoot, so that {@link #update} can
+   * be used instead of replacing the root.
+   */
+  static boolean canUpdate(@Nullable DefaultMutableTreeNode root, @NotNull DiagnosticsNode newRoot) {
+    if (root == null || !(root.getUserObject() instanceof DiagnosticsNode)) {
+      return false;
+    }
+    return Objects.equals(getKey(root.getUserObject()), getKey(newRoot));
+  }
+
+  void update(@NotNull DefaultMutableTreeNode root, @NotNull DiagnosticsNode newRoot) {
+    assert canUpdate(root, newRoot);
+    updateNode(root, newRoot);
+  }
+
+  /**
+   * The roots of the subtrees that were added by {@link #update}, in the order they were added.
+   */
+  @NotNull
+  List<DefaultMutableTreeNode> getInsertedSubtrees() {
+    return insertedSubtrees;
+  }
+
+  private void updateNode(@NotNull DefaultMutableTreeNode node, @NotNull DiagnosticsNode diagnosticsNode) {
+    final Object previous = node.getUserObject();
+    final int previousChildCount = node.getChildCount();
+    node.setUserObject(diagnosticsNode);
+    onNodeShown.accept(node, diagnosticsNode);
+
+    final List<DiagnosticsNode> children = getChildren(diagnosticsNode);
+    if (children == null) {
+      if (!hasOnlyPlaceholder(node)) {
+        removeChildren(node, allIndices(node.getChildCount()));
+        node.setAllowsChildren(true);
+        node.add(new DefaultMutableTreeNode(LOADING_PLACEHOLDER));
+        model.nodesWereInserted(node, new int[]{0});
+      }
+    }
+    else {
+      updateChildren(node, children);
+    }
+    if (node.getChildCount() == 0) {
+      node.setAllowsChildren(false);
+    }
+
+    if (!(previous instanceof DiagnosticsNode) || !isSameContent((DiagnosticsNode)previous, diagnosticsNode) ||
+        previousChildCount != node.getChildCount()) {
+      model.nodeChanged(node);
+    }
+  }
+
+  private void updateChildren(@NotNull DefaultMutableTreeNode node, @NotNull List<DiagnosticsNode> children) {
+    // Match each new child with the first unmatched old child with the same key that follows the previous match, so
+    // that the matched children stay in order.
+    final int oldCount = node.getChildCount();
+    final Map<String, ArrayDeque<Integer>> oldIndicesByKey = new HashMap<>();
+    for (int i = 0; i < oldCount; i++) {
+      final String key = getKey(((DefaultMutableTreeNode)node.getChildAt(i)).getUserObject());
+      if (key != null) {
+        oldIndicesByKey.computeIfAbsent(key, (k) -> new ArrayDeque<>()).add(i);
+      }
+    }
+    final int[] matches = new int[children.size()];
+    final boolean[] kept = new boolean[oldCount];
+    int lastMatch = -1;
+    for (int i = 0; i < children.size(); i++) {
+      matches[i] = -1;
+      final ArrayDeque<Integer> candidates = oldIndicesByKey.get(getKey(children.get(i)));
+      if (candidates == null) {
+        continue;
+      }
+      while (!candidates.isEmpty() && candidates.peekFirst() <= lastMatch) {
+        candidates.pollFirst();
+      }
+      if (!candidates.isEmpty()) {
+        lastMatch = candidates.pollFirst();
+        matches[i] = lastMatch;
+        kept[lastMatch] = true;
+      }
+    }
+
+    int removedCount = 0;
+    for (boolean isKept : kept) {
+      if (!isKept) {
+        removedCount++;
+      }
+    }
+    if (removedCount > 0) {
+      final int[] removed = new int[removedCount];
+      for (int i = 0, j = 0; i < oldCount; i++) {
+        if (!kept[i]) {
+          removed[j++] = i;
+        }
+      }
+      removeChildren(node, removed);
+    }
+
+    // The kept children are now in order; add the new ones between them.
+    int insertedCount = 0;
+    final int[] inserted = new int[children.size()];
+    for (int i = 0; i < children.size(); i++) {
+      if (matches[i] < 0) {
+        final DefaultMutableTreeNode child = buildSubtree(children.get(i));
+        node.setAllowsChildren(true);
+        node.insert(child, i);
+        insertedSubtrees.add(child);
+        inserted[insertedCount++] = i;
+      }
+    }
+    if (insertedCount > 0) {
+      model.nodesWereInserted(node, Arrays.copyOf(inserted, insertedCount));
+    }
+
+    for (int i = 0; i < children.size(); i++) {
+      if (matches[i] >= 0) {
+        updateNode((DefaultMutableTreeNode)node.getChildAt(i), children.get(i));
+      }
+    }
+  }
+
+  private void removeChildren(@NotNull DefaultMutableTreeNode node, @NotNull int[] indices) {
+    if (indices.length == 0) {
+      return;
+    }
+    final Object[] removed = new Object[indices.length];
+    for (int i = indices.length - 1; i >= 0; i--) {
+      removed[i] = node.getChildAt(indices[i]);
+      node.remove(indices[i]);
+    }
+    model.nodesWereRemoved(node, indices, removed);
+  }
+
+  /**
+   * Builds the tree nodes for a new subtree, in the same shape as {@link InspectorPanel#setupTreeNode}, without
+   * notifying the model.
+   */
+  @NotNull
+  private DefaultMutableTreeNode buildSubtree(@NotNull DiagnosticsNode diagnosticsNode) {
+    final DefaultMutableTreeNode node = new DefaultMutableTreeNode(diagnosticsNode);
+    onNodeShown.accept(node, diagnosticsNode);
+    final List<DiagnosticsNode> children = getChildren(diagnosticsNode);
+    if (children == null) {
+      node.add(new DefaultMutableTreeNode(LOADING_PLACEHOLDER));
+    }
+    else {
+      for (DiagnosticsNode child : children) {
+        node.add(buildSubtree(child));
+      }
+    }
+    node.setAllowsChildren(node.getChildCount() > 0);
+    return node;
+  }
+
+  /**
+   * Returns the inline properties followed by the children of the node, or null if its children have not been loaded.
+   */
+  @Nullable
+  private static List<DiagnosticsNode> getChildren(@NotNull DiagnosticsNode diagnosticsNode) {
+    final ArrayList<DiagnosticsNode> inlineProperties = diagnosticsNode.getInlineProperties();
+    if (!diagnosticsNode.hasChildren()) {
+      return inlineProperties;
+    }
+    if (!diagnosticsNode.childrenReady()) {
+      return null;
+    }
+    final ArrayList<DiagnosticsNode> children = diagnosticsNode.getChildren().getNow(null);
+    assert (children != null);
+    if (inlineProperties.isEmpty()) {
+      return children;
+    }
+    final List<DiagnosticsNode> all = new ArrayList<>(inlineProperties.size() + children.size());
+    all.addAll(inlineProperties);
+    all.addAll(children);
+    return all;
+  }
+
+  @Nullable
+  private static String getKey(@Nullable Object userObject) {
+    if (!(userObject instanceof DiagnosticsNode)) {
+      return null;
+    }
+    final DiagnosticsNode diagnosticsNode = (DiagnosticsNode)userObject;
+    if (diagnosticsNode.isProperty()) {
+      return "property:" + diagnosticsNode.getName();
+    }
+    final String id = diagnosticsNode.getValueRef().getId();
+    if (id != null) {
+      return "value:" + id;
+    }
+    return "description:" + diagnosticsNode.getDescription();
+  }
+
+  private static boolean isSameContent(@NotNull DiagnosticsNode previous, @NotNull DiagnosticsNode current) {
+    return Objects.equals(previous.getDescription(), current.getDescription()) &&
+           Objects.equals(previous.getName(), current.getName()) &&
+           Objects.equals(previous.getValueRef().getId(), current.getValueRef().getId());
+  }
+
+  private static boolean hasOnlyPlaceholder(@NotNull DefaultMutableTreeNode node) {
+    return node.getChildCount() == 1 && LOADING_PLACEHOLDER.equals(((DefaultMutableTreeNode)node.getFirstChild()).getUserObject());
+  }
+
+  @NotNull
+  private static int[] allIndices(int count) {
+    final int[] indices = new int[count];
+    for (int i = 0; i < count; i++) {
+      indices[i] = i;
+    }
+    return indices;
+  }
+}
@@ -65,6 +65,11 @@ import java.util.concurrent.CompletableFuture;
 public abstract class DartVmServiceDebugProcess extends XDebugProcess {
   private static final Logger LOG = Logger.getInstance(DartVmServiceDebugProcess.class.getName());
 
+  /**
+   * The number of requests that can wait for the VM service writer thread before callers block.
+   */
+  private static final int SEND_QUEUE_CAPACITY = 1024;
+
   @NotNull private final ExecutionResult myExecutionResult;
   @NotNull private final DartUrlResolver myDartUrlResolver;
   @NotNull private final XBreakpointHandler[] myBreakpointHandlers;
@@ -211,6 +216,11 @@ public abstract class DartVmServiceDebugProcess extends XDebugProcess {
       public void logInformation(final String message, final Throwable exception) {
         LOG.debug(message, exception);
       }
+
+      @Override
+      public boolean isInformationEnabled() {
+        return LOG.isDebugEnabled();
+      }
     });
   }
 
@@ -236,7 +246,7 @@ public abstract class DartVmServiceDebugProcess extends XDebugProcess {
       // "flutter run" has already connected to it.
       final VmService vmService;
       try {
-        vmService = VmService.connect(url);
+        vmService = VmService.connect(url, SEND_QUEUE_CAPACITY);
       }
       catch (IOException | RuntimeException e) {
         onConnectFailed("Failed to connect to the VM observatory service at: " + url + "\n"
@@ -248,7 +258,7 @@ public abstract class DartVmServiceDebugProcess extends XDebugProcess {
   }
 
   private void connect(@NotNull final String url) throws IOException {
-    final VmService vmService = VmService.connect(url);
+    final VmService vmService = VmService.connect(url, SEND_QUEUE_CAPACITY);
     final DartVmServiceListener vmServiceListener =
       new DartVmServiceListener(this, (DartVmServiceBreakpointHandler)myBreakpointHandlers[0]);
 
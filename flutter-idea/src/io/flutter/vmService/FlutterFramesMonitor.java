@@ -11,66 +11,45 @@ import com.intellij.util.EventDispatcher;
 import io.flutter.utils.VmServiceListenerAdapter;
 import org.dartlang.vm.service.VmService;
 import org.dartlang.vm.service.element.Event;
-import org.dartlang.vm.service.element.ExtensionData;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collections;
 import java.util.EventListener;
-import java.util.LinkedList;
-import java.util.List;
 
 public class FlutterFramesMonitor {
-  static final int maxFrames = 200;
+  /**
+   * The default number of frames kept in the history; a bit over half a minute of continuous rendering at 120 Hz.
+   */
+  public static final int DEFAULT_HISTORY_LENGTH = 4096;
+
+  /**
+   * The maximum number of recent frames the FPS is computed over, so that it reflects recent drops during a long
+   * animation.
+   */
+  public static final int FPS_WINDOW_LENGTH = 200;
 
   private final DisplayRefreshRateManager displayRefreshRateManager;
 
   private final EventDispatcher<Listener> eventDispatcher = EventDispatcher.create(Listener.class);
 
+  private final FrameHistory history;
+
   private long lastEventFinished = 0;
 
   public interface Listener extends EventListener {
-    void handleFrameEvent(FlutterFrameEvent event);
+    void handleFrameEvent(int frameNumber);
   }
 
-  public class FlutterFrameEvent {
-    public final int frameId;
-    public final long startTimeMicros;
-    public final long elapsedMicros;
-    public final boolean frameSetStart;
-
-    FlutterFrameEvent(ExtensionData data, long lastEventFinished) {
-      final JsonObject json = data.getJson();
-      frameId = json.get("number").getAsInt();
-      startTimeMicros = json.get("startTime").getAsLong();
-      elapsedMicros = json.get("elapsed").getAsLong();
-      frameSetStart = (startTimeMicros - lastEventFinished) > (displayRefreshRateManager.getTargetMicrosPerFrame() * 2);
-    }
-
-    public long getFrameFinishedMicros() {
-      return startTimeMicros + elapsedMicros;
-    }
-
-    public boolean isSlowFrame() {
-      return elapsedMicros > displayRefreshRateManager.getTargetMicrosPerFrame();
-    }
-
-    public int hashCode() {
-      return frameId;
-    }
-
-    public boolean equals(Object other) {
-      return other instanceof FlutterFrameEvent && ((FlutterFrameEvent)other).frameId == frameId;
-    }
-
-    public String toString() {
-      return "#" + frameId + " " + elapsedMicros + "µs";
-    }
+  public FlutterFramesMonitor(@NotNull DisplayRefreshRateManager displayRefreshRateManager, @NotNull VmService vmService) {
+    this(displayRefreshRateManager, vmService, DEFAULT_HISTORY_LENGTH);
   }
 
-  public List<FlutterFrameEvent> frames = new LinkedList<>();
-
-  public FlutterFramesMonitor(@NotNull DisplayRefreshRateManager displayRefreshRateManager, @NotNull VmService vmService) {
+  public FlutterFramesMonitor(@NotNull DisplayRefreshRateManager displayRefreshRateManager,
+                              @NotNull VmService vmService,
+                              int historyLength) {
     this.displayRefreshRateManager = displayRefreshRateManager;
-    vmService.addVmServiceListener(new VmServiceListenerAdapter() {
+    this.history = new FrameHistory(historyLength, Math.min(FPS_WINDOW_LENGTH, historyLength));
+    vmService.addVmServiceListener(Collections.singletonList(VmService.EXTENSION_STREAM_ID), new VmServiceListenerAdapter() {
       @Override
       public void received(String streamId, Event event) {
         onVmServiceReceived(streamId, event);
@@ -91,40 +70,35 @@ public class FlutterFramesMonitor {
   }
 
   public boolean hasFps() {
-    return !frames.isEmpty();
+    return !history.isEmpty();
+  }
+
+  /**
+   * Return the rendered frames; this can be read from any thread without locking.
+   */
+  @NotNull
+  public FrameHistory getHistory() {
+    return history;
   }
 
   /**
    * Return the most recent FPS value.
    */
   public double getFPS() {
-    int frameCount = 0;
-    long costCount = 0;
-
-    synchronized (this) {
-      for (FlutterFrameEvent frame : frames) {
-        frameCount++;
-
-        final int targetMicrosPerFrame = displayRefreshRateManager.getTargetMicrosPerFrame();
-        long thisCost = frame.elapsedMicros / targetMicrosPerFrame;
-        if (frame.elapsedMicros > (thisCost * targetMicrosPerFrame)) {
-          thisCost++;
-        }
-
-        costCount += thisCost;
-
-        if (frame.frameSetStart) {
-          break;
-        }
-      }
-    }
-
+    final long costCount = history.getCurrentSetCost();
     if (costCount == 0) {
       return 0.0;
     }
 
     final double targetDisplayRefreshRate = displayRefreshRateManager.getCurrentDisplayRefreshRateRaw();
-    return frameCount * targetDisplayRefreshRate / costCount;
+    return history.getCurrentSetFrameCount() * targetDisplayRefreshRate / costCount;
+  }
+
+  /**
+   * Return the number of frames in the history that took longer than the target frame time to render.
+   */
+  public int getJankCount() {
+    return history.getJankCount();
   }
 
   public void addListener(Listener listener) {
@@ -136,16 +110,24 @@ public class FlutterFramesMonitor {
   }
 
   private void handleFlutterFrame(Event event) {
-    final FlutterFrameEvent frameEvent = new FlutterFrameEvent(event.getExtensionData(), lastEventFinished);
-    lastEventFinished = frameEvent.getFrameFinishedMicros();
-
-    synchronized (this) {
-      frames.add(0, frameEvent);
-      if (frames.size() > maxFrames) {
-        frames.remove(frames.size() - 1);
-      }
+    final JsonObject json = event.getExtensionData().getJson();
+    final int frameNumber = json.get("number").getAsInt();
+    final long startTimeMicros = json.get("startTime").getAsLong();
+    final long elapsedMicros = json.get("elapsed").getAsLong();
+
+    final int targetMicrosPerFrame = displayRefreshRateManager.getTargetMicrosPerFrame();
+    final boolean frameSetStart = (startTimeMicros - lastEventFinished) > (targetMicrosPerFrame * 2L);
+    lastEventFinished = startTimeMicros + elapsedMicros;
+
+    // The number of display refreshes this frame occupied.
+    long cost = elapsedMicros / targetMicrosPerFrame;
+    if (elapsedMicros > (cost * targetMicrosPerFrame)) {
+      cost++;
     }
 
-    eventDispatcher.getMulticaster().handleFrameEvent(frameEvent);
+    history.add(frameNumber, startTimeMicros, elapsedMicros, (int)Math.min(cost, Integer.MAX_VALUE), frameSetStart,
+                elapsedMicros > targetMicrosPerFrame);
+
+    eventDispatcher.getMulticaster().handleFrameEvent(frameNumber);
   }
 }
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.vmService;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * A fixed capacity ring buffer of rendered frames, stored in parallel primitive arrays.
+ * <p>
+ * Frames are added by a single writer thread (the VM service event thread). Any thread can read the history through
+ * {@link #snapshot(int)} without locking; a reader that races with the writer simply drops the frames that were overwritten
+ * while it was copying them.
+ * <p>
+ * The frame count and rendering cost of the current frame set, used for the FPS, and the number of janky frames in the
+ * history are maintained incrementally, so reading them is O(1). The current frame set only counts the frames in the FPS
+ * window, which can be shorter than the history so that the FPS follows recent frames during a long animation.
+ */
+public class FrameHistory {
+  private static final int FLAG_SET_START = 1;
+  private static final int FLAG_SLOW = 2;
+
+  private final int capacity;
+  private final int fpsWindow;
+
+  /**
+   * The length of the arrays; one more than the capacity, so that the slot the writer is filling never holds a frame that
+   * is still part of the history.
+   */
+  private final int slots;
+
+  private final int[] frameNumbers;
+  private final long[] startMicros;
+  private final long[] elapsedMicros;
+  private final int[] costs;
+  private final int[] flags;
+
+  /**
+   * The number of frames ever added; the newest frame is at index {@code (count - 1) % slots}.
+   */
+  private volatile long count;
+
+  /**
+   * The sequence number of the first frame of the current frame set. Only accessed by the writer.
+   */
+  private long currentSetStart;
+
+  /**
+   * The frame count (high 32 bits) and rendering cost in frame slots (low 32 bits) of the current frame set.
+   */
+  private volatile long currentSetStats;
+
+  private volatile int jankCount;
+
+  public FrameHistory(int capacity) {
+    this(capacity, capacity);
+  }
+
+  /**
+   * @param fpsWindow the number of most recent frames the current frame set is limited to; at most the capacity
+   */
+  public FrameHistory(int capacity, int fpsWindow) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    if (fpsWindow <= 0 || fpsWindow > capacity) {
+      throw new IllegalArgumentException("fpsWindow must be positive and at most the capacity: " + fpsWindow);
+    }
+    this.capacity = capacity;
+    this.fpsWindow = fpsWindow;
+    this.slots = capacity + 1;
+    frameNumbers = new int[slots];
+    startMicros = new long[slots];
+    elapsedMicros = new long[slots];
+    costs = new int[slots];
+    flags = new int[slots];
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public boolean isEmpty() {
+    return count == 0;
+  }
+
+  /**
+   * Record a frame. Must only be called from a single thread.
+   *
+   * @param cost the number of display refresh intervals the frame took to render
+   */
+  void add(int frameNumber, long frameStartMicros, long frameElapsedMicros, int cost, boolean setStart, boolean slow) {
+    final long seq = count;
+    final int index = (int)(seq % slots);
+
+    long setFrames = currentSetStats >>> 32;
+    long setCost = currentSetStats & 0xffffffffL;
+    int janks = jankCount;
+
+    if (seq >= fpsWindow && seq - fpsWindow >= currentSetStart) {
+      // The oldest frame of the FPS window leaves it; it is still in the history since the window is not longer.
+      setFrames--;
+      setCost -= costs[(int)((seq - fpsWindow) % slots)];
+    }
+    if (seq >= capacity) {
+      // Evict the oldest frame.
+      final int evicted = (int)((seq - capacity) % slots);
+      if ((flags[evicted] & FLAG_SLOW) != 0) {
+        janks--;
+      }
+    }
+
+    frameNumbers[index] = frameNumber;
+    startMicros[index] = frameStartMicros;
+    elapsedMicros[index] = frameElapsedMicros;
+    costs[index] = cost;
+    flags[index] = (setStart ? FLAG_SET_START : 0) | (slow ? FLAG_SLOW : 0);
+
+    if (setStart || seq == 0) {
+      currentSetStart = seq;
+      setFrames = 1;
+      setCost = cost;
+    }
+    else {
+      setFrames++;
+      setCost += cost;
+    }
+    if (slow) {
+      janks++;
+    }
+
+    currentSetStats = (setFrames << 32) | (setCost & 0xffffffffL);
+    jankCount = janks;
+    // Publish the frame.
+    count = seq + 1;
+  }
+
+  /**
+   * The number of frames in the current frame set (limited to the FPS window).
+   */
+  public int getCurrentSetFrameCount() {
+    return (int)(currentSetStats >>> 32);
+  }
+
+  /**
+   * The number of display refresh intervals the frames of the current frame set took to render.
+   */
+  public long getCurrentSetCost() {
+    return currentSetStats & 0xffffffffL;
+  }
+
+  /**
+   * The number of frames in the history that took longer than the target frame time to render.
+   */
+  public int getJankCount() {
+    return jankCount;
+  }
+
+  /**
+   * Return a copy of up to {@code maxFrames} of the most recent frames, newest first.
+   */
+  public Snapshot snapshot(int maxFrames) {
+    final long end = count;
+    final int size = (int)Math.min(Math.min(maxFrames, capacity), end);
+    final Snapshot snapshot = new Snapshot(size);
+    for (int i = 0; i < size; i++) {
+      final int index = (int)((end - 1 - i) % slots);
+      snapshot.frameNumbers[i] = frameNumbers[index];
+      snapshot.startMicros[i] = startMicros[index];
+      snapshot.elapsedMicros[i] = elapsedMicros[index];
+      snapshot.flags[i] = flags[index];
+    }
+
+    // Drop the oldest frames if the writer overwrote them while they were copied.
+    VarHandle.acquireFence();
+    final long oldestValid = count - capacity;
+    final long oldestCopied = end - size;
+    if (oldestCopied < oldestValid) {
+      snapshot.size = (int)Math.max(0, end - oldestValid);
+    }
+    return snapshot;
+  }
+
+  /**
+   * An immutable copy of part of a {@link FrameHistory}, newest frame first.
+   */
+  public static class Snapshot {
+    private int size;
+    private final int[] frameNumbers;
+    private final long[] startMicros;
+    private final long[] elapsedMicros;
+    private final int[] flags;
+
+    private Snapshot(int size) {
+      this.size = size;
+      frameNumbers = new int[size];
+      startMicros = new long[size];
+      elapsedMicros = new long[size];
+      flags = new int[size];
+    }
+
+    public int size() {
+      return size;
+    }
+
+    public int getFrameNumber(int i) {
+      return frameNumbers[i];
+    }
+
+    public long getStartMicros(int i) {
+      return startMicros[i];
+    }
+
+    public long getElapsedMicros(int i) {
+      return elapsedMicros[i];
+    }
+
+    /**
+     * Whether the frame was the first one after an idle period.
+     */
+    public boolean isSetStart(int i) {
+      return (flags[i] & FLAG_SET_START) != 0;
+    }
+
+    /**
+     * Whether the frame took longer than the target frame time to render.
+     */
+    public boolean isSlow(int i) {
+      return (flags[i] & FLAG_SLOW) != 0;
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.vmService;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * A fixed capacity ring buffer of heap samples, stored in parallel primitive arrays.
+ * <p>
+ * Samples are added by a single writer at a time (whichever VM service thread delivers the last memory usage reply of a
+ * poll). Any thread can read the history through {@link #snapshot(int)} without locking, in the same way as
+ * {@link FrameHistory}.
+ */
+public class HeapHistory {
+  private final int capacity;
+
+  /**
+   * The length of the arrays; one more than the capacity, so that the slot the writer is filling never holds a sample
+   * that is still part of the history.
+   */
+  private final int slots;
+
+  private final long[] times;
+  private final long[] heapUsage;
+  private final long[] heapCapacity;
+  private final long[] externalUsage;
+
+  /**
+   * The number of samples ever added; the newest sample is at index {@code (count - 1) % slots}.
+   */
+  private volatile long count;
+
+  public HeapHistory(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    this.capacity = capacity;
+    this.slots = capacity + 1;
+    times = new long[slots];
+    heapUsage = new long[slots];
+    heapCapacity = new long[slots];
+    externalUsage = new long[slots];
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public boolean isEmpty() {
+    return count == 0;
+  }
+
+  /**
+   * Record a sample, in bytes. Must not be called concurrently.
+   */
+  void add(long timeMillis, long used, long capacity, long external) {
+    final long seq = count;
+    final int index = (int)(seq % slots);
+    times[index] = timeMillis;
+    heapUsage[index] = used;
+    heapCapacity[index] = capacity;
+    externalUsage[index] = external;
+    // Publish the sample.
+    count = seq + 1;
+  }
+
+  /**
+   * Return a copy of up to {@code maxSamples} of the most recent samples, newest first.
+   */
+  public Snapshot snapshot(int maxSamples) {
+    final long end = count;
+    final int size = (int)Math.min(Math.min(maxSamples, capacity), end);
+    final Snapshot snapshot = new Snapshot(size);
+    for (int i = 0; i < size; i++) {
+      final int index = (int)((end - 1 - i) % slots);
+      snapshot.times[i] = times[index];
+      snapshot.heapUsage[i] = heapUsage[index];
+      snapshot.heapCapacity[i] = heapCapacity[index];
+      snapshot.externalUsage[i] = externalUsage[index];
+    }
+
+    // Drop the oldest samples if the writer overwrote them while they were copied.
+    VarHandle.acquireFence();
+    final long oldestValid = count - capacity;
+    final long oldestCopied = end - size;
+    if (oldestCopied < oldestValid) {
+      snapshot.size = (int)Math.max(0, end - oldestValid);
+    }
+    return snapshot;
+  }
+
+  /**
+   * An immutable copy of part of a {@link HeapHistory}, newest sample first.
+   */
+  public static class Snapshot {
+    private int size;
+    private final long[] times;
+    private final long[] heapUsage;
+    private final long[] heapCapacity;
+    private final long[] externalUsage;
+
+    private Snapshot(int size) {
+      this.size = size;
+      times = new long[size];
+      heapUsage = new long[size];
+      heapCapacity = new long[size];
+      externalUsage = new long[size];
+    }
+
+    public int size() {
+      return size;
+    }
+
+    public long getTimeMillis(int i) {
+      return times[i];
+    }
+
+    public long getHeapUsage(int i) {
+      return heapUsage[i];
+    }
+
+    public long getHeapCapacity(int i) {
+      return heapCapacity[i];
+    }
+
+    public long getExternalUsage(int i) {
+      return externalUsage[i];
+    }
+  }
+}
@@ -5,62 +5,56 @@
  */
 package io.flutter.vmService;
 
-import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import org.dartlang.vm.service.consumer.GetMemoryUsageConsumer;
 import org.dartlang.vm.service.element.IsolateRef;
 import org.dartlang.vm.service.element.MemoryUsage;
 import org.dartlang.vm.service.element.RPCError;
 import org.dartlang.vm.service.element.Sentinel;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.*;
-
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Polls the memory usage of every isolate of an app.
+ * <p>
+ * Each poll sends the getMemoryUsage requests for all isolates at once, without waiting on the scheduler thread; the
+ * replies are gathered when the last one arrives. The results are kept in a {@link HeapHistory} per isolate and one for
+ * the app as a whole, and the listeners are then told about the new samples.
+ */
 public class HeapMonitor {
-  private static final Logger LOG = Logger.getInstance(HeapMonitor.class);
-
-  private static final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
-
   private static final int POLL_PERIOD_IN_MS = 1000;
 
+  /**
+   * Ten minutes of samples.
+   */
+  private static final int HISTORY_LENGTH = 600;
+
   public interface HeapListener {
     void handleMemoryUsage(List<MemoryUsage> memoryUsages);
   }
 
-  public static class HeapSample {
-    final int bytes;
-    final int external;
-
-    public long getSampleTime() {
-      return sampleTime;
-    }
-
-    public final long sampleTime;
+  private final List<HeapMonitor.HeapListener> heapListeners = new CopyOnWriteArrayList<>();
+  private volatile ScheduledFuture<?> pollingScheduler;
 
-    public HeapSample(int bytes, int external) {
-      this.bytes = bytes;
-      this.external = external;
+  /**
+   * Set while the replies of a poll are outstanding, so that a slow VM is not sent another round of requests.
+   */
+  private final AtomicBoolean pollInProgress = new AtomicBoolean();
 
-      this.sampleTime = System.currentTimeMillis();
-    }
-
-    public int getBytes() {
-      return bytes;
-    }
-
-    public int getExternal() {
-      return external;
-    }
-
-    @Override
-    public String toString() {
-      return "bytes: " + bytes;
-    }
-  }
-
-  private final List<HeapMonitor.HeapListener> heapListeners = new ArrayList<>();
-  private ScheduledFuture<?> pollingScheduler;
+  @NotNull private final HeapHistory totalHistory = new HeapHistory(HISTORY_LENGTH);
+  @NotNull private final Map<String, HeapHistory> isolateHistories = new ConcurrentHashMap<>();
 
   @NotNull private final VmServiceWrapper vmServiceWrapper;
 
@@ -73,15 +67,35 @@ public class HeapMonitor {
   }
 
   public void removeListener(@NotNull HeapMonitor.HeapListener listener) {
-    heapListeners.add(listener);
+    heapListeners.remove(listener);
   }
 
   public boolean hasListeners() {
     return !heapListeners.isEmpty();
   }
 
+  /**
+   * The combined memory usage of all isolates.
+   */
+  @NotNull
+  public HeapHistory getTotalHistory() {
+    return totalHistory;
+  }
+
+  /**
+   * The memory usage of the given isolate, or null if it has not been sampled.
+   */
+  @Nullable
+  public HeapHistory getIsolateHistory(@NotNull String isolateId) {
+    return isolateHistories.get(isolateId);
+  }
+
   public void start() {
-    pollingScheduler = executor.scheduleWithFixedDelay(this::poll, 100, POLL_PERIOD_IN_MS, TimeUnit.MILLISECONDS);
+    if (pollingScheduler != null) {
+      return;
+    }
+    pollingScheduler = AppExecutorUtil.getAppScheduledExecutorService()
+      .scheduleWithFixedDelay(this::poll, 100, POLL_PERIOD_IN_MS, TimeUnit.MILLISECONDS);
   }
 
   private int pollingClients = 0;
@@ -102,25 +116,26 @@ public class HeapMonitor {
 
   private void collectMemoryUsage() {
     final List<IsolateRef> isolateRefs = vmServiceWrapper.getExistingIsolates();
-    if (isolateRefs.isEmpty()) {
+    if (isolateRefs.isEmpty() || !pollInProgress.compareAndSet(false, true)) {
       return;
     }
 
-    final List<MemoryUsage> memoryUsage = new ArrayList<>();
-
-    final CountDownLatch latch = new CountDownLatch(isolateRefs.size());
+    final long sampleTime = System.currentTimeMillis();
+    final MemoryUsage[] usages = new MemoryUsage[isolateRefs.size()];
+    final AtomicInteger remaining = new AtomicInteger(usages.length);
 
-    for (IsolateRef isolateRef : isolateRefs) {
-      vmServiceWrapper.getVmService().getMemoryUsage(isolateRef.getId(), new GetMemoryUsageConsumer() {
+    for (int i = 0; i < usages.length; i++) {
+      final int index = i;
+      vmServiceWrapper.getVmService().getMemoryUsage(isolateRefs.get(i).getId(), new GetMemoryUsageConsumer() {
         @Override
         public void received(MemoryUsage usage) {
-          memoryUsage.add(usage);
-          latch.countDown();
+          usages[index] = usage;
+          replied();
         }
 
         @Override
         public void received(Sentinel sentinel) {
-          latch.countDown();
+          replied();
         }
 
         @Override
@@ -134,19 +149,48 @@ public class HeapMonitor {
             handleMemoryApiNotSupported();
           }
 
-          latch.countDown();
+          replied();
+        }
+
+        private void replied() {
+          // The decrement orders every reply's write to usages before the last reply reads them.
+          if (remaining.decrementAndGet() == 0) {
+            onMemoryUsage(isolateRefs, usages, sampleTime);
+          }
         }
       });
     }
+  }
 
-    try {
-      latch.await();
+  private void onMemoryUsage(@NotNull List<IsolateRef> isolateRefs, @NotNull MemoryUsage[] usages, long sampleTime) {
+    long used = 0;
+    long capacity = 0;
+    long external = 0;
+    final List<MemoryUsage> memoryUsages = new ArrayList<>(usages.length);
+    final Set<String> isolateIds = new HashSet<>();
+    for (int i = 0; i < usages.length; i++) {
+      final MemoryUsage usage = usages[i];
+      if (usage == null) {
+        continue;
+      }
+      memoryUsages.add(usage);
+      used += usage.getHeapUsage();
+      capacity += usage.getHeapCapacity();
+      external += usage.getExternalUsage();
+
+      final String isolateId = isolateRefs.get(i).getId();
+      isolateIds.add(isolateId);
+      isolateHistories.computeIfAbsent(isolateId, (id) -> new HeapHistory(HISTORY_LENGTH))
+        .add(sampleTime, usage.getHeapUsage(), usage.getHeapCapacity(), usage.getExternalUsage());
     }
-    catch (InterruptedException ignored) {
+    isolateHistories.keySet().retainAll(isolateIds);
+    if (!memoryUsages.isEmpty()) {
+      totalHistory.add(sampleTime, used, capacity, external);
     }
+    pollInProgress.set(false);
 
     if (pollingScheduler != null) {
-      heapListeners.forEach(listener -> listener.handleMemoryUsage(memoryUsage));
+      heapListeners.forEach(listener -> listener.handleMemoryUsage(memoryUsages));
     }
   }
 
@@ -155,8 +199,9 @@ public class HeapMonitor {
   }
 
   public void stop() {
-    if (pollingScheduler != null) {
-      pollingScheduler.cancel(false);
+    final ScheduledFuture<?> scheduler = pollingScheduler;
+    if (scheduler != null) {
+      scheduler.cancel(false);
       pollingScheduler = null;
     }
   }
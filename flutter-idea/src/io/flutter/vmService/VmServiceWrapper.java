@@ -8,10 +8,16 @@ import com.intellij.execution.ui.ConsoleViewContentType;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.util.SystemInfo;
 import com.intellij.openapi.util.Version;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
 import com.intellij.util.Alarm;
 import com.intellij.util.concurrency.Semaphore;
 import com.intellij.xdebugger.XDebugSession;
@@ -50,6 +56,8 @@ public class VmServiceWrapper implements Disposable {
 
   private static final long RESPONSE_WAIT_TIMEOUT = 3000; // millis
 
+  private static final int PACKAGE_URI_CACHE_SIZE = 4096;
+
   @NotNull private final DartVmServiceDebugProcess myDebugProcess;
   @NotNull private final VmService myVmService;
   @NotNull private final DartVmServiceListener myVmServiceListener;
@@ -59,6 +67,20 @@ public class VmServiceWrapper implements Disposable {
   @NotNull private final Map<Integer, CanonicalBreakpoint> breakpointNumbersToCanonicalMap;
   @NotNull private final Set<CanonicalBreakpoint> canonicalBreakpoints;
 
+  /**
+   * Resolved (percent escaped) file URIs mapped to the package URIs that the VM service returned for them in this session.
+   * <p>
+   * The mapping depends on the package layout, so the cache is cleared when a pubspec.yaml or package config file changes. An entry is
+   * dropped when a breakpoint set through it fails or does not resolve, so that the next breakpoint in that file looks it up again.
+   */
+  @NotNull private final Map<String, String> myPackageUriCache = Collections.synchronizedMap(
+    new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+        return size() > PACKAGE_URI_CACHE_SIZE;
+      }
+    });
+
   private long myVmServiceReceiverThreadId;
 
   @Nullable private StepOption myLatestStep;
@@ -76,6 +98,24 @@ public class VmServiceWrapper implements Disposable {
     myRequestsScheduler = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, this);
     breakpointNumbersToCanonicalMap = new HashMap<>();
     canonicalBreakpoints = new HashSet<>();
+
+    final Project project = debugProcess.getSession().getProject();
+    project.getMessageBus().connect(this).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+      @Override
+      public void after(@NotNull List<? extends VFileEvent> events) {
+        for (VFileEvent event : events) {
+          if (isPackageLayoutFile(event.getPath()) ||
+              (event instanceof VFilePropertyChangeEvent && isPackageLayoutFile(((VFilePropertyChangeEvent)event).getOldPath()))) {
+            myPackageUriCache.clear();
+            return;
+          }
+        }
+      }
+    });
+  }
+
+  private static boolean isPackageLayoutFile(@NotNull String path) {
+    return path.endsWith("/pubspec.yaml") || path.endsWith("/.dart_tool/package_config.json") || path.endsWith("/.packages");
   }
 
   @NotNull
@@ -85,6 +125,8 @@ public class VmServiceWrapper implements Disposable {
 
   @Override
   public void dispose() {
+    // Closes the connection and stops the thread that writes its requests.
+    myVmService.disconnect();
   }
 
   private void addRequest(@NotNull Runnable runnable) {
@@ -334,9 +376,16 @@ public class VmServiceWrapper implements Disposable {
   }
 
   private void doSetInitialBreakpointsAndResume(@NotNull IsolateRef isolateRef) {
-    doSetBreakpointsForIsolate(myBreakpointHandler.getXBreakpoints(), isolateRef.getId(), () -> {
+    final Set<XLineBreakpoint<XBreakpointProperties>> xBreakpoints = myBreakpointHandler.getXBreakpoints();
+    final long startTime = System.currentTimeMillis();
+    doSetBreakpointsForIsolate(xBreakpoints, isolateRef.getId(), () -> {
       myIsolatesInfo.setBreakpointsSet(isolateRef);
       checkInitialResume(isolateRef);
+
+      // How long the isolate stayed paused while its breakpoints were set, so that changes to this path can be compared in the field.
+      final long elapsedTime = System.currentTimeMillis() - startTime;
+      LOG.info("Set " + xBreakpoints.size() + " initial breakpoints in " + elapsedTime + "ms");
+      FlutterInitializer.getAnalytics().sendTiming("breakpoint", "initial-breakpoints-set", elapsedTime);
     });
   }
 
@@ -351,9 +400,10 @@ public class VmServiceWrapper implements Disposable {
     }
 
     final AtomicInteger counter = new AtomicInteger(xBreakpoints.size());
+    final List<Pair<XSourcePosition, VmServiceConsumers.BreakpointsConsumer>> requests = new ArrayList<>();
 
     for (final XLineBreakpoint<XBreakpointProperties> xBreakpoint : xBreakpoints) {
-      addBreakpoint(isolateId, xBreakpoint.getSourcePosition(), new VmServiceConsumers.BreakpointsConsumer() {
+      requests.add(Pair.create(xBreakpoint.getSourcePosition(), new VmServiceConsumers.BreakpointsConsumer() {
         @Override
         void sourcePositionNotApplicable() {
           myBreakpointHandler.breakpointFailed(xBreakpoint);
@@ -450,8 +500,10 @@ public class VmServiceWrapper implements Disposable {
             });
           }
         }
-      });
+      }));
     }
+
+    addBreakpoints(isolateId, requests);
   }
 
   public void addBreakpoint(@NotNull String isolateId,
@@ -475,6 +527,33 @@ public class VmServiceWrapper implements Disposable {
     });
   }
 
+  /**
+   * Add several breakpoints to an isolate, resolving the package URIs of all of their files with a single request.
+   */
+  public void addBreakpoints(@NotNull String isolateId,
+                             @NotNull List<Pair<XSourcePosition, VmServiceConsumers.BreakpointsConsumer>> requests) {
+    myVmService.getVersion(new VersionConsumer() {
+      @Override
+      public void received(org.dartlang.vm.service.element.Version response) {
+        if (isVmServiceMappingSupported(response)) {
+          addBreakpointsWithVmService(isolateId, requests);
+        }
+        else {
+          for (Pair<XSourcePosition, VmServiceConsumers.BreakpointsConsumer> request : requests) {
+            addBreakpointWithMapper(isolateId, request.first, request.second);
+          }
+        }
+      }
+
+      @Override
+      public void onError(RPCError error) {
+        for (Pair<XSourcePosition, VmServiceConsumers.BreakpointsConsumer> request : requests) {
+          addBreakpointWithMapper(isolateId, request.first, request.second);
+        }
+      }
+    });
+  }
+
   private boolean isVmServiceMappingSupported(org.dartlang.vm.service.element.Version version) {
     assert version != null;
 
@@ -540,81 +619,82 @@ public class VmServiceWrapper implements Disposable {
   public void addBreakpointWithVmService(@NotNull String isolateId,
                                          @Nullable XSourcePosition position,
                                          @NotNull VmServiceConsumers.BreakpointsConsumer consumer) {
-    if (position == null || position.getFile().getFileType() != DartFileType.INSTANCE) {
-      consumer.sourcePositionNotApplicable();
+    addBreakpointsWithVmService(isolateId, List.of(Pair.create(position, consumer)));
+  }
+
+  private void addBreakpointsWithVmService(@NotNull String isolateId,
+                                           @NotNull List<Pair<XSourcePosition, VmServiceConsumers.BreakpointsConsumer>> requests) {
+    final List<Pair<XSourcePosition, VmServiceConsumers.BreakpointsConsumer>> applicable = new ArrayList<>();
+    for (Pair<XSourcePosition, VmServiceConsumers.BreakpointsConsumer> request : requests) {
+      final XSourcePosition position = request.first;
+      if (position == null || position.getFile().getFileType() != DartFileType.INSTANCE) {
+        request.second.sourcePositionNotApplicable();
+      }
+      else {
+        applicable.add(request);
+      }
+    }
+    if (applicable.isEmpty()) {
       return;
     }
 
     addRequest(() -> {
-      int line = position.getLine() + 1;
+      // Breakpoints whose package URI is not cached yet, grouped by their escaped resolved URI.
+      final Map<String, List<PendingBreakpoint>> unresolved = new LinkedHashMap<>();
 
-      String resolvedUri = getResolvedUri(position);
-      LOG.info("Computed resolvedUri: " + resolvedUri);
-      List<String> resolvedUriList = List.of(percentEscapeUri(resolvedUri));
+      for (Pair<XSourcePosition, VmServiceConsumers.BreakpointsConsumer> request : applicable) {
+        final XSourcePosition position = request.first;
+        final VmServiceConsumers.BreakpointsConsumer consumer = request.second;
+        final int line = position.getLine() + 1;
 
-      CanonicalBreakpoint canonicalBreakpoint =
-        new CanonicalBreakpoint(position.getFile().getName(), position.getFile().getCanonicalPath(), line);
-      canonicalBreakpoints.add(canonicalBreakpoint);
-      List<Breakpoint> breakpointResponses = new ArrayList<>();
-      List<RPCError> errorResponses = new ArrayList<>();
+        final String resolvedUri = getResolvedUri(position);
+        final String escapedUri = percentEscapeUri(resolvedUri);
+
+        final CanonicalBreakpoint canonicalBreakpoint =
+          new CanonicalBreakpoint(position.getFile().getName(), position.getFile().getCanonicalPath(), line);
+        canonicalBreakpoints.add(canonicalBreakpoint);
+
+        final String cachedScriptUri = myPackageUriCache.get(escapedUri);
+        if (cachedScriptUri != null) {
+          addBreakpointWithScriptUri(isolateId, cachedScriptUri, escapedUri, line, canonicalBreakpoint, consumer);
+          continue;
+        }
+
+        unresolved.computeIfAbsent(escapedUri, (key) -> new ArrayList<>())
+          .add(new PendingBreakpoint(resolvedUri, line, canonicalBreakpoint, consumer));
+      }
 
+      if (unresolved.isEmpty()) {
+        return;
+      }
+
+      final List<String> resolvedUriList = new ArrayList<>(unresolved.keySet());
+      LOG.info("Looking up package URIs for " + resolvedUriList.size() + " files");
       myVmService.lookupPackageUris(isolateId, resolvedUriList, new UriListConsumer() {
         @Override
         public void received(UriList response) {
-          LOG.info("in received of lookupPackageUris");
           if (myDebugProcess.getSession().getProject().isDisposed()) {
             return;
           }
 
-          List<String> uris = response.getUris();
-
-          if (uris == null || uris.get(0) == null) {
-            LOG.info("Uri was not found");
-            JsonObject error = new JsonObject();
-            error.addProperty("error", "Breakpoint could not be mapped to package URI");
-            errorResponses.add(new RPCError(error));
-
-            Analytics analytics = FlutterInitializer.getAnalytics();
-            String category = "breakpoint";
+          final List<String> uris = response.getUris();
+          for (int i = 0; i < resolvedUriList.size(); i++) {
+            final String escapedUri = resolvedUriList.get(i);
+            final String scriptUri = uris == null || i >= uris.size() ? null : uris.get(i);
+            if (scriptUri != null) {
+              myPackageUriCache.put(escapedUri, scriptUri);
+            }
 
-            // For internal bazel projects, report files where mapping failed.
-            if (WorkspaceCache.getInstance(myDebugProcess.getSession().getProject()).isBazel()) {
-              if (resolvedUri.contains("google3")) {
-                analytics.sendEvent(category, String.format("no-package-uri|%s", resolvedUri));
+            for (PendingBreakpoint breakpoint : unresolved.get(escapedUri)) {
+              if (scriptUri == null) {
+                packageUriNotFound(breakpoint.resolvedUri, breakpoint.consumer);
+              }
+              else {
+                addBreakpointWithScriptUri(isolateId, scriptUri, escapedUri, breakpoint.line, breakpoint.canonicalBreakpoint,
+                                           breakpoint.consumer);
               }
             }
-
-            consumer.received(breakpointResponses, errorResponses);
-            return;
           }
-
-          String scriptUri = uris.get(0);
-          LOG.info("in received of lookupPackageUris. scriptUri: " + scriptUri);
-          myVmService.addBreakpointWithScriptUri(isolateId, scriptUri, line, new AddBreakpointWithScriptUriConsumer() {
-            @Override
-            public void received(Breakpoint response) {
-              breakpointResponses.add(response);
-              breakpointNumbersToCanonicalMap.put(response.getBreakpointNumber(), canonicalBreakpoint);
-
-              checkDone();
-            }
-
-            @Override
-            public void received(Sentinel response) {
-              checkDone();
-            }
-
-            @Override
-            public void onError(RPCError error) {
-              errorResponses.add(error);
-
-              checkDone();
-            }
-
-            private void checkDone() {
-              consumer.received(breakpointResponses, errorResponses);
-            }
-          });
         }
 
         @Override
@@ -623,13 +703,76 @@ public class VmServiceWrapper implements Disposable {
           LOG.error(error.getMessage());
           LOG.error(error.getRequest());
           LOG.error(error.getDetails());
-          errorResponses.add(error);
-          consumer.received(breakpointResponses, errorResponses);
+          for (List<PendingBreakpoint> breakpoints : unresolved.values()) {
+            for (PendingBreakpoint breakpoint : breakpoints) {
+              breakpoint.consumer.received(new ArrayList<>(), Lists.newArrayList(error));
+            }
+          }
         }
       });
     });
   }
 
+  private void packageUriNotFound(@NotNull String resolvedUri, @NotNull VmServiceConsumers.BreakpointsConsumer consumer) {
+    LOG.info("Uri was not found");
+    JsonObject error = new JsonObject();
+    error.addProperty("error", "Breakpoint could not be mapped to package URI");
+
+    Analytics analytics = FlutterInitializer.getAnalytics();
+    String category = "breakpoint";
+
+    // For internal bazel projects, report files where mapping failed.
+    if (WorkspaceCache.getInstance(myDebugProcess.getSession().getProject()).isBazel()) {
+      if (resolvedUri.contains("google3")) {
+        analytics.sendEvent(category, String.format("no-package-uri|%s", resolvedUri));
+      }
+    }
+
+    consumer.received(new ArrayList<>(), Lists.newArrayList(new RPCError(error)));
+  }
+
+  private void addBreakpointWithScriptUri(@NotNull String isolateId,
+                                          @NotNull String scriptUri,
+                                          @NotNull String escapedUri,
+                                          int line,
+                                          @NotNull CanonicalBreakpoint canonicalBreakpoint,
+                                          @NotNull VmServiceConsumers.BreakpointsConsumer consumer) {
+    List<Breakpoint> breakpointResponses = new ArrayList<>();
+    List<RPCError> errorResponses = new ArrayList<>();
+
+    myVmService.addBreakpointWithScriptUri(isolateId, scriptUri, line, new AddBreakpointWithScriptUriConsumer() {
+      @Override
+      public void received(Breakpoint response) {
+        if (!response.getResolved()) {
+          // The library may not be loaded yet, or the cached mapping may be stale; look it up again next time.
+          myPackageUriCache.remove(escapedUri);
+        }
+        breakpointResponses.add(response);
+        breakpointNumbersToCanonicalMap.put(response.getBreakpointNumber(), canonicalBreakpoint);
+
+        checkDone();
+      }
+
+      @Override
+      public void received(Sentinel response) {
+        checkDone();
+      }
+
+      @Override
+      public void onError(RPCError error) {
+        // The cached mapping may be stale; look it up again next time.
+        myPackageUriCache.remove(escapedUri);
+        errorResponses.add(error);
+
+        checkDone();
+      }
+
+      private void checkDone() {
+        consumer.received(breakpointResponses, errorResponses);
+      }
+    });
+  }
+
   private String getResolvedUri(@NotNull XSourcePosition position) {
     XDebugSession session = myDebugProcess.getSession();
     assert session != null;
@@ -1038,6 +1181,26 @@ class CanonicalBreakpoint {
   }
 }
 
+/**
+ * A breakpoint waiting for the package URI of its file to be looked up.
+ */
+class PendingBreakpoint {
+  @NotNull final String resolvedUri;
+  final int line;
+  @NotNull final CanonicalBreakpoint canonicalBreakpoint;
+  @NotNull final VmServiceConsumers.BreakpointsConsumer consumer;
+
+  PendingBreakpoint(@NotNull String resolvedUri,
+                    int line,
+                    @NotNull CanonicalBreakpoint canonicalBreakpoint,
+                    @NotNull VmServiceConsumers.BreakpointsConsumer consumer) {
+    this.resolvedUri = resolvedUri;
+    this.line = line;
+    this.canonicalBreakpoint = canonicalBreakpoint;
+    this.consumer = consumer;
+  }
+}
+
 class VmServiceVersion {
   // VM service protocol versions: https://github.com/dart-lang/sdk/blob/master/runtime/vm/service/service.md#revision-history.
   @NotNull private static Version URI_MAPPING_VERSION = new Version(VmService.versionMajor, VmService.versionMinor, 0);
@@ -1,7 +1,5 @@
 package io.flutter.vmService.frame;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
 import com.intellij.icons.AllIcons;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.util.text.StringUtil;
@@ -20,8 +18,6 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
-import java.nio.ByteBuffer;
-import java.text.MessageFormat;
 import java.util.Base64;
 
 // TODO: implement some combination of XValue.getEvaluationExpression() /
@@ -34,9 +30,12 @@ public class DartVmServiceValue extends XNamedValue {
   private static final LayeredIcon STATIC_FIELD_ICON = new LayeredIcon(AllIcons.Nodes.Field, AllIcons.Nodes.StaticMark);
   private static final LayeredIcon STATIC_FINAL_FIELD_ICON =
     new LayeredIcon(AllIcons.Nodes.Field, AllIcons.Nodes.StaticMark, AllIcons.Nodes.FinalMark);
-  private static final String JSON_STRING_TEMPLATE =
-    "'{'\"type\":\"@Instance\",\"class\":'{'\"type\":\"@Class\",\"fixedId\":\"true\",\"id\":\"classes/91\"," +
-    "\"name\":\"_OneByteString\"'}',\"kind\":\"String\",\"length\":\"{0}\",\"valueAsString\":\"{1}\"'}'";
+  /**
+   * Byte lists longer than this are shown as hex dump rows rather than one child per byte.
+   */
+  private static final int HEX_DUMP_MIN_LENGTH = 256;
+  private static final int HEX_DUMP_ROW_LENGTH = 16;
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
 
   @NotNull private final DartVmServiceDebugProcess myDebugProcess;
   @NotNull private final String myIsolateId;
@@ -376,14 +375,17 @@ public class DartVmServiceValue extends XNamedValue {
   }
 
   private void computeCollectionChildren(@NotNull InstanceRef instanceRef, int offset, @NotNull final XCompositeNode node) {
-    final int count = Math.min(instanceRef.getLength() - offset, XCompositeNode.MAX_CHILDREN_TO_SHOW);
+    // For a hex dump, each child is a row of bytes; only the requested slice of the list is transferred.
+    final int elementsPerChild = isHexDump(instanceRef) ? HEX_DUMP_ROW_LENGTH : 1;
+    final int pageSize = XCompositeNode.MAX_CHILDREN_TO_SHOW * elementsPerChild;
+    final int count = Math.min(instanceRef.getLength() - offset, pageSize);
 
     myDebugProcess.getVmServiceWrapper().getCollectionObject(myIsolateId, myInstanceRef.getId(), offset, count, new GetObjectConsumer() {
       @Override
       public void received(Obj instance) {
         InstanceKind kind = instanceRef.getKind();
         if (isListKind(kind)) {
-          addListChildren(offset, node, (Instance)instance);
+          addListChildren(offset, node, (Instance)instance, isHexDump(instanceRef));
         }
         else if (kind == InstanceKind.Map) {
           addMapChildren(offset, node, ((Instance)instance).getAssociations());
@@ -393,7 +395,8 @@ public class DartVmServiceValue extends XNamedValue {
         }
 
         if (offset + count < instanceRef.getLength()) {
-          node.tooManyChildren(instanceRef.getLength() - offset - count
+          final int remaining = instanceRef.getLength() - offset - count;
+          node.tooManyChildren((remaining + elementsPerChild - 1) / elementsPerChild
             , () -> computeCollectionChildren(instanceRef, offset + count, node));
         }
       }
@@ -410,7 +413,7 @@ public class DartVmServiceValue extends XNamedValue {
     });
   }
 
-  private void addListChildren(int offset, @NotNull XCompositeNode node, @NotNull Instance instance) {
+  private void addListChildren(int offset, @NotNull XCompositeNode node, @NotNull Instance instance, boolean hexDump) {
     ElementList<InstanceRef> listElementsRef = instance.getElements();
     if (listElementsRef != null) {
       final XValueChildrenList childrenList = new XValueChildrenList(listElementsRef.size());
@@ -423,14 +426,17 @@ public class DartVmServiceValue extends XNamedValue {
     }
 
     if (instance.getBytes() != null) { // true for typed data
+      // The bytes only hold the page requested with offset and count.
       //noinspection ConstantConditions
       byte @NotNull [] bytes = Base64.getDecoder().decode(instance.getBytes());
+      if (hexDump) {
+        addHexDumpChildren(offset, node, bytes);
+        return;
+      }
       TypedDataList data = getTypedDataList(bytes);
       XValueChildrenList childrenList = new XValueChildrenList(data.size());
       for (int i = 0; i < data.size(); i++) {
-        childrenList.add(
-          new DartVmServiceValue(myDebugProcess, myIsolateId, String.valueOf(i), instanceRefForString(data.getValue(i)), null, null,
-                                 false));
+        childrenList.add(new TypedDataElementValue(String.valueOf(offset + i), data.getValue(i)));
       }
       node.addChildren(childrenList, true);
       return;
@@ -460,15 +466,44 @@ public class DartVmServiceValue extends XNamedValue {
     });
   }
 
-  private InstanceRef instanceRefForString(@NotNull String value) {
-    String json = MessageFormat.format(JSON_STRING_TEMPLATE, value.length(), value);
-    JsonObject ref = new Gson().fromJson(json, JsonObject.class);
-    //noinspection ConstantConditions
-    return new InstanceRef(ref);
+  private static void addHexDumpChildren(int offset, @NotNull XCompositeNode node, byte @NotNull [] bytes) {
+    final XValueChildrenList childrenList = new XValueChildrenList((bytes.length + HEX_DUMP_ROW_LENGTH - 1) / HEX_DUMP_ROW_LENGTH);
+    for (int start = 0; start < bytes.length; start += HEX_DUMP_ROW_LENGTH) {
+      final int end = Math.min(start + HEX_DUMP_ROW_LENGTH, bytes.length);
+      childrenList.add(new TypedDataElementValue(String.valueOf(offset + start), formatHexDumpRow(bytes, start, end)));
+    }
+    node.addChildren(childrenList, true);
+  }
+
+  /**
+   * Format bytes as hex pairs followed by their printable ASCII characters, e.g. {@code 48 69 0a |Hi.|}.
+   */
+  @NotNull
+  private static String formatHexDumpRow(byte @NotNull [] bytes, int start, int end) {
+    final StringBuilder builder = new StringBuilder(HEX_DUMP_ROW_LENGTH * 4 + 3);
+    for (int i = start; i < start + HEX_DUMP_ROW_LENGTH; i++) {
+      if (i < end) {
+        builder.append(HEX_DIGITS[(bytes[i] >> 4) & 0xf]).append(HEX_DIGITS[bytes[i] & 0xf]).append(' ');
+      }
+      else {
+        builder.append("   ");
+      }
+    }
+    builder.append('|');
+    for (int i = start; i < end; i++) {
+      final int c = bytes[i] & 0xff;
+      builder.append(c >= 0x20 && c < 0x7f ? (char)c : '.');
+    }
+    return builder.append('|').toString();
+  }
+
+  private static boolean isHexDump(@NotNull InstanceRef instanceRef) {
+    final InstanceKind kind = instanceRef.getKind();
+    return (kind == InstanceKind.Uint8List || kind == InstanceKind.Uint8ClampedList || kind == InstanceKind.Int8List) &&
+           instanceRef.getLength() > HEX_DUMP_MIN_LENGTH;
   }
 
   private TypedDataList getTypedDataList(byte @NotNull [] bytes) {
-    ByteBuffer buffer = ByteBuffer.wrap(bytes);
     //noinspection ConstantConditions
     switch (myInstanceRef.getKind()) {
       case Uint8List:
@@ -613,6 +648,23 @@ public class DartVmServiceValue extends XNamedValue {
     return myInstanceRef;
   }
 
+  /**
+   * An element (or hex dump row) of typed data, already formatted from the decoded bytes.
+   */
+  private static class TypedDataElementValue extends XNamedValue {
+    @NotNull private final String myValue;
+
+    TypedDataElementValue(@NotNull String name, @NotNull String value) {
+      super(name);
+      myValue = value;
+    }
+
+    @Override
+    public void computePresentation(@NotNull XValueNode node, @NotNull XValuePlace place) {
+      node.setPresentation(AllIcons.Debugger.Db_primitive, new XNumericValuePresentation(myValue), false);
+    }
+  }
+
   static class LocalVarSourceLocation {
     @NotNull private final ScriptRef myScriptRef;
     private final int myTokenPos;
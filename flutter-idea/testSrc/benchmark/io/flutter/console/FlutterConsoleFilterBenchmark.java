@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.console;
+
+import com.intellij.execution.filters.Filter;
+import com.intellij.openapi.roots.ModuleRootModificationUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import io.flutter.testing.ProjectFixture;
+import io.flutter.testing.TestDir;
+import io.flutter.testing.Testing;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Replays a captured build log through {@link FlutterConsoleFilter} many times, with the module's
+ * {@link FlutterConsolePathCache} cleared before each pass and with it kept warm across passes.
+ */
+public class FlutterConsoleFilterBenchmark {
+  private static final int COLD_PASSES = 200;
+  private static final int WARM_PASSES = 2000;
+
+  /**
+   * The lines of the log that get a link in the test project; see FlutterConsoleFilterTest.replaysBuildLog.
+   */
+  private static final int LINKS_PER_PASS = 6;
+
+  @ClassRule
+  public static final ProjectFixture fixture = Testing.makeEmptyProject();
+
+  @ClassRule
+  public static final TestDir tmp = new TestDir();
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    final VirtualFile contentRoot = tmp.ensureDir("root");
+    tmp.ensureDir("root/test");
+    tmp.writeFile("root/test/widget_test.dart", "");
+    Testing.runOnDispatchThread(
+      () -> ModuleRootModificationUtil.addContentRoot(fixture.getModule(), contentRoot.getPath()));
+  }
+
+  @Test
+  public void replaysBuildLog() throws IOException {
+    final List<String> lines;
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+      FlutterConsoleFilterBenchmark.class.getResourceAsStream("flutter_build_log.txt"), StandardCharsets.UTF_8))) {
+      lines = reader.lines().map((line) -> line + "\n").collect(Collectors.toList());
+    }
+    final FlutterConsoleFilter filter = new FlutterConsoleFilter(fixture.getModule());
+    final FlutterConsolePathCache cache = FlutterConsolePathCache.getInstance(fixture.getModule());
+
+    for (int run = 0; run < 3; run++) {
+      long elapsedNanos = 0;
+      for (int pass = 0; pass < COLD_PASSES; pass++) {
+        cache.clear();
+        final long start = System.nanoTime();
+        assertEquals(LINKS_PER_PASS, replay(filter, lines));
+        elapsedNanos += System.nanoTime() - start;
+      }
+      report("cold", COLD_PASSES, lines.size(), elapsedNanos);
+
+      final long start = System.nanoTime();
+      for (int pass = 0; pass < WARM_PASSES; pass++) {
+        assertEquals(LINKS_PER_PASS, replay(filter, lines));
+      }
+      report("warm", WARM_PASSES, lines.size(), System.nanoTime() - start);
+    }
+  }
+
+  private static int replay(FlutterConsoleFilter filter, List<String> lines) {
+    int links = 0;
+    int offset = 0;
+    for (String line : lines) {
+      offset += line.length();
+      final Filter.Result result = filter.applyFilter(line, offset);
+      if (result != null && result.getFirstHyperlinkInfo() != null) {
+        links++;
+      }
+    }
+    return links;
+  }
+
+  private static void report(String cache, int passes, int lineCount, long elapsedNanos) {
+    System.out.println("Filtered " + passes * lineCount + " lines with a " + cache + " path cache in " + elapsedNanos / 1000000 +
+                       " ms (" + elapsedNanos / passes / 1000 + " us per pass)");
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.coverage;
+
+import com.intellij.rt.coverage.data.ClassData;
+import com.intellij.rt.coverage.data.LineData;
+import com.intellij.rt.coverage.data.ProjectData;
+import io.flutter.run.coverage.LcovInfo;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Reads a synthetic lcov file with a million lines, split into slices parsed in parallel and as a single slice on the
+ * calling thread.
+ */
+public class LcovInfoBenchmark {
+  private static final int FILE_COUNT = 5000;
+  private static final int LINES_PER_FILE = 198;
+  private static final int RUNS = 5;
+
+  @Rule
+  public final TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void testReadMillionLineFile() throws IOException {
+    final Path path = tmp.getRoot().toPath().resolve("coverage/lcov.info");
+    Files.createDirectories(path.getParent());
+    try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+      for (int file = 0; file < FILE_COUNT; file++) {
+        writer.write("SF:lib/src/file_" + file + ".dart\n");
+        for (int line = 1; line <= LINES_PER_FILE; line++) {
+          writer.write("DA:" + line + "," + (line * file % 7) + "\n");
+        }
+        writer.write("end_of_record\n");
+      }
+    }
+    final List<File> files = List.of(path.toFile());
+    System.out.println("lcov file of " + FILE_COUNT * (LINES_PER_FILE + 2) + " lines, " + Files.size(path) / 1024 + " KB, " +
+                       Runtime.getRuntime().availableProcessors() + " processors");
+
+    // 1MB slices, so that the file is split across every core.
+    final int sliced = 1024 * 1024;
+    final int single = Integer.MAX_VALUE;
+    for (int run = 0; run < RUNS; run++) {
+      final long slicedMs = read(files, sliced);
+      final long singleMs = read(files, single);
+      System.out.println("Run " + run + ": parallel slices " + slicedMs + " ms, single slice " + singleMs + " ms");
+    }
+  }
+
+  private long read(List<File> files, int minSliceSize) throws IOException {
+    final long start = System.nanoTime();
+    final ProjectData projectData = new ProjectData();
+    LcovInfo.readInto(projectData, files, minSliceSize);
+    final long elapsedMs = (System.nanoTime() - start) / 1000000;
+
+    assertEquals(FILE_COUNT, projectData.getClasses().size());
+    final String root = tmp.getRoot().getAbsolutePath().replace('\\', '/');
+    final ClassData last = projectData.getClassData(root + "/lib/src/file_" + (FILE_COUNT - 1) + ".dart");
+    assertNotNull(last);
+    assertEquals(LINES_PER_FILE * (FILE_COUNT - 1) % 7, ((LineData)last.getLines()[LINES_PER_FILE]).getHits());
+    return elapsedMs;
+  }
+}
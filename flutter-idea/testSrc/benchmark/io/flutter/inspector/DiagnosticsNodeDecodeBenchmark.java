@@ -0,0 +1,62 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.inspector;
+
+import io.flutter.utils.JsonUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Decodes a tree of about 10,000 nodes built from the recorded widget tree and reports the time taken, the memory
+ * kept by the nodes and the time to read the members the inspector tree shows for each node.
+ */
+public class DiagnosticsNodeDecodeBenchmark {
+  @Test
+  public void testDecodeLargeTree() {
+    final String text = DiagnosticsNodeTest.largeTreeText();
+
+    for (int run = 0; run < 3; run++) {
+      final long before = usedMemory();
+      long start = System.nanoTime();
+      // Parse from text each run so that the JSON is only reachable through the nodes.
+      final DiagnosticsNode root = DiagnosticsNodeTest.create(JsonUtils.parseString(text).getAsJsonObject());
+      final List<DiagnosticsNode> nodes = new ArrayList<>();
+      DiagnosticsNodeTest.expand(root, nodes);
+      final long decodeNanos = System.nanoTime() - start;
+      final long retained = usedMemory() - before;
+
+      start = System.nanoTime();
+      int shown = 0;
+      for (int i = 0; i < 20; i++) {
+        for (DiagnosticsNode node : nodes) {
+          if (node.getDescription() != null && node.getLevel() != DiagnosticLevel.hidden &&
+              node.getStyle() != DiagnosticsTreeStyle.offstage && (node.hasChildren() || node.hasCreationLocation())) {
+            shown++;
+          }
+        }
+      }
+      final long readNanos = System.nanoTime() - start;
+
+      assertEquals(10001, nodes.size());
+      assertTrue(shown > 0);
+      System.out.println("Decoded " + nodes.size() + " nodes in " + decodeNanos / 1000000 + " ms, retaining about " +
+                         retained / 1024 + " KB; read members of 20 passes in " + readNanos / 1000000 + " ms");
+    }
+  }
+
+  private static long usedMemory() {
+    final Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.inspector;
+
+import com.google.gson.JsonObject;
+import com.intellij.openapi.util.Disposer;
+import io.flutter.testing.ProjectFixture;
+import io.flutter.testing.Testing;
+import io.flutter.utils.StreamSubscription;
+import io.flutter.vmService.VMServiceManager;
+import io.flutter.vmService.VmServiceEchoServer;
+import org.dartlang.vm.service.VmService;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Expands a widget subtree through {@link EvalOnDartLibrary}, one request per node, against an in-process VM service
+ * that answers each request after a fixed latency, with one request in flight at a time and with the default window.
+ */
+public class EvalOnDartLibraryBenchmark {
+  private static final long LATENCY_MILLIS = 5;
+
+  /**
+   * A complete tree with four children per node and five levels.
+   */
+  private static final int CHILDREN_PER_NODE = 4;
+  private static final int NODE_COUNT = 1 + 4 + 16 + 64 + 256;
+
+  @Rule
+  public final ProjectFixture fixture = Testing.makeEmptyProject();
+
+  @Test
+  public void testExpandSubtree() throws Exception {
+    try (VmServiceEchoServer server = new VmServiceEchoServer(LATENCY_MILLIS, TimeUnit.MILLISECONDS)) {
+      final VmService vmService = VmService.connect(server.getUrl());
+      final VMServiceManager vmServiceManager = mock(VMServiceManager.class);
+      when(vmServiceManager.getCurrentFlutterIsolate(any(), anyBoolean())).thenReturn(mock(StreamSubscription.class));
+      final EvalOnDartLibrary library =
+        new EvalOnDartLibrary(Collections.singleton("package:flutter/src/widgets/widget_inspector.dart"), vmService, vmServiceManager);
+      try {
+        long serialMs = 0;
+        long windowedMs = 0;
+        for (int run = 0; run < 3; run++) {
+          serialMs = expand(library, 1);
+          windowedMs = expand(library, EvalOnDartLibrary.DEFAULT_MAX_PENDING_REQUESTS);
+          System.out.println("Expanded " + NODE_COUNT + " nodes with " + LATENCY_MILLIS + " ms latency: " + serialMs +
+                             " ms one at a time, " + windowedMs + " ms with " + EvalOnDartLibrary.DEFAULT_MAX_PENDING_REQUESTS +
+                             " in flight");
+        }
+        assertTrue("Expected the request window to beat serial requests", windowedMs < serialMs);
+      }
+      finally {
+        Disposer.dispose(library);
+        vmService.disconnect();
+      }
+    }
+  }
+
+  /**
+   * Expands the tree from its root, requesting the children of each node once its own response arrives, and returns
+   * the time taken in milliseconds.
+   */
+  private static long expand(EvalOnDartLibrary library, int maxPendingRequests) throws InterruptedException {
+    library.setMaxPendingRequests(maxPendingRequests);
+    final CountDownLatch expanded = new CountDownLatch(NODE_COUNT);
+    final AtomicInteger errors = new AtomicInteger();
+    final long start = System.nanoTime();
+    expandNode(library, 0, expanded, errors);
+    assertTrue("Timed out expanding the tree", expanded.await(60, TimeUnit.SECONDS));
+    final long elapsedMs = (System.nanoTime() - start) / 1000000;
+    assertEquals(0, errors.get());
+    return elapsedMs;
+  }
+
+  private static void expandNode(EvalOnDartLibrary library, int node, CountDownLatch expanded, AtomicInteger errors) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("arg", "inspector-" + node);
+    library.addRequest(null, "getChildrenDetailsSubtree", () -> library.invokeServiceMethod(
+      "ext.flutter.inspector.getChildrenDetailsSubtree", params)).whenComplete((result, error) -> {
+      if (error != null) {
+        errors.incrementAndGet();
+      }
+      for (int child = node * CHILDREN_PER_NODE + 1; child <= node * CHILDREN_PER_NODE + CHILDREN_PER_NODE; child++) {
+        if (child < NODE_COUNT) {
+          expandNode(library, child, expanded, errors);
+        }
+      }
+      expanded.countDown();
+    });
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.vmService;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.dartlang.vm.service.VmService;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A minimal websocket server for one {@link VmService} client that answers each request with its own params.
+ * <p>
+ * With a latency, each response is sent that long after its request arrives; requests are still read as they come, so
+ * several can be waiting for their response at once, as they would with a real VM.
+ */
+public class VmServiceEchoServer implements Closeable {
+  private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+  private final ServerSocket serverSocket;
+  private final long latencyMicros;
+  private final ScheduledExecutorService responder = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+    final Thread thread = new Thread(runnable, "websocket echo server responses");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public VmServiceEchoServer() throws IOException {
+    this(0, TimeUnit.MILLISECONDS);
+  }
+
+  public VmServiceEchoServer(long latency, TimeUnit unit) throws IOException {
+    latencyMicros = unit.toMicros(latency);
+    serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    final Thread thread = new Thread(this::serve, "websocket echo server");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  public String getUrl() {
+    return "ws://127.0.0.1:" + serverSocket.getLocalPort() + "/ws";
+  }
+
+  @Override
+  public void close() throws IOException {
+    responder.shutdownNow();
+    serverSocket.close();
+  }
+
+  private void serve() {
+    try (Socket socket = serverSocket.accept()) {
+      socket.setTcpNoDelay(true);
+      final DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      final OutputStream output = new BufferedOutputStream(socket.getOutputStream());
+      handshake(input, output);
+      while (true) {
+        final String message = readTextFrame(input);
+        if (message == null) {
+          return;
+        }
+        final String response = respond(message);
+        if (latencyMicros > 0) {
+          responder.schedule(() -> send(output, response), latencyMicros, TimeUnit.MICROSECONDS);
+        }
+        else {
+          synchronized (output) {
+            writeTextFrame(output, response);
+            if (input.available() == 0) {
+              output.flush();
+            }
+          }
+        }
+      }
+    }
+    catch (IOException | NoSuchAlgorithmException e) {
+      // The client disconnected or the server was closed.
+    }
+  }
+
+  private static void send(OutputStream output, String response) {
+    try {
+      synchronized (output) {
+        writeTextFrame(output, response);
+        output.flush();
+      }
+    }
+    catch (IOException e) {
+      // The client disconnected.
+    }
+  }
+
+  private static String respond(String message) {
+    final JsonObject request = JsonParser.parseString(message).getAsJsonObject();
+    final JsonObject result;
+    if ("getVersion".equals(request.get("method").getAsString())) {
+      result = new JsonObject();
+      result.addProperty("type", "Version");
+      result.addProperty("major", VmService.versionMajor);
+      result.addProperty("minor", VmService.versionMinor);
+    }
+    else {
+      result = request.getAsJsonObject("params");
+    }
+    final JsonObject response = new JsonObject();
+    response.addProperty("jsonrpc", "2.0");
+    response.add("id", request.get("id"));
+    response.add("result", result);
+    return response.toString();
+  }
+
+  private static void handshake(DataInputStream input, OutputStream output) throws IOException, NoSuchAlgorithmException {
+    String key = null;
+    for (String line = readLine(input); !line.isEmpty(); line = readLine(input)) {
+      final int colon = line.indexOf(':');
+      if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Sec-WebSocket-Key")) {
+        key = line.substring(colon + 1).trim();
+      }
+    }
+    if (key == null) {
+      throw new IOException("Not a websocket request");
+    }
+    final byte[] digest = MessageDigest.getInstance("SHA-1").digest((key + ACCEPT_GUID).getBytes(StandardCharsets.US_ASCII));
+    final String response = "HTTP/1.1 101 Switching Protocols\r\n" +
+                            "Upgrade: websocket\r\n" +
+                            "Connection: Upgrade\r\n" +
+                            "Sec-WebSocket-Accept: " + Base64.getEncoder().encodeToString(digest) + "\r\n\r\n";
+    output.write(response.getBytes(StandardCharsets.US_ASCII));
+    output.flush();
+  }
+
+  private static String readLine(DataInputStream input) throws IOException {
+    final StringBuilder line = new StringBuilder();
+    for (int c = input.read(); c != '\n'; c = input.read()) {
+      if (c < 0) {
+        throw new EOFException();
+      }
+      if (c != '\r') {
+        line.append((char)c);
+      }
+    }
+    return line.toString();
+  }
+
+  /**
+   * Reads the next text message sent by the client, or returns null when the client closes the connection.
+   */
+  private static String readTextFrame(DataInputStream input) throws IOException {
+    while (true) {
+      final int opcode = input.readUnsignedByte() & 0x0f;
+      final int second = input.readUnsignedByte();
+      long length = second & 0x7f;
+      if (length == 126) {
+        length = input.readUnsignedShort();
+      }
+      else if (length == 127) {
+        length = input.readLong();
+      }
+      final byte[] mask = new byte[4];
+      if ((second & 0x80) != 0) {
+        input.readFully(mask);
+      }
+      final byte[] payload = new byte[(int)length];
+      input.readFully(payload);
+      for (int i = 0; i < payload.length; i++) {
+        payload[i] ^= mask[i % 4];
+      }
+      if (opcode == 0x8) {
+        return null;
+      }
+      if (opcode == 0x1) {
+        return new String(payload, StandardCharsets.UTF_8);
+      }
+    }
+  }
+
+  private static void writeTextFrame(OutputStream output, String message) throws IOException {
+    final byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+    output.write(0x81);
+    if (payload.length < 126) {
+      output.write(payload.length);
+    }
+    else if (payload.length < 65536) {
+      output.write(126);
+      output.write(payload.length >> 8);
+      output.write(payload.length & 0xff);
+    }
+    else {
+      output.write(127);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        output.write((int)((long)payload.length >> shift) & 0xff);
+      }
+    }
+    output.write(payload);
+  }
+}
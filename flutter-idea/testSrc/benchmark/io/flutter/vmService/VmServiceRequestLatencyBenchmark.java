@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.vmService;
+
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.VmService;
+import org.dartlang.vm.service.consumer.ServiceExtensionConsumer;
+import org.dartlang.vm.service.element.RPCError;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Fires service extension calls through a {@link VmService} connected to an in-process websocket server, as a rough
+ * benchmark of how long callers wait to send a request.
+ */
+public class VmServiceRequestLatencyBenchmark {
+  private static final int REQUEST_COUNT = 5000;
+
+  @Test
+  public void testCallerLatencyOnCallingThread() throws Exception {
+    measureCallerLatency(0);
+  }
+
+  @Test
+  public void testCallerLatencyWithWriterThread() throws Exception {
+    measureCallerLatency(1024);
+  }
+
+  private static void measureCallerLatency(int sendQueueCapacity) throws Exception {
+    try (VmServiceEchoServer server = new VmServiceEchoServer()) {
+      final VmService vmService = VmService.connect(server.getUrl(), sendQueueCapacity);
+      try {
+        final CountDownLatch responses = new CountDownLatch(REQUEST_COUNT);
+        final AtomicInteger errors = new AtomicInteger();
+        final ServiceExtensionConsumer consumer = new ServiceExtensionConsumer() {
+          @Override
+          public void received(JsonObject result) {
+            responses.countDown();
+          }
+
+          @Override
+          public void onError(RPCError error) {
+            errors.incrementAndGet();
+            responses.countDown();
+          }
+        };
+
+        // Requests of a few kilobytes, like the larger inspector calls.
+        final StringBuilder payload = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+          payload.append("widget_").append(i).append(' ');
+        }
+
+        final long[] latencies = new long[REQUEST_COUNT];
+        final long start = System.nanoTime();
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+          final JsonObject params = new JsonObject();
+          params.addProperty("arg", payload.toString());
+          final long callStart = System.nanoTime();
+          vmService.callServiceExtension("isolates/1", "ext.flutter.inspector.benchmark", params, consumer);
+          latencies[i] = System.nanoTime() - callStart;
+        }
+        final long sentMs = (System.nanoTime() - start) / 1000000;
+        assertTrue("Timed out waiting for responses", responses.await(60, TimeUnit.SECONDS));
+        final long answeredMs = (System.nanoTime() - start) / 1000000;
+
+        Arrays.sort(latencies);
+        System.out.println("Send queue capacity " + sendQueueCapacity + ": " + REQUEST_COUNT + " calls made in " + sentMs +
+                           "ms and answered in " + answeredMs + "ms; caller latency p50 " + latencies[REQUEST_COUNT / 2] / 1000 +
+                           "us, p99 " + latencies[REQUEST_COUNT * 99 / 100] / 1000 + "us, max " +
+                           latencies[REQUEST_COUNT - 1] / 1000 + "us");
+        assertEquals(0, errors.get());
+      }
+      finally {
+        vmService.disconnect();
+      }
+    }
+  }
+}
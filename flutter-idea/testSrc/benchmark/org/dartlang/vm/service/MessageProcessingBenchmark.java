@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package org.dartlang.vm.service;
+
+import com.google.gson.JsonParser;
+import org.dartlang.vm.service.element.Event;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Feeds a mix of Flutter.Frame, Logging and GC events, as a running Flutter app sends them, through
+ * {@link VmServiceBase#processMessage} and reports the time and memory allocated per message. The baseline decodes each
+ * message with {@link JsonParser} before dispatching it, as processMessage did before it read the envelope while
+ * decoding.
+ */
+public class MessageProcessingBenchmark {
+  private static final int MESSAGE_COUNT = 30000;
+  private static final int RUNS = 5;
+
+  @Test
+  public void testListenerOnAllStreams() {
+    final VmService vmService = new VmService();
+    final AtomicInteger received = new AtomicInteger();
+    vmService.addVmServiceListener(new CountingListener(received));
+    measure("listener on all streams", vmService, received, MESSAGE_COUNT);
+  }
+
+  @Test
+  public void testListenerOnExtensionStream() {
+    final VmService vmService = new VmService();
+    final AtomicInteger received = new AtomicInteger();
+    vmService.addVmServiceListener(Set.of(VmService.EXTENSION_STREAM_ID), new CountingListener(received));
+    measure("listener on the Extension stream", vmService, received, MESSAGE_COUNT / 3);
+  }
+
+  private static void measure(String description, VmService vmService, AtomicInteger received, int expected) {
+    final List<String> messages = createTraffic();
+    for (int run = 0; run < RUNS; run++) {
+      received.set(0);
+      long allocated = allocatedBytes();
+      long start = System.nanoTime();
+      for (String message : messages) {
+        vmService.processMessage(message);
+      }
+      final long processNanos = System.nanoTime() - start;
+      final long processBytes = allocatedBytes() - allocated;
+      assertEquals(expected, received.get());
+
+      received.set(0);
+      allocated = allocatedBytes();
+      start = System.nanoTime();
+      for (String message : messages) {
+        vmService.processNotification(JsonParser.parseString(message).getAsJsonObject());
+      }
+      final long baselineNanos = System.nanoTime() - start;
+      final long baselineBytes = allocatedBytes() - allocated;
+      assertEquals(expected, received.get());
+
+      System.out.println(description + ": processMessage " + processNanos / messages.size() + " ns and " +
+                         processBytes / messages.size() + " bytes per message; parse then dispatch " +
+                         baselineNanos / messages.size() + " ns and " + baselineBytes / messages.size() + " bytes per message");
+    }
+  }
+
+  /**
+   * Returns the same number of Flutter.Frame, Logging and GC events, interleaved.
+   */
+  private static List<String> createTraffic() {
+    final List<String> messages = new ArrayList<>();
+    for (int i = 0; i < MESSAGE_COUNT / 3; i++) {
+      final long timestamp = 1700000000000L + i * 16;
+      messages.add("{\"jsonrpc\":\"2.0\",\"method\":\"streamNotify\",\"params\":{\"streamId\":\"Extension\",\"event\":{" +
+                   "\"type\":\"Event\",\"kind\":\"Extension\",\"isolate\":{\"type\":\"@Isolate\",\"id\":\"isolates/1\"," +
+                   "\"name\":\"main\",\"number\":\"1\"},\"extensionKind\":\"Flutter.Frame\",\"extensionData\":{\"number\":" + i +
+                   ",\"startTime\":" + timestamp * 1000 + ",\"elapsed\":16000,\"build\":5000,\"raster\":7000,\"vsyncOverhead\":300}," +
+                   "\"timestamp\":" + timestamp + "}}}");
+      messages.add("{\"jsonrpc\":\"2.0\",\"method\":\"streamNotify\",\"params\":{\"streamId\":\"Logging\",\"event\":{" +
+                   "\"type\":\"Event\",\"kind\":\"Logging\",\"isolate\":{\"type\":\"@Isolate\",\"id\":\"isolates/1\"," +
+                   "\"name\":\"main\",\"number\":\"1\"},\"logRecord\":{\"type\":\"LogRecord\",\"sequenceNumber\":" + i +
+                   ",\"time\":" + timestamp + ",\"level\":800,\"loggerName\":{\"type\":\"@Instance\",\"kind\":\"String\"," +
+                   "\"id\":\"objects/" + i + "\",\"valueAsString\":\"app\"},\"message\":{\"type\":\"@Instance\",\"kind\":\"String\"," +
+                   "\"id\":\"objects/" + (i + 1) + "\",\"valueAsString\":\"Loaded item " + i + " of the feed\"}}," +
+                   "\"timestamp\":" + timestamp + "}}}");
+      messages.add("{\"jsonrpc\":\"2.0\",\"method\":\"streamNotify\",\"params\":{\"streamId\":\"GC\",\"event\":{" +
+                   "\"type\":\"Event\",\"kind\":\"GC\",\"isolate\":{\"type\":\"@Isolate\",\"id\":\"isolates/1\"," +
+                   "\"name\":\"main\",\"number\":\"1\"},\"new\":{\"type\":\"HeapSpace\",\"name\":\"new\",\"vmName\":\"Scavenger\"," +
+                   "\"collections\":" + i + ",\"avgCollectionPeriodMillis\":120.5,\"used\":1048576,\"capacity\":4194304," +
+                   "\"external\":0,\"time\":0.25},\"old\":{\"type\":\"HeapSpace\",\"name\":\"old\",\"vmName\":\"MarkSweep\"," +
+                   "\"collections\":3,\"avgCollectionPeriodMillis\":9000.0,\"used\":20971520,\"capacity\":33554432," +
+                   "\"external\":65536,\"time\":12.5},\"timestamp\":" + timestamp + "}}}");
+    }
+    return messages;
+  }
+
+  private static long allocatedBytes() {
+    return ((com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+  }
+
+  private static class CountingListener implements VmServiceListener {
+    private final AtomicInteger received;
+
+    CountingListener(AtomicInteger received) {
+      this.received = received;
+    }
+
+    @Override
+    public void connectionOpened() {
+    }
+
+    @Override
+    public void received(String streamId, Event event) {
+      if (event.getKind() != null) {
+        received.incrementAndGet();
+      }
+    }
+
+    @Override
+    public void connectionClosed() {
+    }
+  }
+}
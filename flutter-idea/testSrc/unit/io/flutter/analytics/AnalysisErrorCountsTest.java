@@ -0,0 +1,41 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.analytics;
+
+import org.dartlang.analysis.server.protocol.AnalysisError;
+import org.dartlang.analysis.server.protocol.AnalysisErrorType;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class AnalysisErrorCountsTest {
+  private final AnalysisErrorCounts counts = new AnalysisErrorCounts(FlutterAnalysisServerListener.ERROR_TYPES);
+
+  @Test
+  public void replacesCountsOfEachFile() {
+    counts.update("/a.dart", List.of(error(AnalysisErrorType.HINT), error(AnalysisErrorType.HINT), error(AnalysisErrorType.LINT)));
+    counts.update("/b.dart", List.of(error(AnalysisErrorType.HINT), error(AnalysisErrorType.TODO)));
+    assertEquals(3, counts.getTotal(AnalysisErrorType.HINT));
+    assertEquals(1, counts.getTotal(AnalysisErrorType.LINT));
+    assertEquals(0, counts.getTotal(AnalysisErrorType.TODO));
+
+    counts.update("/a.dart", List.of(error(AnalysisErrorType.COMPILE_TIME_ERROR)));
+    assertEquals(1, counts.getTotal(AnalysisErrorType.HINT));
+    assertEquals(0, counts.getTotal(AnalysisErrorType.LINT));
+    assertEquals(1, counts.getTotal(AnalysisErrorType.COMPILE_TIME_ERROR));
+
+    counts.update("/a.dart", List.of());
+    counts.update("/b.dart", List.of(error(AnalysisErrorType.TODO)));
+    assertEquals(0, counts.getTotal(AnalysisErrorType.HINT));
+    assertEquals(0, counts.getTotal(AnalysisErrorType.COMPILE_TIME_ERROR));
+  }
+
+  private static AnalysisError error(String type) {
+    return new AnalysisError("INFO", type, null, "", "", "code", "", null, false);
+  }
+}
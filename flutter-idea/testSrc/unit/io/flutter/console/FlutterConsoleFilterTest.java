@@ -15,8 +15,14 @@ import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Test;
 
-import static org.junit.Assert.assertNotNull;
-import static org.junit.Assert.assertNull;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
 
 public class FlutterConsoleFilterTest {
   @ClassRule
@@ -64,6 +70,44 @@ public class FlutterConsoleFilterTest {
     assertNull(link);
   }
 
+  @Test
+  public void findsErrorLocation() {
+    assertEquals(21, FlutterConsoleFilter.findErrorLocation("test/widget_test.dart:23:18: Error: Expected ';' after this."));
+    assertEquals(9, FlutterConsoleFilter.findErrorLocation("C:/a.dart:1:2:Error"));
+    assertEquals(8, FlutterConsoleFilter.findErrorLocation("a.dart:x:1:2:  Error"));
+    assertEquals(-1, FlutterConsoleFilter.findErrorLocation("lib/a.dart:1:2: Context: Found this candidate"));
+    assertEquals(-1, FlutterConsoleFilter.findErrorLocation("lib/a.dart:1: Error"));
+    assertEquals(-1, FlutterConsoleFilter.findErrorLocation("lib/a.dart\n:1:2: Error"));
+    assertEquals(-1, FlutterConsoleFilter.findErrorLocation(backtracker));
+  }
+
+  /**
+   * Replays a captured build log through the filter and checks which lines get links.
+   */
+  @Test
+  public void replaysBuildLog() throws IOException {
+    final List<String> lines;
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+      FlutterConsoleFilterTest.class.getResourceAsStream("flutter_build_log.txt"), StandardCharsets.UTF_8))) {
+      lines = reader.lines().map((line) -> line + "\n").collect(Collectors.toList());
+    }
+
+    final FlutterConsoleFilter filter = new FlutterConsoleFilter(fixture.getModule());
+    int links = 0;
+    int offset = 0;
+    for (String line : lines) {
+      offset += line.length();
+      final Filter.Result result = filter.applyFilter(line, offset);
+      if (result != null && result.getFirstHyperlinkInfo() != null) {
+        links++;
+      }
+    }
+
+    // The launch line, two compiler errors, two stack frames and the doctor link; lib/main.dart and
+    // ios/Runner.xcworkspace don't exist in the test project.
+    assertEquals(6, links);
+  }
+
   private static final String backtracker =
     "export HEADER_SEARCH_PATHS=\"/Users/user/workspace/eec/foobar/build/ios/Debug-iphonesimulator/include"+
     "\"/Users/user/workspace/eec/foobar/build/ios/Debug-iphonesimulator/FMDB/FMDB.framework/Headers\""+
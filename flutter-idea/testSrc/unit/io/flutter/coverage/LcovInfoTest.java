@@ -5,16 +5,27 @@
  */
 package io.flutter.coverage;
 
+import com.intellij.rt.coverage.data.ClassData;
+import com.intellij.rt.coverage.data.LineData;
 import com.intellij.rt.coverage.data.ProjectData;
 import io.flutter.run.coverage.LcovInfo;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class LcovInfoTest {
+  @Rule
+  public final TemporaryFolder tmp = new TemporaryFolder();
 
   @Test
   public void testReadData() throws IOException {
@@ -26,4 +37,69 @@ public class LcovInfoTest {
       assertEquals(110, entry.getValue().getLines().length);
     });
   }
+
+  @Test
+  public void testMergeFiles() throws IOException {
+    final Path dir = tmp.getRoot().toPath();
+    final File first = writeLcov(dir.resolve("a/coverage/lcov.info"),
+                                 "SF:lib/a.dart\nDA:1,1\nDA:3,0\nend_of_record\n" +
+                                 "SF:lib/shared.dart\nDA:2,5\nend_of_record\n");
+    final File second = writeLcov(dir.resolve("b/coverage/lcov.info"),
+                                  "SF:../a/lib/shared.dart\r\nDA:2,2\r\nDA:4,1,abc\r\nend_of_record\r\n" +
+                                  "SF:lib/b.dart\r\nDA:1,x\r\n");
+
+    final ProjectData projectData = new ProjectData();
+    LcovInfo.readInto(projectData, List.of(first, second));
+
+    final String root = dir.toAbsolutePath().toString().replace('\\', '/');
+    final ClassData a = projectData.getClassData(root + "/a/lib/a.dart");
+    assertNotNull(a);
+    assertEquals(1, ((LineData)a.getLines()[1]).getHits());
+    assertNull(a.getLines()[2]);
+    assertEquals(0, ((LineData)a.getLines()[3]).getHits());
+
+    final ClassData shared = projectData.getClassData(root + "/a/lib/shared.dart");
+    assertNotNull(shared);
+    assertEquals(7, ((LineData)shared.getLines()[2]).getHits());
+    assertEquals(1, ((LineData)shared.getLines()[4]).getHits());
+
+    // The record for b.dart is not terminated.
+    assertNull(projectData.getClassData(root + "/b/lib/b.dart"));
+  }
+
+  @Test
+  public void testReadInSlices() throws IOException {
+    final int fileCount = 200;
+    final int linesPerFile = 50;
+    final Path path = tmp.getRoot().toPath().resolve("coverage/lcov.info");
+    Files.createDirectories(path.getParent());
+    try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+      for (int file = 0; file < fileCount; file++) {
+        writer.write("SF:lib/src/file_" + file + ".dart\n");
+        for (int line = 1; line <= linesPerFile; line++) {
+          writer.write("DA:" + line + "," + (line * file % 7) + "\n");
+        }
+        writer.write("end_of_record\n");
+      }
+    }
+
+    // Small slices, so that the file is split wherever there is more than one core.
+    final ProjectData projectData = new ProjectData();
+    LcovInfo.readInto(projectData, List.of(path.toFile()), 4096);
+
+    assertEquals(fileCount, projectData.getClasses().size());
+    final String root = tmp.getRoot().getAbsolutePath().replace('\\', '/');
+    for (int file = 0; file < fileCount; file++) {
+      final ClassData classData = projectData.getClassData(root + "/lib/src/file_" + file + ".dart");
+      assertNotNull(classData);
+      assertEquals(linesPerFile + 1, classData.getLines().length);
+      assertEquals(linesPerFile * file % 7, ((LineData)classData.getLines()[linesPerFile]).getHits());
+    }
+  }
+
+  private static File writeLcov(Path path, String contents) throws IOException {
+    Files.createDirectories(path.getParent());
+    Files.write(path, contents.getBytes(StandardCharsets.UTF_8));
+    return path.toFile();
+  }
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.dart;
+
+import io.flutter.dart.FlutterDartAnalysisServer.MessageKind;
+import org.junit.Test;
+
+import static io.flutter.dart.FlutterDartAnalysisServer.classifyMessage;
+import static org.junit.Assert.assertEquals;
+
+public class FlutterDartAnalysisServerTest {
+
+  @Test
+  public void admitsOnlyOutlineNotifications() {
+    assertEquals(MessageKind.OUTLINE,
+                 classifyMessage("{\"event\":\"flutter.outline\",\"params\":{\"file\":\"/a.dart\"}}", (id) -> false));
+    assertEquals(MessageKind.OUTLINE,
+                 classifyMessage(" { \"event\" : \"flutter.outline\", \"params\":{}}", (id) -> false));
+    assertEquals(MessageKind.IGNORE,
+                 classifyMessage("{\"event\":\"analysis.highlights\",\"params\":{\"file\":\"/a.dart\"}}", (id) -> true));
+    assertEquals(MessageKind.IGNORE,
+                 classifyMessage("{\"event\":\"flutter.outlineX\",\"params\":{}}", (id) -> true));
+  }
+
+  @Test
+  public void admitsOnlyResponsesWithConsumers() {
+    assertEquals(MessageKind.PROCESS, classifyMessage("{\"id\":\"12\",\"result\":{}}", "12"::equals));
+    assertEquals(MessageKind.IGNORE, classifyMessage("{\"id\":\"13\",\"result\":{}}", "12"::equals));
+  }
+
+  @Test
+  public void processesUnexpectedMessages() {
+    assertEquals(MessageKind.PROCESS, classifyMessage("{\"result\":{},\"id\":\"13\"}", (id) -> false));
+    assertEquals(MessageKind.PROCESS, classifyMessage("{\"id\":13,\"result\":{}}", (id) -> false));
+    assertEquals(MessageKind.PROCESS, classifyMessage("[]", (id) -> false));
+  }
+}
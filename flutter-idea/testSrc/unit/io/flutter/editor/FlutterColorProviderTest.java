@@ -17,6 +17,7 @@ import org.junit.Test;
 import java.awt.*;
 
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 public class FlutterColorProviderTest extends AbstractDartElementTest {
 
@@ -185,4 +186,19 @@ public class FlutterColorProviderTest extends AbstractDartElementTest {
     });
   }
 
+  @Test
+  public void ignoresOtherCalls() throws Exception {
+    run(() -> {
+      final PsiElement testIdentifier = setUpDartElement("main() { foo(Color(0xFFE3F2FD)); }", "foo", LeafPsiElement.class);
+      assertNull(new FlutterColorProvider().getColorFrom(testIdentifier));
+    });
+  }
+
+  @Test
+  public void ignoresIndexedNonColor() throws Exception {
+    run(() -> {
+      final PsiElement testIdentifier = setUpDartElement("main() { Colors.blueish[200]; }", "blueish", LeafPsiElement.class);
+      assertNull(new FlutterColorProvider().getColorFrom(testIdentifier));
+    });
+  }
 }
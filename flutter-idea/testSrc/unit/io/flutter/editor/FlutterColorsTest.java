@@ -0,0 +1,66 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.editor;
+
+import org.junit.Test;
+
+import java.awt.*;
+
+import static org.junit.Assert.*;
+
+public class FlutterColorsTest {
+
+  @Test
+  public void findsMaterialColors() {
+    final FlutterColors.FlutterColor blue = FlutterColors.getColor("blue");
+    assertNotNull(blue);
+    assertTrue(blue.isPrimary());
+    assertEquals(0xff2196f3, blue.getAWTColor().getRGB());
+
+    final FlutterColors.FlutterColor blue200 = FlutterColors.getColor("blue[200]");
+    assertNotNull(blue200);
+    assertFalse(blue200.isPrimary());
+    assertEquals(0xff90caf9, blue200.getAWTColor().getRGB());
+    assertEquals(blue200.getAWTColor(), getAWTColor(FlutterColors.getColor("blue.shade200")));
+
+    assertEquals(0x1f000000, getAWTColor(FlutterColors.getColor("black12")).getRGB());
+    assertEquals(blue.getAWTColor(), getAWTColor(FlutterColors.getColor("blue.primary")));
+  }
+
+  @Test
+  public void findsCupertinoColors() {
+    assertEquals(0xff007aff, getAWTColor(FlutterCupertinoColors.getColor("activeBlue")).getRGB());
+    assertEquals(0xff0a84ff, getAWTColor(FlutterCupertinoColors.getColor("activeBlue.darkColor")).getRGB());
+  }
+
+  @Test
+  public void rejectsUnknownNames() {
+    assertNull(FlutterColors.getColor("blueish"));
+    assertNull(FlutterColors.getColor("blue[250]"));
+    assertNull(FlutterColors.getColor("blue[200"));
+    assertNull(FlutterColors.getColor("blue.shade"));
+    assertNull(FlutterColors.getColor("blue.shadeX"));
+    assertNull(FlutterColors.getColor("blueAccent[500]"));
+    assertNull(FlutterColors.getColor(""));
+    assertNull(FlutterCupertinoColors.getColor("activeBlue.lightColor"));
+    assertFalse(FlutterColors.isSwatchName("Colors"));
+    assertTrue(FlutterColors.isSwatchName("blueGrey"));
+  }
+
+  @Test
+  public void findsColorNames() {
+    //noinspection UseJBColor
+    assertEquals("blue", FlutterColors.getColorName(new Color(0x2196f3)));
+    //noinspection UseJBColor
+    assertNull(FlutterColors.getColorName(new Color(0x123456)));
+    assertNull(FlutterColors.getColorName(null));
+  }
+
+  private static Color getAWTColor(FlutterColors.FlutterColor color) {
+    assertNotNull(color);
+    return color.getAWTColor();
+  }
+}
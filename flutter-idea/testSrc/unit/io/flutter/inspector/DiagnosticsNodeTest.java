@@ -0,0 +1,159 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.inspector;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import io.flutter.utils.JsonUtils;
+import org.junit.Test;
+
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+public class DiagnosticsNodeTest {
+  @Test
+  public void decodesCommonMembers() {
+    final DiagnosticsNode padding = load();
+    assertEquals("Padding", padding.getDescription());
+    assertEquals("_ElementDiagnosticableTreeNode", padding.getType());
+    assertEquals(DiagnosticsTreeStyle.dense, padding.getStyle());
+    assertEquals(DiagnosticLevel.info, padding.getLevel());
+    assertEquals("inspector-41", padding.getValueRef().getId());
+    assertEquals("inspector-40", padding.getDartDiagnosticRef().getId());
+    assertEquals(12, padding.getLocationId());
+    assertTrue(padding.hasChildren());
+    assertTrue(padding.childrenReady());
+    assertFalse(padding.getAllowWrap());
+    assertTrue(padding.getShowName());
+    assertTrue(padding.isCreatedByLocalProject());
+    assertTrue(padding.isSummaryTree());
+    assertFalse(padding.isStateful());
+    assertTrue(padding.hasCreationLocation());
+    assertEquals("Padding", padding.getWidgetRuntimeType());
+    assertEquals("Padding", padding.getStringMember("widgetRuntimeType"));
+    assertNull(padding.getName());
+  }
+
+  @Test
+  public void keepsUncommonMembers() {
+    final DiagnosticsNode padding = load();
+    assertTrue(padding.hasInlineProperties());
+    final DiagnosticsNode property = padding.getInlineProperties().get(0);
+    assertTrue(property.isProperty());
+    assertEquals("padding", property.getName());
+    assertEquals("EdgeInsets", property.getPropertyType());
+    assertTrue(property.hasTooltip());
+    assertEquals("the amount of space to inset the child", property.getStringMember("tooltip"));
+    assertFalse(property.hasDefaultValue());
+
+    final DiagnosticsNode text = padding.getChildren().getNow(null).get(0);
+    assertFalse(text.hasChildren());
+    final DiagnosticsNode data = text.getInlineProperties().get(0);
+    assertTrue(data.hasIsQuoted());
+    assertTrue(data.getIsQuoted());
+    assertNull(data.getValueRef().getId());
+    final DiagnosticsNode textAlign = text.getInlineProperties().get(1);
+    assertEquals(DiagnosticLevel.fine, textAlign.getLevel());
+    assertFalse(textAlign.hasIsQuoted());
+    assertTrue(textAlign.hasDefaultValue());
+  }
+
+  @Test
+  public void unknownStyleFallsBackToDefault() {
+    final JsonObject json = new JsonObject();
+    json.addProperty("description", "Future");
+    json.addProperty("style", "someNewStyle");
+    json.addProperty("level", "someNewLevel");
+    final DiagnosticsNode node = create(json);
+    assertEquals(DiagnosticsTreeStyle.sparse, node.getStyle());
+    assertEquals(DiagnosticLevel.info, node.getLevel());
+  }
+
+  @Test
+  public void identicalDisplayIgnoresIds() {
+    final JsonObject json = loadJson();
+    final JsonObject other = loadJson();
+    other.addProperty("objectId", "inspector-1040");
+    other.addProperty("valueId", "inspector-1041");
+    assertTrue(create(json).identicalDisplay(create(other)));
+
+    // The ids of children are ignored too, whether or not the children have been turned into nodes.
+    other.getAsJsonArray("children").get(0).getAsJsonObject().addProperty("objectId", "inspector-1044");
+    assertTrue(create(json).identicalDisplay(create(other)));
+    final DiagnosticsNode node = create(json);
+    node.getChildren();
+    assertTrue(node.identicalDisplay(create(other)));
+
+    final JsonObject changed = loadJson();
+    changed.getAsJsonArray("children").get(0).getAsJsonObject().addProperty("description", "RichText");
+    assertFalse(create(json).identicalDisplay(create(changed)));
+    assertFalse(node.identicalDisplay(create(changed)));
+
+    final JsonObject tooltip = loadJson();
+    tooltip.addProperty("tooltip", "new");
+    assertFalse(create(json).identicalDisplay(create(tooltip)));
+  }
+
+  @Test
+  public void testDecodeLargeTree() {
+    final List<DiagnosticsNode> nodes = new ArrayList<>();
+    expand(create(JsonUtils.parseString(largeTreeText()).getAsJsonObject()), nodes);
+    assertEquals(10001, nodes.size());
+    assertEquals("[root]", nodes.get(0).getDescription());
+    assertEquals("Padding", nodes.get(1).getDescription());
+  }
+
+  /**
+   * Returns a tree of 10,001 nodes built from 2,000 copies of the recorded widget tree under one root.
+   */
+  static String largeTreeText() {
+    final JsonObject template = loadJson();
+    final JsonArray children = new JsonArray();
+    // Each copy of the recorded tree has five nodes; each node gets its own ids, as it would in a real tree.
+    for (int i = 0; i < 2000; i++) {
+      final JsonObject copy = template.deepCopy();
+      copy.addProperty("valueId", "inspector-" + (i * 10));
+      copy.getAsJsonArray("children").get(0).getAsJsonObject().addProperty("valueId", "inspector-" + (i * 10 + 1));
+      children.add(copy);
+    }
+    final JsonObject rootJson = new JsonObject();
+    rootJson.addProperty("description", "[root]");
+    rootJson.addProperty("hasChildren", true);
+    rootJson.add("children", children);
+    return rootJson.toString();
+  }
+
+  /**
+   * Adds the node, its inline properties and all of its descendants to {@code nodes}.
+   */
+  static void expand(DiagnosticsNode node, List<DiagnosticsNode> nodes) {
+    nodes.add(node);
+    nodes.addAll(node.getInlineProperties());
+    if (node.hasChildren()) {
+      for (DiagnosticsNode child : node.getChildren().getNow(null)) {
+        expand(child, nodes);
+      }
+    }
+  }
+
+  private static DiagnosticsNode load() {
+    return create(loadJson());
+  }
+
+  private static JsonObject loadJson() {
+    return JsonUtils.parseReader(new InputStreamReader(
+      DiagnosticsNodeTest.class.getResourceAsStream("inspector_widget_tree.json"), StandardCharsets.UTF_8)).getAsJsonObject();
+  }
+
+  static DiagnosticsNode create(JsonObject json) {
+    return new DiagnosticsNode(json, CompletableFuture.completedFuture(null), null, false, null);
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.inspector;
+
+import com.intellij.openapi.util.Disposer;
+import io.flutter.testing.ProjectFixture;
+import io.flutter.testing.Testing;
+import io.flutter.utils.StreamSubscription;
+import io.flutter.vmService.VMServiceManager;
+import org.dartlang.vm.service.VmService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the request queue of {@link EvalOnDartLibrary} with requests whose responses the test completes.
+ */
+public class EvalOnDartLibraryTest {
+  @Rule
+  public final ProjectFixture fixture = Testing.makeEmptyProject();
+
+  private EvalOnDartLibrary library;
+
+  /**
+   * The names of the requests that were sent, in the order they were sent.
+   */
+  private final BlockingQueue<String> started = new LinkedBlockingQueue<>();
+  private final Map<String, CompletableFuture<String>> responses = new ConcurrentHashMap<>();
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    final VMServiceManager vmServiceManager = mock(VMServiceManager.class);
+    when(vmServiceManager.getCurrentFlutterIsolate(any(), anyBoolean())).thenReturn(mock(StreamSubscription.class));
+    library = new EvalOnDartLibrary(Collections.singleton("package:flutter/src/widgets/widget_inspector.dart"),
+                                    mock(VmService.class), vmServiceManager);
+  }
+
+  @After
+  public void tearDown() {
+    Disposer.dispose(library);
+  }
+
+  @Test
+  public void startsRequestsInOrder() throws Exception {
+    final CompletableFuture<String> a = add(null, "a");
+    final CompletableFuture<String> b = add(null, "b");
+    final CompletableFuture<String> c = add(null, "c");
+    assertEquals("a", nextStarted());
+    assertEquals("b", nextStarted());
+    assertEquals("c", nextStarted());
+
+    respond("c");
+    respond("a");
+    respond("b");
+    assertEquals("a", a.get(5, TimeUnit.SECONDS));
+    assertEquals("b", b.get(5, TimeUnit.SECONDS));
+    assertEquals("c", c.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void singleRequestWindowWaitsForEachResponse() throws Exception {
+    library.setMaxPendingRequests(1);
+    add(null, "a");
+    add(null, "b");
+    add(null, "c");
+    assertEquals("a", nextStarted());
+    assertNothingStarted();
+
+    respond("a");
+    assertEquals("b", nextStarted());
+    assertNothingStarted();
+
+    respond("b");
+    assertEquals("c", nextStarted());
+  }
+
+  @Test
+  public void limitsRequestsInFlight() throws Exception {
+    library.setMaxPendingRequests(2);
+    for (String name : new String[]{"a", "b", "c", "d", "e"}) {
+      add(null, name);
+    }
+    assertEquals("a", nextStarted());
+    assertEquals("b", nextStarted());
+    assertNothingStarted();
+
+    respond("b");
+    assertEquals("c", nextStarted());
+    assertNothingStarted();
+
+    // Widening the window starts the queued requests at once.
+    library.setMaxPendingRequests(4);
+    assertEquals("d", nextStarted());
+    assertEquals("e", nextStarted());
+  }
+
+  @Test
+  public void disposeWaitsForReadsFromItsGroup() throws Exception {
+    final FakeGroup group = new FakeGroup();
+    final FakeGroup otherGroup = new FakeGroup();
+    add(group.mock, "read");
+    add(otherGroup.mock, "otherRead");
+    assertEquals("read", nextStarted());
+    assertEquals("otherRead", nextStarted());
+
+    // Issue the request the way ObjectGroup.dispose does.
+    group.disposing.set(true);
+    final CompletableFuture<String> dispose = add(group.mock, "disposeGroup");
+    group.disposing.set(false);
+    group.disposed.set(true);
+    add(null, "later");
+
+    // Neither the dispose request nor the request after it are sent while the group has a read in flight; the other
+    // group's read does not hold them back.
+    assertNothingStarted();
+    respond("read");
+    assertEquals("disposeGroup", nextStarted());
+    assertEquals("later", nextStarted());
+
+    respond("disposeGroup");
+    assertEquals("disposeGroup", dispose.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void skipsRequestsFromDisposedGroups() throws Exception {
+    final FakeGroup group = new FakeGroup();
+    group.disposed.set(true);
+    assertNull(add(group.mock, "read").get(5, TimeUnit.SECONDS));
+    add(null, "other");
+    assertEquals("other", nextStarted());
+    assertFalse(responses.containsKey("read"));
+  }
+
+  private CompletableFuture<String> add(InspectorService.ObjectGroup group, String name) {
+    return library.addRequest(group, name, () -> {
+      final CompletableFuture<String> response = new CompletableFuture<>();
+      responses.put(name, response);
+      started.add(name);
+      return response;
+    });
+  }
+
+  private void respond(String name) {
+    responses.get(name).complete(name);
+  }
+
+  private String nextStarted() throws InterruptedException {
+    return started.poll(5, TimeUnit.SECONDS);
+  }
+
+  private void assertNothingStarted() throws InterruptedException {
+    assertNull(started.poll(200, TimeUnit.MILLISECONDS));
+  }
+
+  /**
+   * An object group whose disposed state is set by the test.
+   */
+  private static class FakeGroup {
+    final AtomicBoolean disposed = new AtomicBoolean();
+    final AtomicBoolean disposing = new AtomicBoolean();
+    final InspectorService.ObjectGroup mock = mock(InspectorService.ObjectGroup.class);
+
+    FakeGroup() {
+      when(mock.isDisposed()).thenAnswer((invocation) -> disposed.get());
+      when(mock.isDisposing()).thenAnswer((invocation) -> disposing.get());
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.logging;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConsoleEventPipelineTest {
+  private final List<String> printed = new ArrayList<>();
+
+  private ConsoleEventPipeline createPipeline(int maxInFlight, int maxPending) {
+    return new ConsoleEventPipeline(maxInFlight, maxPending, (dropped) -> () -> printed.add("dropped " + dropped), Runnable::run);
+  }
+
+  @Test
+  public void printsInArrivalOrder() {
+    final ConsoleEventPipeline pipeline = createPipeline(4, 100);
+    final List<CompletableFuture<Runnable>> lookups = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      final CompletableFuture<Runnable> lookup = new CompletableFuture<>();
+      lookups.add(lookup);
+      pipeline.add(() -> lookup);
+    }
+
+    final int[] order = {2, 0, 1};
+    for (int i : order) {
+      lookups.get(i).complete(() -> printed.add("event " + i));
+    }
+    assertEquals(List.of("event 0", "event 1", "event 2"), printed);
+  }
+
+  @Test
+  public void limitsLookupsInFlight() {
+    final ConsoleEventPipeline pipeline = createPipeline(2, 100);
+    final List<CompletableFuture<Runnable>> lookups = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      final int event = i;
+      pipeline.add(() -> {
+        final CompletableFuture<Runnable> lookup = new CompletableFuture<>();
+        lookups.add(lookup);
+        return lookup.thenApply((ignored) -> () -> printed.add("event " + event));
+      });
+    }
+    assertEquals(2, lookups.size());
+    assertEquals(3, pipeline.getDeferredCount());
+
+    lookups.get(1).complete(null);
+    assertEquals(3, lookups.size());
+    assertTrue(printed.isEmpty());
+
+    lookups.get(0).complete(null);
+    lookups.get(2).complete(null);
+    assertEquals(List.of("event 0", "event 1", "event 2"), printed);
+    assertEquals(5, lookups.size());
+  }
+
+  @Test
+  public void dropsEventsWhenFull() {
+    final ConsoleEventPipeline pipeline = createPipeline(1, 2);
+    final CompletableFuture<Runnable> first = new CompletableFuture<>();
+    assertTrue(pipeline.add(() -> first));
+    assertTrue(pipeline.add(() -> CompletableFuture.completedFuture(() -> printed.add("second"))));
+    assertFalse(pipeline.add(() -> CompletableFuture.completedFuture(() -> printed.add("third"))));
+    assertFalse(pipeline.add(() -> CompletableFuture.completedFuture(() -> printed.add("fourth"))));
+    assertEquals(2, pipeline.getDroppedCount());
+
+    first.complete(() -> printed.add("first"));
+    assertTrue(pipeline.add(() -> CompletableFuture.completedFuture(() -> printed.add("fifth"))));
+    assertEquals(List.of("first", "second", "dropped 2", "fifth"), printed);
+    assertEquals(5, pipeline.getReceivedCount());
+  }
+}
@@ -7,43 +7,49 @@ package io.flutter.perf;
 
 import org.junit.Test;
 
-import static org.junit.Assert.assertEquals;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
 
 public class SlidingWindowStatsTest {
+  private static final int LOCATION = 3;
+
   @Test
   public void simpleSlidingWindowStats() {
     final SlidingWindowStats stats = new SlidingWindowStats();
-    assertEquals(0, stats.getTotal());
-    stats.add(1, 0);
-    stats.add(1, 1);
-    assertEquals(2, stats.getTotal());
-    stats.add(1, 2);
-    stats.add(1, 3);
-    assertEquals(4, stats.getTotal());
-    assertEquals(4, stats.getTotalWithinWindow(0));
-    assertEquals(3, stats.getTotalWithinWindow(1));
-    assertEquals(2, stats.getTotalWithinWindow(2));
-    assertEquals(1, stats.getTotalWithinWindow(3));
+    assertEquals(0, stats.getTotal(LOCATION));
+    stats.add(LOCATION, 1, 0);
+    stats.add(LOCATION, 1, 1);
+    assertEquals(2, stats.getTotal(LOCATION));
+    stats.add(LOCATION, 1, 2);
+    stats.add(LOCATION, 1, 3);
+    assertEquals(4, stats.getTotal(LOCATION));
+    assertEquals(4, stats.getTotalWithinWindow(LOCATION, 0));
+    assertEquals(3, stats.getTotalWithinWindow(LOCATION, 1));
+    assertEquals(2, stats.getTotalWithinWindow(LOCATION, 2));
+    assertEquals(1, stats.getTotalWithinWindow(LOCATION, 3));
   }
 
   @Test
   public void totalSinceNavigation() {
     final SlidingWindowStats stats = new SlidingWindowStats();
-    assertEquals(0, stats.getTotal());
-    stats.add(1, 0);
-    stats.add(1, 1);
-    assertEquals(2, stats.getTotalSinceNavigation());
-    assertEquals(2, stats.getTotal());
+    assertEquals(0, stats.getTotal(LOCATION));
+    stats.add(LOCATION, 1, 0);
+    stats.add(LOCATION, 1, 1);
+    assertEquals(2, stats.getTotalSinceNavigation(LOCATION));
+    assertEquals(2, stats.getTotal(LOCATION));
     stats.onNavigation();
-    assertEquals(0, stats.getTotalSinceNavigation());
-    assertEquals(2, stats.getTotal());
-    stats.add(1, 2);
-    assertEquals(1, stats.getTotalSinceNavigation());
+    assertEquals(0, stats.getTotalSinceNavigation(LOCATION));
+    assertEquals(2, stats.getTotal(LOCATION));
+    stats.add(LOCATION, 1, 2);
+    assertEquals(1, stats.getTotalSinceNavigation(LOCATION));
   }
 
   private void add1000Times(SlidingWindowStats stats, int timeStamp) {
     for (int i = 0; i < 1000; i++) {
-      stats.add(1, timeStamp);
+      stats.add(LOCATION, 1, timeStamp);
     }
   }
 
@@ -51,17 +57,17 @@ public class SlidingWindowStatsTest {
   public void duplicateSlidingWindowStatTimestamps() {
     final SlidingWindowStats stats = new SlidingWindowStats();
 
-    assertEquals(0, stats.getTotal());
+    assertEquals(0, stats.getTotal(LOCATION));
     add1000Times(stats, 0);
     add1000Times(stats, 1);
-    assertEquals(2000, stats.getTotal());
+    assertEquals(2000, stats.getTotal(LOCATION));
     add1000Times(stats, 2);
     add1000Times(stats, 3);
-    assertEquals(4000, stats.getTotal());
-    assertEquals(4000, stats.getTotalWithinWindow(0));
-    assertEquals(3000, stats.getTotalWithinWindow(1));
-    assertEquals(2000, stats.getTotalWithinWindow(2));
-    assertEquals(1000, stats.getTotalWithinWindow(3));
+    assertEquals(4000, stats.getTotal(LOCATION));
+    assertEquals(4000, stats.getTotalWithinWindow(LOCATION, 0));
+    assertEquals(3000, stats.getTotalWithinWindow(LOCATION, 1));
+    assertEquals(2000, stats.getTotalWithinWindow(LOCATION, 2));
+    assertEquals(1000, stats.getTotalWithinWindow(LOCATION, 3));
     add1000Times(stats, 4);
     add1000Times(stats, 5);
     add1000Times(stats, 6);
@@ -69,45 +75,144 @@ public class SlidingWindowStatsTest {
     add1000Times(stats, 8);
     add1000Times(stats, 9);
     add1000Times(stats, 10);
-    assertEquals(11000, stats.getTotal());
-    assertEquals(11000, stats.getTotalWithinWindow(0));
+    assertEquals(11000, stats.getTotal(LOCATION));
+    assertEquals(11000, stats.getTotalWithinWindow(LOCATION, 0));
     add1000Times(stats, 11);
   }
 
   @Test
   public void clearSlidingWindowStats() {
     final SlidingWindowStats stats = new SlidingWindowStats();
-    stats.add(1, 0);
-    stats.add(1, 1);
-    stats.add(1, 2);
-    stats.add(1, 3);
-    assertEquals(4, stats.getTotal());
-    assertEquals(4, stats.getTotalWithinWindow(0));
+    stats.add(LOCATION, 1, 0);
+    stats.add(LOCATION, 1, 1);
+    stats.add(LOCATION, 1, 2);
+    stats.add(LOCATION, 1, 3);
+    assertEquals(4, stats.getTotal(LOCATION));
+    assertEquals(4, stats.getTotalWithinWindow(LOCATION, 0));
 
     stats.clear();
-    stats.add(1, 4);
-    stats.add(1, 5);
-    assertEquals(2, stats.getTotal());
-    assertEquals(1, stats.getTotalWithinWindow(5));
-    assertEquals(2, stats.getTotalWithinWindow(0));
+    stats.add(LOCATION, 1, 4);
+    stats.add(LOCATION, 1, 5);
+    assertEquals(2, stats.getTotal(LOCATION));
+    assertEquals(1, stats.getTotalWithinWindow(LOCATION, 5));
+    assertEquals(2, stats.getTotalWithinWindow(LOCATION, 0));
     stats.clear();
 
     // Intentionally shift timestamps backwards as could happen after a hot
     // reload.
-    stats.add(1, 0);
-    stats.add(1, 1);
-    stats.add(1, 2);
-    stats.add(1, 3);
-    assertEquals(4, stats.getTotal());
-    assertEquals(4, stats.getTotalWithinWindow(0));
-    stats.add(1, 4);
-    stats.add(1, 5);
-    stats.add(1, 6);
-    stats.add(1, 7);
-    stats.add(1, 8);
-    stats.add(1, 9);
-    stats.add(1, 10);
-    assertEquals(11, stats.getTotal());
-    assertEquals(11, stats.getTotalWithinWindow(0));
+    stats.add(LOCATION, 1, 0);
+    stats.add(LOCATION, 1, 1);
+    stats.add(LOCATION, 1, 2);
+    stats.add(LOCATION, 1, 3);
+    assertEquals(4, stats.getTotal(LOCATION));
+    assertEquals(4, stats.getTotalWithinWindow(LOCATION, 0));
+    stats.add(LOCATION, 1, 4);
+    stats.add(LOCATION, 1, 5);
+    stats.add(LOCATION, 1, 6);
+    stats.add(LOCATION, 1, 7);
+    stats.add(LOCATION, 1, 8);
+    stats.add(LOCATION, 1, 9);
+    stats.add(LOCATION, 1, 10);
+    assertEquals(11, stats.getTotal(LOCATION));
+    assertEquals(11, stats.getTotalWithinWindow(LOCATION, 0));
+  }
+
+  @Test
+  public void separateLocations() {
+    final SlidingWindowStats stats = new SlidingWindowStats();
+    stats.add(1, 2, 0);
+    stats.add(7, 5, 0);
+    stats.add(7, 1, 1);
+    stats.add(100, 3, 2);
+    assertEquals(2, stats.getTotal(1));
+    assertEquals(6, stats.getTotal(7));
+    assertEquals(3, stats.getTotal(100));
+    assertEquals(0, stats.getTotalWithinWindow(1, 1));
+    assertEquals(1, stats.getTotalWithinWindow(7, 1));
+    assertEquals(3, stats.getTotalWithinWindow(100, 1));
+    assertFalse(stats.hasLocation(2));
+
+    stats.clear(7);
+    assertFalse(stats.hasLocation(7));
+    assertEquals(0, stats.getTotal(7));
+    assertEquals(2, stats.getTotal(1));
+    stats.add(7, 4, 3);
+    assertEquals(4, stats.getTotal(7));
+    assertEquals(4, stats.getTotalWithinWindow(7, 0));
+
+    // Location 7 got its old column back.
+    final List<Integer> locations = new ArrayList<>();
+    stats.forEachLocation(locations::add);
+    assertEquals(Arrays.asList(1, 7, 100), locations);
+  }
+
+  @Test
+  public void reusesClearedColumns() {
+    final SlidingWindowStats stats = new SlidingWindowStats();
+    for (int location = 0; location < 20; location++) {
+      stats.add(location, 1, 0);
+    }
+    assertEquals(20, stats.getColumnCount());
+
+    // Each reload moves the locations to new ids and clears the old ones.
+    int timeStamp = 0;
+    for (int reload = 1; reload <= 10; reload++) {
+      for (int location = 0; location < 20; location++) {
+        stats.clear((reload - 1) * 20 + location);
+      }
+      timeStamp += 16;
+      for (int location = 0; location < 20; location++) {
+        stats.add(reload * 20 + location, 2, timeStamp);
+      }
+    }
+    assertEquals(20, stats.getColumnCount());
+
+    // The reused columns start from zero.
+    assertEquals(2, stats.getTotal(200));
+    assertEquals(2, stats.getTotalWithinWindow(219, 0));
+    assertEquals(2, stats.getPeakWithinWindow(205, 0));
+    assertFalse(stats.hasLocation(0));
+    final List<Integer> locations = new ArrayList<>();
+    stats.forEachLocation(locations::add);
+    assertEquals(20, locations.size());
+  }
+
+  @Test
+  public void peakWithinWindow() {
+    final SlidingWindowStats stats = new SlidingWindowStats();
+    for (int timeStamp = 0; timeStamp < 100; timeStamp++) {
+      stats.add(LOCATION, timeStamp % 10, timeStamp);
+      stats.add(LOCATION + 1, 1, timeStamp);
+    }
+    assertEquals(9, stats.getPeakWithinWindow(LOCATION, 99));
+    assertEquals(9, stats.getPeakWithinWindow(LOCATION, 98));
+    assertEquals(9, stats.getPeakWithinWindow(LOCATION, 50));
+    assertEquals(1, stats.getPeakWithinWindow(LOCATION + 1, 50));
+    assertEquals(0, stats.getPeakWithinWindow(LOCATION, 100));
+    assertEquals(9, stats.getValue(LOCATION, PerfMetric.lastFrame, 99));
+    assertEquals(9, stats.getValue(LOCATION, PerfMetric.peakRecent, 99));
+  }
+
+  @Test
+  public void wrapsAroundWindow() {
+    final SlidingWindowStats stats = new SlidingWindowStats();
+    final int frames = SlidingWindowStats.WINDOW_LENGTH * 3 + 7;
+    for (int frame = 0; frame < frames; frame++) {
+      // Add locations as we go, so that the matrix grows while the ring wraps.
+      for (int location = 0; location <= frame / 10; location++) {
+        stats.add(location, 1, frame * 16);
+      }
+    }
+    final int now = (frames - 1) * 16;
+    assertEquals(frames, stats.getTotal(0));
+    assertEquals(63, stats.getValue(0, PerfMetric.pastSecond, now));
+    assertEquals(1, stats.getValue(0, PerfMetric.peakRecent, now));
+    // The whole window is used when the window start is older than the oldest retained report.
+    assertEquals(SlidingWindowStats.WINDOW_LENGTH - 2, stats.getTotalWithinWindow(0, 0));
+
+    stats.onNavigation();
+    stats.add(0, 5, now + 16);
+    assertEquals(5, stats.getTotalSinceNavigation(0));
+    assertEquals(frames + 5, stats.getTotal(0));
   }
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.pub;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PubspecScannerTest {
+
+  @Test
+  public void scansFlutterApp() {
+    final PubspecScanner scanner = PubspecScanner.scan(
+      "name: my_app\n" +
+      "description: A new Flutter project.\n" +
+      "\n" +
+      "environment:\n" +
+      "  sdk: \">=2.12.0 <3.0.0\"\n" +
+      "\n" +
+      "dependencies:\n" +
+      "  # The SDK.\n" +
+      "  flutter:\n" +
+      "    sdk: flutter\n" +
+      "  cupertino_icons: ^1.0.2\n" +
+      "\n" +
+      "flutter:\n" +
+      "  uses-material-design: true\n");
+    assertNotNull(scanner);
+    assertEquals("my_app", scanner.getName());
+    assertTrue(scanner.dependsOnFlutter());
+    assertFalse(scanner.declaresPlugin());
+  }
+
+  @Test
+  public void scansFlutterPlugin() {
+    final PubspecScanner scanner = PubspecScanner.scan(
+      "name: 'my_plugin' # quoted\r\n" +
+      "dependencies:\r\n" +
+      "    flutter:\r\n" +
+      "        sdk: flutter\r\n" +
+      "flutter:\r\n" +
+      "    plugin:\r\n" +
+      "        platforms:\r\n" +
+      "            android:\r\n" +
+      "                package: com.example.my_plugin\r\n");
+    assertNotNull(scanner);
+    assertEquals("my_plugin", scanner.getName());
+    assertTrue(scanner.dependsOnFlutter());
+    assertTrue(scanner.declaresPlugin());
+  }
+
+  @Test
+  public void ignoresNestedKeys() {
+    final PubspecScanner scanner = PubspecScanner.scan(
+      "name: flutter_tools\n" +
+      "dependencies:\n" +
+      "  args:\n" +
+      "    flutter: 1.0\n" +
+      "dev_dependencies:\n" +
+      "  flutter:\n" +
+      "    sdk: flutter\n" +
+      "other:\n" +
+      "  flutter:\n" +
+      "    plugin: true\n");
+    assertNotNull(scanner);
+    assertEquals("flutter_tools", scanner.getName());
+    assertFalse(scanner.dependsOnFlutter());
+    assertFalse(scanner.declaresPlugin());
+  }
+
+  @Test
+  public void scansEmptyAndScalarSections() {
+    final PubspecScanner empty = PubspecScanner.scan("");
+    assertNotNull(empty);
+    assertNull(empty.getName());
+    assertFalse(empty.dependsOnFlutter());
+
+    final PubspecScanner scalar = PubspecScanner.scan("name: flutter\ndependencies: none\nflutter:\n");
+    assertNotNull(scalar);
+    assertEquals("flutter", scalar.getName());
+    assertFalse(scalar.dependsOnFlutter());
+    assertFalse(scalar.declaresPlugin());
+  }
+
+  @Test
+  public void rejectsUnsupportedYaml() {
+    assertNull(PubspecScanner.scan("dependencies: {flutter: {sdk: flutter}}\n"));
+    assertNull(PubspecScanner.scan("---\nname: a\n"));
+    assertNull(PubspecScanner.scan("name: a\ndependencies: &deps\n  flutter:\n"));
+    assertNull(PubspecScanner.scan("dependencies:\n  \"flutter\":\n    sdk: flutter\n"));
+    assertNull(PubspecScanner.scan("name: flutter\n  continued\n"));
+    assertNull(PubspecScanner.scan("name: a\nname: b\n"));
+    assertNull(PubspecScanner.scan("  name: a\n"));
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.sdk;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FlutterSdkQueryCacheTest {
+  @Rule
+  public final TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void persistsResultsAcrossInstances() throws IOException {
+    final Path file = tmp.getRoot().toPath().resolve("sdk-queries.json");
+    final FlutterSdkQueryCache first = new FlutterSdkQueryCache(file);
+    first.putConfig("/sdk", "stamps", Map.of("android-sdk", "/android"));
+    first.putVersionOutput("/sdk", "stamps", "Flutter 3.0.0");
+
+    final FlutterSdkQueryCache second = new FlutterSdkQueryCache(file);
+    assertEquals(Map.of("android-sdk", "/android"), second.getConfig("/sdk", "stamps"));
+    assertEquals("Flutter 3.0.0", second.getVersionOutput("/sdk", "stamps"));
+    assertNull(second.getConfig("/other-sdk", "stamps"));
+  }
+
+  @Test
+  public void dropsResultsWhenStampsChange() throws IOException {
+    final Path file = tmp.getRoot().toPath().resolve("sdk-queries.json");
+    final FlutterSdkQueryCache cache = new FlutterSdkQueryCache(file);
+    cache.putConfig("/sdk", "old", Map.of("enable-web", "true"));
+    cache.putVersionOutput("/sdk", "old", "Flutter 3.0.0");
+
+    assertNull(cache.getConfig("/sdk", "new"));
+    assertEquals(Map.of("enable-web", "true"), cache.getConfig("/sdk", null));
+
+    // Saving a result for new stamps drops everything computed for the old ones.
+    cache.putConfig("/sdk", "new", Map.of("enable-web", "false"));
+    assertEquals(Map.of("enable-web", "false"), cache.getConfig("/sdk", "new"));
+    assertNull(cache.getVersionOutput("/sdk", null));
+  }
+
+  @Test
+  public void ignoresCorruptFile() throws IOException {
+    final Path file = tmp.getRoot().toPath().resolve("sdk-queries.json");
+    Files.write(file, "{not json".getBytes(StandardCharsets.UTF_8));
+    final FlutterSdkQueryCache cache = new FlutterSdkQueryCache(file);
+    assertNull(cache.getConfig("/sdk", null));
+
+    cache.putVersionOutput("/sdk", "stamps", "Flutter 3.0.0");
+    assertEquals("Flutter 3.0.0", new FlutterSdkQueryCache(file).getVersionOutput("/sdk", "stamps"));
+  }
+
+  @Test
+  public void stampsChangeWithVersionFile() throws IOException {
+    final Path home = tmp.newFolder("flutter").toPath();
+    final String before = FlutterSdkQueryCache.computeStamps(home.toString());
+    Files.write(home.resolve("version"), "3.0.0".getBytes(StandardCharsets.UTF_8));
+    final String after = FlutterSdkQueryCache.computeStamps(home.toString());
+    assertNotEquals(before, after);
+    assertEquals(after, FlutterSdkQueryCache.computeStamps(home.toString()));
+  }
+}
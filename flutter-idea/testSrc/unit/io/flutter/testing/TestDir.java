@@ -71,6 +71,35 @@ public class TestDir extends ExternalResource {
     });
   }
 
+  /**
+   * Renames a file or directory in the temp directory.
+   *
+   * @param path    relative to the temp directory.
+   * @param newName the new name, without a path.
+   */
+  public void renameFile(String path, String newName) throws Exception {
+    Testing.runInWriteAction(() -> {
+      final VirtualFile target = fixture.getFile(path);
+      assertNotNull("attempted to rename nonexistent file: " + path, target);
+      target.rename(this, newName);
+    });
+  }
+
+  /**
+   * Moves a file or directory in the temp directory into another directory.
+   *
+   * @param path      relative to the temp directory.
+   * @param newParent relative to the temp directory; created if it doesn't exist.
+   */
+  public void moveFile(String path, String newParent) throws Exception {
+    final VirtualFile dir = ensureDir(newParent);
+    Testing.runInWriteAction(() -> {
+      final VirtualFile target = fixture.getFile(path);
+      assertNotNull("attempted to move nonexistent file: " + path, target);
+      target.move(this, dir);
+    });
+  }
+
   /**
    * Given a path relative to the temp directory, returns the absolute path.
    */
@@ -45,4 +45,85 @@ public class FileWatchTest {
     tmp.deleteFile("abc/child");
     assertEquals(count + 2, eventCount.get());
   }
+
+  @Test
+  public void shouldFireEventsForChildren() throws Exception {
+    final VirtualFile dir = tmp.ensureDir("abc");
+
+    final AtomicInteger eventCount = new AtomicInteger();
+    final FileWatch fileWatch = FileWatch.subscribe(dir, FileWatch.Depth.CHILDREN, eventCount::incrementAndGet);
+
+    tmp.writeFile("abc/child", "");
+    final int count;
+    assertNotEquals(0, count = eventCount.get());
+
+    // Changes further down are not reported.
+    tmp.ensureDir("abc/sub");
+    final int afterMkdir = eventCount.get();
+    assertNotEquals(count, afterMkdir);
+    tmp.writeFile("abc/sub/grandchild", "");
+    assertEquals(afterMkdir, eventCount.get());
+
+    fileWatch.unsubscribe();
+  }
+
+  @Test
+  public void shouldFireEventsRecursively() throws Exception {
+    final VirtualFile dir = tmp.ensureDir("abc");
+    tmp.ensureDir("abc/sub");
+
+    final AtomicInteger eventCount = new AtomicInteger();
+    final FileWatch fileWatch = FileWatch.subscribe(dir, ImmutableSet.of("sub"), FileWatch.Depth.RECURSIVE, eventCount::incrementAndGet);
+
+    tmp.writeFile("abc/sub/grandchild", "");
+    final int count;
+    assertNotEquals(0, count = eventCount.get());
+
+    // Siblings are not reported.
+    tmp.writeFile("abc/other", "");
+    assertEquals(count, eventCount.get());
+
+    fileWatch.unsubscribe();
+  }
+
+  @Test
+  public void shouldFollowRenamedBaseDirectory() throws Exception {
+    final VirtualFile dir = tmp.ensureDir("abc");
+
+    final AtomicInteger eventCount = new AtomicInteger();
+    final FileWatch fileWatch = FileWatch.subscribe(dir, ImmutableSet.of("child"), eventCount::incrementAndGet);
+
+    tmp.renameFile("abc", "renamed");
+    final int count = eventCount.get();
+
+    tmp.writeFile("renamed/child", "");
+    assertNotEquals(count, eventCount.get());
+
+    // The old location is no longer watched.
+    final int afterCreate = eventCount.get();
+    tmp.writeFile("abc/child", "");
+    assertEquals(afterCreate, eventCount.get());
+
+    fileWatch.unsubscribe();
+  }
+
+  @Test
+  public void shouldFollowMovedBaseDirectory() throws Exception {
+    final VirtualFile dir = tmp.ensureDir("parent/abc");
+
+    final AtomicInteger eventCount = new AtomicInteger();
+    final FileWatch fileWatch = FileWatch.subscribe(dir, FileWatch.Depth.RECURSIVE, eventCount::incrementAndGet);
+
+    // Moving a parent of the base moves the base too.
+    tmp.moveFile("parent", "other");
+    final int count = eventCount.get();
+
+    tmp.writeFile("other/parent/abc/child", "");
+    assertNotEquals(count, eventCount.get());
+
+    fileWatch.unsubscribe();
+    final int afterUnsubscribe = eventCount.get();
+    tmp.writeFile("other/parent/abc/child", "hello");
+    assertEquals(afterUnsubscribe, eventCount.get());
+  }
 }
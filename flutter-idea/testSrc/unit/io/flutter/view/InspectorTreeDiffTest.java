@@ -0,0 +1,142 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.view;
+
+import com.google.gson.JsonObject;
+import io.flutter.inspector.DiagnosticsNode;
+import io.flutter.utils.JsonUtils;
+import org.junit.Test;
+
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+public class InspectorTreeDiffTest {
+  @Test
+  public void identicalTreeFiresNoEvents() {
+    final DefaultTreeModel model = new DefaultTreeModel(null);
+    final DefaultMutableTreeNode root = showTree(model, "inspector_tree_1.json");
+    final DefaultMutableTreeNode text = findNode(root, "Text");
+    final List<String> events = recordEvents(model);
+
+    final List<DefaultMutableTreeNode> shown = new ArrayList<>();
+    final InspectorTreeDiff diff = new InspectorTreeDiff(model, (node, diagnosticsNode) -> shown.add(node));
+    diff.update(root, load("inspector_tree_1.json"));
+
+    assertEquals(Collections.emptyList(), events);
+    assertEquals(Collections.emptyList(), diff.getInsertedSubtrees());
+    assertEquals(8, shown.size());
+    // Tree nodes are reused, so their expansion state is kept.
+    assertSame(text, findNode(root, "Text"));
+  }
+
+  @Test
+  public void changedTreeFiresMinimalEvents() {
+    final DefaultTreeModel model = new DefaultTreeModel(null);
+    final DefaultMutableTreeNode root = showTree(model, "inspector_tree_1.json");
+    final DefaultMutableTreeNode column = findNode(root, "Column");
+    final List<String> events = recordEvents(model);
+
+    final DiagnosticsNode newRoot = load("inspector_tree_2.json");
+    assertTrue(InspectorTreeDiff.canUpdate(root, newRoot));
+    final InspectorTreeDiff diff = new InspectorTreeDiff(model, (node, diagnosticsNode) -> {});
+    diff.update(root, newRoot);
+
+    assertEquals(Arrays.asList(
+      "changed Text [0]",
+      "removed Column [0]",
+      "inserted Column [1]"
+    ), events);
+    assertSame(column, findNode(root, "Column"));
+    assertEquals(1, diff.getInsertedSubtrees().size());
+    assertEquals("Padding", getDescription(diff.getInsertedSubtrees().get(0)));
+    assertEquals(1, diff.getInsertedSubtrees().get(0).getChildCount());
+
+    // Every node now shows the new tree.
+    assertSame(newRoot, root.getUserObject());
+    assertEquals("\"Hello, world\"", getDescription((DefaultMutableTreeNode)findNode(root, "Text").getFirstChild()));
+    assertEquals("inspector-6", ((DiagnosticsNode)((DefaultMutableTreeNode)column.getFirstChild()).getUserObject()).getValueRef().getId());
+  }
+
+  @Test
+  public void differentRootCannotBeUpdated() {
+    final DefaultTreeModel model = new DefaultTreeModel(null);
+    final DefaultMutableTreeNode root = showTree(model, "inspector_tree_1.json");
+    assertFalse(InspectorTreeDiff.canUpdate(root, (DiagnosticsNode)findNode(root, "Scaffold").getUserObject()));
+    assertFalse(InspectorTreeDiff.canUpdate(null, load("inspector_tree_1.json")));
+  }
+
+  private static DefaultMutableTreeNode showTree(DefaultTreeModel model, String snapshot) {
+    final DiagnosticsNode diagnosticsNode = load(snapshot);
+    final DefaultMutableTreeNode root = new DefaultMutableTreeNode(diagnosticsNode);
+    model.setRoot(root);
+    // Diffing against a tree with only a root builds the whole tree.
+    new InspectorTreeDiff(model, (node, n) -> {}).update(root, diagnosticsNode);
+    return root;
+  }
+
+  private static DiagnosticsNode load(String snapshot) {
+    final JsonObject json = JsonUtils.parseReader(new InputStreamReader(
+      InspectorTreeDiffTest.class.getResourceAsStream(snapshot), StandardCharsets.UTF_8)).getAsJsonObject();
+    return new DiagnosticsNode(json, CompletableFuture.completedFuture(null), null, false, null);
+  }
+
+  private static List<String> recordEvents(DefaultTreeModel model) {
+    final List<String> events = new ArrayList<>();
+    model.addTreeModelListener(new TreeModelListener() {
+      @Override
+      public void treeNodesChanged(TreeModelEvent e) {
+        events.add("changed " + describe(e));
+      }
+
+      @Override
+      public void treeNodesInserted(TreeModelEvent e) {
+        events.add("inserted " + describe(e));
+      }
+
+      @Override
+      public void treeNodesRemoved(TreeModelEvent e) {
+        events.add("removed " + describe(e));
+      }
+
+      @Override
+      public void treeStructureChanged(TreeModelEvent e) {
+        events.add("structure " + describe(e));
+      }
+    });
+    return events;
+  }
+
+  private static String describe(TreeModelEvent e) {
+    return getDescription((DefaultMutableTreeNode)e.getTreePath().getLastPathComponent()) + " " + Arrays.toString(e.getChildIndices());
+  }
+
+  private static String getDescription(DefaultMutableTreeNode node) {
+    return ((DiagnosticsNode)node.getUserObject()).getDescription();
+  }
+
+  private static DefaultMutableTreeNode findNode(DefaultMutableTreeNode root, String description) {
+    for (final Enumeration<?> e = root.depthFirstEnumeration(); e.hasMoreElements(); ) {
+      final DefaultMutableTreeNode node = (DefaultMutableTreeNode)e.nextElement();
+      if (description.equals(getDescription(node))) {
+        return node;
+      }
+    }
+    fail("No node " + description);
+    return null;
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.vmService;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FrameHistoryTest {
+  @Test
+  public void snapshotIsNewestFirst() {
+    final FrameHistory history = new FrameHistory(4);
+    assertTrue(history.isEmpty());
+    history.add(1, 100, 10, 1, true, false);
+    history.add(2, 200, 20, 1, false, false);
+    history.add(3, 300, 30, 2, false, true);
+
+    final FrameHistory.Snapshot snapshot = history.snapshot(10);
+    assertEquals(3, snapshot.size());
+    assertEquals(3, snapshot.getFrameNumber(0));
+    assertEquals(300, snapshot.getStartMicros(0));
+    assertEquals(30, snapshot.getElapsedMicros(0));
+    assertTrue(snapshot.isSlow(0));
+    assertEquals(1, snapshot.getFrameNumber(2));
+    assertTrue(snapshot.isSetStart(2));
+    assertFalse(snapshot.isSetStart(1));
+
+    assertEquals(2, history.snapshot(2).size());
+  }
+
+  @Test
+  public void wrapsAround() {
+    final FrameHistory history = new FrameHistory(3);
+    for (int i = 1; i <= 7; i++) {
+      history.add(i, i * 100, 10, 1, false, false);
+    }
+
+    final FrameHistory.Snapshot snapshot = history.snapshot(10);
+    assertEquals(3, snapshot.size());
+    assertEquals(7, snapshot.getFrameNumber(0));
+    assertEquals(6, snapshot.getFrameNumber(1));
+    assertEquals(5, snapshot.getFrameNumber(2));
+  }
+
+  @Test
+  public void tracksCurrentFrameSet() {
+    final FrameHistory history = new FrameHistory(3);
+    history.add(1, 0, 10, 1, true, false);
+    history.add(2, 0, 10, 2, false, false);
+    assertEquals(2, history.getCurrentSetFrameCount());
+    assertEquals(3, history.getCurrentSetCost());
+
+    history.add(3, 0, 10, 1, true, false);
+    assertEquals(1, history.getCurrentSetFrameCount());
+    assertEquals(1, history.getCurrentSetCost());
+
+    // Frames evicted from the history no longer count.
+    history.add(4, 0, 10, 1, false, false);
+    history.add(5, 0, 10, 1, false, false);
+    history.add(6, 0, 10, 3, false, false);
+    assertEquals(3, history.getCurrentSetFrameCount());
+    assertEquals(5, history.getCurrentSetCost());
+  }
+
+  @Test
+  public void limitsCurrentFrameSetToFpsWindow() {
+    final FrameHistory history = new FrameHistory(10, 3);
+    history.add(1, 0, 10, 4, true, true);
+    history.add(2, 0, 10, 1, false, false);
+    history.add(3, 0, 10, 1, false, false);
+    assertEquals(3, history.getCurrentSetFrameCount());
+    assertEquals(6, history.getCurrentSetCost());
+
+    // The first frame leaves the window but stays in the history.
+    history.add(4, 0, 10, 2, false, false);
+    assertEquals(3, history.getCurrentSetFrameCount());
+    assertEquals(4, history.getCurrentSetCost());
+    assertEquals(4, history.snapshot(10).size());
+    assertEquals(1, history.getJankCount());
+
+    history.add(5, 0, 10, 1, true, false);
+    assertEquals(1, history.getCurrentSetFrameCount());
+    assertEquals(1, history.getCurrentSetCost());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsFpsWindowLongerThanHistory() {
+    new FrameHistory(3, 4);
+  }
+
+  @Test
+  public void tracksJankCount() {
+    final FrameHistory history = new FrameHistory(2);
+    history.add(1, 0, 10, 1, true, true);
+    history.add(2, 0, 10, 1, false, true);
+    assertEquals(2, history.getJankCount());
+    history.add(3, 0, 10, 1, false, false);
+    assertEquals(1, history.getJankCount());
+    history.add(4, 0, 10, 1, false, false);
+    assertEquals(0, history.getJankCount());
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.vmService;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HeapHistoryTest {
+  @Test
+  public void snapshotIsNewestFirst() {
+    final HeapHistory history = new HeapHistory(4);
+    assertTrue(history.isEmpty());
+    history.add(1000, 10, 100, 1);
+    history.add(2000, 20, 100, 2);
+    history.add(3000, 30, 200, 3);
+    assertFalse(history.isEmpty());
+
+    final HeapHistory.Snapshot snapshot = history.snapshot(10);
+    assertEquals(3, snapshot.size());
+    assertEquals(3000, snapshot.getTimeMillis(0));
+    assertEquals(30, snapshot.getHeapUsage(0));
+    assertEquals(200, snapshot.getHeapCapacity(0));
+    assertEquals(3, snapshot.getExternalUsage(0));
+    assertEquals(1000, snapshot.getTimeMillis(2));
+
+    assertEquals(2, history.snapshot(2).size());
+    assertEquals(0, history.snapshot(0).size());
+  }
+
+  @Test
+  public void wrapsAround() {
+    final HeapHistory history = new HeapHistory(3);
+    for (int i = 1; i <= 7; i++) {
+      history.add(i * 1000, i, 10, 0);
+    }
+
+    final HeapHistory.Snapshot snapshot = history.snapshot(10);
+    assertEquals(3, snapshot.size());
+    assertEquals(7, snapshot.getHeapUsage(0));
+    assertEquals(6, snapshot.getHeapUsage(1));
+    assertEquals(5, snapshot.getHeapUsage(2));
+  }
+
+  @Test
+  public void keepsLargeValues() {
+    final HeapHistory history = new HeapHistory(2);
+    final long fiveGigabytes = 5L * 1024 * 1024 * 1024;
+    history.add(1000, fiveGigabytes, fiveGigabytes, 0);
+    assertEquals(fiveGigabytes, history.snapshot(1).getHeapUsage(0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsEmptyCapacity() {
+    new HeapHistory(0);
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package org.dartlang.vm.service.internal;
+
+import com.google.gson.JsonParser;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class MessageEnvelopeTest {
+  private static final String FRAME_EVENT =
+    "{\"jsonrpc\":\"2.0\",\"method\":\"streamNotify\",\"params\":{\"streamId\":\"Extension\"," +
+    "\"event\":{\"type\":\"Event\",\"kind\":\"Extension\",\"extensionKind\":\"Flutter.Frame\"," +
+    "\"extensionData\":{\"number\":12,\"elapsed\":16000}}}}";
+
+  @Test
+  public void readsEvent() throws IOException {
+    final MessageEnvelope envelope = MessageEnvelope.read(FRAME_EVENT, (stream) -> true);
+    assertNull(envelope.getId());
+    assertEquals("streamNotify", envelope.getMethod());
+    assertTrue(envelope.hasParams());
+    assertFalse(envelope.isResponse());
+    assertEquals("Extension", envelope.getStreamId());
+    assertEquals("Extension", envelope.getEventKind());
+    assertEquals(JsonParser.parseString(FRAME_EVENT), envelope.getJson());
+  }
+
+  @Test
+  public void skipsEventsOfUnwantedStreams() throws IOException {
+    final MessageEnvelope envelope = MessageEnvelope.read(FRAME_EVENT, "Logging"::equals);
+    assertEquals("streamNotify", envelope.getMethod());
+    assertEquals("Extension", envelope.getStreamId());
+    assertNull(envelope.getEventKind());
+    assertNull(envelope.getJson());
+  }
+
+  @Test
+  public void readsResponse() throws IOException {
+    final String text = "{\"jsonrpc\":\"2.0\",\"result\":{\"type\":\"Version\",\"major\":3,\"minor\":61},\"id\":\"17\"}";
+    final MessageEnvelope envelope = MessageEnvelope.read(text, (stream) -> false);
+    assertEquals("17", envelope.getId());
+    assertNull(envelope.getMethod());
+    assertTrue(envelope.isResponse());
+    assertEquals(JsonParser.parseString(text), envelope.getJson());
+
+    final MessageEnvelope error = MessageEnvelope.read("{\"id\":18,\"error\":{\"code\":100,\"message\":\"x\"}}", (stream) -> false);
+    assertEquals("18", error.getId());
+    assertTrue(error.isResponse());
+  }
+
+  @Test
+  public void unescapesStrings() throws IOException {
+    final String text = "{\"id\":\"a\\\"b\\\\c\\u0041\",\"method\":\"ext.\\u0066lutter\",\"params\":{\"streamId\":\"Std\\/out\"," +
+                        "\"text\":\"}{\\\"method\\\":\\\"x\\\"\"}}";
+    final MessageEnvelope envelope = MessageEnvelope.read(text, (stream) -> true);
+    assertEquals("a\"b\\cA", envelope.getId());
+    assertEquals("ext.flutter", envelope.getMethod());
+    assertEquals("Std/out", envelope.getStreamId());
+    assertEquals("}{\"method\":\"x\"", envelope.getJson().getAsJsonObject("params").get("text").getAsString());
+    assertEquals(JsonParser.parseString(text), envelope.getJson());
+  }
+
+  @Test
+  public void ignoresRoutingNamesInNestedParams() throws IOException {
+    final String text = "{\"method\":\"streamNotify\",\"params\":{\"streamId\":\"Debug\",\"event\":{\"kind\":\"PauseBreakpoint\"," +
+                        "\"isolate\":{\"id\":\"isolates/1\",\"kind\":\"Isolate\",\"event\":{\"kind\":\"Nested\"}}," +
+                        "\"params\":{\"streamId\":\"Other\"}},\"extra\":[{\"streamId\":\"Other\"}]}}";
+    final MessageEnvelope envelope = MessageEnvelope.read(text, (stream) -> true);
+    assertNull(envelope.getId());
+    assertEquals("Debug", envelope.getStreamId());
+    assertEquals("PauseBreakpoint", envelope.getEventKind());
+    assertEquals(JsonParser.parseString(text), envelope.getJson());
+  }
+
+  @Test
+  public void readsFieldsInAnyOrder() throws IOException {
+    // The event comes before the method and the stream id, so it can't be skipped.
+    final String text = "{\"params\":{\"event\":{\"kind\":\"GC\"},\"streamId\":\"GC\"},\"method\":\"streamNotify\",\"jsonrpc\":\"2.0\"}";
+    final MessageEnvelope envelope = MessageEnvelope.read(text, (stream) -> false);
+    assertEquals("streamNotify", envelope.getMethod());
+    assertEquals("GC", envelope.getStreamId());
+    assertEquals("GC", envelope.getEventKind());
+    assertEquals(JsonParser.parseString(text), envelope.getJson());
+  }
+
+  @Test
+  public void doesNotSkipRequests() throws IOException {
+    final String text = "{\"id\":\"1\",\"method\":\"streamNotify\",\"params\":{\"streamId\":\"GC\",\"event\":{\"kind\":\"GC\"}}}";
+    final MessageEnvelope envelope = MessageEnvelope.read(text, (stream) -> false);
+    assertEquals("1", envelope.getId());
+    assertEquals(JsonParser.parseString(text), envelope.getJson());
+  }
+
+  @Test
+  public void ignoresNonScalarRoutingFields() throws IOException {
+    final MessageEnvelope envelope = MessageEnvelope.read("{\"id\":{\"a\":1},\"method\":null,\"params\":[1,2]}", (stream) -> true);
+    assertNull(envelope.getId());
+    assertNull(envelope.getMethod());
+    assertTrue(envelope.hasParams());
+    assertNull(envelope.getStreamId());
+    assertFalse(envelope.isResponse());
+  }
+
+  @Test
+  public void rejectsMalformedMessages() {
+    assertMalformed("");
+    assertMalformed("[]");
+    assertMalformed("\"streamNotify\"");
+    assertMalformed("{\"id\":\"1\"");
+    assertMalformed("{\"id\":\"1\",\"result\":{\"type\":}}");
+    assertMalformed("{\"method\":\"streamNotify\",\"params\":{\"streamId\":\"GC\",\"event\":{\"kind\":\"GC\"}");
+    assertMalformed("{\"id\":\"unterminated}");
+    assertMalformed("{\"id\":\"1\"} trailing");
+  }
+
+  private static void assertMalformed(String text) {
+    try {
+      MessageEnvelope.read(text, (stream) -> true);
+      fail("Expected " + text + " to be rejected");
+    }
+    catch (IOException e) {
+      // Expected.
+    }
+  }
+}
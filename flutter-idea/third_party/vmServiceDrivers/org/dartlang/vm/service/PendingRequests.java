@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service;
+
+import org.dartlang.vm.service.consumer.Consumer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The requests sent to the VM which have not been answered yet, keyed by their numeric id.
+ * <p>
+ * Once a timeout is set, every request is given a deadline; {@link #sweep(long)} removes the
+ * requests whose deadline has passed so that their consumers can be failed instead of being retained
+ * forever. There is no timeout by default, since requests to a paused isolate are legitimately left
+ * unanswered until it resumes. The registry also records per-method response latencies and the
+ * number of timed out requests.
+ */
+class PendingRequests {
+  static class Request {
+    final long id;
+    final String method;
+    final Consumer consumer;
+    final long startNanos;
+    final long deadlineNanos;
+
+    Request(long id, String method, Consumer consumer, long startNanos, long deadlineNanos) {
+      this.id = id;
+      this.method = method;
+      this.consumer = consumer;
+      this.startNanos = startNanos;
+      this.deadlineNanos = deadlineNanos;
+    }
+  }
+
+  private final Map<Long, Request> requests = new ConcurrentHashMap<>();
+  private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+  private final AtomicLong nextId = new AtomicLong();
+  private final AtomicLong timeoutCount = new AtomicLong();
+
+  private volatile long timeoutNanos;
+
+  /**
+   * Set how long a request may stay unanswered before it is timed out. A value of zero or less
+   * disables timeouts for requests registered afterwards.
+   */
+  void setTimeout(long timeout, TimeUnit unit) {
+    timeoutNanos = unit.toNanos(timeout);
+  }
+
+  boolean hasTimeout() {
+    return timeoutNanos > 0;
+  }
+
+  /**
+   * Register a new request and return its id.
+   */
+  long add(String method, Consumer consumer) {
+    final long id = nextId.incrementAndGet();
+    final long now = System.nanoTime();
+    final long timeout = timeoutNanos;
+    requests.put(id, new Request(id, method, consumer, now, timeout > 0 ? now + timeout : Long.MAX_VALUE));
+    return id;
+  }
+
+  boolean contains(String id) {
+    final long key = parseId(id);
+    return key >= 0 && requests.containsKey(key);
+  }
+
+  /**
+   * Remove the request with the given id and record its latency.
+   *
+   * @return the consumer waiting for the response, or {@code null} if there is none.
+   */
+  Consumer complete(String id) {
+    final long key = parseId(id);
+    final Request request = key < 0 ? null : requests.remove(key);
+    if (request == null) {
+      return null;
+    }
+    latencies.computeIfAbsent(request.method, (method) -> new LatencyHistogram())
+      .record(System.nanoTime() - request.startNanos);
+    return request.consumer;
+  }
+
+  /**
+   * Remove and return the requests whose deadline is before {@code nowNanos}.
+   */
+  List<Request> sweep(long nowNanos) {
+    List<Request> expired = null;
+    for (Iterator<Request> iter = requests.values().iterator(); iter.hasNext(); ) {
+      final Request request = iter.next();
+      if (request.deadlineNanos - nowNanos < 0) {
+        iter.remove();
+        if (expired == null) {
+          expired = new ArrayList<>();
+        }
+        expired.add(request);
+      }
+    }
+    if (expired == null) {
+      return List.of();
+    }
+    timeoutCount.addAndGet(expired.size());
+    return expired;
+  }
+
+  /**
+   * Remove and return all requests, for when no more responses will arrive.
+   */
+  List<Request> removeAll() {
+    final List<Request> removed = new ArrayList<>();
+    for (Iterator<Request> iter = requests.values().iterator(); iter.hasNext(); ) {
+      removed.add(iter.next());
+      iter.remove();
+    }
+    return removed;
+  }
+
+  int getInFlightCount() {
+    return requests.size();
+  }
+
+  long getTimeoutCount() {
+    return timeoutCount.get();
+  }
+
+  /**
+   * Return an upper bound of the given percentile (0 to 100) of the response latency for the given
+   * method in milliseconds, or -1 if no response for that method has been received yet.
+   */
+  long getLatencyPercentileMillis(String method, double percentile) {
+    final LatencyHistogram histogram = latencies.get(method);
+    return histogram == null ? -1 : histogram.percentileMillis(percentile);
+  }
+
+  /**
+   * Parse an id as sent by {@link #add}, returning -1 for ids which this registry did not create.
+   */
+  private static long parseId(String id) {
+    if (id == null || id.isEmpty() || id.length() > 18) {
+      return -1;
+    }
+    long value = 0;
+    for (int i = 0; i < id.length(); i++) {
+      final char c = id.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+
+  /**
+   * A histogram of latencies with power of two millisecond buckets.
+   */
+  private static class LatencyHistogram {
+    private static final int BUCKET_COUNT = 32;
+
+    /**
+     * Bucket 0 counts latencies below 1ms, bucket i counts latencies in [2^(i-1), 2^i) ms.
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+
+    void record(long nanos) {
+      final long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+      final int bucket = Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(millis));
+      buckets.incrementAndGet(bucket);
+      count.incrementAndGet();
+    }
+
+    long percentileMillis(double percentile) {
+      final long total = count.get();
+      if (total == 0) {
+        return -1;
+      }
+      final long rank = Math.max(1, (long)Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+      long seen = 0;
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        seen += buckets.get(i);
+        if (seen >= rank) {
+          return 1L << i;
+        }
+      }
+      return 1L << (BUCKET_COUNT - 1);
+    }
+  }
+}
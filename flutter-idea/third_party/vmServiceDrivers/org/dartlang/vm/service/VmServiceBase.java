@@ -23,6 +23,7 @@ import de.roderick.weberknecht.WebSocketException;
 import de.roderick.weberknecht.WebSocketMessage;
 import org.dartlang.vm.service.consumer.*;
 import org.dartlang.vm.service.element.*;
+import org.dartlang.vm.service.internal.MessageEnvelope;
 import org.dartlang.vm.service.internal.RequestSink;
 import org.dartlang.vm.service.internal.VmServiceConst;
 import org.dartlang.vm.service.internal.WebSocketRequestSink;
@@ -32,11 +33,19 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Internal {@link VmService} base class containing non-generated code.
@@ -49,6 +58,17 @@ abstract class VmServiceBase implements VmServiceConst {
    * @return an API object for interacting with the VM service (not {@code null}).
    */
   public static VmService connect(final String url) throws IOException {
+    return connect(url, 0);
+  }
+
+  /**
+   * Connect to the VM observatory service via the specified URI. If {@code sendQueueCapacity} is
+   * positive, requests are serialized and written to the socket by a dedicated thread that drains a
+   * queue of that size, rather than on the thread making the request.
+   *
+   * @return an API object for interacting with the VM service (not {@code null}).
+   */
+  public static VmService connect(final String url, int sendQueueCapacity) throws IOException {
     // Validate URL
     URI uri;
     try {
@@ -81,7 +101,9 @@ abstract class VmServiceBase implements VmServiceConst {
 
       @Override
       public void onMessage(WebSocketMessage message) {
-        Logging.getLogger().logInformation("VM message: " + message.getText());
+        if (Logging.getLogger().isInformationEnabled()) {
+          Logging.getLogger().logInformation("VM message: " + message.getText());
+        }
         try {
           vmService.processMessage(message.getText());
         } catch (Exception e) {
@@ -116,7 +138,7 @@ abstract class VmServiceBase implements VmServiceConst {
       // (de.roderick.weberknecht.WebSocket.connect, WebSocket.java:126).
       throw new IOException("Failed to connect: " + url, e);
     }
-    vmService.requestSink = new WebSocketRequestSink(webSocket);
+    vmService.requestSink = new WebSocketRequestSink(webSocket, sendQueueCapacity);
 
     // Check protocol version
     final CountDownLatch latch = new CountDownLatch(1);
@@ -165,25 +187,110 @@ abstract class VmServiceBase implements VmServiceConst {
   }
 
   /**
-   * A mapping between {@link String} ids' and the associated {@link Consumer} that was passed when
-   * the request was made. Synchronize against {@link #consumerMapLock} before accessing this field.
+   * The requests which have been sent but not yet answered, and the {@link Consumer}s that were
+   * passed when they were made.
    */
-  private final Map<String, Consumer> consumerMap = Maps.newHashMap();
+  private final PendingRequests pendingRequests = new PendingRequests();
 
   /**
-   * The object used to synchronize access to {@link #consumerMap}.
+   * A shared daemon thread used to time out requests which the VM never answers.
    */
-  private final Object consumerMapLock = new Object();
+  private static final ScheduledExecutorService timeoutExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+    final Thread thread = new Thread(r, "VM service request timeouts");
+    thread.setDaemon(true);
+    return thread;
+  });
 
   /**
-   * The unique ID for the next request.
+   * The periodic sweep of {@link #pendingRequests}, or {@code null} if it has not been started.
    */
-  private final AtomicInteger nextId = new AtomicInteger();
+  private final AtomicReference<ScheduledFuture<?>> timeoutSweep = new AtomicReference<>();
 
   /**
-   * A list of objects to which {@link Event}s from the VM are forwarded.
+   * Set once the connection is closed, after which requests are failed instead of being sent.
    */
-  private final List<VmServiceListener> vmListeners = new ArrayList<>();
+  private volatile boolean closed;
+
+  /**
+   * A listener together with the streams whose events it receives.
+   */
+  private static final class Registration {
+    final VmServiceListener listener;
+
+    /**
+     * The stream ids, or {@code null} if the listener receives the events of every stream.
+     */
+    final Set<String> streamIds;
+
+    Registration(VmServiceListener listener, Set<String> streamIds) {
+      this.listener = listener;
+      this.streamIds = streamIds;
+    }
+  }
+
+  /**
+   * An immutable routing table from stream ids to the listeners for their events, rebuilt
+   * whenever a listener is added or removed, so that forwarding an event neither locks nor copies.
+   */
+  private static final class Routes {
+    static final Routes EMPTY = new Routes(Collections.emptyList());
+
+    final List<Registration> registrations;
+
+    /**
+     * Every listener, in the order they were added.
+     */
+    final VmServiceListener[] listeners;
+
+    /**
+     * The listeners for a stream that no listener asked for by id.
+     */
+    final VmServiceListener[] allStreamListeners;
+
+    final Map<String, VmServiceListener[]> streamListeners;
+
+    Routes(List<Registration> registrations) {
+      this.registrations = registrations;
+      final List<VmServiceListener> all = new ArrayList<>();
+      final List<VmServiceListener> allStreams = new ArrayList<>();
+      final Set<String> streamIds = new HashSet<>();
+      for (Registration registration : registrations) {
+        all.add(registration.listener);
+        if (registration.streamIds == null) {
+          allStreams.add(registration.listener);
+        } else {
+          streamIds.addAll(registration.streamIds);
+        }
+      }
+      listeners = all.toArray(new VmServiceListener[0]);
+      allStreamListeners = allStreams.toArray(new VmServiceListener[0]);
+
+      final Map<String, VmServiceListener[]> byStream = new HashMap<>();
+      for (String streamId : streamIds) {
+        final List<VmServiceListener> forStream = new ArrayList<>();
+        for (Registration registration : registrations) {
+          if (registration.streamIds == null || registration.streamIds.contains(streamId)) {
+            forStream.add(registration.listener);
+          }
+        }
+        byStream.put(streamId, forStream.toArray(new VmServiceListener[0]));
+      }
+      streamListeners = byStream;
+    }
+
+    VmServiceListener[] forStream(String streamId) {
+      final VmServiceListener[] forStream = streamListeners.get(streamId);
+      return forStream != null ? forStream : allStreamListeners;
+    }
+  }
+
+  /**
+   * The objects to which {@link Event}s from the VM are forwarded. Replaced, never modified, while
+   * holding {@link #routesLock}.
+   */
+  private volatile Routes routes = Routes.EMPTY;
+
+  private final Object routesLock = new Object();
 
   /**
    * A list of objects to which {@link Event}s from the VM are forwarded.
@@ -201,14 +308,40 @@ abstract class VmServiceBase implements VmServiceConst {
    * Add a listener to receive {@link Event}s from the VM.
    */
   public void addVmServiceListener(VmServiceListener listener) {
-    vmListeners.add(listener);
+    addRegistration(new Registration(listener, null));
+  }
+
+  /**
+   * Add a listener to receive {@link Event}s from the VM on the given streams only, such as
+   * {@link VmService#EXTENSION_STREAM_ID}. The listener is still told when the connection opens
+   * and closes.
+   */
+  public void addVmServiceListener(Collection<String> streamIds, VmServiceListener listener) {
+    addRegistration(new Registration(listener, Collections.unmodifiableSet(new HashSet<>(streamIds))));
+  }
+
+  private void addRegistration(Registration registration) {
+    synchronized (routesLock) {
+      final List<Registration> registrations = new ArrayList<>(routes.registrations);
+      registrations.add(registration);
+      routes = new Routes(registrations);
+    }
   }
 
   /**
    * Remove the given listener from the VM.
    */
   public void removeVmServiceListener(VmServiceListener listener) {
-    vmListeners.remove(listener);
+    synchronized (routesLock) {
+      final List<Registration> registrations = new ArrayList<>(routes.registrations);
+      for (int i = 0; i < registrations.size(); i++) {
+        if (registrations.get(i).listener.equals(listener)) {
+          registrations.remove(i);
+          routes = new Routes(registrations);
+          return;
+        }
+      }
+    }
   }
 
   /**
@@ -232,11 +365,45 @@ abstract class VmServiceBase implements VmServiceConst {
     return runtimeVersion;
   }
 
+  /**
+   * Set how long a request may stay unanswered before its consumer is failed with an
+   * {@link RPCError} with code {@link RPCError#REQUEST_TIMED_OUT}. A value of zero or less disables
+   * the timeout for requests made afterwards. There is no timeout by default; note that requests to
+   * a paused isolate, such as service extension calls, are not answered until it resumes.
+   */
+  public void setRequestTimeout(long timeout, TimeUnit unit) {
+    pendingRequests.setTimeout(timeout, unit);
+  }
+
+  /**
+   * Return the number of requests which have been sent but not yet answered.
+   */
+  public int getPendingRequestCount() {
+    return pendingRequests.getInFlightCount();
+  }
+
+  /**
+   * Return the number of requests which were timed out because the VM did not answer them.
+   */
+  public long getTimedOutRequestCount() {
+    return pendingRequests.getTimeoutCount();
+  }
+
+  /**
+   * Return an upper bound of the given percentile (0 to 100) of the response latency for requests
+   * of the given method in milliseconds, or -1 if no such request has been answered yet.
+   */
+  public long getRequestLatencyMillis(String method, double percentile) {
+    return pendingRequests.getLatencyPercentileMillis(method, percentile);
+  }
+
   /**
    * Disconnect from the VM observatory service.
    */
   public void disconnect() {
+    stopTimeoutSweep();
     requestSink.close();
+    failPendingRequests();
   }
 
   /**
@@ -321,8 +488,20 @@ abstract class VmServiceBase implements VmServiceConst {
    */
   protected void request(String method, JsonObject params, Consumer consumer) {
 
+    // Cache the consumer to receive the response
+    String id = Long.toString(pendingRequests.add(method, consumer));
+    if (closed) {
+      // The connection closed before the request was registered, so nothing else will fail it.
+      if (pendingRequests.complete(id) != null) {
+        consumer.onError(RPCError.connectionClosed(method));
+      }
+      return;
+    }
+    if (pendingRequests.hasTimeout()) {
+      startTimeoutSweep();
+    }
+
     // Assemble the request
-    String id = Integer.toString(nextId.incrementAndGet());
     JsonObject request = new JsonObject();
 
     request.addProperty(JSONRPC, JSONRPC_VERSION);
@@ -330,17 +509,57 @@ abstract class VmServiceBase implements VmServiceConst {
     request.addProperty(METHOD, method);
     request.add(PARAMS, params);
 
-    // Cache the consumer to receive the response
-    synchronized (consumerMapLock) {
-      consumerMap.put(id, consumer);
-    }
-
     // Send the request
     requestSink.add(request);
   }
 
+  private void startTimeoutSweep() {
+    if (timeoutSweep.get() != null) {
+      return;
+    }
+    final ScheduledFuture<?> sweep = timeoutExecutor.scheduleWithFixedDelay(
+        this::timeOutRequests, 1, 1, TimeUnit.SECONDS);
+    if (!timeoutSweep.compareAndSet(null, sweep)) {
+      sweep.cancel(false);
+    }
+  }
+
+  private void stopTimeoutSweep() {
+    final ScheduledFuture<?> sweep = timeoutSweep.get();
+    if (sweep != null) {
+      sweep.cancel(false);
+    }
+  }
+
+  private void timeOutRequests() {
+    for (PendingRequests.Request request : pendingRequests.sweep(System.nanoTime())) {
+      final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - request.startNanos);
+      Logging.getLogger().logInformation("Request timed out: " + request.method + ", " + ID + ": " + request.id);
+      try {
+        request.consumer.onError(RPCError.timeout(request.method, elapsed));
+      } catch (Exception e) {
+        Logging.getLogger().logError("Exception notifying consumer of timeout", e);
+      }
+    }
+  }
+
+  /**
+   * Fail every request that has not been answered, since no responses arrive once the connection
+   * is closed.
+   */
+  private void failPendingRequests() {
+    closed = true;
+    for (PendingRequests.Request request : pendingRequests.removeAll()) {
+      try {
+        request.consumer.onError(RPCError.connectionClosed(request.method));
+      } catch (Exception e) {
+        Logging.getLogger().logError("Exception notifying consumer of closed connection", e);
+      }
+    }
+  }
+
   public void connectionOpened() {
-    for (VmServiceListener listener : new ArrayList<>(vmListeners)) {
+    for (VmServiceListener listener : routes.listeners) {
       try {
         listener.connectionOpened();
       } catch (Exception e) {
@@ -350,7 +569,7 @@ abstract class VmServiceBase implements VmServiceConst {
   }
 
   private void forwardEvent(String streamId, Event event) {
-    for (VmServiceListener listener : new ArrayList<>(vmListeners)) {
+    for (VmServiceListener listener : routes.forStream(streamId)) {
       try {
         listener.received(streamId, event);
       } catch (Exception e) {
@@ -360,7 +579,13 @@ abstract class VmServiceBase implements VmServiceConst {
   }
 
   public void connectionClosed() {
-    for (VmServiceListener listener : new ArrayList<>(vmListeners)) {
+    stopTimeoutSweep();
+    // Stop the sink's writer thread, which would otherwise wait for requests forever.
+    if (requestSink != null) {
+      requestSink.close();
+    }
+    failPendingRequests();
+    for (VmServiceListener listener : routes.listeners) {
       try {
         listener.connectionClosed();
       } catch (Exception e) {
@@ -391,17 +616,17 @@ abstract class VmServiceBase implements VmServiceConst {
       return;
     }
 
-    // Decode the JSON
-    JsonObject json;
+    // Decode the JSON, skipping the events of streams nobody listens to.
+    MessageEnvelope envelope;
     try {
-      json = (JsonObject) new JsonParser().parse(jsonText);
+      envelope = MessageEnvelope.read(jsonText, this::hasListenerFor);
     } catch (Exception e) {
       Logging.getLogger().logError("Parse message failed: " + jsonText, e);
       return;
     }
 
-    if (json.has("method")) {
-      if (!json.has(PARAMS)) {
+    if (envelope.getMethod() != null) {
+      if (!envelope.hasParams()) {
         final String message = "Missing " + PARAMS;
         Logging.getLogger().logError(message);
         final JsonObject response = new JsonObject();
@@ -413,16 +638,57 @@ abstract class VmServiceBase implements VmServiceConst {
         requestSink.add(response);
         return;
       }
-      if (json.has("id")) {
-        processRequest(json);
-      } else {
-        processNotification(json);
+      if (envelope.getId() == null && "streamNotify".equals(envelope.getMethod())
+          && envelope.getStreamId() != null && !hasListenerFor(envelope.getStreamId())) {
+        if (Logging.getLogger().isInformationEnabled()) {
+          Logging.getLogger().logInformation(
+              "Ignored event: " + envelope.getStreamId() + ", " + envelope.getEventKind());
+        }
+        return;
+      }
+    } else if (envelope.isResponse()) {
+      if (envelope.getId() != null && !hasConsumerFor(envelope.getId())) {
+        Logging.getLogger().logError("No consumer associated with " + ID + ": " + envelope.getId());
+        return;
       }
-    } else if (json.has("result") || json.has("error")) {
-      processResponse(json);
     } else {
       Logging.getLogger().logError("Malformed message");
+      return;
+    }
+
+    JsonObject json = envelope.getJson();
+    if (json == null) {
+      // The event was skipped, but a listener for its stream has been added since, or the message
+      // turned out to be a request.
+      try {
+        json = JsonParser.parseString(jsonText).getAsJsonObject();
+      } catch (Exception e) {
+        Logging.getLogger().logError("Parse message failed: " + jsonText, e);
+        return;
+      }
     }
+
+    if (envelope.getMethod() == null) {
+      processResponse(json);
+    } else if (envelope.getId() != null) {
+      processRequest(json);
+    } else {
+      processNotification(json);
+    }
+  }
+
+  /**
+   * Return whether an event on the given stream would reach at least one listener.
+   */
+  boolean hasListenerFor(String streamId) {
+    return routes.forStream(streamId).length > 0;
+  }
+
+  /**
+   * Return whether a consumer is waiting for the response with the given id.
+   */
+  boolean hasConsumerFor(String id) {
+    return pendingRequests.contains(id);
   }
 
   void processRequest(JsonObject json) {
@@ -591,7 +857,7 @@ abstract class VmServiceBase implements VmServiceConst {
       Logging.getLogger().logError("Response missing " + ID, e);
       return;
     }
-    Consumer consumer = consumerMap.remove(id);
+    Consumer consumer = pendingRequests.complete(id);
     if (consumer == null) {
       Logging.getLogger().logError("No consumer associated with " + ID + ": " + id);
       return;
@@ -59,6 +59,39 @@ public class RPCError extends Element implements VmServiceConst {
    */
   public static final int UNEXPECTED_RESPONSE = 5;
 
+  /**
+   * The response code used by the client when the server did not answer a request in time.
+   */
+  public static final int REQUEST_TIMED_OUT = 6;
+
+  /**
+   * The response code used by the client when the connection to the server was closed before a
+   * request was answered.
+   */
+  public static final int CONNECTION_CLOSED = 7;
+
+  public static RPCError timeout(String method, long elapsedMillis) {
+    String errMsg = "No response to " + method + " after " + elapsedMillis + "ms";
+    JsonObject json = new JsonObject();
+    json.addProperty("code", REQUEST_TIMED_OUT);
+    json.addProperty("message", errMsg);
+    JsonObject data = new JsonObject();
+    data.addProperty("details", errMsg);
+    json.add("data", data);
+    return new RPCError(json);
+  }
+
+  public static RPCError connectionClosed(String method) {
+    String errMsg = "Connection closed before " + method + " was answered";
+    JsonObject json = new JsonObject();
+    json.addProperty("code", CONNECTION_CLOSED);
+    json.addProperty("message", errMsg);
+    JsonObject data = new JsonObject();
+    data.addProperty("details", errMsg);
+    json.add("data", data);
+    return new RPCError(json);
+  }
+
   public static RPCError unexpected(String expectedType, Response response) {
     String errMsg = "Expected type " + expectedType + " but received " + response.getType();
     if (response instanceof Sentinel) {
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.internal;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.function.Predicate;
+
+/**
+ * A message received from the VM service, decoded in one pass with a streaming {@link JsonReader}.
+ * <p>
+ * The routing fields {@code id}, {@code method}, {@code params.streamId} and
+ * {@code params.event.kind} are recorded while the message is decoded into a {@link JsonObject}. The
+ * event of a {@code streamNotify} notification for a stream nobody listens to is skipped without
+ * being materialized, provided {@code method} and {@code params.streamId} come before it, as they
+ * do in the messages the VM sends.
+ */
+public class MessageEnvelope implements VmServiceConst {
+  private static final String STREAM_NOTIFY = "streamNotify";
+
+  private String id;
+  private String method;
+  private boolean hasParams;
+  private boolean hasResult;
+  private boolean hasError;
+  private String streamId;
+  private String eventKind;
+  private boolean eventSkipped;
+  private JsonObject json;
+
+  private MessageEnvelope() {
+  }
+
+  /**
+   * Decode the given message.
+   *
+   * @param isStreamWanted whether events on the given stream have a listener; the events of other
+   *                       streams are skipped where possible
+   * @throws IOException if the text is not a well formed JSON object
+   */
+  public static MessageEnvelope read(String jsonText, Predicate<String> isStreamWanted) throws IOException {
+    final MessageEnvelope envelope = new MessageEnvelope();
+    final JsonObject json = new JsonObject();
+    try (JsonReader reader = new JsonReader(new StringReader(jsonText))) {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        final String name = reader.nextName();
+        if (envelope.eventSkipped) {
+          reader.skipValue();
+          continue;
+        }
+        final JsonElement value;
+        switch (name) {
+          case ID:
+            value = JsonParser.parseReader(reader);
+            envelope.id = asScalar(value);
+            break;
+          case METHOD:
+            value = JsonParser.parseReader(reader);
+            envelope.method = asScalar(value);
+            break;
+          case PARAMS:
+            envelope.hasParams = true;
+            value = envelope.readParams(reader, isStreamWanted);
+            break;
+          case RESULT:
+            envelope.hasResult = true;
+            value = JsonParser.parseReader(reader);
+            break;
+          case ERROR:
+            envelope.hasError = true;
+            value = JsonParser.parseReader(reader);
+            break;
+          default:
+            value = JsonParser.parseReader(reader);
+            break;
+        }
+        if (value != null) {
+          json.add(name, value);
+        }
+      }
+      reader.endObject();
+      if (reader.peek() != JsonToken.END_DOCUMENT) {
+        throw new IOException("Unexpected content after the message");
+      }
+    }
+    catch (IllegalStateException | NumberFormatException | JsonParseException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+    if (!envelope.eventSkipped) {
+      envelope.json = json;
+    }
+    return envelope;
+  }
+
+  /**
+   * Read the params at the current position, returning {@code null} if the event was skipped.
+   */
+  private JsonElement readParams(JsonReader reader, Predicate<String> isStreamWanted) throws IOException {
+    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+      return JsonParser.parseReader(reader);
+    }
+    final JsonObject params = new JsonObject();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      final String name = reader.nextName();
+      if (eventSkipped) {
+        reader.skipValue();
+        continue;
+      }
+      if (EVENT.equals(name) && id == null && STREAM_NOTIFY.equals(method) && streamId != null
+          && !isStreamWanted.test(streamId)) {
+        eventSkipped = true;
+        reader.skipValue();
+        continue;
+      }
+      final JsonElement value = JsonParser.parseReader(reader);
+      if (STREAM_ID.equals(name)) {
+        streamId = asScalar(value);
+      }
+      else if (EVENT.equals(name) && value.isJsonObject()) {
+        eventKind = asScalar(value.getAsJsonObject().get("kind"));
+      }
+      params.add(name, value);
+    }
+    reader.endObject();
+    return eventSkipped ? null : params;
+  }
+
+  /**
+   * Return the string or number value of the given element, or {@code null} if it is of any other
+   * type.
+   */
+  private static String asScalar(JsonElement value) {
+    if (value instanceof JsonPrimitive) {
+      final JsonPrimitive primitive = (JsonPrimitive)value;
+      if (primitive.isString() || primitive.isNumber()) {
+        return primitive.getAsString();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * The decoded message, or {@code null} if its event was skipped because nobody listens to its
+   * stream.
+   */
+  public JsonObject getJson() {
+    return json;
+  }
+
+  /**
+   * The request or response id, or {@code null} if there is none.
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * The method of a request or notification, or {@code null} for a response.
+   */
+  public String getMethod() {
+    return method;
+  }
+
+  public boolean hasParams() {
+    return hasParams;
+  }
+
+  public boolean isResponse() {
+    return method == null && (hasResult || hasError);
+  }
+
+  /**
+   * The {@code params.streamId} of a {@code streamNotify} notification, or {@code null}.
+   */
+  public String getStreamId() {
+    return streamId;
+  }
+
+  /**
+   * The {@code params.event.kind} of a {@code streamNotify} notification, or {@code null}.
+   */
+  public String getEventKind() {
+    return eventKind;
+  }
+}
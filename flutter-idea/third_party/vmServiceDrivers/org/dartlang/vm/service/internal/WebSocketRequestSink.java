@@ -16,36 +16,177 @@ package org.dartlang.vm.service.internal;
 import com.google.gson.JsonObject;
 import de.roderick.weberknecht.WebSocket;
 import de.roderick.weberknecht.WebSocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import org.dartlang.vm.service.logging.Logging;
 
 /**
  * An {@link WebSocket} based implementation of {@link RequestSink}.
+ * <p>
+ * By default requests are serialized and sent on the thread that adds them. A sink created with a
+ * queue capacity instead hands requests to a dedicated writer thread, which drains every request
+ * queued since its last wake-up and sends them in order, so that callers are not blocked by a slow
+ * socket or a large request. Callers only wait when the queue is full.
+ * <p>
+ * Closing the sink lets the writer send the requests that are already queued, unless the queue is
+ * full, in which case they are dropped. Requests added once the sink is closed are dropped, and
+ * callers waiting for room in the queue give up; every dropped request is logged.
  */
 public class WebSocketRequestSink implements RequestSink {
 
-  private WebSocket webSocket;
+  /**
+   * Queued after the last request to tell the writer thread to close the socket.
+   */
+  private static final JsonObject CLOSE = new JsonObject();
+
+  /**
+   * How often a caller waiting for room in the queue checks whether the sink was closed.
+   */
+  private static final long CLOSED_POLL_MILLIS = 100;
+
+  private volatile WebSocket webSocket;
+
+  /**
+   * The requests waiting for the writer thread, or {@code null} if requests are sent on the
+   * caller's thread.
+   */
+  private final BlockingQueue<JsonObject> queue;
+
+  private final Thread writer;
+
+  private volatile boolean closed;
+
+  /**
+   * Set by the writer thread once it has stopped taking requests from the queue.
+   */
+  private volatile boolean writerStopped;
 
   public WebSocketRequestSink(WebSocket webSocket) {
+    this(webSocket, 0);
+  }
+
+  /**
+   * Create a sink that sends requests from a dedicated writer thread if {@code queueCapacity} is
+   * positive, or on the caller's thread otherwise. Requests must not be modified once added.
+   */
+  public WebSocketRequestSink(WebSocket webSocket, int queueCapacity) {
     this.webSocket = webSocket;
+    if (queueCapacity > 0) {
+      queue = new ArrayBlockingQueue<>(queueCapacity);
+      writer = new Thread(this::drainQueue, "VM service request writer");
+      writer.setDaemon(true);
+      writer.start();
+    } else {
+      queue = null;
+      writer = null;
+    }
   }
 
   @Override
   public void add(JsonObject json) {
-    String request = json.toString();
-    if (webSocket == null) {
-      Logging.getLogger().logInformation("Dropped: " + request);
+    if (queue == null) {
+      send(json);
+      return;
+    }
+    if (closed) {
+      logDropped(json);
       return;
     }
-    Logging.getLogger().logInformation("Sent: " + request);
     try {
-      webSocket.send(request);
-    } catch (WebSocketException e) {
-      Logging.getLogger().logError("Failed to send request: " + request, e);
+      while (!queue.offer(json, CLOSED_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+        if (closed) {
+          logDropped(json);
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logDropped(json);
+      return;
+    }
+    // Nothing is sent once the writer has stopped, so drop this request and anything else that
+    // was added after the writer's last look at the queue.
+    if (writerStopped) {
+      dropQueued();
     }
   }
 
   @Override
   public void close() {
+    if (queue == null) {
+      closeWebSocket();
+      return;
+    }
+    closed = true;
+    // Let the writer send what is already queued, unless that would mean waiting for room.
+    while (!queue.offer(CLOSE)) {
+      dropQueued();
+    }
+  }
+
+  private void drainQueue() {
+    final List<JsonObject> batch = new ArrayList<>();
+    try {
+      while (true) {
+        batch.add(queue.take());
+        queue.drainTo(batch);
+        for (JsonObject json : batch) {
+          if (json == CLOSE) {
+            return;
+          }
+          send(json);
+        }
+        batch.clear();
+      }
+    } catch (InterruptedException e) {
+      // Not expected; stop as if the sink was closed.
+    } finally {
+      writerStopped = true;
+      closeWebSocket();
+      dropQueued();
+    }
+  }
+
+  /**
+   * Remove and log the requests in the queue, which makes room for callers waiting to add one.
+   */
+  private void dropQueued() {
+    final List<JsonObject> dropped = new ArrayList<>();
+    queue.drainTo(dropped);
+    for (JsonObject json : dropped) {
+      if (json != CLOSE) {
+        logDropped(json);
+      }
+    }
+  }
+
+  private void send(JsonObject json) {
+    final WebSocket socket = webSocket;
+    if (socket == null) {
+      logDropped(json);
+      return;
+    }
+    String request = json.toString();
+    if (Logging.getLogger().isInformationEnabled()) {
+      Logging.getLogger().logInformation("Sent: " + request);
+    }
+    try {
+      socket.send(request);
+    } catch (WebSocketException e) {
+      Logging.getLogger().logError("Failed to send request: " + request, e);
+    }
+  }
+
+  private void logDropped(JsonObject json) {
+    if (Logging.getLogger().isInformationEnabled()) {
+      Logging.getLogger().logInformation("Dropped: " + json);
+    }
+  }
+
+  private synchronized void closeWebSocket() {
     if (webSocket != null) {
       try {
         webSocket.close();